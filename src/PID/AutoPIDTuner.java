@@ -2,15 +2,18 @@ package PID;
 
 import java.sql.Date;
 import java.util.ArrayList;
-import java.util.Random;
 
 import comms.DebugMode;
 import comms.FileLoader;
 import comms.SmartWriter;
 import robot.IControl;
+import robotDefinitions.RobotName;
+import simulation.Simulation;
 
 /**
- * A class used for automatically tuning PID loops using an evolutionary
+ * A class used for automatically tuning PID loops. Each set of PID values is
+ * tested on the tunable (up to 3 times, and the average is used), and a
+ * TuningStrategy picks what to test next. By default that is an evolutionary
  * strategy with semi-intelligent improvement, once some improvement has been
  * made.
  * 
@@ -39,7 +42,7 @@ public class AutoPIDTuner extends IControl {
 	 * The error tolerance. The loop will count as being complete when the error
 	 * is less than this for maxErrorSafeCounter frames
 	 */
-	private final double minError=3;
+	private double minError=3;
 
 	/**
 	 * The counter and required frames counting how long the tunable has been
@@ -47,6 +50,50 @@ public class AutoPIDTuner extends IControl {
 	 */
 	private int errorSafeCounter, maxErrorSafeCounter=40;
 
+	/**
+	 * The PID values to start tuning from, or null to start from the defaults
+	 */
+	private PIDValues startingPIDValues;
+
+	/**
+	 * Picks the PID values to try. EvolutionaryStrategy by default.
+	 */
+	private TuningStrategy strategy;
+
+	/**
+	 * If not null, this is run first to find the starting PID values
+	 */
+	private RelayAutoTuner relay;
+	private RelayAutoTuner.TuningRule relayRule;
+
+	/**
+	 * Scores each run, or null to score runs by the number of frames they took
+	 */
+	private TuningCost cost;
+
+	/**
+	 * True once the current run has started being scored
+	 */
+	private boolean runStarted;
+
+	/**
+	 * Records every run, or null to not record them
+	 */
+	private TrialLog trialLog;
+
+	/**
+	 * Where in the GainStore to start from and save to, or null to not use
+	 * it
+	 */
+	private RobotName gainRobot;
+	private String gainMechanism, gainMode;
+	private boolean gainsSaved;
+
+	/**
+	 * How long a frame is, in seconds, for the TuningCost
+	 */
+	private double secondsPerFrame=Simulation.TICK_MILLIS/1000.0;
+
 	/**
 	 * The number of frames that this loop has used, and the number of frames
 	 * that can be used before these PID values are marked unsuccessful.
@@ -54,9 +101,11 @@ public class AutoPIDTuner extends IControl {
 	private int currentTuneCounter, maxTuneCounter=300;
 
 	/**
-	 * The number of frames the best PID values took to run
+	 * The number of frames the best PID values took to run, and their score
+	 * (the same as the frames, unless there is a TuningCost)
 	 */
 	private int bestTuneTime;
+	private double bestScore;
 
 	/**
 	 * The number the last run (not necessarily the best) took to run, which is
@@ -64,32 +113,23 @@ public class AutoPIDTuner extends IControl {
 	 */
 	private int lastTuneCounter;
 
-	/**
-	 * The change in kp, ki, and kd to make the last random PID values, which
-	 * will continue to be used if they make things better.
-	 */
-	private double dp, di, dd;
-
 	/**
 	 * The number of PID values tried, and the max number to be tried,
 	 * respectively.
 	 */
 	private int timesTried, maxTries=100;
 
-	/**
-	 * A counter that is used to see what stat is changed
-	 */
-	private int ceterusPluribusCounter=-1;
-
 	/**
 	 * An array list of strings that will be logged after <i>maxTries</i>
-	 * trials.
+	 * trials, with a "kp,ki,kd,score" line for each set of PID values tested.
 	 */
 	private ArrayList<String> toWrite;
+	private boolean historyWritten;
 
 	private Date startTime;
 
 	private int firstTry=-1, secondTry=-1;
+	private double firstScore, secondScore;
 	private int testOf3=0;
 
 	/**
@@ -100,6 +140,7 @@ public class AutoPIDTuner extends IControl {
 	 */
 	public AutoPIDTuner(AutoPIDTunable toTune) {
 		this.toTune=toTune;
+		strategy=new EvolutionaryStrategy();
 		SmartWriter.putB("AutoPIDRandomTest", false, DebugMode.DEBUG);
 	}
 
@@ -116,7 +157,7 @@ public class AutoPIDTuner extends IControl {
 	 */
 	public AutoPIDTuner(AutoPIDTunable toTune, double kpStarting, double kiStarting, double kdStarting) {
 		this(toTune);
-		testingPIDValues=bestPIDValues=new PIDValues(kpStarting, kiStarting, kdStarting);
+		testingPIDValues=bestPIDValues=startingPIDValues=new PIDValues(kpStarting, kiStarting, kdStarting);
 	}
 
 	/**
@@ -131,6 +172,110 @@ public class AutoPIDTuner extends IControl {
 		this(toTune, startingPIDValues.kp, startingPIDValues.ki, startingPIDValues.kd);
 	}
 
+	/**
+	 * The constructor for AutoPIDTuner, which passes in what needs to be tuned,
+	 * the startingPIDValues, and the seed for EvolutionaryStrategy's random
+	 * variants, so the same run can be done again (like in
+	 * HeadlessTuningEngine).
+	 * 
+	 * @param toTune
+	 * @param startingPIDValues
+	 * @param seed
+	 */
+	public AutoPIDTuner(AutoPIDTunable toTune, PIDValues startingPIDValues, long seed) {
+		this(toTune, startingPIDValues);
+		strategy=new EvolutionaryStrategy(seed);
+	}
+
+	/**
+	 * Sets how the PID values to try are picked. This should be called before
+	 * autonomousInit.
+	 */
+	public void setStrategy(TuningStrategy strategy) {
+		this.strategy=strategy;
+	}
+
+	/**
+	 * Makes the tuner score runs with <i>cost</i> instead of the number of
+	 * frames they took. Runs still end once they have settled (see
+	 * setTolerance) or run out of frames. The strategy is still told how
+	 * many frames each run took (see TuningStrategy.report), and the default
+	 * EvolutionaryStrategy sizes its steps by that and not by the cost, so
+	 * any cost works with it. This should be called before autonomousInit.
+	 * 
+	 * @param cost
+	 *            The cost to use, or null to go back to counting frames
+	 * @param secondsPerFrame
+	 *            How long each frame is (0.02 on the robot)
+	 */
+	public void setCost(TuningCost cost, double secondsPerFrame) {
+		this.cost=cost;
+		this.secondsPerFrame=secondsPerFrame;
+	}
+
+	/**
+	 * Makes the tuner record every run (its PID values, every frame, and its
+	 * score) in <i>trialLog</i>. The tuner doesn't close it. This should be
+	 * called before autonomousInit.
+	 */
+	public void setTrialLog(TrialLog trialLog) {
+		this.trialLog=trialLog;
+	}
+
+	/**
+	 * Makes the tuner start from the newest values in the GainStore for this
+	 * key (if there are any), and save the best values it finds there when it
+	 * is done or disabled. Commands that load their values from the same key
+	 * will use them from then on. This should be called before
+	 * autonomousInit.
+	 */
+	public void setGainStoreKey(RobotName robot, String mechanism, String mode) {
+		gainRobot=robot;
+		gainMechanism=mechanism;
+		gainMode=mode;
+	}
+
+	/**
+	 * Makes tuning start with a relay run, and start the strategy from the
+	 * values it finds instead of the starting values. If the relay run
+	 * doesn't find a steady swing, the starting values are used. This should
+	 * be called before autonomousInit.
+	 * 
+	 * @param relay
+	 *            The relay tuner, made with the same tunable
+	 * @param rule
+	 *            How to turn what it measures into PID values
+	 */
+	public void setRelaySeed(RelayAutoTuner relay, RelayAutoTuner.TuningRule rule) {
+		this.relay=relay;
+		relayRule=rule;
+	}
+
+	/**
+	 * Sets how close is close enough. The default is within 3 (degrees, for
+	 * the navX) for 40 frames.
+	 * 
+	 * @param minError
+	 *            The error has to be less than this to count
+	 * @param frames
+	 *            How many frames in a row it has to count for the test to be
+	 *            done
+	 */
+	public void setTolerance(double minError, int frames) {
+		this.minError=minError;
+		maxErrorSafeCounter=frames;
+	}
+
+	/**
+	 * Sets how many tests to run (100 by default, and each set of PID values
+	 * takes up to 3) and how many frames each one gets before it counts as a
+	 * failure (300 by default)
+	 */
+	public void setLimits(int maxTries, int maxTuneCounter) {
+		this.maxTries=maxTries;
+		this.maxTuneCounter=maxTuneCounter;
+	}
+
 	/**
 	 * This needs to be called once a frame or update cycle or everything will
 	 * break.
@@ -141,24 +286,30 @@ public class AutoPIDTuner extends IControl {
 	}
 
 	/**
-	 * <h1>Evolutionary PID Tuning Pro Strat:</h1> <br>
-	 * Start with <.1, 0, 0>, or whatever it says at the top<br>
-	 * Test and record time <br>
-	 * <br>
-	 * Change one number a little bit.<br>
-	 * Test and record the new time <br>
-	 * <br>
-	 * If the new one is better, start from there and keep doing the same thing,
-	 * <br>
-	 * otherwise, try another random mutation <br>
+	 * Runs the current test for one frame, and once it is finished, tells the
+	 * strategy how it went and starts the next one. See EvolutionaryStrategy
+	 * for how the default strategy picks values.
 	 */
 	private void tunePID() {
 		if (doneTesting()) return;
+		if (relay!=null&&!relay.isDone()) {
+			relay.update();
+			if (relay.isDone()) startFromRelay();
+			return;
+		}
 		if (!toTune.getResetFinished()) return;
+		if (!runStarted) {
+			runStarted=true;
+			if (cost!=null) cost.start(toTune.getError());
+			if (trialLog!=null) trialLog.startRun(testingPIDValues);
+		}
 
 		currentTuneCounter++;
 		checkError();
 		if (errorSafeCounter>=maxErrorSafeCounter||currentTuneCounter>=maxTuneCounter) {
+			// every run that was started is ended in the log, even ones that
+			// aren't given to the strategy
+			if (trialLog!=null) trialLog.endRun(cost!=null?cost.getCost():currentTuneCounter);
 			if (shouldStartRandomTest()) {
 				startRandomTest();
 			}
@@ -178,10 +329,9 @@ public class AutoPIDTuner extends IControl {
 	 * running.
 	 */
 	public void disabledInit() {
-		String total="";
-		total+="Best PID Values: "+bestPIDValues.toString()+"\n";
-		total+="Best Tune Time: "+bestTuneTime+"\n";
-		FileLoader.writeToFile("/home/lvuser/AutoPIDHistory"+startTime.toString()+".txt", total);
+		saveBest();
+		String total="Best PID Values: "+bestPIDValues.toString()+"\n"+"Best Tune Time: "+bestTuneTime+"\n";
+		FileLoader.writeToFileLater("/home/lvuser/AutoPIDHistory"+startTime.toString()+".txt", total);
 		SmartWriter.putS("Sent file", "fdjkdf", DebugMode.DEBUG);
 		/*
 		 * if (AutoPIDTesterWindow.shouldSetValues&&AutoPIDTesterWindow.window!=
@@ -203,87 +353,6 @@ public class AutoPIDTuner extends IControl {
 		}
 	}
 
-	/**
-	 * Makes a slight variant of the current PID values which will be tried next
-	 * in evolutionary tuning.<br>
-	 * It also stores the change made to kp, ki, and kd in dp, di, and dd
-	 * 
-	 * @param lastValues
-	 *            The PIDValues that the variant will be based on.
-	 * @return A variant of <i>lastValues</i> with a slight random change to
-	 *         each constant
-	 */
-	private PIDValues getVariant(PIDValues lastValues) {
-		Random r=new Random();
-
-		if (timesTried<20) {// r.nextInt(2)==0) {
-			return getCeterusParibusVarient(lastValues);
-		}
-
-		double divider=bestTuneTime/300.0*.05;// 3;// Math.log(timesTried+2);
-		dp=Math.pow(r.nextDouble()-0.5, 3)*4*divider;
-		di=Math.pow(r.nextDouble()-0.5, 3)/4*divider;
-		dd=Math.pow(r.nextDouble()-0.5, 3)*40*divider;
-
-		return new PIDValues(Math.max(lastValues.kp+dp, 0), Math.max(lastValues.ki+di, 0),
-				Math.max(Math.min(lastValues.kd+dd, Math.max(lastValues.kp+dp, 0)), 0));
-	}
-
-	/**
-	 * Gets a variant of the last PID values which IS NOT randomized. It changes
-	 * only one variable, depending on how many times this method has been
-	 * called in the past
-	 * 
-	 * @param lastValues
-	 *            The PID values that a small adjustment should be made to
-	 * @return The adjusted PID values
-	 */
-	private PIDValues getCeterusParibusVarient(PIDValues lastValues) {
-		ceterusPluribusCounter++;
-		dp=di=dd=0;
-		switch (ceterusPluribusCounter) {
-		case 0:
-			dp=0.005;
-			break;
-		case 1:
-			di=0.0005;
-			break;
-		case 2:
-			dd=0.1;
-			break;
-		case 3:
-			dp=-0.005;
-			break;
-		case 4:
-			di=-0.0005;
-			break;
-		case 5:
-			dd=-0.1;
-			break;
-		default:
-			ceterusPluribusCounter=-1;
-			return getCeterusParibusVarient(lastValues);// YAY FOR RECURSION!
-		}
-
-		return new PIDValues(Math.max(lastValues.kp+dp, 0), Math.max(lastValues.ki+di, 0),
-				Math.max(lastValues.kd+dd, 0));
-	}
-
-	/**
-	 * If the last PID values were super great, then this can be called to
-	 * continue the pattern they started. This is useful because it drastically
-	 * speeds up evolution once randomness is onto something.
-	 * 
-	 * @param lastValues
-	 *            The previously used values that were good, which will be
-	 *            extrapolated from
-	 * @return The new PID values which are extrapolated from <i>lastValues</i>
-	 */
-	private PIDValues extrapolate(PIDValues lastValues) {
-		return new PIDValues(Math.max(lastValues.kp+dp, 0), Math.max(lastValues.ki+di, 0),
-				Math.max(lastValues.kd+dd, 0));
-	}
-
 	/**
 	 * Checks to see if the maximum number of tests have been performed. <br>
 	 * If they have, the data in <i>toWrite</i> is writen in the .csv file.
@@ -293,12 +362,15 @@ public class AutoPIDTuner extends IControl {
 	 */
 	private boolean doneTesting() {
 		if (timesTried>maxTries) {
+			if (historyWritten) return true;
+			historyWritten=true;
+			if (Simulation.isEnabled()) return true;// not on the robot, so nowhere to write it
 			System.out.println("done.");
-			String total="";
+			StringBuilder total=new StringBuilder();
 			for (String s : toWrite) {
-				total+=s+"\n";
+				total.append(s).append('\n');
 			}
-			FileLoader.writeToFile("/home/lvuser/AutoPIDHistory"+startTime.toString()+".txt", total);
+			FileLoader.writeToFileLater("/home/lvuser/AutoPIDHistory"+startTime.toString()+".txt", total.toString());
 			return true;
 		}
 		return false;
@@ -311,6 +383,8 @@ public class AutoPIDTuner extends IControl {
 	private void startNewTest() {
 		toTune.startReset(testOf3);
 		timesTried++;
+		runStarted=false;
+		if (timesTried>maxTries) saveBest();
 	}
 
 	private void startRandomTest() {
@@ -319,6 +393,7 @@ public class AutoPIDTuner extends IControl {
 		errorSafeCounter=0;
 		pidController.setValues(bestPIDValues);
 		toTune.setToRandomState();
+		runStarted=false;
 	}
 
 	/**
@@ -337,10 +412,16 @@ public class AutoPIDTuner extends IControl {
 			return;
 		}
 		
+		double score=cost!=null?cost.getCost():currentTuneCounter;
 		if (testOf3==0) {
 			testOf3=1;
-			if (currentTuneCounter<bestTuneTime) {
+			if (score<bestScore) {
 				firstTry=currentTuneCounter;
+				firstScore=score;
+				pidController.resetError();
+				lastTuneCounter=currentTuneCounter;
+				currentTuneCounter=0;
+				errorSafeCounter=0;
 				return;
 			}
 			else {
@@ -352,6 +433,7 @@ public class AutoPIDTuner extends IControl {
 			toTune.giveInfo(bestPIDValues, bestTuneTime, testingPIDValues, currentTuneCounter);			
 			
 			secondTry=currentTuneCounter;
+			secondScore=score;
 			pidController.resetError();
 			lastTuneCounter=currentTuneCounter;
 			currentTuneCounter=0;
@@ -362,6 +444,7 @@ public class AutoPIDTuner extends IControl {
 			testOf3=0;
 			int average=(firstTry+secondTry+currentTuneCounter)/3;
 			currentTuneCounter=average;// let control flow through
+			score=cost!=null?(firstScore+secondScore+score)/3:average;
 		}
 		
 		
@@ -369,14 +452,14 @@ public class AutoPIDTuner extends IControl {
 		
 		testOf3=0;
 
-		if (currentTuneCounter<bestTuneTime) {// NEW BEST!!!
+		if (score<bestScore) {// NEW BEST!!!
+			bestScore=score;
 			bestTuneTime=currentTuneCounter;
 			bestPIDValues=testingPIDValues;
-			testingPIDValues=extrapolate(bestPIDValues);
-		}
-		else {
-			testingPIDValues=getVariant(bestPIDValues);
 		}
+		strategy.report(testingPIDValues, score, currentTuneCounter, timesTried);
+		toWrite.add(testingPIDValues.kp+","+testingPIDValues.ki+","+testingPIDValues.kd+","+score);
+		testingPIDValues=strategy.next();
 
 		toTune.giveInfo(bestPIDValues, bestTuneTime, testingPIDValues, currentTuneCounter);
 
@@ -395,6 +478,33 @@ public class AutoPIDTuner extends IControl {
 		double output=pidController.calculate(0, toTune.getError());
 		SmartWriter.putD("TuningPIDError", toTune.getError(), DebugMode.DEBUG);
 		toTune.setValue(output);
+		if (cost!=null) cost.update(toTune.getError(), output, secondsPerFrame);
+		if (trialLog!=null) trialLog.logFrame(toTune.getError(), output, secondsPerFrame);
+	}
+
+	/**
+	 * Starts the strategy from what the relay run found, and starts the first
+	 * real test
+	 */
+	private void startFromRelay() {
+		if (relay.succeeded()) {
+			strategy.start(relay.getAutoPIDTunerValues(relayRule));
+			bestPIDValues=testingPIDValues=strategy.next();
+			pidController.setValues(testingPIDValues);
+		}
+		pidController.resetError();
+		toTune.startReset(testOf3);
+		runStarted=false;
+	}
+
+	/**
+	 * Saves the best values in the GainStore, once per session, if there is a
+	 * key and something finished
+	 */
+	private void saveBest() {
+		if (gainRobot==null||gainsSaved||bestScore==Double.MAX_VALUE) return;
+		gainsSaved=true;
+		GainStore.save(gainRobot, gainMechanism, gainMode, bestPIDValues, bestScore, "AutoPIDTuner");
 	}
 
 	private boolean shouldStartRandomTest() {
@@ -404,20 +514,60 @@ public class AutoPIDTuner extends IControl {
 	public void autonomousInit() {
 		toTune.startReset(testOf3);
 		startTime=new Date(System.currentTimeMillis());
-		bestPIDValues=testingPIDValues=new PIDValues(.01, .0005, 0);
+		PIDValues start=startingPIDValues!=null?startingPIDValues:new PIDValues(.01, .0005, 0);
+		if (gainRobot!=null) start=GainStore.get(gainRobot, gainMechanism, gainMode, start);
+		strategy.start(start);
+		bestPIDValues=testingPIDValues=strategy.next();
 		pidController=new PIDController(testingPIDValues);
 		errorSafeCounter=0;
 		currentTuneCounter=0;
 		bestTuneTime=Integer.MAX_VALUE;
+		bestScore=Double.MAX_VALUE;
+		runStarted=false;
+		gainsSaved=false;
 		lastTuneCounter=0;
-		dp=0;
-		di=0;
-		dd=0;
 		timesTried=0;
-		ceterusPluribusCounter=-1;
 		toWrite=new ArrayList<String>();
+		toWrite.add("kp,ki,kd,score");
+		historyWritten=false;
 		SmartWriter.putB("AutoTuning", true, DebugMode.DEBUG);
 		SmartWriter.putS("SuggestedPIDValues", "", DebugMode.DEBUG);
+		if (relay!=null) relay.start();
+	}
+
+	/**
+	 * @return True once every try has been used up
+	 */
+	public boolean isDone() {
+		return timesTried>maxTries;
+	}
+
+	/**
+	 * @return The best PID values found so far
+	 */
+	public PIDValues getBestPIDValues() {
+		return bestPIDValues;
+	}
+
+	/**
+	 * @return The number of frames the best PID values took, or
+	 *         Integer.MAX_VALUE if none have finished yet
+	 */
+	public int getBestTuneTime() {
+		return bestTuneTime;
+	}
+
+	/**
+	 * @return The score of the best PID values (the same as getBestTuneTime,
+	 *         unless there is a TuningCost), or Double.MAX_VALUE if none
+	 *         have finished yet
+	 */
+	public double getBestScore() {
+		return bestScore;
+	}
+
+	public int getTimesTried() {
+		return timesTried;
 	}
 
 	public void autonomousPeriodic() {
@@ -0,0 +1,339 @@
+package PID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tunes with Bayesian optimization. Every test result is kept, and a Gaussian
+ * process fit to all of them guesses how good any set of PID values would be,
+ * and how sure that guess is. The next values tested are the ones with the
+ * highest expected improvement over the best so far, which balances trying
+ * values that are probably good against trying values nobody knows about yet.
+ * PID.tester.StrategyComparison compares it to the other strategies. <br>
+ * <br>
+ * The math runs in report(), on the thread AutoPIDTuner runs on, so it is
+ * kept bounded: the fit uses at most MAX_POINTS results, and only
+ * RANDOM_CANDIDATES+LOCAL_CANDIDATES values are checked. With 30 results it
+ * takes about 1 ms on a desktop, once per test, however many tests there have
+ * been. Past MAX_POINTS, the older of the two closest results is forgotten
+ * (unless it is the best), so bad regions that were already tested stay
+ * known to be bad and only crowded spots are thinned out. <br>
+ * <br>
+ * The values are searched for between a min and a max. The first few tests
+ * are the starting values and some random values, to have something to fit
+ * to. The Gaussian process uses a squared exponential kernel, and its length
+ * scale is picked from a few choices each time by which one explains the
+ * results best.
+ */
+public class BayesianStrategy implements TuningStrategy {
+
+	private static final int N=PIDVector.SIZE;
+
+	/**
+	 * The number of tests (counting the starting values) before the Gaussian
+	 * process is used
+	 */
+	private static final int INITIAL_TESTS=5;
+
+	/**
+	 * The number of random values, and the number of values near the best so
+	 * far, checked for the highest expected improvement
+	 */
+	private static final int RANDOM_CANDIDATES=400, LOCAL_CANDIDATES=100;
+
+	/**
+	 * The most results the Gaussian process is fit to. Past this, one of the
+	 * two closest results is forgotten each time a new one comes in.
+	 */
+	private static final int MAX_POINTS=30;
+
+	private static final double[] LENGTH_SCALES= {0.05, 0.1, 0.2, 0.4, 0.8};
+
+	/**
+	 * How noisy the tests are, as a fraction of how much the results vary
+	 */
+	private static final double NOISE=0.01;
+
+	/**
+	 * How much better than the best a guess has to be to count as an
+	 * improvement, so it doesn't keep testing right next to the best
+	 */
+	private static final double MIN_IMPROVEMENT=0.01;
+
+	private final PIDValues min, max;
+	private final Random random;
+
+	private final List<double[]> points=new ArrayList<double[]>();
+	private final List<Double> costs=new ArrayList<Double>();
+	private double[] pending;
+
+	/**
+	 * @param min
+	 *            The least each constant can be
+	 * @param max
+	 *            The most each constant can be
+	 */
+	public BayesianStrategy(PIDValues min, PIDValues max) {
+		this(min, max, new Random());
+	}
+
+	/**
+	 * @param seed
+	 *            The seed for the random values, so a run can be repeated
+	 */
+	public BayesianStrategy(PIDValues min, PIDValues max, long seed) {
+		this(min, max, new Random(seed));
+	}
+
+	private BayesianStrategy(PIDValues min, PIDValues max, Random random) {
+		this.min=min;
+		this.max=max;
+		this.random=random;
+	}
+
+	public void start(PIDValues startingValues) {
+		points.clear();
+		costs.clear();
+		pending=new double[] {fraction(startingValues.kp, min.kp, max.kp), fraction(startingValues.ki, min.ki, max.ki),
+				fraction(startingValues.kd, min.kd, max.kd)};
+	}
+
+	public PIDValues next() {
+		return new PIDValues(min.kp+pending[0]*(max.kp-min.kp), min.ki+pending[1]*(max.ki-min.ki),
+				min.kd+pending[2]*(max.kd-min.kd));
+	}
+
+	public void report(PIDValues tested, double cost) {
+		points.add(pending);
+		costs.add(cost);
+		if (points.size()>MAX_POINTS) {
+			int forget=nearestDuplicate();
+			points.remove(forget);
+			costs.remove(forget);
+		}
+		pending=points.size()<INITIAL_TESTS?randomPoint():mostPromising();
+	}
+
+	/**
+	 * Fits the Gaussian process to every result so far and finds the point
+	 * with the highest expected improvement
+	 */
+	private double[] mostPromising() {
+		int n=points.size();
+		double mean=0, variance=0;
+		for (double cost : costs) {
+			mean+=cost;
+		}
+		mean/=n;
+		for (double cost : costs) {
+			variance+=(cost-mean)*(cost-mean);
+		}
+		double scale=variance>0?Math.sqrt(variance/n):1;
+		double[] y=new double[n];
+		double best=Double.MAX_VALUE;
+		int bestIndex=0;
+		for (int i=0; i<n; i++) {
+			y[i]=(costs.get(i)-mean)/scale;
+			if (y[i]<best) {
+				best=y[i];
+				bestIndex=i;
+			}
+		}
+
+		// pick the length scale that explains the results best
+		double[][] l=null;
+		double[] alpha=null;
+		double lengthScale=0, bestLikelihood=Double.NEGATIVE_INFINITY;
+		for (double candidate : LENGTH_SCALES) {
+			double[][] cholesky=cholesky(covariance(candidate));
+			if (cholesky==null) continue;
+			double[] weights=solve(cholesky, y);
+			double likelihood=0;
+			for (int i=0; i<n; i++) {
+				likelihood-=0.5*y[i]*weights[i]+Math.log(cholesky[i][i]);
+			}
+			if (likelihood>bestLikelihood) {
+				bestLikelihood=likelihood;
+				lengthScale=candidate;
+				l=cholesky;
+				alpha=weights;
+			}
+		}
+		if (l==null) return randomPoint();
+
+		double[] bestPoint=points.get(bestIndex);
+		double[] chosen=null, k=new double[n], v=new double[n];
+		double bestImprovement=Double.NEGATIVE_INFINITY;
+		for (int c=0; c<RANDOM_CANDIDATES+LOCAL_CANDIDATES; c++) {
+			double[] point=c<RANDOM_CANDIDATES?randomPoint():near(bestPoint);
+			for (int i=0; i<n; i++) {
+				k[i]=kernel(point, points.get(i), lengthScale);
+			}
+			double guess=0;
+			for (int i=0; i<n; i++) {
+				guess+=k[i]*alpha[i];
+			}
+			// v = L^-1 k, and the variance left is 1 - v.v
+			double left=1;
+			for (int i=0; i<n; i++) {
+				double sum=k[i];
+				for (int j=0; j<i; j++) {
+					sum-=l[i][j]*v[j];
+				}
+				v[i]=sum/l[i][i];
+				left-=v[i]*v[i];
+			}
+			double improvement=expectedImprovement(best-MIN_IMPROVEMENT-guess, Math.sqrt(Math.max(left, 1e-12)));
+			if (improvement>bestImprovement) {
+				bestImprovement=improvement;
+				chosen=point;
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * Finds the two results closest to each other, which tell the Gaussian
+	 * process the least that the other doesn't
+	 *
+	 * @return The index of the older of the two, or the newer one if the
+	 *         older one is the best result so far
+	 */
+	private int nearestDuplicate() {
+		int best=0;
+		for (int i=1; i<costs.size(); i++) {
+			if (costs.get(i)<costs.get(best)) best=i;
+		}
+		int older=0, newer=1;
+		double closest=Double.MAX_VALUE;
+		for (int i=0; i<points.size(); i++) {
+			for (int j=i+1; j<points.size(); j++) {
+				double distance=0;
+				for (int d=0; d<N; d++) {
+					double gap=points.get(i)[d]-points.get(j)[d];
+					distance+=gap*gap;
+				}
+				if (distance<closest) {
+					closest=distance;
+					older=i;
+					newer=j;
+				}
+			}
+		}
+		return older==best?newer:older;
+	}
+
+	private double[][] covariance(double lengthScale) {
+		int n=points.size();
+		double[][] k=new double[n][n];
+		for (int i=0; i<n; i++) {
+			for (int j=0; j<=i; j++) {
+				k[i][j]=k[j][i]=kernel(points.get(i), points.get(j), lengthScale);
+			}
+			k[i][i]+=NOISE;
+		}
+		return k;
+	}
+
+	private static double kernel(double[] a, double[] b, double lengthScale) {
+		double distance=0;
+		for (int i=0; i<N; i++) {
+			distance+=(a[i]-b[i])*(a[i]-b[i]);
+		}
+		return Math.exp(-distance/(2*lengthScale*lengthScale));
+	}
+
+	/**
+	 * @return The lower triangular L where L * L^T = <i>matrix</i>, or null
+	 *         if <i>matrix</i> isn't positive definite
+	 */
+	private static double[][] cholesky(double[][] matrix) {
+		int n=matrix.length;
+		double[][] l=new double[n][n];
+		for (int i=0; i<n; i++) {
+			for (int j=0; j<=i; j++) {
+				double sum=matrix[i][j];
+				for (int k=0; k<j; k++) {
+					sum-=l[i][k]*l[j][k];
+				}
+				if (i==j) {
+					if (sum<=0) return null;
+					l[i][i]=Math.sqrt(sum);
+				}
+				else {
+					l[i][j]=sum/l[j][j];
+				}
+			}
+		}
+		return l;
+	}
+
+	/**
+	 * @return x where L * L^T * x = <i>b</i>
+	 */
+	private static double[] solve(double[][] l, double[] b) {
+		int n=b.length;
+		double[] x=new double[n];
+		for (int i=0; i<n; i++) {
+			double sum=b[i];
+			for (int j=0; j<i; j++) {
+				sum-=l[i][j]*x[j];
+			}
+			x[i]=sum/l[i][i];
+		}
+		for (int i=n-1; i>=0; i--) {
+			double sum=x[i];
+			for (int j=i+1; j<n; j++) {
+				sum-=l[j][i]*x[j];
+			}
+			x[i]=sum/l[i][i];
+		}
+		return x;
+	}
+
+	/**
+	 * @param gap
+	 *            How much better than the best the guess is
+	 * @param deviation
+	 *            How unsure the guess is
+	 */
+	private static double expectedImprovement(double gap, double deviation) {
+		double z=gap/deviation;
+		return gap*normalCdf(z)+deviation*Math.exp(-z*z/2)/Math.sqrt(2*Math.PI);
+	}
+
+	/**
+	 * The normal CDF, from Abramowitz and Stegun 7.1.26 (good to about 1e-7)
+	 */
+	private static double normalCdf(double z) {
+		double x=Math.abs(z)/Math.sqrt(2);
+		double t=1/(1+0.3275911*x);
+		double erf=1-t*(0.254829592+t*(-0.284496736+t*(1.421413741+t*(-1.453152027+t*1.061405429))))*Math.exp(-x*x);
+		return z>=0?(1+erf)/2:(1-erf)/2;
+	}
+
+	private double[] randomPoint() {
+		return new double[] {random.nextDouble(), random.nextDouble(), random.nextDouble()};
+	}
+
+	/**
+	 * @return A random point close to <i>point</i>, inside the bounds
+	 */
+	private double[] near(double[] point) {
+		double[] result=new double[N];
+		for (int i=0; i<N; i++) {
+			result[i]=Math.max(0, Math.min(1, point[i]+0.05*random.nextGaussian()));
+		}
+		return result;
+	}
+
+	/**
+	 * @return How far between <i>min</i> and <i>max</i> <i>value</i> is, from
+	 *         0 to 1
+	 */
+	private static double fraction(double value, double min, double max) {
+		if (max<=min) return 0;
+		return Math.max(0, Math.min(1, (value-min)/(max-min)));
+	}
+}
@@ -0,0 +1,249 @@
+package PID;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tunes with CMA-ES (Covariance Matrix Adaptation Evolution Strategy). Each
+ * generation, a few sets of PID values are picked at random from a normal
+ * distribution around the current mean. Once they have all been tested, the
+ * mean moves toward the best of them, and the shape and size of the
+ * distribution are changed to fit the directions that have been working. This
+ * finds out on its own that, for example, kp and kd should go up together.
+ * <br>
+ * <br>
+ * This follows Hansen's "The CMA Evolution Strategy: A Tutorial" with the
+ * default settings for 3 constants (7 tests per generation, the best 3 used).
+ * Values that would be negative are tested as 0, and the distribution is
+ * updated with what was actually tested.
+ */
+public class CMAESStrategy implements TuningStrategy {
+
+	private static final int N=PIDVector.SIZE;
+	private static final int LAMBDA=4+(int)(3*Math.log(N));
+	private static final int MU=LAMBDA/2;
+
+	private final double[] weights=new double[MU];
+	private final double muEff, cc, cs, c1, cmu, damps, chiN;
+
+	private final PIDValues step;
+	private final Random random;
+
+	private double[] mean;
+	private double sigma;
+	private double[][] c, b;
+	private double[] d;
+	private double[] pc, ps;
+	private int generation;
+
+	/**
+	 * This generation's points, as steps from the mean (divided by sigma), and
+	 * what they cost
+	 */
+	private final double[][] offsets=new double[LAMBDA][N];
+	private final double[] costs=new double[LAMBDA];
+	private int tested;
+
+	/**
+	 * @param step
+	 *            About how much each constant should be changed at first. This
+	 *            is the starting standard deviation.
+	 * @throws IllegalArgumentException
+	 *             if any of them isn't more than 0
+	 */
+	public CMAESStrategy(PIDValues step) {
+		this(step, new Random());
+	}
+
+	/**
+	 * @param seed
+	 *            The seed for the random values, so a run can be repeated
+	 */
+	public CMAESStrategy(PIDValues step, long seed) {
+		this(step, new Random(seed));
+	}
+
+	private CMAESStrategy(PIDValues step, Random random) {
+		this.step=PIDVector.checkScale(step);
+		this.random=random;
+
+		double sum=0, sumOfSquares=0;
+		for (int i=0; i<MU; i++) {
+			weights[i]=Math.log(MU+0.5)-Math.log(i+1);
+			sum+=weights[i];
+		}
+		for (int i=0; i<MU; i++) {
+			weights[i]/=sum;
+			sumOfSquares+=weights[i]*weights[i];
+		}
+		muEff=1/sumOfSquares;
+		cc=(4+muEff/N)/(N+4+2*muEff/N);
+		cs=(muEff+2)/(N+muEff+5);
+		c1=2/((N+1.3)*(N+1.3)+muEff);
+		cmu=Math.min(1-c1, 2*(muEff-2+1/muEff)/((N+2)*(N+2)+muEff));
+		damps=1+2*Math.max(0, Math.sqrt((muEff-1)/(N+1))-1)+cs;
+		chiN=Math.sqrt(N)*(1-1.0/(4*N)+1.0/(21*N*N));
+	}
+
+	public void start(PIDValues startingValues) {
+		mean=PIDVector.toArray(startingValues, step);
+		sigma=1;
+		c=identity();
+		b=identity();
+		d=new double[] {1, 1, 1};
+		pc=new double[N];
+		ps=new double[N];
+		generation=0;
+		tested=-1;
+	}
+
+	public PIDValues next() {
+		// the first test is the starting values, so there is something to
+		// compare against right away
+		if (tested<0) return PIDVector.toValues(mean, step);
+
+		double[] z=new double[N];
+		for (int i=0; i<N; i++) {
+			z[i]=d[i]*random.nextGaussian();
+		}
+		double[] point=new double[N];
+		for (int i=0; i<N; i++) {
+			double y=0;
+			for (int j=0; j<N; j++) {
+				y+=b[i][j]*z[j];
+			}
+			point[i]=mean[i]+sigma*y;
+		}
+		PIDVector.clamp(point);
+		for (int i=0; i<N; i++) {
+			offsets[tested][i]=(point[i]-mean[i])/sigma;
+		}
+		return PIDVector.toValues(point, step);
+	}
+
+	public void report(PIDValues tested, double cost) {
+		if (this.tested<0) {
+			this.tested=0;
+			return;
+		}
+		costs[this.tested++]=cost;
+		if (this.tested==LAMBDA) {
+			update();
+			this.tested=0;
+		}
+	}
+
+	/**
+	 * Moves the mean and changes the distribution using this generation's
+	 * tests
+	 */
+	private void update() {
+		generation++;
+		Integer[] order=new Integer[LAMBDA];
+		for (int i=0; i<LAMBDA; i++) {
+			order[i]=i;
+		}
+		Arrays.sort(order, (x, y) -> Double.compare(costs[x], costs[y]));
+
+		double[] yw=new double[N];
+		for (int k=0; k<MU; k++) {
+			for (int i=0; i<N; i++) {
+				yw[i]+=weights[k]*offsets[order[k]][i];
+			}
+		}
+		for (int i=0; i<N; i++) {
+			mean[i]+=sigma*yw[i];
+		}
+
+		// C^-1/2 * yw = B * D^-1 * B^T * yw
+		double[] bty=new double[N];
+		for (int i=0; i<N; i++) {
+			for (int j=0; j<N; j++) {
+				bty[i]+=b[j][i]*yw[j];
+			}
+			bty[i]/=d[i];
+		}
+		double psLength=0;
+		for (int i=0; i<N; i++) {
+			double whitened=0;
+			for (int j=0; j<N; j++) {
+				whitened+=b[i][j]*bty[j];
+			}
+			ps[i]=(1-cs)*ps[i]+Math.sqrt(cs*(2-cs)*muEff)*whitened;
+			psLength+=ps[i]*ps[i];
+		}
+		psLength=Math.sqrt(psLength);
+		boolean hsig=psLength/Math.sqrt(1-Math.pow(1-cs, 2*generation))/chiN<1.4+2.0/(N+1);
+		for (int i=0; i<N; i++) {
+			pc[i]=(1-cc)*pc[i]+(hsig?Math.sqrt(cc*(2-cc)*muEff)*yw[i]:0);
+		}
+
+		for (int i=0; i<N; i++) {
+			for (int j=0; j<N; j++) {
+				double rankMu=0;
+				for (int k=0; k<MU; k++) {
+					rankMu+=weights[k]*offsets[order[k]][i]*offsets[order[k]][j];
+				}
+				c[i][j]=(1-c1-cmu)*c[i][j]+c1*(pc[i]*pc[j]+(hsig?0:cc*(2-cc)*c[i][j]))+cmu*rankMu;
+			}
+		}
+		sigma*=Math.exp(cs/damps*(psLength/chiN-1));
+		decompose();
+	}
+
+	/**
+	 * Finds B and D so that C = B * D^2 * B^T, with the Jacobi eigenvalue
+	 * method (plenty fast for a 3x3 matrix)
+	 */
+	private void decompose() {
+		double[][] a=new double[N][];
+		for (int i=0; i<N; i++) {
+			a[i]=c[i].clone();
+		}
+		b=identity();
+		for (int sweep=0; sweep<50; sweep++) {
+			double offDiagonal=0;
+			for (int p=0; p<N; p++) {
+				for (int q=p+1; q<N; q++) {
+					offDiagonal+=a[p][q]*a[p][q];
+				}
+			}
+			if (offDiagonal<1e-30) break;
+			for (int p=0; p<N; p++) {
+				for (int q=p+1; q<N; q++) {
+					if (a[p][q]==0) continue;
+					double theta=(a[q][q]-a[p][p])/(2*a[p][q]);
+					double t=Math.signum(theta)/(Math.abs(theta)+Math.sqrt(theta*theta+1));
+					if (theta==0) t=1;
+					double cos=1/Math.sqrt(t*t+1), sin=t*cos;
+					for (int k=0; k<N; k++) {
+						double akp=a[k][p], akq=a[k][q];
+						a[k][p]=cos*akp-sin*akq;
+						a[k][q]=sin*akp+cos*akq;
+					}
+					for (int k=0; k<N; k++) {
+						double apk=a[p][k], aqk=a[q][k];
+						a[p][k]=cos*apk-sin*aqk;
+						a[q][k]=sin*apk+cos*aqk;
+					}
+					for (int k=0; k<N; k++) {
+						double bkp=b[k][p], bkq=b[k][q];
+						b[k][p]=cos*bkp-sin*bkq;
+						b[k][q]=sin*bkp+cos*bkq;
+					}
+				}
+			}
+		}
+		for (int i=0; i<N; i++) {
+			d[i]=Math.sqrt(Math.max(a[i][i], 1e-20));
+		}
+	}
+
+	private static double[][] identity() {
+		double[][] matrix=new double[N][N];
+		for (int i=0; i<N; i++) {
+			matrix[i][i]=1;
+		}
+		return matrix;
+	}
+}
@@ -0,0 +1,119 @@
+package PID;
+
+/**
+ * A TuningCost that keeps track of several ways of judging a run, and scores
+ * it with a weighted sum of them:
+ * <ul>
+ * <li>ITAE: the integral of time times the absolute error. Error late in the
+ * run counts more, so slow settling and long oscillations are bad.</li>
+ * <li>ISE: the integral of the squared error. Big errors count the most.</li>
+ * <li>Overshoot: how far past the target it went, at the most.</li>
+ * <li>Effort: the integral of the squared output. Gains that slam the motors
+ * back and forth draw a lot of current and can brown out the battery.</li>
+ * <li>Settling time: the last time the error was outside the settle band.</li>
+ * </ul>
+ * ITAE and overshoot are divided by the starting error, and ISE and effort by
+ * its square, so a bigger turn with the same shape of response doesn't cost
+ * more just because it is bigger (for effort, as long as the output isn't
+ * clamped). Settling time isn't divided: it is already in seconds, and a
+ * bigger turn really does take longer to get into the same settle band.
+ * Everything is kept as running totals, so each frame is a few multiplies and
+ * there is no history.
+ */
+public class CompositeCost implements TuningCost {
+
+	private final double settleBand;
+	private double itaeWeight=1, iseWeight=0, overshootWeight=1, effortWeight=0.5, settlingWeight=1;
+
+	private double initialError;
+	private double time;
+	private double itae, ise, overshoot, effort, settlingTime;
+
+	/**
+	 * Makes a CompositeCost with the default weights (ITAE 1, ISE 0,
+	 * overshoot 1, effort 0.5, settling time 1)
+	 *
+	 * @param settleBand
+	 *            The error counts as settled while it is less than this
+	 */
+	public CompositeCost(double settleBand) {
+		this.settleBand=settleBand;
+	}
+
+	/**
+	 * Sets how much each part counts toward the cost. 0 leaves a part out.
+	 */
+	public void setWeights(double itae, double ise, double overshoot, double effort, double settlingTime) {
+		itaeWeight=itae;
+		iseWeight=ise;
+		overshootWeight=overshoot;
+		effortWeight=effort;
+		settlingWeight=settlingTime;
+	}
+
+	public void start(double initialError) {
+		this.initialError=initialError;
+		time=0;
+		itae=0;
+		ise=0;
+		overshoot=0;
+		effort=0;
+		settlingTime=0;
+	}
+
+	public void update(double error, double output, double dt) {
+		time+=dt;
+		double absoluteError=Math.abs(error);
+		itae+=time*absoluteError*dt;
+		ise+=error*error*dt;
+		if (error*initialError<0) {
+			overshoot=Math.max(overshoot, absoluteError);
+		}
+		effort+=output*output*dt;
+		if (absoluteError>=settleBand) {
+			settlingTime=time;
+		}
+	}
+
+	public double getCost() {
+		double size=Math.max(Math.abs(initialError), settleBand);
+		return itaeWeight*itae/size+iseWeight*ise/(size*size)+overshootWeight*overshoot/size
+				+effortWeight*effort/(size*size)+settlingWeight*settlingTime;
+	}
+
+	/**
+	 * @return The integral of time times absolute error, in error*seconds^2
+	 */
+	public double getITAE() {
+		return itae;
+	}
+
+	/**
+	 * @return The integral of the squared error, in error^2*seconds
+	 */
+	public double getISE() {
+		return ise;
+	}
+
+	/**
+	 * @return The furthest it went past the target, in units of error
+	 */
+	public double getOvershoot() {
+		return overshoot;
+	}
+
+	/**
+	 * @return The integral of the squared output, in output^2*seconds
+	 */
+	public double getEffort() {
+		return effort;
+	}
+
+	/**
+	 * @return The last time the error was outside the settle band, in seconds
+	 *         from the start of the run
+	 */
+	public double getSettlingTime() {
+		return settlingTime;
+	}
+}
@@ -0,0 +1,179 @@
+package PID;
+
+import java.util.Random;
+
+/**
+ * The evolutionary strategy AutoPIDTuner has always used: <br>
+ * Start with the starting values<br>
+ * Test and record time <br>
+ * <br>
+ * Change one number a little bit.<br>
+ * Test and record the new time <br>
+ * <br>
+ * If the new one is better, start from there and keep doing the same thing,
+ * <br>
+ * otherwise, try another random mutation <br>
+ * <br>
+ * For the first 20 runs (each set of values is run up to 3 times), only one
+ * number is changed at a time by a fixed amount (ceterus paribus). After that,
+ * the random changes get smaller as the best tune time gets smaller. <br>
+ * <br>
+ * The size of the random changes is worked out from the number of frames the
+ * best values took, not from the cost, so it is the same whatever TuningCost
+ * the tuner uses. The cost only decides which values are best.
+ *
+ * @author SecondThread
+ */
+public class EvolutionaryStrategy implements TuningStrategy {
+
+	private final Random random;
+
+	/**
+	 * The best values so far and the values that were given out last
+	 */
+	private PIDValues bestPIDValues, testingPIDValues;
+	private double bestCost;
+
+	/**
+	 * The number of frames the best values took, and the number of runs so far
+	 */
+	private int bestTuneTime, timesTried;
+
+	/**
+	 * The change in kp, ki, and kd to make the last random PID values, which
+	 * will continue to be used if they make things better.
+	 */
+	private double dp, di, dd;
+
+	/**
+	 * A counter that is used to see what stat is changed
+	 */
+	private int ceterusPluribusCounter=-1;
+
+	public EvolutionaryStrategy() {
+		random=new Random();
+	}
+
+	/**
+	 * @param seed
+	 *            The seed for the random variants, so a run can be repeated
+	 */
+	public EvolutionaryStrategy(long seed) {
+		random=new Random(seed);
+	}
+
+	public void start(PIDValues startingValues) {
+		bestPIDValues=testingPIDValues=startingValues;
+		bestCost=Double.MAX_VALUE;
+		bestTuneTime=Integer.MAX_VALUE;
+		timesTried=0;
+		dp=0;
+		di=0;
+		dd=0;
+		ceterusPluribusCounter=-1;
+	}
+
+	public PIDValues next() {
+		return testingPIDValues;
+	}
+
+	/**
+	 * Without the frames and runs, the cost is taken to be the number of
+	 * frames, and each report is counted as one run
+	 */
+	public void report(PIDValues tested, double cost) {
+		report(tested, cost, (int)Math.min(cost, Integer.MAX_VALUE), timesTried+1);
+	}
+
+	public void report(PIDValues tested, double cost, int frames, int runs) {
+		timesTried=runs;
+		if (cost<bestCost) {// NEW BEST!!!
+			bestCost=cost;
+			bestTuneTime=frames;
+			bestPIDValues=tested;
+			testingPIDValues=extrapolate(bestPIDValues);
+		}
+		else {
+			testingPIDValues=getVariant(bestPIDValues);
+		}
+	}
+
+	/**
+	 * Makes a slight variant of the current PID values which will be tried next
+	 * in evolutionary tuning.<br>
+	 * It also stores the change made to kp, ki, and kd in dp, di, and dd
+	 * 
+	 * @param lastValues
+	 *            The PIDValues that the variant will be based on.
+	 * @return A variant of <i>lastValues</i> with a slight random change to
+	 *         each constant
+	 */
+	private PIDValues getVariant(PIDValues lastValues) {
+		if (timesTried<20) {// r.nextInt(2)==0) {
+			return getCeterusParibusVarient(lastValues);
+		}
+
+		double divider=bestTuneTime/300.0*.05;// 3;// Math.log(timesTried+2);
+		dp=Math.pow(random.nextDouble()-0.5, 3)*4*divider;
+		di=Math.pow(random.nextDouble()-0.5, 3)/4*divider;
+		dd=Math.pow(random.nextDouble()-0.5, 3)*40*divider;
+
+		return new PIDValues(Math.max(lastValues.kp+dp, 0), Math.max(lastValues.ki+di, 0),
+				Math.max(Math.min(lastValues.kd+dd, Math.max(lastValues.kp+dp, 0)), 0));
+	}
+
+	/**
+	 * Gets a variant of the last PID values which IS NOT randomized. It changes
+	 * only one variable, depending on how many times this method has been
+	 * called in the past
+	 * 
+	 * @param lastValues
+	 *            The PID values that a small adjustment should be made to
+	 * @return The adjusted PID values
+	 */
+	private PIDValues getCeterusParibusVarient(PIDValues lastValues) {
+		ceterusPluribusCounter++;
+		dp=di=dd=0;
+		switch (ceterusPluribusCounter) {
+		case 0:
+			dp=0.005;
+			break;
+		case 1:
+			di=0.0005;
+			break;
+		case 2:
+			dd=0.1;
+			break;
+		case 3:
+			dp=-0.005;
+			break;
+		case 4:
+			di=-0.0005;
+			break;
+		case 5:
+			dd=-0.1;
+			break;
+		default:
+			ceterusPluribusCounter=-1;
+			return getCeterusParibusVarient(lastValues);// YAY FOR RECURSION!
+		}
+
+		return new PIDValues(Math.max(lastValues.kp+dp, 0), Math.max(lastValues.ki+di, 0),
+				Math.max(lastValues.kd+dd, 0));
+	}
+
+	/**
+	 * If the last PID values were super great, then this can be called to
+	 * continue the pattern they started. This is useful because it drastically
+	 * speeds up evolution once randomness is onto something.
+	 * 
+	 * @param lastValues
+	 *            The previously used values that were good, which will be
+	 *            extrapolated from
+	 * @return The new PID values which are extrapolated from <i>lastValues</i>
+	 */
+	private PIDValues extrapolate(PIDValues lastValues) {
+		return new PIDValues(Math.max(lastValues.kp+dp, 0), Math.max(lastValues.ki+di, 0),
+				Math.max(lastValues.kd+dd, 0));
+	}
+}
@@ -0,0 +1,37 @@
+package PID;
+
+/**
+ * Feed-forward constants for one mechanism: the output it takes to get moving
+ * at all (kS), to hold a speed (kV), and to speed up (kA). These can be found
+ * on the robot with auto.commands.CharacterizeDriveCommand, and are kept in the
+ * GainStore. See TimedPIDController.setFeedForward.
+ */
+public class FeedForward {
+	public final double ks, kv, ka;
+
+	/**
+	 * @param ks
+	 *            Output needed to get moving at all (static friction)
+	 * @param kv
+	 *            Output per unit per second of velocity
+	 * @param ka
+	 *            Output per unit per second squared of acceleration
+	 */
+	public FeedForward(double ks, double kv, double ka) {
+		this.ks=ks;
+		this.kv=kv;
+		this.ka=ka;
+	}
+
+	/**
+	 * @return The output it takes to go at <i>velocity</i> while speeding up
+	 *         by <i>acceleration</i>
+	 */
+	public double calculate(double velocity, double acceleration) {
+		return ks*Math.signum(velocity)+kv*velocity+ka*acceleration;
+	}
+
+	public String toString() {
+		return String.format("<kS: %.5f, kV: %.6g, kA: %.6g>", ks, kv, ka);
+	}
+}
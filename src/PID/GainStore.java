@@ -0,0 +1,211 @@
+package PID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import comms.FileLoader;
+import comms.LineReader;
+import robotDefinitions.RobotName;
+import simulation.Simulation;
+
+/**
+ * Keeps PID values (and FeedForward constants) on the robot so they don't have
+ * to be hard coded, and so tuning picks up where it left off. Values are kept for each robot,
+ * mechanism (like TURN), and mode (like DEFAULT_MODE, or something like "low
+ * gear"), and every time values are saved they are added to the end of the
+ * file, so the file is also the history of every change. The newest values
+ * for a key are the ones that are used. <br>
+ * <br>
+ * Each line of the file is "time,robot,mechanism,mode,kp,ki,kd,score,source",
+ * where score is how the values did when they were tuned (blank if they
+ * weren't) and source says where they came from. The file is read the first
+ * time anything is asked for, and saves are written by FileLoader's
+ * background thread. Nothing is written in the simulation. All of the
+ * methods can be called from any thread. <br>
+ * <br>
+ * Feed-forward constants are kept in the same file, with kS, kV, and kA where
+ * kp, ki, and kd would be, under their own mechanism names.
+ */
+public class GainStore {
+
+	public static final String GAIN_FILE="/home/lvuser/PIDGains.csv";
+
+	/**
+	 * Mechanism names used by the commands and tunables that share values
+	 */
+	public static final String TURN="turn", DRIVE_AT_ANGLE="driveAtAngle";
+
+	/**
+	 * Mechanism names for the drivetrain's feed-forward constants. LINEAR is
+	 * driving straight, in inches, and ANGULAR is turning in place, in navX
+	 * degrees.
+	 */
+	public static final String LINEAR_FEED_FORWARD="linearFeedForward", ANGULAR_FEED_FORWARD="angularFeedForward";
+
+	public static final String DEFAULT_MODE="default";
+
+	/**
+	 * One set of saved values
+	 */
+	public static class Entry {
+		public final long time;
+		public final PIDValues values;
+		/**
+		 * NaN if the values weren't tuned
+		 */
+		public final double score;
+		public final String source;
+
+		private Entry(long time, PIDValues values, double score, String source) {
+			this.time=time;
+			this.values=values;
+			this.score=score;
+			this.source=source;
+		}
+	}
+
+	private static String file=GAIN_FILE;
+
+	/**
+	 * Every entry for each key, oldest first, or null if the file hasn't been
+	 * read yet
+	 */
+	private static Map<String, List<Entry>> entries;
+
+	/**
+	 * Gets the newest values for a key.
+	 *
+	 * @param robot
+	 *            The robot the values are for
+	 * @param mechanism
+	 *            What the values control, like TURN
+	 * @param mode
+	 *            DEFAULT_MODE, unless the mechanism needs different values
+	 *            at different times
+	 * @param defaults
+	 *            What to use if nothing has been saved for the key
+	 * @return The newest saved values, or <i>defaults</i>
+	 */
+	public static synchronized PIDValues get(RobotName robot, String mechanism, String mode, PIDValues defaults) {
+		List<Entry> history=getEntries().get(key(robot, mechanism, mode));
+		if (history==null||history.isEmpty()) return defaults;
+		return history.get(history.size()-1).values;
+	}
+
+	/**
+	 * @return Every entry for the key, oldest first
+	 */
+	public static synchronized List<Entry> getHistory(RobotName robot, String mechanism, String mode) {
+		List<Entry> history=getEntries().get(key(robot, mechanism, mode));
+		if (history==null) return Collections.emptyList();
+		return new ArrayList<Entry>(history);
+	}
+
+	/**
+	 * Saves new values for a key, which get() will return from now on.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: the values are added to the end of the file (unless
+	 * the simulation is on)
+	 *
+	 * @param score
+	 *            How the values did when they were tuned, or NaN if they
+	 *            weren't
+	 * @param source
+	 *            Where the values came from, like "AutoPIDTuner"
+	 */
+	public static synchronized void save(RobotName robot, String mechanism, String mode, PIDValues values,
+			double score, String source) {
+		Entry entry=new Entry(System.currentTimeMillis(), values, score, clean(source));
+		add(key(robot, mechanism, mode), entry);
+		if (Simulation.isEnabled()) return;
+		FileLoader.appendToFileLater(file,
+				entry.time+","+robot+","+clean(mechanism)+","+clean(mode)+","+values.kp+","+values.ki+","+values.kd+","
+						+(Double.isNaN(score)?"":String.valueOf(score))+","+entry.source+"\n");
+	}
+
+	/**
+	 * Gets the newest feed-forward constants for a key.
+	 *
+	 * @param mechanism
+	 *            What the constants are for, like LINEAR_FEED_FORWARD
+	 * @param defaults
+	 *            What to use if nothing has been saved for the key
+	 * @return The newest saved constants, or <i>defaults</i>
+	 * @see #get(RobotName, String, String, PIDValues)
+	 */
+	public static synchronized FeedForward getFeedForward(RobotName robot, String mechanism, String mode,
+			FeedForward defaults) {
+		PIDValues values=get(robot, mechanism, mode, null);
+		return values==null?defaults:new FeedForward(values.kp, values.ki, values.kd);
+	}
+
+	/**
+	 * Saves new feed-forward constants for a key.
+	 *
+	 * @param score
+	 *            How well the constants fit, or NaN if they weren't measured
+	 * @see #save(RobotName, String, String, PIDValues, double, String)
+	 */
+	public static synchronized void saveFeedForward(RobotName robot, String mechanism, String mode,
+			FeedForward feedForward, double score, String source) {
+		save(robot, mechanism, mode, new PIDValues(feedForward.ks, feedForward.kv, feedForward.ka), score, source);
+	}
+
+	/**
+	 * Uses a different file, and forgets everything read from the old one
+	 */
+	public static synchronized void setFile(String file) {
+		GainStore.file=file;
+		entries=null;
+	}
+
+	private static Map<String, List<Entry>> getEntries() {
+		if (entries!=null) return entries;
+		entries=new HashMap<String, List<Entry>>();
+		LineReader reader=FileLoader.readLines(file);
+		try {
+			for (String line : reader) {
+				String[] parts=line.split(",", -1);
+				if (parts.length!=9) continue;
+				try {
+					PIDValues values=new PIDValues(Double.parseDouble(parts[4]), Double.parseDouble(parts[5]),
+							Double.parseDouble(parts[6]));
+					double score=parts[7].isEmpty()?Double.NaN:Double.parseDouble(parts[7]);
+					add(parts[1]+","+parts[2]+","+parts[3], new Entry(Long.parseLong(parts[0]), values, score, parts[8]));
+				}
+				catch (NumberFormatException e) {
+					// a line that was only half written when the power went
+					// out, so skip it
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return entries;
+	}
+
+	private static void add(String key, Entry entry) {
+		List<Entry> history=getEntries().get(key);
+		if (history==null) {
+			history=new ArrayList<Entry>();
+			entries.put(key, history);
+		}
+		history.add(entry);
+	}
+
+	private static String key(RobotName robot, String mechanism, String mode) {
+		return robot+","+clean(mechanism)+","+clean(mode);
+	}
+
+	/**
+	 * Keeps commas and new lines out of the file's fields
+	 */
+	private static String clean(String field) {
+		return field.replace(',', ';').replace('\n', ' ');
+	}
+}
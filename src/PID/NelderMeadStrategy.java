@@ -0,0 +1,225 @@
+package PID;
+
+/**
+ * Tunes with the Nelder-Mead simplex method. It keeps 4 sets of PID values
+ * (the corners of a simplex), and each step it tries moving the worst one
+ * through the middle of the others: further if that works well, less far if
+ * it doesn't, and if nothing works the whole simplex shrinks toward the best.
+ * It doesn't use any randomness and never needs more than one test to decide
+ * each move, which makes it a good fit for noisy, expensive tests. <br>
+ * <br>
+ * If the simplex gets too small to make progress, it is started again around
+ * the best values.
+ */
+public class NelderMeadStrategy implements TuningStrategy {
+
+	private static final int N=PIDVector.SIZE;
+	private static final double REFLECT=1, EXPAND=2, CONTRACT=0.5, SHRINK=0.5;
+
+	/**
+	 * When every corner is this close to the best one (in steps), the simplex
+	 * is started over
+	 */
+	private static final double MIN_SIZE=0.01;
+
+	private enum Phase {
+		INITIAL, REFLECT, EXPAND, CONTRACT_OUTSIDE, CONTRACT_INSIDE, SHRINK
+	}
+
+	private final PIDValues step;
+
+	private final double[][] simplex=new double[N+1][N];
+	private final double[] costs=new double[N+1];
+	private final double[] centroid=new double[N];
+	private double[] reflected, pending;
+	private double reflectedCost;
+	private Phase phase;
+
+	/**
+	 * Which corner is being tested during the INITIAL and SHRINK phases
+	 */
+	private int corner;
+
+	/**
+	 * @param step
+	 *            About how much each constant should be changed at first. The
+	 *            first simplex is the starting values plus each of these.
+	 * @throws IllegalArgumentException
+	 *             if any of them isn't more than 0
+	 */
+	public NelderMeadStrategy(PIDValues step) {
+		this.step=PIDVector.checkScale(step);
+	}
+
+	public void start(PIDValues startingValues) {
+		restart(PIDVector.toArray(startingValues, step));
+	}
+
+	private void restart(double[] best) {
+		for (int i=0; i<=N; i++) {
+			simplex[i]=best.clone();
+			if (i>0) simplex[i][i-1]+=1;
+		}
+		phase=Phase.INITIAL;
+		corner=0;
+		pending=simplex[0];
+	}
+
+	public PIDValues next() {
+		return PIDVector.toValues(pending, step);
+	}
+
+	public void report(PIDValues tested, double cost) {
+		switch (phase) {
+		case INITIAL:
+			costs[corner++]=cost;
+			if (corner<=N) {
+				pending=simplex[corner];
+			}
+			else {
+				startMove();
+			}
+			break;
+		case REFLECT:
+			reflectedCost=cost;
+			if (cost<costs[0]) {
+				phase=Phase.EXPAND;
+				pending=towards(reflected, EXPAND);
+			}
+			else if (cost<costs[N-1]) {
+				replaceWorst(reflected, cost);
+			}
+			else if (cost<costs[N]) {
+				phase=Phase.CONTRACT_OUTSIDE;
+				pending=towards(reflected, CONTRACT);
+			}
+			else {
+				phase=Phase.CONTRACT_INSIDE;
+				pending=towards(simplex[N], CONTRACT);
+			}
+			break;
+		case EXPAND:
+			if (cost<reflectedCost) {
+				replaceWorst(pending, cost);
+			}
+			else {
+				replaceWorst(reflected, reflectedCost);
+			}
+			break;
+		case CONTRACT_OUTSIDE:
+			if (cost<=reflectedCost) {
+				replaceWorst(pending, cost);
+			}
+			else {
+				startShrink();
+			}
+			break;
+		case CONTRACT_INSIDE:
+			if (cost<costs[N]) {
+				replaceWorst(pending, cost);
+			}
+			else {
+				startShrink();
+			}
+			break;
+		case SHRINK:
+			costs[corner++]=cost;
+			if (corner<=N) {
+				pending=simplex[corner];
+			}
+			else {
+				startMove();
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Sorts the corners and tries reflecting the worst one
+	 */
+	private void startMove() {
+		sort();
+		double size=0;
+		for (int i=1; i<=N; i++) {
+			for (int j=0; j<N; j++) {
+				size=Math.max(size, Math.abs(simplex[i][j]-simplex[0][j]));
+			}
+		}
+		if (size<MIN_SIZE) {
+			double[] best=simplex[0].clone();
+			double bestCost=costs[0];
+			restart(best);
+			// the best corner doesn't need to be tested again
+			costs[0]=bestCost;
+			corner=1;
+			pending=simplex[1];
+			return;
+		}
+
+		for (int j=0; j<N; j++) {
+			double sum=0;
+			for (int i=0; i<N; i++) {
+				sum+=simplex[i][j];
+			}
+			centroid[j]=sum/N;
+		}
+		phase=Phase.REFLECT;
+		reflected=new double[N];
+		for (int j=0; j<N; j++) {
+			reflected[j]=centroid[j]+REFLECT*(centroid[j]-simplex[N][j]);
+		}
+		PIDVector.clamp(reflected);
+		pending=reflected;
+	}
+
+	/**
+	 * @return The point <i>amount</i> of the way from the centroid to
+	 *         <i>point</i>
+	 */
+	private double[] towards(double[] point, double amount) {
+		double[] result=new double[N];
+		for (int j=0; j<N; j++) {
+			result[j]=centroid[j]+amount*(point[j]-centroid[j]);
+		}
+		PIDVector.clamp(result);
+		return result;
+	}
+
+	private void replaceWorst(double[] point, double cost) {
+		simplex[N]=point;
+		costs[N]=cost;
+		startMove();
+	}
+
+	/**
+	 * Moves every corner but the best halfway to it, and tests them again
+	 */
+	private void startShrink() {
+		for (int i=1; i<=N; i++) {
+			for (int j=0; j<N; j++) {
+				simplex[i][j]=simplex[0][j]+SHRINK*(simplex[i][j]-simplex[0][j]);
+			}
+		}
+		phase=Phase.SHRINK;
+		corner=1;
+		pending=simplex[1];
+	}
+
+	/**
+	 * Sorts the corners from best to worst (insertion sort, there are only 4)
+	 */
+	private void sort() {
+		for (int i=1; i<=N; i++) {
+			double[] point=simplex[i];
+			double cost=costs[i];
+			int j=i-1;
+			while (j>=0&&costs[j]>cost) {
+				simplex[j+1]=simplex[j];
+				costs[j+1]=costs[j];
+				j--;
+			}
+			simplex[j+1]=point;
+			costs[j+1]=cost;
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package PID;
+
+import java.util.Arrays;
+
+/**
+ * Runs many TimedPIDController loops at once. Instead of one object per loop,
+ * the gains and state of every loop are kept in parallel arrays, and update()
+ * goes through all of the active loops in one pass each tick. Each loop is
+ * used through a Loop, which is just an index into the arrays. <br>
+ * <br>
+ * The math is the same as TimedPIDController (filtered D on measurement,
+ * clamping with back-calculation, and kS/kV/kA feed-forward). The arrays grow
+ * when a loop is added past the capacity, so add the loops when things are
+ * made, not every tick. Nothing else allocates. <br>
+ * <br>
+ * PID.tester.PIDBankBenchmark times this against separate controllers. With
+ * as few loops as the robot has, separate controllers are just as fast (or
+ * faster), so only use a bank when something really needs a lot of loops.
+ */
+public class PIDBank {
+
+	private int count=0;
+	private int[] free=new int[0];
+	private int freeCount=0;
+
+	private boolean[] active;
+	private double[] kp, ki, kd, ks, kv, ka;
+	private double[] minOutput, maxOutput, derivativeTimeConstant, antiWindupGain;
+	private double[] target, targetVelocity, targetAcceleration, measurement;
+	private double[] integral, lastMeasurement, filteredRate, output;
+	private boolean[] hasLastMeasurement;
+
+	/**
+	 * Every loop gets the same dt, so each loop's D filter constant is worked
+	 * out once and only again when dt or the filter changes
+	 */
+	private double[] filterAlpha;
+	private double alphaDt=Double.NaN;
+
+	/**
+	 * One loop in a PIDBank. Everything set here takes effect on the bank's
+	 * next update.
+	 */
+	public class Loop {
+		private final int index;
+
+		/**
+		 * True until release is called. This is kept in the Loop and not the
+		 * bank, so a Loop that was released can't free or change its spot
+		 * after another loop has been given it.
+		 */
+		private boolean inUse=true;
+
+		private Loop(int index) {
+			this.index=index;
+		}
+
+		public void setPID(double kp, double ki, double kd) {
+			checkInUse();
+			PIDBank.this.kp[index]=kp;
+			PIDBank.this.ki[index]=ki;
+			PIDBank.this.kd[index]=kd;
+		}
+
+		public void setValues(PIDValues values) {
+			setPID(values.kp, values.ki, values.kd);
+		}
+
+		/**
+		 * See TimedPIDController.setFeedForward
+		 */
+		public void setFeedForward(double ks, double kv, double ka) {
+			checkInUse();
+			PIDBank.this.ks[index]=ks;
+			PIDBank.this.kv[index]=kv;
+			PIDBank.this.ka[index]=ka;
+		}
+
+		public void setFeedForward(FeedForward feedForward) {
+			setFeedForward(feedForward.ks, feedForward.kv, feedForward.ka);
+		}
+
+		public void setOutputRange(double minOutput, double maxOutput) {
+			checkInUse();
+			PIDBank.this.minOutput[index]=minOutput;
+			PIDBank.this.maxOutput[index]=maxOutput;
+		}
+
+		/**
+		 * See TimedPIDController.setDerivativeFilter
+		 */
+		public void setDerivativeFilter(double seconds) {
+			checkInUse();
+			derivativeTimeConstant[index]=Math.max(seconds, 0);
+			alphaDt=Double.NaN;
+		}
+
+		/**
+		 * See TimedPIDController.setAntiWindup
+		 */
+		public void setAntiWindup(double gain) {
+			checkInUse();
+			antiWindupGain[index]=Math.max(gain, 0);
+		}
+
+		public void setTarget(double target) {
+			setTarget(target, 0, 0);
+		}
+
+		/**
+		 * Sets where the loop should be, and how fast that is moving, for
+		 * motion profiles
+		 */
+		public void setTarget(double target, double velocity, double acceleration) {
+			checkInUse();
+			PIDBank.this.target[index]=target;
+			targetVelocity[index]=velocity;
+			targetAcceleration[index]=acceleration;
+		}
+
+		/**
+		 * Gives the loop the current value of whatever it controls, to be
+		 * used on the next update
+		 */
+		public void setMeasurement(double measurement) {
+			checkInUse();
+			PIDBank.this.measurement[index]=measurement;
+		}
+
+		/**
+		 * @return The output from the last update
+		 */
+		public double getOutput() {
+			checkInUse();
+			return output[index];
+		}
+
+		/**
+		 * Stops or starts updating this loop. A loop that isn't active keeps
+		 * its last output.
+		 */
+		public void setActive(boolean active) {
+			checkInUse();
+			PIDBank.this.active[index]=active;
+		}
+
+		/**
+		 * @return False once this Loop has been released, even if another
+		 *         loop now has its spot
+		 */
+		public boolean isActive() {
+			return inUse&&active[index];
+		}
+
+		/**
+		 * Clears the I term and the D filter
+		 */
+		public void reset() {
+			checkInUse();
+			resetState(index);
+		}
+
+		/**
+		 * Gives this loop's spot back to the bank so another loop can use it.
+		 * Everything but isActive throws after this is called.
+		 *
+		 * @throws IllegalStateException
+		 *             if this Loop was already released
+		 */
+		public void release() {
+			checkInUse();
+			inUse=false;
+			active[index]=false;
+			free[freeCount++]=index;
+		}
+
+		/**
+		 * @throws IllegalStateException
+		 *             if this Loop was released, so it can't change (or read)
+		 *             a spot that might belong to another loop now
+		 */
+		private void checkInUse() {
+			if (!inUse) throw new IllegalStateException("Loop "+index+" was already released");
+		}
+	}
+
+	/**
+	 * @param capacity
+	 *            How many loops to make room for at first
+	 */
+	public PIDBank(int capacity) {
+		resize(Math.max(capacity, 1));
+	}
+
+	/**
+	 * Adds a loop with the given gains and the same defaults as
+	 * TimedPIDController. The loop starts out active.
+	 */
+	public Loop add(double kp, double ki, double kd) {
+		int index;
+		if (freeCount>0) {
+			index=free[--freeCount];
+		}
+		else {
+			if (count==active.length) resize(count*2);
+			index=count++;
+		}
+		Loop loop=new Loop(index);
+		loop.setPID(kp, ki, kd);
+		loop.setFeedForward(0, 0, 0);
+		loop.setOutputRange(-1, 1);
+		loop.setDerivativeFilter(0.02);
+		loop.setAntiWindup(10);
+		loop.setTarget(0);
+		measurement[index]=0;
+		resetState(index);
+		active[index]=true;
+		return loop;
+	}
+
+	public Loop add(PIDValues values) {
+		return add(values.kp, values.ki, values.kd);
+	}
+
+	/**
+	 * @return The number of spots in use, counting released ones that haven't
+	 *         been reused
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Moves every active loop forward by <i>dt</i> using the measurement and
+	 * target it was last given.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: getOutput on each active loop returns its new output
+	 *
+	 * @param dt
+	 *            Seconds since the last update. Nothing happens if this isn't
+	 *            positive.
+	 */
+	public void update(double dt) {
+		if (!(dt>0)) return;
+		dt=Math.min(dt, TimedPIDController.MAX_DT);
+		if (dt!=alphaDt) {
+			for (int i=0; i<count; i++) {
+				filterAlpha[i]=dt/(derivativeTimeConstant[i]+dt);
+			}
+			alphaDt=dt;
+		}
+		double inverseDt=1/dt;
+		for (int i=0; i<count; i++) {
+			if (!active[i]) continue;
+			double current=measurement[i];
+			double error=target[i]-current;
+			if (hasLastMeasurement[i]) {
+				double rate=(current-lastMeasurement[i])*inverseDt;
+				filteredRate[i]+=filterAlpha[i]*(rate-filteredRate[i]);
+			}
+			lastMeasurement[i]=current;
+			hasLastMeasurement[i]=true;
+
+			double velocity=targetVelocity[i];
+			double pid=kp[i]*error+integral[i]-kd[i]*filteredRate[i];
+			double direction=velocity!=0?Math.signum(velocity):Math.signum(pid);
+			double unclamped=pid+ks[i]*direction+kv[i]*velocity+ka[i]*targetAcceleration[i];
+			double out=Math.max(minOutput[i], Math.min(maxOutput[i], unclamped));
+
+			double sum=integral[i]+ki[i]*error*dt;
+			double excess=unclamped-out;
+			if (excess!=0&&Math.signum(sum)==Math.signum(excess)) {
+				sum-=Math.signum(excess)*Math.min(antiWindupGain[i]*Math.abs(excess)*dt, Math.abs(sum));
+			}
+			integral[i]=sum;
+			output[i]=out;
+		}
+	}
+
+	private void resetState(int index) {
+		integral[index]=0;
+		filteredRate[index]=0;
+		output[index]=0;
+		hasLastMeasurement[index]=false;
+	}
+
+	private void resize(int capacity) {
+		active=active==null?new boolean[capacity]:Arrays.copyOf(active, capacity);
+		hasLastMeasurement=hasLastMeasurement==null?new boolean[capacity]
+				:Arrays.copyOf(hasLastMeasurement, capacity);
+		kp=grow(kp, capacity);
+		ki=grow(ki, capacity);
+		kd=grow(kd, capacity);
+		ks=grow(ks, capacity);
+		kv=grow(kv, capacity);
+		ka=grow(ka, capacity);
+		minOutput=grow(minOutput, capacity);
+		maxOutput=grow(maxOutput, capacity);
+		derivativeTimeConstant=grow(derivativeTimeConstant, capacity);
+		antiWindupGain=grow(antiWindupGain, capacity);
+		target=grow(target, capacity);
+		targetVelocity=grow(targetVelocity, capacity);
+		targetAcceleration=grow(targetAcceleration, capacity);
+		measurement=grow(measurement, capacity);
+		integral=grow(integral, capacity);
+		lastMeasurement=grow(lastMeasurement, capacity);
+		filteredRate=grow(filteredRate, capacity);
+		output=grow(output, capacity);
+		filterAlpha=grow(filterAlpha, capacity);
+		free=Arrays.copyOf(free, capacity);
+	}
+
+	private static double[] grow(double[] array, int capacity) {
+		return array==null?new double[capacity]:Arrays.copyOf(array, capacity);
+	}
+}
@@ -0,0 +1,49 @@
+package PID;
+
+/**
+ * Turns PIDValues into arrays and back for the strategies that treat them as
+ * a point in space. Each constant is divided by its own scale, so a step of 1
+ * means about the same amount of change for kp, ki, and kd even though ki is
+ * usually much smaller.
+ */
+final class PIDVector {
+
+	static final int SIZE=3;
+
+	private PIDVector() {
+	}
+
+	/**
+	 * @return <i>scale</i>, if every constant in it is more than 0
+	 * @throws IllegalArgumentException
+	 *             if any of them isn't, since everything is divided by them
+	 */
+	static PIDValues checkScale(PIDValues scale) {
+		if (!(scale.kp>0&&scale.ki>0&&scale.kd>0)) {
+			throw new IllegalArgumentException("Every step has to be more than 0, but it is "+scale);
+		}
+		return scale;
+	}
+
+	static double[] toArray(PIDValues values, PIDValues scale) {
+		return new double[] {values.kp/scale.kp, values.ki/scale.ki, values.kd/scale.kd};
+	}
+
+	/**
+	 * @return The PIDValues at <i>point</i>, with anything negative changed
+	 *         to 0
+	 */
+	static PIDValues toValues(double[] point, PIDValues scale) {
+		return new PIDValues(Math.max(point[0], 0)*scale.kp, Math.max(point[1], 0)*scale.ki,
+				Math.max(point[2], 0)*scale.kd);
+	}
+
+	/**
+	 * Changes anything negative in <i>point</i> to 0
+	 */
+	static void clamp(double[] point) {
+		for (int i=0; i<point.length; i++) {
+			point[i]=Math.max(point[i], 0);
+		}
+	}
+}
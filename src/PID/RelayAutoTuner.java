@@ -0,0 +1,257 @@
+package PID;
+
+/**
+ * Finds starting PID values in one short run with the relay method (Astrom
+ * and Hagglund). Instead of a PID loop, the tunable is driven bang-bang, like
+ * BangBangTurnCommand: full power one way while the error is positive, and
+ * full power the other way while it is negative. That makes it swing back and
+ * forth around the target at a steady size and speed. From the size of the
+ * swings (<i>a</i>) and the power used (<i>d</i>), the ultimate gain (the kp
+ * that would make a P loop swing like that forever) is Ku = 4d / (pi*a), and
+ * the ultimate period Tu is how long each swing takes. The PID values come
+ * from Ku and Tu with a TuningRule. <br>
+ * <br>
+ * A little hysteresis keeps sensor noise from flipping the output back and
+ * forth right at the target. The first few swings are skipped while things
+ * settle into the cycle, and it is done once the last few swings are about the
+ * same length. This takes a few seconds. <br>
+ * <br>
+ * The results are meant to seed AutoPIDTuner (see
+ * AutoPIDTuner.setRelaySeed), which can then fine tune them.
+ */
+public class RelayAutoTuner {
+
+	/**
+	 * How to turn Ku and Tu into PID values: kp = kpRatio*Ku, the integral
+	 * time is integralRatio*Tu, and the derivative time is derivativeRatio*Tu
+	 */
+	public enum TuningRule {
+		/**
+		 * The classic rule. Fast, but overshoots a lot.
+		 */
+		ZIEGLER_NICHOLS(0.6, 0.5, 0.125),
+		/**
+		 * Pessen's integral rule, which settles faster
+		 */
+		PESSEN(0.7, 0.4, 0.15),
+		SOME_OVERSHOOT(0.33, 0.5, 0.33),
+		NO_OVERSHOOT(0.2, 0.5, 0.33);
+
+		public final double kpRatio, integralRatio, derivativeRatio;
+
+		private TuningRule(double kpRatio, double integralRatio, double derivativeRatio) {
+			this.kpRatio=kpRatio;
+			this.integralRatio=integralRatio;
+			this.derivativeRatio=derivativeRatio;
+		}
+	}
+
+	/**
+	 * The number of swings skipped before measuring, and the number that have
+	 * to agree
+	 */
+	private static final int SKIPPED_CYCLES=2, MEASURED_CYCLES=3;
+
+	/**
+	 * How close (as a fraction) the measured periods have to be to each other
+	 */
+	private static final double PERIOD_TOLERANCE=0.1;
+
+	private final AutoPIDTunable toTune;
+	private final double power, hysteresis;
+	private final double secondsPerFrame;
+	private double staticFriction=0;
+	private int maxFrames=1000;
+
+	private boolean started, done, succeeded;
+	private boolean pushingPositive;
+	private int frame, cycles, lastCycleStart;
+	private double cycleMax, cycleMin;
+	private final double[] periods=new double[MEASURED_CYCLES], amplitudes=new double[MEASURED_CYCLES];
+	private double ultimateGain, ultimatePeriod;
+
+	/**
+	 * @param toTune
+	 *            The tunable to tune
+	 * @param power
+	 *            The output used while swinging. This has to be enough to get
+	 *            it moving.
+	 * @param hysteresis
+	 *            How far past the target the error has to go before the
+	 *            output flips. This should be a bit more than the sensor
+	 *            noise.
+	 * @param secondsPerFrame
+	 *            How long each frame is (0.02 on the robot)
+	 */
+	public RelayAutoTuner(AutoPIDTunable toTune, double power, double hysteresis, double secondsPerFrame) {
+		this.toTune=toTune;
+		this.power=power;
+		this.hysteresis=hysteresis;
+		this.secondsPerFrame=secondsPerFrame;
+	}
+
+	/**
+	 * Sets how much output it takes to get the tunable moving at all. That
+	 * much of <i>power</i> doesn't count toward Ku, and it is given to
+	 * AutoPIDTuner as kd (its daveyDTrick pushes by kd the way kS would).
+	 */
+	public void setStaticFriction(double staticFriction) {
+		this.staticFriction=staticFriction;
+	}
+
+	/**
+	 * Sets how many frames it can take before giving up (1000 by default)
+	 */
+	public void setMaxFrames(int maxFrames) {
+		this.maxFrames=maxFrames;
+	}
+
+	/**
+	 * Resets the tunable and starts a new run
+	 */
+	public void start() {
+		toTune.startReset(0);
+		started=true;
+		done=false;
+		succeeded=false;
+		frame=0;
+		cycles=0;
+		lastCycleStart=-1;
+		cycleMax=Double.NEGATIVE_INFINITY;
+		cycleMin=Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Runs the relay for one frame. This needs to be called once a frame
+	 * until isDone() is true.<br>
+	 * <br>
+	 * Preconditions: start() has been called<br>
+	 * Postconditions: once done, the tunable is set to 0
+	 */
+	public void update() {
+		if (!started||done) return;
+		if (!toTune.getResetFinished()) return;
+		frame++;
+		double error=toTune.getError();
+		if (frame==1) pushingPositive=error<0;
+		cycleMax=Math.max(cycleMax, error);
+		cycleMin=Math.min(cycleMin, error);
+
+		// the error is current minus target, like PIDController, so a
+		// positive error needs a negative output
+		if (pushingPositive&&error>hysteresis) {
+			pushingPositive=false;
+		}
+		else if (!pushingPositive&&error<-hysteresis) {
+			pushingPositive=true;
+			finishCycle();
+		}
+		toTune.setValue(done?0:pushingPositive?power:-power);
+
+		if (!done&&frame>=maxFrames) {
+			done=true;
+			toTune.setValue(0);
+		}
+	}
+
+	/**
+	 * Called each time the output flips to positive, which is once a swing
+	 */
+	private void finishCycle() {
+		if (lastCycleStart>=0) {
+			cycles++;
+			int measured=cycles-SKIPPED_CYCLES;
+			if (measured>0) {
+				int index=(measured-1)%MEASURED_CYCLES;
+				periods[index]=(frame-lastCycleStart)*secondsPerFrame;
+				amplitudes[index]=(cycleMax-cycleMin)/2;
+				if (measured>=MEASURED_CYCLES&&periodsAgree()) {
+					finish();
+				}
+			}
+		}
+		lastCycleStart=frame;
+		cycleMax=Double.NEGATIVE_INFINITY;
+		cycleMin=Double.POSITIVE_INFINITY;
+	}
+
+	private boolean periodsAgree() {
+		double min=Double.MAX_VALUE, max=0;
+		for (double period : periods) {
+			min=Math.min(min, period);
+			max=Math.max(max, period);
+		}
+		return max-min<=PERIOD_TOLERANCE*max;
+	}
+
+	private void finish() {
+		double period=0, amplitude=0;
+		for (int i=0; i<MEASURED_CYCLES; i++) {
+			period+=periods[i];
+			amplitude+=amplitudes[i];
+		}
+		ultimatePeriod=period/MEASURED_CYCLES;
+		amplitude/=MEASURED_CYCLES;
+		// with hysteresis, the relay flips a bit late, which is the same as a
+		// swing that is a bit smaller
+		double corrected=Math.sqrt(Math.max(amplitude*amplitude-hysteresis*hysteresis, 0));
+		if (corrected>0) {
+			ultimateGain=4*(power-staticFriction)/(Math.PI*corrected);
+			succeeded=true;
+		}
+		done=true;
+	}
+
+	/**
+	 * @return True once the run is over, whether it worked or not
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * @return True if the run finished with a steady swing to measure
+	 */
+	public boolean succeeded() {
+		return succeeded;
+	}
+
+	/**
+	 * @return Ku, in output per unit of error
+	 */
+	public double getUltimateGain() {
+		return ultimateGain;
+	}
+
+	/**
+	 * @return Tu, in seconds
+	 */
+	public double getUltimatePeriod() {
+		return ultimatePeriod;
+	}
+
+	/**
+	 * Gets the PID values for TimedPIDController, where ki and kd are per
+	 * second.<br>
+	 * <br>
+	 * Preconditions: succeeded() is true<br>
+	 * Postconditions: none
+	 */
+	public PIDValues getPIDValues(TuningRule rule) {
+		double kp=rule.kpRatio*ultimateGain;
+		return new PIDValues(kp, kp/(rule.integralRatio*ultimatePeriod), kp*rule.derivativeRatio*ultimatePeriod);
+	}
+
+	/**
+	 * Gets starting values for AutoPIDTuner. Its PIDController adds up the
+	 * error once a frame, so ki is per frame, and it uses the daveyDTrick, so
+	 * kd is the static friction instead of a D term.<br>
+	 * <br>
+	 * Preconditions: succeeded() is true<br>
+	 * Postconditions: none
+	 */
+	public PIDValues getAutoPIDTunerValues(TuningRule rule) {
+		PIDValues values=getPIDValues(rule);
+		return new PIDValues(values.kp, values.ki*secondsPerFrame, staticFriction);
+	}
+}
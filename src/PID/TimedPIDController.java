@@ -0,0 +1,215 @@
+package PID;
+
+import simulation.Simulation;
+
+/**
+ * A PID controller that uses the real time between calls instead of assuming
+ * every tick is 20 ms, so a slow or late tick doesn't throw off the I and D
+ * terms. <br>
+ * <br>
+ * Compared to PIDController:
+ * <ul>
+ * <li>The I term is the sum of error times seconds, and the D term is the rate
+ * of change per second</li>
+ * <li>The D term uses how fast the measurement is changing (not the error), so
+ * changing the target doesn't make it jump, and it is low pass filtered so
+ * sensor noise doesn't get amplified</li>
+ * <li>The output is clamped, and while it is clamped the I term is pulled back
+ * by the amount it went over (back-calculation, but never past zero), so it
+ * doesn't wind up</li>
+ * <li>There is feed-forward: kS*sign + kV*velocity + kA*acceleration. With no
+ * target velocity, kS is added in the direction the PID is already pushing,
+ * which does what the daveyDTrick was doing</li>
+ * </ul>
+ * The error is target minus current, so a positive kp pushes toward the
+ * target. Nothing here allocates.
+ */
+public class TimedPIDController {
+
+	/**
+	 * Any tick longer than this (100 ms) is treated as this long, so a pause
+	 * (like being disabled) doesn't make one huge I step
+	 */
+	public static final double MAX_DT=0.1;
+
+	private double kp, ki, kd;
+	private double ks, kv, ka;
+	private double minOutput=-1, maxOutput=1;
+	private double derivativeTimeConstant=0.02;
+	private double antiWindupGain=10;
+
+	private double integral;
+	private double lastMeasurement;
+	private double filteredRate;
+	private double lastOutput;
+	private long lastTimeNanos;
+	private boolean hasLastMeasurement;
+
+	/**
+	 * @param kp
+	 *            Output per unit of error
+	 * @param ki
+	 *            Output per unit of error per second
+	 * @param kd
+	 *            Output per unit per second that the measurement is changing
+	 */
+	public TimedPIDController(double kp, double ki, double kd) {
+		setPID(kp, ki, kd);
+	}
+
+	public TimedPIDController(PIDValues values) {
+		this(values.kp, values.ki, values.kd);
+	}
+
+	public void setPID(double kp, double ki, double kd) {
+		this.kp=kp;
+		this.ki=ki;
+		this.kd=kd;
+	}
+
+	public void setValues(PIDValues values) {
+		setPID(values.kp, values.ki, values.kd);
+	}
+
+	/**
+	 * Sets the feed-forward constants. See calculate(double, double, double,
+	 * double, double).
+	 *
+	 * @param ks
+	 *            Output needed to get moving at all (static friction)
+	 * @param kv
+	 *            Output per unit per second of target velocity
+	 * @param ka
+	 *            Output per unit per second squared of target acceleration
+	 */
+	public void setFeedForward(double ks, double kv, double ka) {
+		this.ks=ks;
+		this.kv=kv;
+		this.ka=ka;
+	}
+
+	/**
+	 * Sets the feed-forward constants, like ones from the GainStore
+	 */
+	public void setFeedForward(FeedForward feedForward) {
+		setFeedForward(feedForward.ks, feedForward.kv, feedForward.ka);
+	}
+
+	/**
+	 * Sets the most and least the output can be (-1 and 1 by default)
+	 */
+	public void setOutputRange(double minOutput, double maxOutput) {
+		this.minOutput=minOutput;
+		this.maxOutput=maxOutput;
+	}
+
+	/**
+	 * Sets how much the D term is smoothed. Bigger is smoother but slower to
+	 * react, and 0 turns the filter off.
+	 *
+	 * @param seconds
+	 *            The time constant of the filter (20 ms by default)
+	 */
+	public void setDerivativeFilter(double seconds) {
+		derivativeTimeConstant=Math.max(seconds, 0);
+	}
+
+	/**
+	 * Sets how fast the I term is pulled back while the output is clamped.
+	 *
+	 * @param gain
+	 *            How much of the amount over the limit is taken off the I
+	 *            term per second (10 by default). 0 turns anti-windup off.
+	 */
+	public void setAntiWindup(double gain) {
+		antiWindupGain=Math.max(gain, 0);
+	}
+
+	/**
+	 * Calculates the output using the time since the last call, measured with
+	 * Simulation.nanoTime(). The first call after a reset uses 20 ms.
+	 *
+	 * @param targetValue
+	 *            The desired number
+	 * @param currentValue
+	 *            The current value of whatever you're using (Gyro, Encoder,
+	 *            etc.)
+	 * @return The output, between the min and max output
+	 */
+	public double calculate(double targetValue, double currentValue) {
+		long now=Simulation.nanoTime();
+		double dt=lastTimeNanos==0?Simulation.TICK_MILLIS/1000.0:(now-lastTimeNanos)/1e9;
+		lastTimeNanos=now;
+		return calculate(targetValue, currentValue, 0, 0, dt);
+	}
+
+	/**
+	 * Calculates the output for a target that is moving, like a point on a
+	 * motion profile.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: the I and D state has moved forward by <i>dt</i>
+	 *
+	 * @param targetValue
+	 *            The desired number
+	 * @param currentValue
+	 *            The current value
+	 * @param targetVelocity
+	 *            How fast the target is moving, per second
+	 * @param targetAcceleration
+	 *            How fast the target velocity is changing, per second
+	 * @param dt
+	 *            Seconds since the last call. If this isn't positive, the last
+	 *            output is returned again.
+	 * @return The output, between the min and max output
+	 */
+	public double calculate(double targetValue, double currentValue, double targetVelocity,
+			double targetAcceleration, double dt) {
+		if (!(dt>0)) return lastOutput;
+		dt=Math.min(dt, MAX_DT);
+
+		double error=targetValue-currentValue;
+		if (hasLastMeasurement) {
+			double rate=(currentValue-lastMeasurement)/dt;
+			double alpha=dt/(derivativeTimeConstant+dt);
+			filteredRate+=alpha*(rate-filteredRate);
+		}
+		lastMeasurement=currentValue;
+		hasLastMeasurement=true;
+
+		double pid=kp*error+integral-kd*filteredRate;
+		double direction=targetVelocity!=0?Math.signum(targetVelocity):Math.signum(pid);
+		double unclamped=pid+ks*direction+kv*targetVelocity+ka*targetAcceleration;
+		double output=Math.max(minOutput, Math.min(maxOutput, unclamped));
+
+		integral+=ki*error*dt;
+		// back-calculation: while clamped, take the amount over the limit back
+		// off of the I term, but only as much as the I term is adding to it
+		double excess=unclamped-output;
+		if (excess!=0&&Math.signum(integral)==Math.signum(excess)) {
+			double unwind=Math.min(antiWindupGain*Math.abs(excess)*dt, Math.abs(integral));
+			integral-=Math.signum(excess)*unwind;
+		}
+		lastOutput=output;
+		return output;
+	}
+
+	/**
+	 * Clears the I term, the D filter, and the time of the last call, for when
+	 * the controller starts on a new target
+	 */
+	public void reset() {
+		integral=0;
+		filteredRate=0;
+		lastOutput=0;
+		lastTimeNanos=0;
+		hasLastMeasurement=false;
+	}
+
+	/**
+	 * @return The I term's part of the output right now
+	 */
+	public double getIntegral() {
+		return integral;
+	}
+}
@@ -0,0 +1,184 @@
+package PID;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import comms.SmartWriter;
+
+/**
+ * Records every AutoPIDTuner test run: the PID values it used, the error,
+ * output, and time of every frame, and how it scored. With this, gains can be
+ * compared (with PID.tester.TrialLogAnalyzer) without running the turns on
+ * the robot again. <br>
+ * <br>
+ * Like the DataLogger, the file is made full size and mapped into memory, so
+ * logging a frame is a few puts into the buffer and never allocates. The
+ * operating system writes the pages out on its own, and close() makes sure
+ * everything is on disk. <br>
+ * <br>
+ * The file starts with a HEADER_SIZE byte header (int magic, int version, int
+ * record size, int record count), followed by RECORD_SIZE byte records (int
+ * run id, byte kind, three bytes of padding, then three floats). The floats
+ * depend on the kind:
+ * <ul>
+ * <li>START: kp, ki, kd</li>
+ * <li>FRAME: seconds since the run started, error, output</li>
+ * <li>END: score, frames, 0</li>
+ * </ul>
+ * Each run has a START, its FRAMEs, and then an END, all with the same id.
+ */
+public class TrialLog {
+
+	public static final int MAGIC=0x32323034;
+	public static final int VERSION=1;
+	public static final int HEADER_SIZE=16;
+	public static final int RECORD_SIZE=20;
+	public static final int COUNT_OFFSET=12;
+
+	public static final byte START=0, FRAME=1, END=2;
+
+	/**
+	 * How big a log is made if no size is given (8 MB, which is around 400000
+	 * frames)
+	 */
+	public static final int DEFAULT_SIZE=8*1024*1024;
+
+	private final File file;
+	private RandomAccessFile randomAccessFile;
+	private MappedByteBuffer buffer;
+	private int recordCount, maxRecords;
+	private long droppedRecords;
+
+	private int runId=-1;
+	private int frames;
+	private double seconds;
+
+	/**
+	 * Makes the log file and maps it.<br>
+	 * <br>
+	 * Preconditions: the folder <i>file</i> goes in exists<br>
+	 * Postconditions: runs can be logged until the file is full. If the file
+	 * couldn't be made, the error is reported and nothing is logged.
+	 *
+	 * @param file
+	 *            Where to write the log
+	 * @param size
+	 *            How many bytes to make the file
+	 */
+	public TrialLog(File file, int size) {
+		this.file=file;
+		try {
+			randomAccessFile=new RandomAccessFile(file, "rw");
+			randomAccessFile.setLength(size);
+			buffer=randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, RECORD_SIZE);
+			buffer.putInt(COUNT_OFFSET, 0);
+			maxRecords=(size-HEADER_SIZE)/RECORD_SIZE;
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Starting trial log "+file);
+			closeFile();
+		}
+	}
+
+	public TrialLog(File file) {
+		this(file, DEFAULT_SIZE);
+	}
+
+	/**
+	 * Starts a new run
+	 *
+	 * @param values
+	 *            The PID values the run is using
+	 */
+	public void startRun(PIDValues values) {
+		runId++;
+		frames=0;
+		seconds=0;
+		write(START, (float)values.kp, (float)values.ki, (float)values.kd);
+	}
+
+	/**
+	 * Logs one frame of the current run
+	 *
+	 * @param error
+	 *            The error this frame
+	 * @param output
+	 *            The output sent to the tunable this frame
+	 * @param dt
+	 *            The length of the frame, in seconds
+	 */
+	public void logFrame(double error, double output, double dt) {
+		frames++;
+		seconds+=dt;
+		write(FRAME, (float)seconds, (float)error, (float)output);
+	}
+
+	/**
+	 * Ends the current run
+	 *
+	 * @param score
+	 *            How the run was scored (see AutoPIDTuner.getBestScore)
+	 */
+	public void endRun(double score) {
+		write(END, (float)score, frames, 0);
+	}
+
+	/**
+	 * @return The number of records that didn't fit in the file
+	 */
+	public long getDroppedRecords() {
+		return droppedRecords;
+	}
+
+	/**
+	 * Writes everything to disk, cuts the file down to the records that were
+	 * written, and closes it. Nothing more is logged after this.
+	 */
+	public void close() {
+		if (buffer==null) return;
+		buffer.force();
+		buffer=null;
+		try {
+			randomAccessFile.setLength(HEADER_SIZE+(long)recordCount*RECORD_SIZE);
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Closing trial log "+file);
+		}
+		closeFile();
+	}
+
+	private void write(byte kind, float a, float b, float c) {
+		if (buffer==null) return;
+		if (recordCount>=maxRecords) {
+			droppedRecords++;
+			return;
+		}
+		int position=HEADER_SIZE+recordCount*RECORD_SIZE;
+		buffer.putInt(position, runId);
+		buffer.put(position+4, kind);
+		buffer.putFloat(position+8, a);
+		buffer.putFloat(position+12, b);
+		buffer.putFloat(position+16, c);
+		recordCount++;
+		buffer.putInt(COUNT_OFFSET, recordCount);
+	}
+
+	private void closeFile() {
+		buffer=null;
+		if (randomAccessFile!=null) {
+			try {
+				randomAccessFile.close();
+			}
+			catch (IOException e) {
+				// nothing else can be done with it
+			}
+			randomAccessFile=null;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package PID;
+
+/**
+ * Scores one test run for AutoPIDTuner, a frame at a time. The tuner calls
+ * start() when the run begins, update() every frame, and getCost() when the
+ * run is over. Lower is better. <br>
+ * <br>
+ * Without a TuningCost, the tuner scores a run by the number of frames it
+ * took to settle, which doesn't care how hard the motors were driven or how
+ * far past the target it went.
+ */
+public interface TuningCost {
+
+	/**
+	 * Forgets the last run and starts scoring a new one
+	 *
+	 * @param initialError
+	 *            The error when the run starts
+	 */
+	void start(double initialError);
+
+	/**
+	 * Adds one frame to the score. This is called every frame, so it
+	 * shouldn't allocate or keep a history.
+	 *
+	 * @param error
+	 *            The error this frame
+	 * @param output
+	 *            The output sent to the tunable this frame
+	 * @param dt
+	 *            The length of the frame, in seconds
+	 */
+	void update(double error, double output, double dt);
+
+	/**
+	 * @return The score for the run so far. Lower is better.
+	 */
+	double getCost();
+}
@@ -0,0 +1,58 @@
+package PID;
+
+/**
+ * Decides which PID values AutoPIDTuner tries next. The tuner asks for values
+ * with next(), tests them on the tunable, and then tells the strategy how they
+ * did with report(). This repeats until the tuner runs out of tries, so next()
+ * and report() are always called one after the other. <br>
+ * <br>
+ * Every test on the real robot costs battery and field time, so a strategy
+ * should get to good values in as few reports as it can. None of the values
+ * it gives out should be negative.
+ */
+public interface TuningStrategy {
+
+	/**
+	 * Forgets everything from the last tuning session and starts a new one.
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: the first call to next() returns <i>startingValues</i>
+	 * or something based on it
+	 *
+	 * @param startingValues
+	 *            The PID values to start from
+	 */
+	void start(PIDValues startingValues);
+
+	/**
+	 * @return The PID values that should be tested next
+	 */
+	PIDValues next();
+
+	/**
+	 * Tells the strategy how the values from the last call to next() did
+	 *
+	 * @param tested
+	 *            The values that were tested
+	 * @param cost
+	 *            How bad they were (like the number of frames they took to
+	 *            settle). Lower is better.
+	 */
+	void report(PIDValues tested, double cost);
+
+	/**
+	 * Same as report(tested, cost), with how the tuner got the cost. This is
+	 * what AutoPIDTuner calls. Strategies that only care about the cost don't
+	 * need to override it.
+	 *
+	 * @param frames
+	 *            The number of frames the tested values took (the average if
+	 *            they were run more than once), even if the cost isn't frames
+	 * @param runs
+	 *            The number of runs the tuner has done so far this session,
+	 *            counting every run of every set of values
+	 */
+	default void report(PIDValues tested, double cost, int frames, int runs) {
+		report(tested, cost);
+	}
+}
@@ -0,0 +1,57 @@
+package PID.tester;
+
+import PID.BayesianStrategy;
+import PID.CompositeCost;
+import PID.PIDController;
+import PID.PIDValues;
+
+/**
+ * Tunes RobotTurnSim once by counting frames and once with a CompositeCost,
+ * and then runs the best gains from each to show how they behave. Counting
+ * frames only cares about getting there, so it tends to pick gains that
+ * overshoot and work the motors much harder.
+ */
+public class CostComparison {
+
+	private static final int TRIALS=20, TESTS=60, MAX_FRAMES=300;
+	private static final double SETTLED=0.02;
+	private static final int SETTLE_FRAMES=25;
+	private static final double SECONDS_PER_FRAME=0.02;
+	private static final PIDValues MIN=new PIDValues(0, 0, 0), MAX=new PIDValues(40, 0.02, 1);
+
+	public static void main(String[] args) {
+		System.out.println(String.format("%-10s %-42s %7s %10s %8s %8s", "scored by", "best gains", "frames",
+				"overshoot", "effort", "ITAE"));
+		tuneAndShow("frames", false);
+		tuneAndShow("composite", true);
+	}
+
+	private static void tuneAndShow(String name, boolean composite) {
+		HeadlessTuningEngine engine=new HeadlessTuningEngine(RobotTurnSim::new);
+		engine.setLimits(TESTS, MAX_FRAMES);
+		engine.setTolerance(SETTLED, SETTLE_FRAMES);
+		engine.setStrategy(seed -> new BayesianStrategy(MIN, MAX, seed));
+		if (composite) engine.setCost(() -> new CompositeCost(SETTLED));
+		PIDValues best=engine.run(TRIALS, 2202)[0].getBestValues();
+
+		RobotTurnSim sim=new RobotTurnSim();
+		sim.startReset(0);
+		while (!sim.getResetFinished()) {
+			sim.update();
+		}
+		PIDController controller=new PIDController(best);
+		CompositeCost cost=new CompositeCost(SETTLED);
+		cost.start(sim.getError());
+		int frames=0, settledFrames=0;
+		while (frames<MAX_FRAMES&&settledFrames<SETTLE_FRAMES) {
+			double output=controller.calculate(0, sim.getError());
+			sim.setValue(output);
+			sim.update();
+			cost.update(sim.getError(), output, SECONDS_PER_FRAME);
+			frames++;
+			settledFrames=Math.abs(sim.getError())<SETTLED?settledFrames+1:0;
+		}
+		System.out.println(String.format("%-10s %-42s %7d %10.3f %8.3f %8.4f", name, best, frames,
+				cost.getOvershoot(), cost.getEffort(), cost.getITAE()));
+	}
+}
@@ -0,0 +1,305 @@
+package PID.tester;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import PID.AutoPIDTuner;
+import PID.PIDValues;
+import PID.TrialLog;
+import PID.TuningCost;
+import PID.TuningStrategy;
+import simulation.Simulation;
+
+/**
+ * Runs a lot of AutoPIDTuner sessions at once without a window. Each trial is
+ * a whole tuning session (every try the tuner gets) on its own
+ * SimulatedTunable, with its own seed and its own random starting PID values.
+ * The trials are spread over every core with fork-join, and the frames are
+ * stepped as fast as they can be instead of at 90 a second like
+ * AutoPIDTesterWindow, so 100 trials take seconds instead of minutes. <br>
+ * <br>
+ * The tuners are all made on the thread that calls run, before any trial
+ * starts, because IControl's constructor adds them to lists that aren't
+ * thread safe. After that, each trial only touches its own tuner and
+ * tunable (and TrialLog, if there is one). The simulation is turned on so the
+ * tuners don't talk to the SmartDashboard or write files.
+ */
+public class HeadlessTuningEngine {
+
+	/**
+	 * The most trials one fork-join task will run without splitting
+	 */
+	private static final int TRIALS_PER_TASK=1;
+
+	/**
+	 * The results of one tuning session
+	 */
+	public static class Trial {
+		public final int number;
+		public final long seed;
+		public final PIDValues startingValues;
+		private PIDValues bestValues;
+		private int bestTuneTime=Integer.MAX_VALUE;
+		private double bestScore=Double.MAX_VALUE;
+		private long frames;
+
+		private Trial(int number, long seed, PIDValues startingValues) {
+			this.number=number;
+			this.seed=seed;
+			this.startingValues=startingValues;
+		}
+
+		public PIDValues getBestValues() {
+			return bestValues;
+		}
+
+		/**
+		 * @return The number of frames the best values took, or
+		 *         Integer.MAX_VALUE if nothing ever finished
+		 */
+		public int getBestTuneTime() {
+			return bestTuneTime;
+		}
+
+		/**
+		 * @return The score of the best values (see
+		 *         AutoPIDTuner.getBestScore)
+		 */
+		public double getBestScore() {
+			return bestScore;
+		}
+
+		/**
+		 * @return The number of frames the whole session took
+		 */
+		public long getFrames() {
+			return frames;
+		}
+
+		public String toString() {
+			return "trial "+number+": "+bestValues+" in "+bestTuneTime+" frames (started at "+startingValues+")";
+		}
+	}
+
+	private final LongFunction<SimulatedTunable> tunables;
+	private double minError=0.02;
+	private int framesInTolerance=25;
+	private int maxTries=100, maxTuneCounter=300;
+	private PIDValues minStart=new PIDValues(0.5, 0, 0), maxStart=new PIDValues(20, 0.01, 0.5);
+	private LongFunction<TuningStrategy> strategies;
+	private Supplier<TuningCost> costs;
+	private File trialLogFolder;
+
+	/**
+	 * @param tunables
+	 *            Makes a new tunable for a trial from the trial's seed. It is
+	 *            called on the thread that calls run.
+	 */
+	public HeadlessTuningEngine(LongFunction<SimulatedTunable> tunables) {
+		this.tunables=tunables;
+	}
+
+	/**
+	 * See AutoPIDTuner.setTolerance. The default is 0.02 for 25 frames, which
+	 * fits RobotTurnSim.
+	 */
+	public void setTolerance(double minError, int frames) {
+		this.minError=minError;
+		framesInTolerance=frames;
+	}
+
+	/**
+	 * See AutoPIDTuner.setLimits
+	 */
+	public void setLimits(int maxTries, int maxTuneCounter) {
+		this.maxTries=maxTries;
+		this.maxTuneCounter=maxTuneCounter;
+	}
+
+	/**
+	 * Sets the strategy each tuner uses. By default they use the tuner's
+	 * EvolutionaryStrategy.
+	 *
+	 * @param strategies
+	 *            Makes a new strategy for a trial from the trial's seed
+	 */
+	public void setStrategy(LongFunction<TuningStrategy> strategies) {
+		this.strategies=strategies;
+	}
+
+	/**
+	 * Sets how each tuner scores its runs. By default they count frames.
+	 *
+	 * @param costs
+	 *            Makes a new cost for each trial
+	 */
+	public void setCost(Supplier<TuningCost> costs) {
+		this.costs=costs;
+	}
+
+	/**
+	 * Makes each trial record every run in its own TrialLog, called
+	 * trial-&lt;number&gt;.bin in <i>folder</i>, which is closed when the trial
+	 * is done. Look at them with TrialLogAnalyzer. By default nothing is
+	 * logged.
+	 *
+	 * @param folder
+	 *            Where to put the logs (it is made if it doesn't exist), or
+	 *            null to stop logging
+	 */
+	public void setTrialLogFolder(File folder) {
+		trialLogFolder=folder;
+	}
+
+	/**
+	 * Sets the range the starting PID values are picked from. Each constant is
+	 * picked evenly between its min and max.
+	 */
+	public void setStartingRange(PIDValues min, PIDValues max) {
+		minStart=min;
+		maxStart=max;
+	}
+
+	/**
+	 * Runs every trial and waits for them to finish.<br>
+	 * <br>
+	 * Preconditions: nothing that uses hardware has been made, since this
+	 * turns the simulation on<br>
+	 * Postconditions: every trial has finished
+	 *
+	 * @param trials
+	 *            The number of tuning sessions to run
+	 * @param seed
+	 *            Picks every trial's seed and starting values, so the same
+	 *            seed gives the same results
+	 * @return The trials, best first
+	 */
+	public Trial[] run(int trials, long seed) {
+		Simulation.enable();
+		Random random=new Random(seed);
+		Trial[] results=new Trial[trials];
+		AutoPIDTuner[] tuners=new AutoPIDTuner[trials];
+		SimulatedTunable[] sims=new SimulatedTunable[trials];
+		for (int i=0; i<trials; i++) {
+			results[i]=new Trial(i, random.nextLong(), randomStart(random));
+			sims[i]=tunables.apply(results[i].seed);
+			tuners[i]=new AutoPIDTuner(sims[i], results[i].startingValues, results[i].seed);
+			tuners[i].setTolerance(minError, framesInTolerance);
+			tuners[i].setLimits(maxTries, maxTuneCounter);
+			if (strategies!=null) tuners[i].setStrategy(strategies.apply(results[i].seed));
+			if (costs!=null) tuners[i].setCost(costs.get(), Simulation.TICK_MILLIS/1000.0);
+		}
+
+		if (trialLogFolder!=null) trialLogFolder.mkdirs();
+
+		ForkJoinPool.commonPool().invoke(new TrialRange(results, tuners, sims, 0, trials));
+
+		Trial[] sorted=results.clone();
+		Arrays.sort(sorted, Comparator.comparingDouble(Trial::getBestScore));
+		return sorted;
+	}
+
+	/**
+	 * Runs the trials from <i>start</i> up to <i>end</i>, splitting them in
+	 * half until each task only has a few
+	 */
+	private class TrialRange extends RecursiveAction {
+		private static final long serialVersionUID=1L;
+
+		private final Trial[] results;
+		private final AutoPIDTuner[] tuners;
+		private final SimulatedTunable[] sims;
+		private final int start, end;
+
+		private TrialRange(Trial[] results, AutoPIDTuner[] tuners, SimulatedTunable[] sims, int start, int end) {
+			this.results=results;
+			this.tuners=tuners;
+			this.sims=sims;
+			this.start=start;
+			this.end=end;
+		}
+
+		protected void compute() {
+			if (end-start<=TRIALS_PER_TASK) {
+				for (int i=start; i<end; i++) {
+					runTrial(results[i], tuners[i], sims[i]);
+				}
+				return;
+			}
+			int middle=(start+end)>>>1;
+			invokeAll(new TrialRange(results, tuners, sims, start, middle),
+					new TrialRange(results, tuners, sims, middle, end));
+		}
+	}
+
+	/**
+	 * Steps one tuner and its tunable until the tuner has used every try
+	 */
+	private void runTrial(Trial trial, AutoPIDTuner tuner, SimulatedTunable sim) {
+		// every try is run 3 times, and each run has to reset first, so this
+		// is far more than a session should ever need
+		long maxFrames=(maxTries+2L)*3*(maxTuneCounter+framesInTolerance+10000L);
+		// made here and not with the tuners, so only the running trials have
+		// a full size log open
+		TrialLog log=null;
+		if (trialLogFolder!=null) {
+			log=new TrialLog(new File(trialLogFolder, "trial-"+trial.number+".bin"));
+			tuner.setTrialLog(log);
+		}
+		tuner.autonomousInit();
+		long frames=0;
+		while (!tuner.isDone()&&frames<maxFrames) {
+			tuner.update();
+			sim.update();
+			frames++;
+		}
+		if (log!=null) log.close();
+		trial.frames=frames;
+		trial.bestValues=tuner.getBestPIDValues();
+		trial.bestTuneTime=tuner.getBestTuneTime();
+		trial.bestScore=tuner.getBestScore();
+	}
+
+	private PIDValues randomStart(Random random) {
+		return new PIDValues(between(random, minStart.kp, maxStart.kp), between(random, minStart.ki, maxStart.ki),
+				between(random, minStart.kd, maxStart.kd));
+	}
+
+	private static double between(Random random, double min, double max) {
+		return min+random.nextDouble()*(max-min);
+	}
+
+	/**
+	 * Tunes RobotTurnSim and prints the best gains.
+	 *
+	 * @param args
+	 *            Optionally, the number of trials (100 by default) and the
+	 *            seed
+	 */
+	public static void main(String[] args) {
+		int trials=args.length>0?Integer.parseInt(args[0]):100;
+		long seed=args.length>1?Long.parseLong(args[1]):2202;
+		HeadlessTuningEngine engine=new HeadlessTuningEngine(RobotTurnSim::new);
+
+		long start=System.nanoTime();
+		Trial[] results=engine.run(trials, seed);
+		double seconds=(System.nanoTime()-start)/1e9;
+
+		long frames=0;
+		for (Trial trial : results) {
+			frames+=trial.getFrames();
+		}
+		System.out.println(String.format("%d trials, %d frames in %.2f s on %d threads", trials, frames, seconds,
+				ForkJoinPool.commonPool().getParallelism()));
+		System.out.println("Best: "+results[0]);
+		for (int i=1; i<Math.min(5, results.length); i++) {
+			System.out.println("      "+results[i]);
+		}
+	}
+}
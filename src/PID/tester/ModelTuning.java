@@ -0,0 +1,98 @@
+package PID.tester;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import PID.BayesianStrategy;
+import PID.CompositeCost;
+import PID.PIDValues;
+import simulation.MotorModel;
+import simulation.PlantModel;
+import simulation.Simulation;
+import simulation.SystemIdentification;
+
+/**
+ * Tunes gains against a model of a real mechanism instead of RobotTurnSim:
+ *
+ * <pre>
+ * java -cp Tim.jar PID.tester.ModelTuning babbage-yaw
+ * java -cp Tim.jar PID.tester.ModelTuning trials trials.bin [distance]
+ * java -cp Tim.jar PID.tester.ModelTuning log inputs-123.bin 30 "NAVX angle" "motor 0*0.5" "motor 1*0.5"
+ * </pre>
+ *
+ * "babbage-yaw" uses MotorModel.babbageYaw. "trials" fits a model to the runs
+ * in a TrialLog from the robot, and "log" fits one to an InputLog or
+ * DataLogger log (see SystemIdentification for the channels). The distance is
+ * how far each test turn is (30 by default, like NavXPIDTunable), and the
+ * tolerance is a tenth of it, which is the same as the 3 degrees AutoPIDTuner
+ * uses for a 30 degree turn. The model is tuned with the Bayesian strategy and
+ * a CompositeCost, and the range it searches is RobotTurnSim's range divided
+ * by the distance.
+ */
+public class ModelTuning {
+
+	private static final int TRIALS=20, TESTS=60, MAX_FRAMES=300, SETTLE_FRAMES=40;
+	private static final double DEFAULT_DISTANCE=30;
+	private static final PIDValues MAX=new PIDValues(40, 0.02, 1);
+
+	public static void main(String[] args) throws IOException {
+		boolean valid=args.length>0&&(args[0].equals("babbage-yaw")&&args.length==1
+				||args[0].equals("trials")&&(args.length==2||args.length==3)||args[0].equals("log")&&args.length>=5);
+		if (!valid) {
+			System.out.println("Usage: ModelTuning babbage-yaw");
+			System.out.println("       ModelTuning trials <trial log> [distance]");
+			System.out.println("       ModelTuning log <log> <distance> <position channel> <input channel>[*scale]...");
+			System.exit(1);
+		}
+
+		PlantModel model;
+		double distance=DEFAULT_DISTANCE;
+		int delay=0;
+		boolean reversed=false;
+		if (args[0].equals("babbage-yaw")) {
+			model=MotorModel.babbageYaw();
+		}
+		else {
+			SystemIdentification identification;
+			if (args[0].equals("trials")) {
+				identification=new SystemIdentification();
+				new TrialLogAnalyzer(new File(args[1])).addTo(identification);
+				if (args.length>2) distance=Double.parseDouble(args[2]);
+			}
+			else {
+				distance=Double.parseDouble(args[2]);
+				identification=SystemIdentification.fromLog(new File(args[1]), false, args[3],
+						Arrays.copyOfRange(args, 4, args.length));
+			}
+			model=identification.fitMotor();
+			if (model==null) {
+				System.out.println("Couldn't fit a model to the "+identification.getSampleCount()+" samples");
+				System.exit(1);
+			}
+			delay=identification.getDelay();
+			reversed=identification.isReversed();
+			System.out.println(String.format("Fit %s with %d frame%s of delay%s (RMS error %.4g per second)", model,
+					delay, delay==1?"":"s", reversed?", reversed":"", identification.getFitError()));
+		}
+
+		final PlantModel plant=model;
+		final double turn=distance, tolerance=distance/10, secondsPerFrame=Simulation.TICK_MILLIS/1000.0;
+		final int frames=delay;
+		final boolean backwards=reversed;
+		final PIDValues min=new PIDValues(0, 0, 0),
+				max=new PIDValues(MAX.kp/distance, MAX.ki/distance, MAX.kd/distance);
+		HeadlessTuningEngine engine=new HeadlessTuningEngine(
+				seed -> new PlantTunable(plant, turn, secondsPerFrame, frames, backwards, seed));
+		engine.setLimits(TESTS, MAX_FRAMES);
+		engine.setTolerance(tolerance, SETTLE_FRAMES);
+		engine.setStartingRange(min, max);
+		engine.setStrategy(seed -> new BayesianStrategy(min, max, seed));
+		engine.setCost(() -> new CompositeCost(tolerance));
+		HeadlessTuningEngine.Trial[] results=engine.run(TRIALS, 2202);
+		System.out.println("Best: "+results[0]);
+		for (int i=1; i<Math.min(5, results.length); i++) {
+			System.out.println("      "+results[i]);
+		}
+	}
+}
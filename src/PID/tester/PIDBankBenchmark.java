@@ -0,0 +1,97 @@
+package PID.tester;
+
+import PID.PIDBank;
+import PID.TimedPIDController;
+
+/**
+ * Times one tick of 1, 8, and 64 PID loops run as separate
+ * TimedPIDControllers and as one PIDBank, and checks that both give the same
+ * outputs. The controllers are made with other objects in between them, like
+ * they would be when each command makes its own. <br>
+ * <br>
+ * This is a plain timing loop with a warm-up, not a real benchmark harness, so
+ * run it a few times and only trust big differences.
+ */
+public class PIDBankBenchmark {
+
+	private static final int WARMUP_TICKS=200000;
+	private static final int TIMED_TICKS=1000000;
+	private static final double DT=0.02;
+
+	/**
+	 * Keeps the objects made in between the controllers alive
+	 */
+	private static Object[] spacers;
+
+	public static void main(String[] args) {
+		for (int loops : new int[] {1, 8, 64}) {
+			TimedPIDController[] controllers=new TimedPIDController[loops];
+			PIDBank bank=new PIDBank(loops);
+			PIDBank.Loop[] handles=new PIDBank.Loop[loops];
+			spacers=new Object[loops];
+			for (int i=0; i<loops; i++) {
+				double kp=0.5+i*0.01;
+				controllers[i]=new TimedPIDController(kp, 0.1, 0.05);
+				controllers[i].setFeedForward(0.1, 0, 0);
+				spacers[i]=new double[64];
+				handles[i]=bank.add(kp, 0.1, 0.05);
+				handles[i].setFeedForward(0.1, 0, 0);
+				handles[i].setTarget(1);
+			}
+
+			double separateSum=runSeparate(controllers, WARMUP_TICKS);
+			double bankSum=runBank(bank, handles, WARMUP_TICKS);
+			if (Math.abs(separateSum-bankSum)>1e-6*Math.max(1, Math.abs(separateSum))) {
+				System.out.println("Outputs don't match: "+separateSum+" vs "+bankSum);
+			}
+
+			long start=System.nanoTime();
+			separateSum+=runSeparate(controllers, TIMED_TICKS);
+			double separateNanos=(System.nanoTime()-start)/(double)TIMED_TICKS;
+			start=System.nanoTime();
+			bankSum+=runBank(bank, handles, TIMED_TICKS);
+			double bankNanos=(System.nanoTime()-start)/(double)TIMED_TICKS;
+
+			System.out.println(String.format("%2d loops: controllers %7.1f ns/tick, PIDBank %7.1f ns/tick (%.2fx)",
+					loops, separateNanos, bankNanos, separateNanos/bankNanos));
+		}
+	}
+
+	/**
+	 * Made ahead of time so the timing is just the PID math
+	 */
+	private static final double[] MEASUREMENTS=new double[1024];
+	static {
+		for (int i=0; i<MEASUREMENTS.length; i++) {
+			MEASUREMENTS[i]=Math.sin(i*2*Math.PI/MEASUREMENTS.length);
+		}
+	}
+
+	private static double measurement(int tick, int loop) {
+		return MEASUREMENTS[(tick+loop)&(MEASUREMENTS.length-1)];
+	}
+
+	private static double runSeparate(TimedPIDController[] controllers, int ticks) {
+		double sum=0;
+		for (int tick=0; tick<ticks; tick++) {
+			for (int i=0; i<controllers.length; i++) {
+				sum+=controllers[i].calculate(1, measurement(tick, i), 0, 0, DT);
+			}
+		}
+		return sum;
+	}
+
+	private static double runBank(PIDBank bank, PIDBank.Loop[] handles, int ticks) {
+		double sum=0;
+		for (int tick=0; tick<ticks; tick++) {
+			for (int i=0; i<handles.length; i++) {
+				handles[i].setMeasurement(measurement(tick, i));
+			}
+			bank.update(DT);
+			for (int i=0; i<handles.length; i++) {
+				sum+=handles[i].getOutput();
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,98 @@
+package PID.tester;
+
+import java.util.Random;
+
+import PID.PIDValues;
+import simulation.PlantModel;
+
+/**
+ * Lets AutoPIDTuner tune a PlantModel, so gains can be tuned against a model
+ * fit to the real robot instead of RobotTurnSim. Each reset puts the model
+ * back at rest with the target <i>distance</i> * (setting + 1) away, like
+ * NavXPIDTunable does, and the error is the position minus the target. <br>
+ * <br>
+ * The model can be given the same delay and direction SystemIdentification
+ * found, so the tuner sees the mechanism the way the real one would.
+ */
+public class PlantTunable implements SimulatedTunable {
+
+	private final PlantModel plant;
+	private final double distance, secondsPerFrame;
+	private final boolean reversed;
+	private final Random random;
+
+	/**
+	 * The inputs that haven't reached the model yet, oldest first
+	 */
+	private final double[] delayed;
+
+	private double target=0, input=0;
+
+	/**
+	 * @param plant
+	 *            The model to tune. A copy is used, so the same model can be
+	 *            given to more than one tunable.
+	 * @param distance
+	 *            How far away the target is for setting 0
+	 * @param secondsPerFrame
+	 *            How far the model moves each update
+	 * @param delay
+	 *            How many frames it takes for a value to get to the model
+	 * @param reversed
+	 *            True if a positive value should push the model backwards
+	 * @param seed
+	 *            The seed for setToRandomState, so a run can be repeated
+	 */
+	public PlantTunable(PlantModel plant, double distance, double secondsPerFrame, int delay, boolean reversed,
+			long seed) {
+		this.plant=plant.copy();
+		this.distance=distance;
+		this.secondsPerFrame=secondsPerFrame;
+		this.reversed=reversed;
+		delayed=new double[delay];
+		random=new Random(seed);
+	}
+
+	public void startReset(int setting) {
+		reset(distance*(setting+1));
+	}
+
+	public void setToRandomState() {
+		reset((random.nextDouble()*2-1)*distance);
+	}
+
+	private void reset(double target) {
+		plant.reset();
+		this.target=target;
+		input=0;
+		for (int i=0; i<delayed.length; i++) {
+			delayed[i]=0;
+		}
+	}
+
+	public boolean getResetFinished() {
+		return true;
+	}
+
+	public double getError() {
+		return plant.getPosition()-target;
+	}
+
+	public void setValue(double turnValue) {
+		input=reversed?-turnValue:turnValue;
+	}
+
+	public void update() {
+		double next=input;
+		if (delayed.length>0) {
+			next=delayed[0];
+			System.arraycopy(delayed, 1, delayed, 0, delayed.length-1);
+			delayed[delayed.length-1]=input;
+		}
+		plant.setInput(next);
+		plant.update(secondsPerFrame);
+	}
+
+	public void giveInfo(PIDValues bestValues, int bestTuneTime, PIDValues testingValues, int lastTestTime) {
+	}
+}
@@ -0,0 +1,77 @@
+package PID.tester;
+
+import PID.AutoPIDTuner;
+import PID.PIDValues;
+import PID.RelayAutoTuner;
+import simulation.Simulation;
+
+/**
+ * Compares starting AutoPIDTuner from a relay run (see
+ * AutoPIDTuner.setRelaySeed) against starting it from the usual starting
+ * values, on RobotTurnSim. It prints how many frames the relay run takes and
+ * what it measured, then the best settle time in frames after a few tests
+ * with each TuningRule.
+ */
+public class RelaySeedComparison {
+
+	/**
+	 * The relay's power and hysteresis, and the static friction of
+	 * RobotTurnSim (its deadband)
+	 */
+	private static final double POWER=0.8, HYSTERESIS=0.01, STATIC_FRICTION=0.4;
+	private static final PIDValues DEFAULT_START=new PIDValues(0.01, 0.0005, 0);
+	private static final int[] TESTS= {3, 15};
+
+	public static void main(String[] args) {
+		Simulation.enable();
+		RobotTurnSim sim=new RobotTurnSim(2202);
+		RelayAutoTuner relay=makeRelay(sim);
+		relay.start();
+		int frames=0;
+		while (!relay.isDone()) {
+			relay.update();
+			sim.update();
+			frames++;
+		}
+		System.out.println(String.format("relay run: %d frames (%.1f s), Ku %.2f, Tu %.2f s", frames,
+				frames*Simulation.TICK_MILLIS/1000.0, relay.getUltimateGain(), relay.getUltimatePeriod()));
+
+		for (int tests : TESTS) {
+			StringBuilder row=new StringBuilder("after "+tests+" tests:");
+			for (RelayAutoTuner.TuningRule rule : RelayAutoTuner.TuningRule.values()) {
+				row.append(String.format(" %s %d,", rule, bestTuneTime(rule, tests)));
+			}
+			row.append(" default start ").append(bestTuneTime(null, tests));
+			System.out.println(row);
+		}
+	}
+
+	private static RelayAutoTuner makeRelay(RobotTurnSim sim) {
+		RelayAutoTuner relay=new RelayAutoTuner(sim, POWER, HYSTERESIS, Simulation.TICK_MILLIS/1000.0);
+		relay.setStaticFriction(STATIC_FRICTION);
+		return relay;
+	}
+
+	/**
+	 * Runs one tuning session
+	 *
+	 * @param rule
+	 *            The rule for the relay seed, or null to start from
+	 *            DEFAULT_START without a relay run
+	 * @return The frames the best values took to settle
+	 */
+	private static int bestTuneTime(RelayAutoTuner.TuningRule rule, int tests) {
+		RobotTurnSim sim=new RobotTurnSim(2202);
+		AutoPIDTuner tuner=new AutoPIDTuner(sim, DEFAULT_START, 2202);
+		// the same tolerance HeadlessTuningEngine uses for RobotTurnSim
+		tuner.setTolerance(0.02, 25);
+		tuner.setLimits(tests, 300);
+		if (rule!=null) tuner.setRelaySeed(makeRelay(sim), rule);
+		tuner.autonomousInit();
+		while (!tuner.isDone()) {
+			tuner.update();
+			sim.update();
+		}
+		return tuner.getBestTuneTime();
+	}
+}
@@ -2,17 +2,34 @@ package PID.tester;
 
 import java.util.Random;
 
-import PID.AutoPIDTunable;
 import PID.PIDValues;
 
-public class RobotTurnSim implements AutoPIDTunable{
+/**
+ * A made up robot turning, with a deadband and friction that aren't from any
+ * real robot. It is fine for comparing tuners, but for gains that carry over
+ * to the robot, tune a PlantTunable with a model fit to the robot (see
+ * ModelTuning).
+ */
+public class RobotTurnSim implements SimulatedTunable{
 
 	private double angle=0, turnValue=0;
 	//private final double minTurnAmount=0.0;
 	private boolean resetting=true;
 	private double angleToTurnTo=2;
 	private double turnVelocity=0.0, turnFriction=0.85, turnPower=0.01;
-	private Random random=new Random();
+	private Random random;
+	
+	public RobotTurnSim() {
+		random=new Random();
+	}
+	
+	/**
+	 * @param seed
+	 *            The seed for setToRandomState, so a run can be repeated
+	 */
+	public RobotTurnSim(long seed) {
+		random=new Random(seed);
+	}
 	
 	public void startReset(int setting) {
 		//just ignore the setting
@@ -0,0 +1,111 @@
+package PID.tester;
+
+import java.util.Random;
+
+import PID.PIDController;
+import PID.TimedPIDController;
+
+/**
+ * Compares how long PIDController and TimedPIDController take to settle
+ * RobotTurnSim, with and without loop jitter. Each controller gets a small
+ * grid search for its gains first so neither one is stuck with bad ones. <br>
+ * <br>
+ * The sim moves one step every 20 ms. When a tick is late, the sim takes two
+ * steps before the controller runs again, which is what a slow tick does to
+ * the real robot. TimedPIDController is given the time since it was last
+ * called, which is all the real one can measure. The turn is settled once it has stayed within SETTLED of
+ * the target for SETTLE_STEPS steps in a row.
+ */
+public class SettleTimeComparison {
+
+	private static final double STEP_SECONDS=0.02;
+	private static final double SETTLED=0.02;
+	private static final int SETTLE_STEPS=25;
+	private static final int MAX_STEPS=1000;
+	private static final int TRIALS=20;
+
+	public static void main(String[] args) {
+		double[] jitters= {0, 0.2, 0.5};
+		for (double jitter : jitters) {
+			double[] old=bestOld(jitter);
+			double[] timed=bestTimed(jitter);
+			System.out.println(String.format(
+					"late ticks %2.0f%%: PIDController %.2f s (kp %.2f, ki %.4f, kd %.2f), "
+							+"TimedPIDController %.2f s (kp %.2f, ki %.2f, kd %.2f, kS %.2f)",
+					jitter*100, old[0], old[1], old[2], old[3], timed[0], timed[1], timed[2], timed[3], timed[4]));
+		}
+	}
+
+	/**
+	 * @return The best average settle time and the gains that got it
+	 */
+	private static double[] bestOld(double jitter) {
+		double[] best= {Double.MAX_VALUE, 0, 0, 0};
+		for (double kp=0.5; kp<=40; kp*=1.25) {
+			for (double ki : new double[] {0, 0.001, 0.005, 0.02}) {
+				for (double kd : new double[] {0, 0.1, 0.2, 0.3, 0.4, 0.5}) {
+					double time=averageSettleTime(new PIDController(kp, ki, kd, true, true), null, jitter);
+					if (time<best[0]) best=new double[] {time, kp, ki, kd};
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return The best average settle time and the gains that got it
+	 */
+	private static double[] bestTimed(double jitter) {
+		double[] best= {Double.MAX_VALUE, 0, 0, 0, 0};
+		for (double kp=0.5; kp<=40; kp*=1.25) {
+			for (double ki : new double[] {0, 0.5, 2, 5, 10}) {
+				for (double kd : new double[] {0, 0.05, 0.1, 0.2, 0.4, 0.8}) {
+					for (double ks : new double[] {0, 0.3, 0.4, 0.45}) {
+						TimedPIDController controller=new TimedPIDController(kp, ki, kd);
+						controller.setFeedForward(ks, 0, 0);
+						double time=averageSettleTime(null, controller, jitter);
+						if (time<best[0]) best=new double[] {time, kp, ki, kd, ks};
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Runs TRIALS turns with the same random late ticks for every set of gains
+	 *
+	 * @return The average time to settle in seconds, counting a turn that
+	 *         never settled as MAX_STEPS
+	 */
+	private static double averageSettleTime(PIDController old, TimedPIDController timed, double jitter) {
+		Random random=new Random(2202);
+		double total=0;
+		for (int trial=0; trial<TRIALS; trial++) {
+			RobotTurnSim sim=new RobotTurnSim();
+			sim.startReset(0);
+			while (!sim.getResetFinished()) {
+				sim.update();
+			}
+			if (old!=null) old.resetError();
+			if (timed!=null) timed.reset();
+
+			// like calculate(target, current), the first call counts as one step
+			int steps=0, settledSteps=0, stepsSinceLastCall=1;
+			while (steps<MAX_STEPS&&settledSteps<SETTLE_STEPS) {
+				double output=old!=null?old.calculate(0, sim.getError())
+						:timed.calculate(0, sim.getError(), 0, 0, stepsSinceLastCall*STEP_SECONDS);
+				sim.setValue(output);
+				int stepsThisTick=random.nextDouble()<jitter?2:1;
+				for (int i=0; i<stepsThisTick; i++) {
+					sim.update();
+					steps++;
+					settledSteps=Math.abs(sim.getError())<SETTLED?settledSteps+1:0;
+				}
+				stepsSinceLastCall=stepsThisTick;
+			}
+			total+=(steps-settledSteps)*STEP_SECONDS;
+		}
+		return total/TRIALS;
+	}
+}
@@ -0,0 +1,16 @@
+package PID.tester;
+
+import PID.AutoPIDTunable;
+
+/**
+ * An AutoPIDTunable that only exists in a simulation, so it has to be moved
+ * forward by hand instead of by the real world.
+ */
+public interface SimulatedTunable extends AutoPIDTunable {
+
+	/**
+	 * Moves the simulation forward one frame, using the last value given to
+	 * setValue
+	 */
+	void update();
+}
@@ -0,0 +1,55 @@
+package PID.tester;
+
+import java.util.function.LongFunction;
+
+import PID.BayesianStrategy;
+import PID.CMAESStrategy;
+import PID.EvolutionaryStrategy;
+import PID.NelderMeadStrategy;
+import PID.PIDValues;
+import PID.TuningStrategy;
+
+/**
+ * Compares the TuningStrategies on RobotTurnSim by how good the gains they
+ * find are after a few tests, since every test on the real robot is a real
+ * turn. Each strategy gets the same trials (the same seeds and starting
+ * values) for each number of tests.
+ */
+public class StrategyComparison {
+
+	private static final int TRIALS=40;
+	private static final int[] TESTS= {15, 30, 60, 120};
+
+	/**
+	 * About how much to change each constant at first, and the box the
+	 * Bayesian strategy searches, for RobotTurnSim
+	 */
+	private static final PIDValues STEP=new PIDValues(2, 0.0025, 0.1);
+	private static final PIDValues MIN=new PIDValues(0, 0, 0), MAX=new PIDValues(40, 0.02, 1);
+
+	public static void main(String[] args) {
+		StringBuilder header=new StringBuilder(String.format("%-14s", "tests:"));
+		for (int tests : TESTS) {
+			header.append(String.format("%16d", tests));
+		}
+		System.out.println(header);
+		System.out.println("median (and worst) frames to settle with the best gains found");
+		compare("Evolutionary", EvolutionaryStrategy::new);
+		compare("Nelder-Mead", seed -> new NelderMeadStrategy(STEP));
+		compare("CMA-ES", seed -> new CMAESStrategy(STEP, seed));
+		compare("Bayesian", seed -> new BayesianStrategy(MIN, MAX, seed));
+	}
+
+	private static void compare(String name, LongFunction<TuningStrategy> strategy) {
+		StringBuilder row=new StringBuilder(String.format("%-14s", name));
+		for (int tests : TESTS) {
+			HeadlessTuningEngine engine=new HeadlessTuningEngine(RobotTurnSim::new);
+			engine.setLimits(tests, 300);
+			engine.setStrategy(strategy);
+			HeadlessTuningEngine.Trial[] results=engine.run(TRIALS, 2202);
+			row.append(String.format("%16s",
+					results[TRIALS/2].getBestTuneTime()+" ("+results[TRIALS-1].getBestTuneTime()+")"));
+		}
+		System.out.println(row);
+	}
+}
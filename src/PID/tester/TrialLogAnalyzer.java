@@ -0,0 +1,234 @@
+package PID.tester;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import PID.PIDValues;
+import PID.TrialLog;
+import simulation.SystemIdentification;
+
+/**
+ * Looks at a TrialLog off the robot, so gains can be compared without running
+ * the turns again:
+ * 
+ * <pre>
+ * java -cp Tim.jar PID.tester.TrialLogAnalyzer rank trials.bin [count]
+ * java -cp Tim.jar PID.tester.TrialLogAnalyzer csv trials.bin trials.csv
+ * java -cp Tim.jar PID.tester.TrialLogAnalyzer plot trials.bin trials.png [count]
+ * </pre>
+ * 
+ * "rank" prints the runs from best score to worst, with how far each one
+ * overshot and how hard it drove the output. "csv" writes one row per frame
+ * with the run's id, PID values and score on every row. "plot" draws the error
+ * of the best few runs over time (10 by default) on one graph.
+ */
+public class TrialLogAnalyzer {
+
+	private static final int WIDTH=1200, HEIGHT=700, MARGIN=60;
+	private static final Color[] COLORS= {Color.red, Color.blue, new Color(0, 150, 0), Color.magenta, Color.orange,
+			Color.cyan.darker(), Color.pink.darker(), Color.gray, new Color(120, 60, 0), Color.black};
+
+	/**
+	 * One run from the log
+	 */
+	static class Run {
+		int id;
+		PIDValues values;
+		double score=Double.NaN;
+		int frames;
+		List<float[]> trajectory=new ArrayList<float[]>();
+
+		double getOvershoot() {
+			if (trajectory.isEmpty()) return 0;
+			float first=trajectory.get(0)[1];
+			double overshoot=0;
+			for (float[] frame : trajectory) {
+				if (frame[1]*first<0) overshoot=Math.max(overshoot, Math.abs(frame[1]));
+			}
+			return overshoot;
+		}
+
+		double getMaxOutput() {
+			double max=0;
+			for (float[] frame : trajectory) {
+				max=Math.max(max, Math.abs(frame[2]));
+			}
+			return max;
+		}
+	}
+
+	private List<Run> runs=new ArrayList<Run>();
+
+	public static void main(String[] args) throws IOException {
+		boolean valid=args.length>=2&&(args[0].equals("rank")&&args.length<=3
+				||args[0].equals("csv")&&args.length==3||args[0].equals("plot")&&args.length>=3&&args.length<=4);
+		if (!valid) {
+			System.out.println("Usage: TrialLogAnalyzer rank <log> [count]");
+			System.out.println("       TrialLogAnalyzer csv <log> <output file>");
+			System.out.println("       TrialLogAnalyzer plot <log> <output png> [count]");
+			System.exit(1);
+		}
+		TrialLogAnalyzer analyzer=new TrialLogAnalyzer(new File(args[1]));
+		if (args[0].equals("rank")) {
+			analyzer.printRanking(args.length>2?Integer.parseInt(args[2]):Integer.MAX_VALUE);
+		}
+		else if (args[0].equals("csv")) {
+			analyzer.writeCsv(new File(args[2]));
+		}
+		else {
+			analyzer.plot(new File(args[2]), args.length>3?Integer.parseInt(args[3]):10);
+		}
+	}
+
+	/**
+	 * Reads every run in the log into memory. Runs that never ended (because
+	 * tuning was stopped partway through one) are left out.
+	 */
+	public TrialLogAnalyzer(File log) throws IOException {
+		RandomAccessFile file=new RandomAccessFile(log, "r");
+		try {
+			ByteBuffer buffer=file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+			if (buffer.getInt(0)!=TrialLog.MAGIC||buffer.getInt(4)!=TrialLog.VERSION) {
+				throw new IOException(log+" isn't a trial log");
+			}
+			int recordSize=buffer.getInt(8);
+			int count=buffer.getInt(TrialLog.COUNT_OFFSET);
+			Run run=null;
+			for (int i=0; i<count; i++) {
+				int position=TrialLog.HEADER_SIZE+i*recordSize;
+				int id=buffer.getInt(position);
+				byte kind=buffer.get(position+4);
+				float a=buffer.getFloat(position+8), b=buffer.getFloat(position+12), c=buffer.getFloat(position+16);
+				if (kind==TrialLog.START) {
+					run=new Run();
+					run.id=id;
+					run.values=new PIDValues(a, b, c);
+				}
+				else if (run!=null&&run.id==id&&kind==TrialLog.FRAME) {
+					run.trajectory.add(new float[] {a, b, c});
+				}
+				else if (run!=null&&run.id==id&&kind==TrialLog.END) {
+					run.score=a;
+					run.frames=(int)b;
+					runs.add(run);
+					run=null;
+				}
+			}
+		}
+		finally {
+			file.close();
+		}
+		Collections.sort(runs, Comparator.comparingDouble((Run r) -> r.score));
+	}
+
+	/**
+	 * Adds every run to <i>identification</i>, with the output as the input
+	 * and the error as the position, so a model of what was being tuned can be
+	 * fit to it. Each run starts a new run in <i>identification</i>.
+	 */
+	public void addTo(SystemIdentification identification) {
+		for (Run run : runs) {
+			identification.startRun();
+			float lastSeconds=0;
+			for (float[] frame : run.trajectory) {
+				identification.addSample(frame[0]-lastSeconds, frame[2], frame[1]);
+				lastSeconds=frame[0];
+			}
+		}
+	}
+
+	/**
+	 * @return The runs that ended, from best score to worst
+	 */
+	List<Run> getRuns() {
+		return runs;
+	}
+
+	private void printRanking(int count) {
+		System.out.println(String.format("%5s %5s  %-40s %10s %7s %10s %10s", "rank", "run", "PID values", "score",
+				"frames", "overshoot", "max output"));
+		for (int i=0; i<Math.min(count, runs.size()); i++) {
+			Run run=runs.get(i);
+			System.out.println(String.format("%5d %5d  %-40s %10.4f %7d %10.4f %10.4f", i+1, run.id, run.values,
+					run.score, run.frames, run.getOvershoot(), run.getMaxOutput()));
+		}
+	}
+
+	private void writeCsv(File output) throws IOException {
+		PrintWriter writer=new PrintWriter(output);
+		try {
+			writer.println("run,kp,ki,kd,score,seconds,error,output");
+			for (Run run : runs) {
+				String prefix=run.id+","+run.values.kp+","+run.values.ki+","+run.values.kd+","+run.score+",";
+				for (float[] frame : run.trajectory) {
+					writer.println(prefix+frame[0]+","+frame[1]+","+frame[2]);
+				}
+			}
+		}
+		finally {
+			writer.close();
+		}
+		System.out.println("Wrote "+runs.size()+" runs");
+	}
+
+	/**
+	 * Draws the error over time of the best <i>count</i> runs, with a line at
+	 * 0 and a key in the corner
+	 */
+	private void plot(File output, int count) throws IOException {
+		List<Run> shown=runs.subList(0, Math.min(count, runs.size()));
+		double maxTime=0.001, maxError=0.001;
+		for (Run run : shown) {
+			for (float[] frame : run.trajectory) {
+				maxTime=Math.max(maxTime, frame[0]);
+				maxError=Math.max(maxError, Math.abs(frame[1]));
+			}
+		}
+
+		BufferedImage image=new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g=image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(Color.white);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		int plotWidth=WIDTH-2*MARGIN, plotHeight=HEIGHT-2*MARGIN, zero=MARGIN+plotHeight/2;
+		g.setColor(Color.lightGray);
+		g.drawRect(MARGIN, MARGIN, plotWidth, plotHeight);
+		g.drawLine(MARGIN, zero, MARGIN+plotWidth, zero);
+		g.setColor(Color.darkGray);
+		g.drawString(String.format("error (max %.3f) vs. seconds (max %.2f)", maxError, maxTime), MARGIN, MARGIN-10);
+
+		g.setStroke(new BasicStroke(1.5f));
+		for (int i=0; i<shown.size(); i++) {
+			Run run=shown.get(i);
+			g.setColor(COLORS[i%COLORS.length]);
+			int lastX=-1, lastY=-1;
+			for (float[] frame : run.trajectory) {
+				int x=MARGIN+(int)(frame[0]/maxTime*plotWidth);
+				int y=zero-(int)(frame[1]/maxError*plotHeight/2);
+				if (lastX>=0) g.drawLine(lastX, lastY, x, y);
+				lastX=x;
+				lastY=y;
+			}
+			g.drawString(String.format("run %d: %s, score %.3f", run.id, run.values, run.score), WIDTH-MARGIN-420,
+					MARGIN+20+i*16);
+		}
+		g.dispose();
+		ImageIO.write(image, "png", output);
+		System.out.println("Plotted "+shown.size()+" runs");
+	}
+}
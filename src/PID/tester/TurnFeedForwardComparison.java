@@ -0,0 +1,54 @@
+package PID.tester;
+
+import PID.FeedForward;
+import PID.PIDController;
+import PID.PIDValues;
+import auto.commands.TurnCommand;
+
+/**
+ * Runs TurnCommand's math on a made up robot turning, to compare turning with
+ * only the PID loop against turning with the angular feed-forward. The robot
+ * is a first-order plant: the turn rate moves toward (power - kS) / kV with a
+ * time constant of TIME_CONSTANT, and power under kS doesn't move it at all.
+ * It uses Babbage's turn gains and a feed-forward that matches the plant. A
+ * turn is done once it has been within MARGIN for SETTLE_SECONDS, like
+ * AngleStopCondition. <br>
+ * <br>
+ * The middle row is the PID loop with the daveyDTrick still on under the
+ * feed-forward, which pushes past static friction twice.
+ */
+public class TurnFeedForwardComparison {
+
+	private static final double KS=0.1, KV=0.004, TIME_CONSTANT=0.1;
+	private static final PIDValues BABBAGE=new PIDValues(0.006, 0.0002, 0.15);
+	private static final double TURN=90, MARGIN=1, SETTLE_SECONDS=0.3;
+	private static final double SECONDS_PER_FRAME=0.02, MAX_SECONDS=10;
+
+	public static void main(String[] args) {
+		FeedForward feedForward=new FeedForward(KS, KV, 0);
+		System.out.println(String.format("%-38s %8s %10s", "90 degree turn", "settled", "overshoot"));
+		run("PID only", TurnCommand.makeController(BABBAGE, null), null);
+		run("PID + feed-forward, daveyDTrick on", new PIDController(BABBAGE), feedForward);
+		run("PID + feed-forward (TurnCommand)", TurnCommand.makeController(BABBAGE, feedForward), feedForward);
+	}
+
+	private static void run(String name, PIDController controller, FeedForward feedForward) {
+		double angle=0, rate=0, overshoot=0;
+		int frame=0, framesInRange=0;
+		int settleFrames=(int)Math.round(SETTLE_SECONDS/SECONDS_PER_FRAME);
+		while (framesInRange<settleFrames&&frame*SECONDS_PER_FRAME<MAX_SECONDS) {
+			// the error is the angle minus the target, like AngleStopCondition
+			double error=angle-TURN;
+			double power=controller.calculate(0, error)+TurnCommand.getFeedForward(feedForward, error, MARGIN);
+			power=Math.max(-1, Math.min(1, power));
+			double moving=Math.signum(power)*Math.max(Math.abs(power)-KS, 0);
+			rate+=(moving/KV-rate)*SECONDS_PER_FRAME/TIME_CONSTANT;
+			angle+=rate*SECONDS_PER_FRAME;
+			overshoot=Math.max(overshoot, angle-TURN);
+			framesInRange=Math.abs(angle-TURN)<MARGIN?framesInRange+1:0;
+			frame++;
+		}
+		String settled=framesInRange<settleFrames?"never":String.format("%.2f s", frame*SECONDS_PER_FRAME);
+		System.out.println(String.format("%-38s %8s %8.2f deg", name, settled, overshoot));
+	}
+}
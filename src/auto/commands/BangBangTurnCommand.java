@@ -1,7 +1,5 @@
 package auto.commands;
 
-import com.kauailabs.navx.frc.AHRS;
-
 import PID.PIDController;
 import auto.ICommand;
 import auto.IStopCondition;
@@ -14,7 +12,6 @@ public class BangBangTurnCommand implements ICommand {
 
 	private double power, degreesToTurn;
 	private IDrive drive;
-	private AHRS navx;
 	
 	public BangBangTurnCommand(double degreesToTurn, double power) {
 		this.degreesToTurn=degreesToTurn;
@@ -26,13 +23,12 @@ public class BangBangTurnCommand implements ICommand {
 		//set the objects and set external control
 		drive=(IDrive)Global.controlObjects.get("DRIVE");
 		drive.setDriveControl(DriveControl.EXTERNAL_CONTROL);
-		navx=(AHRS)SensorController.getInstance().getSensor("NAVX");
 		//reset navx so we turn degrees from when this command is called
-		navx.reset();
+		SensorController.getInstance().reset("NAVX");
 	}
 
 	public boolean run() {
-		double angle=navx.getAngle();
+		double angle=SensorController.getInstance().getAngle("NAVX");
 		if (angle>degreesToTurn) {//turn in the right direction
 			drive.setLeftMotors(-power);
 			drive.setRightMotors(power);			
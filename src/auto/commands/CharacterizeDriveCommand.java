@@ -0,0 +1,233 @@
+package auto.commands;
+
+import java.util.List;
+
+import PID.FeedForward;
+import PID.GainStore;
+import auto.ICommand;
+import comms.DebugMode;
+import comms.DoubleChannel;
+import comms.SmartWriter;
+import drive.DriveControl;
+import drive.IDrive;
+import input.SensorController;
+import robot.Global;
+import robot.Robot;
+import simulation.MotorModel;
+import simulation.Simulation;
+import simulation.SystemIdentification;
+
+/**
+ * Finds the drivetrain's feed-forward constants by driving it and watching
+ * how it moves. Each axis (driving straight, then turning in place) gets four
+ * tests, with a rest before each one so the robot has stopped:
+ * <ul>
+ * <li>Quasi-static, forward and backward: the power goes up slowly from 0
+ * (RAMP_RATE per second), so the robot is always going about the speed that
+ * power holds. These mostly find kS and kV.</li>
+ * <li>Dynamic, forward and backward: the power jumps straight to STEP_POWER, so
+ * the robot speeds up as fast as it can. These mostly find kA.</li>
+ * </ul>
+ * Every tick, the power and the encoder distance (or navX angle) are given to
+ * a SystemIdentification for the axis, and set on registered channels, so
+ * they are on the SmartDashboard and the DataLogger records them too (see
+ * SystemIdentification.fromLog). When every test is done, kS, kV, and kA are fit
+ * for each axis and saved in the GainStore under
+ * GainStore.LINEAR_FEED_FORWARD (inches) and GainStore.ANGULAR_FEED_FORWARD
+ * (degrees). Nothing is saved if the command is stopped early. <br>
+ * <br>
+ * A straight test ends early once the robot has gone MAX_DISTANCE inches, but
+ * it still needs about that much room in front of and behind it. The whole
+ * thing takes about 30 seconds, so run it from practice mode, not a match.
+ */
+public class CharacterizeDriveCommand implements ICommand {
+
+	/**
+	 * How fast the power goes up in the quasi-static tests, per second, and
+	 * where it stops
+	 */
+	private static final double RAMP_RATE=0.1, MAX_RAMP_POWER=0.6;
+
+	/**
+	 * The power and length of the dynamic tests
+	 */
+	private static final double STEP_POWER=0.5;
+	private static final long STEP_MILLIS=1500;
+
+	private static final long REST_MILLIS=1000;
+	private static final double MAX_DISTANCE=120;
+
+	/**
+	 * The tests run on each axis, in order
+	 */
+	private enum Test {
+		QUASI_STATIC_FORWARD(true, 1), QUASI_STATIC_BACKWARD(true, -1), DYNAMIC_FORWARD(false,
+				1), DYNAMIC_BACKWARD(false, -1);
+
+		private final boolean quasiStatic;
+		private final int direction;
+
+		private Test(boolean quasiStatic, int direction) {
+			this.quasiStatic=quasiStatic;
+			this.direction=direction;
+		}
+	}
+
+	private static final Test[] TESTS=Test.values();
+
+	private List<String> encoders;
+	private IDrive drive;
+
+	/**
+	 * The samples for driving straight and turning
+	 */
+	private SystemIdentification linear, angular;
+	private FeedForward linearResult, angularResult;
+
+	/**
+	 * What is sent and measured every tick, for the DataLogger
+	 */
+	private DoubleChannel powerChannel, distanceChannel, angleChannel;
+
+	private boolean turning, resting;
+	private int testIndex;
+	private long testStartMillis, lastNanos;
+	private double startDistance;
+
+	/**
+	 * @param encoders
+	 *            The encoders to average for the distance driven, in inches
+	 */
+	public CharacterizeDriveCommand(List<String> encoders) {
+		this.encoders=encoders;
+	}
+
+	public void init() {
+		drive=(IDrive)Global.controlObjects.get("DRIVE");
+		drive.setDriveControl(DriveControl.EXTERNAL_CONTROL);
+		for (String encoder : encoders) {
+			SensorController.getInstance().reset(encoder);
+		}
+		SensorController.getInstance().reset("NAVX");
+		powerChannel=SmartWriter.registerDouble("Characterize power", DebugMode.COMPETITION);
+		distanceChannel=SmartWriter.registerDouble("Characterize distance", DebugMode.COMPETITION);
+		angleChannel=SmartWriter.registerDouble("Characterize angle", DebugMode.COMPETITION);
+		linear=new SystemIdentification();
+		angular=new SystemIdentification();
+		linearResult=null;
+		angularResult=null;
+		turning=false;
+		testIndex=0;
+		startResting();
+	}
+
+	public boolean run() {
+		long now=Simulation.currentTimeMillis();
+		if (resting) {
+			setPower(0);
+			if (now-testStartMillis>=REST_MILLIS) {
+				resting=false;
+				testStartMillis=now;
+				startDistance=getDistance();
+				lastNanos=Simulation.nanoTime();
+				(turning?angular:linear).startRun();
+			}
+			return false;
+		}
+
+		Test test=TESTS[testIndex];
+		double seconds=(now-testStartMillis)/1000.0;
+		double power=test.direction*(test.quasiStatic?Math.min(RAMP_RATE*seconds, MAX_RAMP_POWER):STEP_POWER);
+		double distance=getDistance(), angle=SensorController.getInstance().getAngle("NAVX");
+		long nanos=Simulation.nanoTime();
+		(turning?angular:linear).addSample((nanos-lastNanos)/1e9, power, turning?angle:distance);
+		lastNanos=nanos;
+		setPower(power);
+		powerChannel.set(power);
+		distanceChannel.set(distance);
+		angleChannel.set(angle);
+
+		boolean testDone=test.quasiStatic?RAMP_RATE*seconds>=MAX_RAMP_POWER:now-testStartMillis>=STEP_MILLIS;
+		if (!turning&&Math.abs(distance-startDistance)>=MAX_DISTANCE) testDone=true;
+		if (!testDone) return false;
+
+		testIndex++;
+		if (testIndex==TESTS.length) {
+			if (turning) {
+				finish();
+				stop();
+				return true;
+			}
+			turning=true;
+			testIndex=0;
+		}
+		startResting();
+		return false;
+	}
+
+	public void stop() {
+		drive.setLeftMotors(0);
+		drive.setRightMotors(0);
+		drive.setDriveControl(DriveControl.DRIVE_CONTROLLED);
+	}
+
+	/**
+	 * @return The constants for driving straight, or null if they haven't
+	 *         been found (yet)
+	 */
+	public FeedForward getLinearFeedForward() {
+		return linearResult;
+	}
+
+	/**
+	 * @return The constants for turning in place, or null if they haven't been
+	 *         found (yet)
+	 */
+	public FeedForward getAngularFeedForward() {
+		return angularResult;
+	}
+
+	private void startResting() {
+		resting=true;
+		testStartMillis=Simulation.currentTimeMillis();
+	}
+
+	/**
+	 * Sets the power of both sides, going forward if driving straight or
+	 * turning right (which makes the navX angle go up) if turning
+	 */
+	private void setPower(double power) {
+		drive.setLeftMotors(power);
+		drive.setRightMotors(turning?-power:power);
+	}
+
+	private double getDistance() {
+		double sum=0;
+		for (String encoder : encoders) {
+			sum+=SensorController.getInstance().getDistance(encoder);
+		}
+		return sum/encoders.size();
+	}
+
+	/**
+	 * Fits and saves the constants for both axes
+	 */
+	private void finish() {
+		linearResult=fit(linear, GainStore.LINEAR_FEED_FORWARD);
+		angularResult=fit(angular, GainStore.ANGULAR_FEED_FORWARD);
+	}
+
+	private FeedForward fit(SystemIdentification identification, String mechanism) {
+		MotorModel model=identification.fitMotor();
+		if (model==null||identification.isReversed()) {
+			SmartWriter.putS(mechanism, model==null?"Couldn't fit":"The sensor goes the wrong way",
+					DebugMode.COMPETITION);
+			return null;
+		}
+		FeedForward feedForward=new FeedForward(model.getKS(), model.getKV(), model.getKA());
+		GainStore.saveFeedForward(Robot.name, mechanism, GainStore.DEFAULT_MODE, feedForward,
+				identification.getFitError(), "CharacterizeDriveCommand");
+		SmartWriter.putS(mechanism, feedForward.toString(), DebugMode.COMPETITION);
+		return feedForward;
+	}
+}
@@ -7,11 +7,11 @@ import auto.stopConditions.TimerStopCondition;
 import comms.NetworkTables;
 import comms.SmartWriter;
 import comms.TableNamesEnum;
-import edu.wpi.first.wpilibj.Encoder;
 import edu.wpi.first.wpilibj.Ultrasonic;
 import input.SensorController;
 import robot.Global;
 import robotDefinitions.BabbageControl;
+import simulation.Simulation;
 
 /**
  * 
@@ -24,7 +24,6 @@ public class ContinuousPegVisionCommand implements ICommand {
 	private double distanceToMove;
 	private Ultrasonic distanceSensor;//7 is not in use
 	private DriveAtAngle driveAtAngleCommand;
-	private ArrayList<Encoder> encoders;
 	private double lastAngle=0;
 	private long msToRunFor=99999999;
 	private long maxEndTime=Long.MAX_VALUE;
@@ -43,7 +42,7 @@ public class ContinuousPegVisionCommand implements ICommand {
 		driveAtAngleCommand=new DriveAtAngle(new TimerStopCondition(10000), 0.3, 0);
 		
 		distanceSensor=(Ultrasonic) SensorController.getInstance().getSensor("DISTANCESENSOR");
-		distanceSensor.setAutomaticMode(true);
+		if (distanceSensor!=null) distanceSensor.setAutomaticMode(true);
 		
 	}
 	
@@ -63,15 +62,13 @@ public class ContinuousPegVisionCommand implements ICommand {
 
 	//comments in ICommand
 	public void init() {
-		SmartWriter.putD("Peg Vision activated", System.currentTimeMillis());
+		SmartWriter.putD("Peg Vision activated", Simulation.currentTimeMillis());
 		driveAtAngleCommand.init();
 		driveAtAngleCommand.setAngle(0);//drive forward until we know what angle we should drive at
 		table.setBoolean("processVision", true);
-		encoders=new ArrayList<>();
-		encoders.add((Encoder)SensorController.getInstance().getSensor("ENCODER0"));
-		encoders.get(0).reset();
+		SensorController.getInstance().reset("ENCODER0");
 		lastAngle=0;
-		maxEndTime=System.currentTimeMillis()+msToRunFor;
+		maxEndTime=Simulation.currentTimeMillis()+msToRunFor;
 	}
 
 	public boolean run() {
@@ -81,26 +78,26 @@ public class ContinuousPegVisionCommand implements ICommand {
 			return true;
 		}
 		
-		if (System.currentTimeMillis()>=maxEndTime) {
+		if (Simulation.currentTimeMillis()>=maxEndTime) {
 			stop();
 			return true;
 		}
 		
 		
 		//Go slower if we are closer to where we want to be. If we are less than 10 inches from the target, the distance sensor will no longer work, so stop.
-		if (distanceSensor.getRangeInches()<24) {
+		if (SensorController.getInstance().getRangeInches("DISTANCESENSOR")<24) {
 			driveAtAngleCommand.setSpeed(0.2);
-			if (distanceSensor.getRangeInches()<10) {
+			if (SensorController.getInstance().getRangeInches("DISTANCESENSOR")<10) {
 				stop();
 				return true;
 			}
 		}
 		else {
-			if (distanceSensor.getRangeInches()<40) {				
+			if (SensorController.getInstance().getRangeInches("DISTANCESENSOR")<40) {				
 				driveAtAngleCommand.setSpeed(0.3);
 			}
 			else {
-				if (distanceSensor.getRangeInches()<60) {					
+				if (SensorController.getInstance().getRangeInches("DISTANCESENSOR")<60) {					
 					driveAtAngleCommand.setSpeed(0.4);
 				}
 				else {
@@ -110,7 +107,7 @@ public class ContinuousPegVisionCommand implements ICommand {
 		}
 		
 		driveAtAngleCommand.run();//run the command to drive at an angle
-		SmartWriter.putD("Distance Sensor", distanceSensor.getRangeInches());
+		SmartWriter.putD("Distance Sensor", SensorController.getInstance().getRangeInches("DISTANCESENSOR"));
 		
 		if (table.getBoolean("processVision")) {
 			//waitingForVision
@@ -136,7 +133,7 @@ public class ContinuousPegVisionCommand implements ICommand {
 			driveAtAngleCommand.setAngle(tempLastAngle+degreesToTurn);//turn at the angle vision was when we took the picture, plus what vision said to turn
 			
 			table.setBoolean("processVision", true);
-			encoders.get(0).reset();//we don't use this anymore, it was from when we used encoders and vision to measure distance
+			SensorController.getInstance().reset("ENCODER0");//we don't use this anymore, it was from when we used encoders and vision to measure distance
 			return false;
 		}
 
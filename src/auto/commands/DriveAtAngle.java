@@ -1,16 +1,17 @@
 package auto.commands;
 
-import com.kauailabs.navx.frc.AHRS;
-
+import PID.GainStore;
 import PID.PIDController;
 import PID.PIDValues;
 import auto.ICommand;
 import auto.IStopCondition;
+import comms.DebugMode;
 import comms.SmartWriter;
 import drive.DriveControl;
 import drive.IDrive;
 import input.SensorController;
 import robot.Global;
+import robot.Robot;
 
 public class DriveAtAngle implements ICommand {
 
@@ -18,7 +19,6 @@ public class DriveAtAngle implements ICommand {
 	private IDrive drive;
 	private double slowSpeed, fastSpeed;
 	private double angle;
-	private AHRS navx;
 	private PIDController controller;
 	private boolean usePID;
 
@@ -33,7 +33,9 @@ public class DriveAtAngle implements ICommand {
 		usePID = true;
 		// these will most likely be small as the value needs to be under 1.0/
 		// -1.0
-		controller = new PIDController(0.01, 0.00005, .01, true, false);
+		PIDValues values = GainStore.get(Robot.name, GainStore.DRIVE_AT_ANGLE, GainStore.DEFAULT_MODE,
+				new PIDValues(0.01, 0.00005, .01));
+		controller = new PIDController(values.kp, values.ki, values.kd, true, false);
 		stopCondition = stop;
 		this.angle = angle;
 		slowSpeed = speed;
@@ -66,15 +68,14 @@ public class DriveAtAngle implements ICommand {
 
 	public void init() {
 		stopCondition.init();
-		navx = (AHRS) (SensorController.getInstance().getSensor("NAVX"));
-		navx.reset();
+		SensorController.getInstance().reset("NAVX");
 		drive = (IDrive) Global.controlObjects.get("DRIVE");
 		drive.setDriveControl(DriveControl.EXTERNAL_CONTROL);
 		
 	}
 
 	public boolean run() {
-		SmartWriter.putS("TargetAngle driveAtAngle ", getError() + ", NavXAngle: "+navx.getAngle());
+		SmartWriter.putS("TargetAngle driveAtAngle ", () -> getError() + ", NavXAngle: "+SensorController.getInstance().getAngle("NAVX"), DebugMode.DEBUG);
 		if (usePID) {
 			withGyro();
 		} else {
@@ -115,7 +116,7 @@ public class DriveAtAngle implements ICommand {
 	}
 	
 	public double getAngle() {
-		double angle = navx.getAngle();
+		double angle = SensorController.getInstance().getAngle("NAVX");
 		if (angle > 180) {
 			angle = angle - 360;
 		}
@@ -11,7 +11,6 @@ import comms.SmartWriter;
 import comms.TableNamesEnum;
 import drive.DriveControl;
 import drive.IDrive;
-import edu.wpi.first.wpilibj.Encoder;
 import input.SensorController;
 import robot.Global;
 import robotDefinitions.BabbageControl;
@@ -23,7 +22,6 @@ public class DrivingPegVisionCommand implements ICommand {
 	private boolean doneWithVision=false;
 	private CommandListRunner runner=null;
 	private double percentToFinish=0;
-	private ArrayList<Encoder> encoders;
 	private IDrive drive;
 	private float speed=0;
 
@@ -43,9 +41,7 @@ public class DrivingPegVisionCommand implements ICommand {
 		drive.setLeftMotors(speed);
 		drive.setRightMotors(speed);
 
-		encoders=new ArrayList<>();
-		encoders.add((Encoder)SensorController.getInstance().getSensor("ENCODER0"));
-		encoders.get(0).reset();
+		SensorController.getInstance().reset("ENCODER0");
 	}
 
 	public boolean run() {
@@ -71,7 +67,7 @@ public class DrivingPegVisionCommand implements ICommand {
 			doneWithVision=true;
 
 
-			double distanceTraveled=encoders.get(0).getDistance();
+			double distanceTraveled=SensorController.getInstance().getDistance("ENCODER0");
 			double distanceX=Math.cos(Math.toRadians(degreesToTurn))*distanceTraveled;
 			double distanceY=Math.sin(Math.toRadians(degreesToTurn))*distanceTraveled;
 			double increasedAngle=Math.toDegrees(Math.atan2(distanceY, distanceToMove-distanceX));
@@ -86,8 +82,8 @@ public class DrivingPegVisionCommand implements ICommand {
 			CommandList list=new CommandList();
 			list.addCommand(new TurnCommand(degreesToTurn, 0.5, .001));
 
-			ArrayList<Encoder> encoders=new ArrayList<>();
-			encoders.add((Encoder)SensorController.getInstance().getSensor("ENCODER0"));
+			ArrayList<String> encoders=new ArrayList<>();
+			encoders.add("ENCODER0");
 			list.addCommand(new DriveAtAngle(new DistanceStopCondition(encoders, (int)distanceToMove), slowPower,
 					fastPower, degreesToTurn));
 			
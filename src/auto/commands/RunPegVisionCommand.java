@@ -12,8 +12,6 @@ import comms.SmartWriter;
 import comms.TableNamesEnum;
 import drive.DriveControl;
 import drive.IDrive;
-import edu.wpi.first.wpilibj.Encoder;
-import input.SensorController;
 import robot.Global;
 import robotDefinitions.BabbageControl;
 
@@ -66,8 +64,8 @@ public class RunPegVisionCommand implements ICommand {
 			distanceToMove-=5;
 			distanceToMove*=percentToFinish;
 			
-			ArrayList<Encoder> encoders=new ArrayList<>();
-			encoders.add((Encoder)SensorController.getInstance().getSensor("ENCODER0"));
+			ArrayList<String> encoders=new ArrayList<>();
+			encoders.add("ENCODER0");
 			list.addCommand(new DriveCommand(new DistanceStopCondition(encoders, (int)distanceToMove), .3));
 			runner=new CommandListRunner(list);
 			runner.init();
@@ -1,5 +1,7 @@
 package auto.commands;
 
+import PID.FeedForward;
+import PID.GainStore;
 import PID.PIDController;
 import PID.PIDValues;
 import auto.ICommand;
@@ -11,11 +13,31 @@ import robot.Global;
 import robot.Robot;
 
 
+/**
+ * Turns in place with a PID loop on the navX angle. If
+ * CharacterizeDriveCommand has saved an angular feed-forward for this robot,
+ * the turn also aims for a turn rate that slows down as it gets close, and the
+ * feed-forward's kS and kV give the power for that rate, so the PID loop only
+ * has to fix what is left over. The feed-forward's kS already pushes past
+ * static friction, so then the PID loop doesn't use the daveyDTrick (which
+ * would push by kd again). See PID.tester.TurnFeedForwardComparison.
+ */
 public class TurnCommand implements ICommand {
 	
+	/**
+	 * The power the turn rate is picked to need at most
+	 */
+	private static final double CRUISE_POWER=0.5;
+	/**
+	 * The target turn rate is the error over this many seconds, so it slows
+	 * down as it gets close
+	 */
+	private static final double SLOW_DOWN_SECONDS=0.25;
+	
 	private AngleStopCondition stopCondition;
 	private PIDController controller;
 	private static PIDValues pidValues;
+	private FeedForward feedForward;
 	private IDrive drive;
 	
 	
@@ -34,7 +56,7 @@ public class TurnCommand implements ICommand {
 	}
 	
 	public void init() {
-		controller=new PIDController(pidValues);
+		controller=makeController(pidValues, feedForward);
 		drive=(IDrive)Global.controlObjects.get("DRIVE");
 		stopCondition.init();
 		drive.setDriveControl(DriveControl.EXTERNAL_CONTROL);
@@ -42,8 +64,9 @@ public class TurnCommand implements ICommand {
 
 	public boolean run() {
 		
-		SmartWriter.putD("TurnCommandAngle", stopCondition.getError());
-		double motorValue=controller.calculate(0, stopCondition.getError());
+		double error=stopCondition.getError();
+		SmartWriter.putD("TurnCommandAngle", error);
+		double motorValue=controller.calculate(0, error)+getFeedForward(error);
 		SmartWriter.putD("PID Turning Motor Power", motorValue);
 		drive.setLeftMotors(motorValue);
 		drive.setRightMotors(-motorValue);
@@ -62,7 +85,60 @@ public class TurnCommand implements ICommand {
 		drive.setDriveControl(DriveControl.DRIVE_CONTROLLED);
 	}
 	
+	/**
+	 * Gets the power for the turn rate wanted at this error, using the
+	 * characterized feed-forward. The angle goes up when the left side goes
+	 * forward, the same way CharacterizeDriveCommand measured it.
+	 * 
+	 * @param error
+	 *            The angle minus the target angle, in degrees
+	 * @return The feed-forward power, or 0 if there is no feed-forward or the
+	 *         robot is already within the margin of error
+	 */
+	private double getFeedForward(double error) {
+		return getFeedForward(feedForward, error, stopCondition.getMarginOfError());
+	}
+
+	/**
+	 * See getFeedForward(double)
+	 * 
+	 * @param feedForward
+	 *            The angular feed-forward, or null if there isn't one
+	 * @param marginOfError
+	 *            How close to the target counts as there, in degrees
+	 */
+	public static double getFeedForward(FeedForward feedForward, double error, double marginOfError) {
+		if (feedForward==null||Math.abs(error)<=marginOfError) {
+			return 0;
+		}
+		double cruiseRate=(CRUISE_POWER-feedForward.ks)/feedForward.kv;
+		double rate=-Math.signum(error)*Math.min(cruiseRate, Math.abs(error)/SLOW_DOWN_SECONDS);
+		return feedForward.calculate(rate, 0);
+	}
+
+	/**
+	 * Makes the turn's PID loop. The turn gains are tuned with the
+	 * daveyDTrick, so kd is a push past static friction and not a D term.
+	 * With a feed-forward, kS does that push instead, so the loop is just P
+	 * and I.
+	 * 
+	 * @param feedForward
+	 *            The angular feed-forward, or null if there isn't one
+	 */
+	public static PIDController makeController(PIDValues pidValues, FeedForward feedForward) {
+		if (feedForward==null) {
+			return new PIDController(pidValues);
+		}
+		return new PIDController(pidValues.kp, pidValues.ki, 0, true, false);
+	}
+	
+	/**
+	 * Loads the PID values from the GainStore, using these as the defaults
+	 * when nothing has been saved for this robot yet, and the angular
+	 * feed-forward if one has been saved
+	 */
 	private void loadPIDValues() {
+		pidValues=null;
 		switch(Robot.name) {
 		case BABBAGE:
 			pidValues=new PIDValues(0.006, 0.0002, .15);
@@ -83,6 +159,14 @@ public class TurnCommand implements ICommand {
 			break;
 		
 		}
+		pidValues=GainStore.get(Robot.name, GainStore.TURN, GainStore.DEFAULT_MODE, pidValues);
+		feedForward=GainStore.getFeedForward(Robot.name, GainStore.ANGULAR_FEED_FORWARD, GainStore.DEFAULT_MODE,
+				null);
+		if (feedForward!=null&&(feedForward.kv<=0||feedForward.ks>=CRUISE_POWER)) {
+			SmartWriter.outputError(new IllegalStateException("Ignoring the angular feed-forward "+feedForward),
+					"Loading TurnCommand");
+			feedForward=null;
+		}
 	}
 
 }
@@ -3,8 +3,10 @@ package auto.stopConditions;
 import com.kauailabs.navx.frc.AHRS;
 
 import auto.IStopCondition;
+import comms.DebugMode;
 import comms.SmartWriter;
 import input.SensorController;
+import simulation.Simulation;
 
 public class AngleStopCondition implements IStopCondition{
 	
@@ -34,32 +36,39 @@ public class AngleStopCondition implements IStopCondition{
 
 
 	public void init() {
-		navX.reset();
+		SensorController.getInstance().reset("NAVX");
 		firstTimeInRightSpot=Long.MAX_VALUE;
 	}
 
 
 	public boolean stopNow() {
-		firstTimeInRightSpot=Math.min(firstTimeInRightSpot, System.currentTimeMillis()+20);
+		firstTimeInRightSpot=Math.min(firstTimeInRightSpot, Simulation.currentTimeMillis()+20);
 		if (Math.abs(getError())>marginOfError) {
-			SmartWriter.putS("Angle Stop Condidition", "In wrong spot "+(getError()));
+			SmartWriter.putS("Angle Stop Condidition", () -> "In wrong spot "+(getError()), DebugMode.DEBUG);
 			//not in the area
-			firstTimeInRightSpot=System.currentTimeMillis()+20;//soonest possible is next update
+			firstTimeInRightSpot=Simulation.currentTimeMillis()+20;//soonest possible is next update
 		}
 		else {
-			SmartWriter.putS("Angle Stop Condition", "In right spot, "+firstTimeInRightSpot+" "+System.currentTimeMillis());
-			if (System.currentTimeMillis()-secondsInRange*1000>firstTimeInRightSpot) {
+			SmartWriter.putS("Angle Stop Condition", () -> "In right spot, "+firstTimeInRightSpot+" "+Simulation.currentTimeMillis(), DebugMode.DEBUG);
+			if (Simulation.currentTimeMillis()-secondsInRange*1000>firstTimeInRightSpot) {
 				return true;
 			}
 		}
 		return false;
 	}
 	
+	/**
+	 * @return How far from the target angle still counts as facing it
+	 */
+	public double getMarginOfError() {
+		return marginOfError;
+	}
+	
 	//negative if we need to turn right
 	public double getError() {
-		SmartWriter.putS("NAVXFirmware", navX.getFirmwareVersion());
-		double angle=navX.getAngle();
-		SmartWriter.putD("NavXAngle", navX.getAngle());
+		if (navX!=null) SmartWriter.putS("NAVXFirmware", navX.getFirmwareVersion());
+		double angle=SensorController.getInstance().getAngle("NAVX");
+		SmartWriter.putD("NavXAngle", angle);
 		if (angle>180) {
 			angle=angle-360;
 		}
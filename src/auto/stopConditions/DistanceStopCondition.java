@@ -4,29 +4,29 @@ import java.util.List;
 
 import auto.IStopCondition;
 import comms.SmartWriter;
-import edu.wpi.first.wpilibj.Encoder;
+import input.SensorController;
 
 public class DistanceStopCondition implements IStopCondition {
-	private List<Encoder> enc;
+	private List<String> enc;
 	private int duration;
 	
-	public DistanceStopCondition(List<Encoder> encoder, int inches) {
+	public DistanceStopCondition(List<String> encoder, int inches) {
 		enc = encoder;
 		duration = inches;
 	}
 
 	public void init() {
-		for(Encoder x: enc){
-			x.reset();
+		for(String x: enc){
+			SensorController.getInstance().reset(x);
 		}
 	}
 
 	public boolean stopNow() {
 		int sum = 0;
-		for(Encoder x: enc){
+		for(String x: enc){
 			//x.get() returns encoder counts
 			//encoder count -> inches will need to be put here
-			sum += x.getDistance();
+			sum += SensorController.getInstance().getDistance(x);
 		}
 		SmartWriter.putD("AUTO - AVG Encoder Count", sum/enc.size());
 		return (sum/enc.size()) > duration;
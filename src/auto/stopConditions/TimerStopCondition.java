@@ -2,6 +2,7 @@ package auto.stopConditions;
 
 import auto.IStopCondition;
 import comms.SmartWriter;
+import simulation.Simulation;
 
 public class TimerStopCondition implements IStopCondition {
 	private long startTime;
@@ -17,14 +18,14 @@ public class TimerStopCondition implements IStopCondition {
 	
 	@Override
 	public void init() {
-		startTime = System.currentTimeMillis();
+		startTime = Simulation.currentTimeMillis();
 	}
 
 	@Override
 	public boolean stopNow() {
-		SmartWriter.putD("System.currentTimeMillis()", System.currentTimeMillis());
+		SmartWriter.putD("Simulation.currentTimeMillis()", Simulation.currentTimeMillis());
 		SmartWriter.putD("start", startTime);
-		return (System.currentTimeMillis() - startTime) > duration;
+		return (Simulation.currentTimeMillis() - startTime) > duration;
 	}
 
 
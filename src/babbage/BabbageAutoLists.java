@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import auto.CommandList;
+import auto.commands.CharacterizeDriveCommand;
 import auto.commands.ContinuousPegVisionCommand;
 import auto.commands.DriveCommand;
 import auto.commands.ShootCommand;
@@ -12,8 +13,6 @@ import auto.commands.WaitCommand;
 import auto.stopConditions.AngleStopCondition;
 import auto.stopConditions.DistanceStopCondition;
 import auto.stopConditions.TimerStopCondition;
-import edu.wpi.first.wpilibj.Encoder;
-import input.SensorController;
 
 //TODO all distances, speeds and angles are not final
 
@@ -23,12 +22,11 @@ public class BabbageAutoLists {
 	private final static int turnAngle = 60;
 	private final static double turnTolerance = 2;
 	private final static double toleranceTime = 0.2;
-	private static SensorController sensors = SensorController.getInstance();
-	private static List<Encoder> encoders = new ArrayList<Encoder>();
+	private static List<String> encoders = new ArrayList<String>();
 	
 	
 	public static CommandList shootingRed() {
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		CommandList cl=new CommandList();
 		cl.addCommand(new DriveCommand(new DistanceStopCondition(encoders, 64), 0.6));
 		cl.addCommand(new TurnCommand(-90, 10, 0.3));
@@ -38,7 +36,7 @@ public class BabbageAutoLists {
 	}
 	
 	public static CommandList shootingBlue() {
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		CommandList cl=new CommandList();
 		cl.addCommand(new DriveCommand(new DistanceStopCondition(encoders, 64), 0.6));
 		cl.addCommand(new TurnCommand(-90, 10, 0.3));
@@ -53,7 +51,7 @@ public class BabbageAutoLists {
 	 * @return returns Commandlist for the Red Center position
 	 */
 	public static CommandList centerRed(){
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		CommandList CL = new CommandList();
 		CL.addCommand(new WaitCommand(new TimerStopCondition(500)));
 		CL.addCommand(new ContinuousPegVisionCommand(1, 4000));
@@ -69,7 +67,7 @@ public class BabbageAutoLists {
 	 */
 	public static CommandList boilerRed(){
 		
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		
 		//TODO add timer built into this 
 		CommandList CL = new CommandList();
@@ -87,7 +85,7 @@ public class BabbageAutoLists {
 	 */
 	public static CommandList notBoilerRed(){
 		
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		
 		CommandList CL = new CommandList();
 		CL.addCommand(new DriveCommand(new DistanceStopCondition(encoders, distanceFromWall), speed));
@@ -103,7 +101,7 @@ public class BabbageAutoLists {
 	 * @return returns Commandlist for the Blue Center position
 	 */
 	public static CommandList centerBlue(){
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		CommandList CL = new CommandList();
 		CL.addCommand(new WaitCommand(new TimerStopCondition(500)));
 		CL.addCommand(new ContinuousPegVisionCommand(1, 4000));
@@ -118,7 +116,7 @@ public class BabbageAutoLists {
 	 */
 	public static CommandList boilerBlue(){
 		
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		
 		CommandList CL = new CommandList();
 		CL.addCommand(new DriveCommand(new DistanceStopCondition(encoders, distanceFromWall), speed));
@@ -136,7 +134,7 @@ public class BabbageAutoLists {
 	 */
 	public static CommandList notBoilerBlue(){
 		
-		encoders.add((Encoder) sensors.getSensor("ENCODER0"));
+		encoders.add("ENCODER0");
 		
 		CommandList CL = new CommandList();
 		CL.addCommand(new DriveCommand(new DistanceStopCondition(encoders, distanceFromWall), speed));
@@ -145,4 +143,18 @@ public class BabbageAutoLists {
 		CL.addCommand(new DriveCommand(new TimerStopCondition(400), 1));
 		return CL;
 	}
+	
+	/** Drives and turns to find the drivetrain's feed-forward constants, and
+	 * saves them in the GainStore. This needs about 10 feet of room in front
+	 * of and behind the robot.
+	 * 
+	 * @return returns Commandlist for characterizing the drivetrain
+	 */
+	public static CommandList characterizeDrive(){
+		List<String> driveEncoders = new ArrayList<String>();
+		driveEncoders.add("ENCODER0");
+		CommandList CL = new CommandList();
+		CL.addCommand(new CharacterizeDriveCommand(driveEncoders));
+		return CL;
+	}
 }
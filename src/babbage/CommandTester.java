@@ -6,15 +6,17 @@ import comms.DebugMode;
 import comms.SmartWriter;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import input.InputLog;
 import robot.Global;
 import robot.IControl;
 import robotDefinitions.BabbageControl;
+import simulation.Simulation;
 
 public class CommandTester extends IControl {
 
 	private CommandList commandList;
 	private BabbageControl controllers = (BabbageControl)Global.controllers;
-	private DriverStation ds=DriverStation.getInstance();
+	private DriverStation ds=Simulation.isEnabled()?null:DriverStation.getInstance();
 	private String autoName;
 	private CommandListRunner runner;
 
@@ -29,7 +31,8 @@ public class CommandTester extends IControl {
 	public void autonomousInit() {
 		runner = null;
 		boolean blueSide = false;
-		if (ds.getAlliance() == Alliance.Red) {//TODO make switch based on alliance side
+		boolean red = ds == null ? Simulation.getInput("Alliance red") != 0 : ds.getAlliance() == Alliance.Red;
+		if (InputLog.read("Alliance red", red)) {//TODO make switch based on alliance side
 			blueSide = false;
 		}
 		else {
@@ -75,6 +78,15 @@ public class CommandTester extends IControl {
 				autoName="shootingBlue";
 			}
 		}
+		
+		// set on the SmartDashboard (or as a Simulation input) to find the
+		// drivetrain's feed-forward constants instead of running an autonomous
+		boolean characterize = ds == null ? Simulation.getInput("Characterize drive") != 0
+				: SmartWriter.getB("Characterize drive");
+		if (InputLog.read("Characterize drive", characterize)) {
+			commandList = BabbageAutoLists.characterizeDrive();
+			autoName = "characterizeDrive";
+		}
 	}
 	
 	public void autonomousPeriodic(){
@@ -0,0 +1,44 @@
+package comms;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * A TelemetryChannel for a boolean field on SmartDashboard
+ */
+public class BooleanChannel extends TelemetryChannel {
+
+	private volatile boolean value;
+
+	BooleanChannel(String name, DebugMode debugMode) {
+		super(name, debugMode);
+	}
+
+	/**
+	 * Sets the boolean on SmartDashboard to <i>value</i>. Nothing happens if
+	 * this channel isn't enabled or the value hasn't changed.
+	 */
+	public void set(boolean value) {
+		if (!isWanted()) return;
+		boolean changed = value != this.value;
+		this.value = value;
+		markLogged();
+		if (!isEnabled() || hasValue() && !changed) return;
+		markWaiting();
+	}
+
+	public boolean get() {
+		return value;
+	}
+
+	byte getType() {
+		return TelemetryQueue.BOOLEAN;
+	}
+
+	double getNumber() {
+		return value ? 1 : 0;
+	}
+
+	void send() {
+		SmartDashboard.putBoolean(getName(), value);
+	}
+}
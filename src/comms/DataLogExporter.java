@@ -0,0 +1,248 @@
+package comms;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns a log written by the DataLogger into files that can be looked at off
+ * the robot. This is run on a laptop after copying the log and its .channels
+ * file off of the roboRIO:
+ * 
+ * <pre>
+ * java -cp Tim.jar comms.DataLogExporter csv telemetry-123.bin telemetry.csv
+ * java -cp Tim.jar comms.DataLogExporter columns telemetry-123.bin telemetry/
+ * </pre>
+ * 
+ * "csv" makes one row per tick with a column for every channel. "columns"
+ * makes a folder with one file per channel (and one for the time) of raw big
+ * endian doubles, one for each tick, which most analysis tools can load
+ * directly. Each channel's file starts with its id, so two channels whose
+ * names only differ in characters that can't go in a file name still get
+ * their own files. A channel that had no value yet in a tick is left blank in the csv
+ * and NaN in the columns.
+ */
+public class DataLogExporter {
+
+	/**
+	 * The names of the channels, by id
+	 */
+	private List<String> names = new ArrayList<String>();
+
+	/**
+	 * The time of each tick in seconds, and the values of every channel in
+	 * each tick
+	 */
+	private List<Double> times = new ArrayList<Double>();
+	private List<double[]> rows = new ArrayList<double[]>();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3 || !args[0].equals("csv") && !args[0].equals("columns")) {
+			System.out.println("Usage: DataLogExporter csv <log> <output file>");
+			System.out.println("       DataLogExporter columns <log> <output folder>");
+			System.exit(1);
+		}
+		DataLogExporter exporter = new DataLogExporter(new File(args[1]));
+		if (args[0].equals("csv")) {
+			exporter.writeCsv(new File(args[2]));
+		}
+		else {
+			exporter.writeColumns(new File(args[2]));
+		}
+		System.out.println("Exported " + exporter.times.size() + " ticks of " + exporter.names.size() + " channels");
+	}
+
+	/**
+	 * Reads the whole log and its channel names into memory
+	 * 
+	 * @param log
+	 *            The log file. Its names are read from the file with the same
+	 *            name plus ".channels".
+	 */
+	public DataLogExporter(File log) throws IOException {
+		readNames(new File(log.getPath() + ".channels"));
+		readRecords(log);
+	}
+
+	private void readNames(File channelFile) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(channelFile), FileLoader.UTF8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(",", 3);
+				if (parts.length < 3) continue;
+				int id = Integer.parseInt(parts[0]);
+				while (names.size() <= id) {
+					names.add("channel " + names.size());
+				}
+				names.set(id, parts[2]);
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private void readRecords(File log) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(log, "r");
+		try {
+			ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+			if (buffer.getInt(0) != DataLogger.MAGIC) throw new IOException(log + " is not a data log");
+			if (buffer.getInt(4) != DataLogger.VERSION) throw new IOException(log + " is from a different version");
+			int recordSize = buffer.getInt(8);
+			int count = buffer.getInt(DataLogger.COUNT_OFFSET);
+			// a log that was cut off by a brownout may have a few records past
+			// the count that made it to disk, but they can't be trusted
+			count = (int)Math.min(count, (file.length() - DataLogger.HEADER_SIZE) / recordSize);
+
+			long lastMicros = -1;
+			double[] row = null;
+			for (int i = 0; i < count; i++) {
+				int position = DataLogger.HEADER_SIZE + i * recordSize;
+				long micros = buffer.getLong(position);
+				int id = buffer.getShort(position + 8);
+				double value = buffer.getDouble(position + 12);
+				if (micros != lastMicros || row == null) {
+					row = newRow();
+					times.add(micros / 1e6);
+					rows.add(row);
+					lastMicros = micros;
+				}
+				if (id >= row.length) {
+					row = growRow(row, id);
+				}
+				row[id] = value;
+			}
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	private double[] newRow() {
+		double[] row = new double[names.size()];
+		Arrays.fill(row, Double.NaN);
+		return row;
+	}
+
+	/**
+	 * Makes room for an id that wasn't in the .channels file, and replaces the
+	 * last row with the bigger one
+	 */
+	private double[] growRow(double[] row, int id) {
+		while (names.size() <= id) {
+			names.add("channel " + names.size());
+		}
+		double[] grown = newRow();
+		System.arraycopy(row, 0, grown, 0, row.length);
+		rows.set(rows.size() - 1, grown);
+		return grown;
+	}
+
+	/**
+	 * @return The time of each tick, in seconds since recording started
+	 */
+	public List<Double> getTimes() {
+		return times;
+	}
+
+	/**
+	 * @return The value of a channel in each tick (NaN where it had no value
+	 *         yet), or null if there is no channel called <i>name</i>
+	 */
+	public double[] getColumn(String name) {
+		int id = names.indexOf(name);
+		if (id < 0) return null;
+		double[] column = new double[rows.size()];
+		for (int tick = 0; tick < rows.size(); tick++) {
+			double[] row = rows.get(tick);
+			column[tick] = id < row.length ? row[id] : Double.NaN;
+		}
+		return column;
+	}
+
+	/**
+	 * Writes one row per tick with a column for every channel
+	 */
+	public void writeCsv(File output) throws IOException {
+		PrintWriter writer = new PrintWriter(output);
+		try {
+			StringBuilder line = new StringBuilder("time");
+			for (String name : names) {
+				line.append(',').append(quote(name));
+			}
+			writer.println(line);
+			for (int tick = 0; tick < rows.size(); tick++) {
+				line.setLength(0);
+				line.append(times.get(tick));
+				double[] row = rows.get(tick);
+				for (int id = 0; id < names.size(); id++) {
+					line.append(',');
+					if (id < row.length && !Double.isNaN(row[id])) line.append(row[id]);
+				}
+				writer.println(line);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes a folder with time.f64 and one .f64 file per channel (named by
+	 * columnFileName), each holding one big endian double per tick
+	 */
+	public void writeColumns(File folder) throws IOException {
+		folder.mkdirs();
+		DataOutputStream time = open(new File(folder, "time.f64"));
+		try {
+			for (double t : times) {
+				time.writeDouble(t);
+			}
+		}
+		finally {
+			time.close();
+		}
+		for (int id = 0; id < names.size(); id++) {
+			DataOutputStream column = open(new File(folder, columnFileName(id, names.get(id))));
+			try {
+				for (double[] row : rows) {
+					column.writeDouble(id < row.length ? row[id] : Double.NaN);
+				}
+			}
+			finally {
+				column.close();
+			}
+		}
+	}
+
+	/**
+	 * @return The name of the file writeColumns puts a channel in, which is
+	 *         its id and then its name with anything that can't go in a file
+	 *         name replaced
+	 */
+	static String columnFileName(int id, String name) {
+		return id + "-" + name.replaceAll("[^A-Za-z0-9_ -]", "_") + ".f64";
+	}
+
+	private static DataOutputStream open(File file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+
+	private static String quote(String name) {
+		if (name.indexOf(',') < 0 && name.indexOf('"') < 0) return name;
+		return '"' + name.replace("\"", "\"\"") + '"';
+	}
+}
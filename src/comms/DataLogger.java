@@ -0,0 +1,255 @@
+package comms;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Writes the value of every number and boolean TelemetryChannel to a binary
+ * log once per tick, so there is a record of the whole match on the robot
+ * even if the dashboard wasn't connected. <br>
+ * <br>
+ * Only channels registered with SmartWriter.registerDouble and
+ * SmartWriter.registerBoolean are logged. Values sent with SmartWriter.putD,
+ * putB and putS are not, since they don't have a channel id. Anything that
+ * has to be in the log has to be a channel. <br>
+ * <br>
+ * The log is a file that is made full size when recording starts and mapped
+ * into memory, so writing a record is just a few puts into the buffer and
+ * never allocates. A background thread flushes the mapped pages to disk every
+ * second, so a brownout only loses the last second. <br>
+ * <br>
+ * The file starts with a HEADER_SIZE byte header (int magic, int version, int
+ * record size, int record count), followed by RECORD_SIZE byte records (long
+ * microseconds since recording started, short channel id, byte type, one byte
+ * of padding, double value). The names of the channels are written to a text
+ * file next to the log with ".channels" on the end, one "id,type,name" line
+ * per channel, in UTF-8 through a FileAppender that stays open while
+ * recording. DataLogExporter turns a log into something a spreadsheet can
+ * read.
+ */
+public class DataLogger {
+
+	static final int MAGIC=0x32323033;
+	static final int VERSION=1;
+	static final int HEADER_SIZE=16;
+	static final int RECORD_SIZE=20;
+	static final int COUNT_OFFSET=12;
+
+	/**
+	 * How big a log is made if no size is given (16 MB, which is around ten
+	 * minutes with 30 channels)
+	 */
+	public static final int DEFAULT_SIZE=16*1024*1024;
+
+	private static final long FLUSH_PERIOD_MILLIS=1000;
+
+	private static volatile boolean recording=false;
+
+	/**
+	 * Every number and boolean channel, in id order. It only grows, and spots
+	 * past channelCount are null, so logTick can read it without locking.
+	 */
+	private static volatile TelemetryChannel[] channels=new TelemetryChannel[0];
+	private static int channelCount=0;
+
+	private static File file;
+	private static File channelFile;
+	private static FileAppender names;
+	private static RandomAccessFile randomAccessFile;
+	private static MappedByteBuffer buffer;
+	private static int recordCount;
+	private static int maxRecords;
+	private static long droppedRecords;
+	private static long startNanos;
+	private static Thread flusher;
+
+	/**
+	 * Starts a new log with the default size. See start(File, int).
+	 */
+	public static void start(File file) {
+		start(file, DEFAULT_SIZE);
+	}
+
+	/**
+	 * Makes the log file, maps it, and starts writing every channel each tick.
+	 * If a log is already being recorded it is stopped first.<br>
+	 * <br>
+	 * Preconditions: the folder <i>file</i> goes in exists<br>
+	 * Postconditions: logTick will write a record for every channel that has
+	 * been set, until the file is full or stop is called
+	 *
+	 * @param file
+	 *            Where to write the log
+	 * @param size
+	 *            How many bytes to make the file. No more records are written
+	 *            once it is full.
+	 */
+	public static synchronized void start(File file, int size) {
+		if (recording) stop();
+		try {
+			DataLogger.file=file;
+			channelFile=new File(file.getPath()+".channels");
+			randomAccessFile=new RandomAccessFile(file, "rw");
+			randomAccessFile.setLength(size);
+			buffer=randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, RECORD_SIZE);
+			buffer.putInt(COUNT_OFFSET, 0);
+			recordCount=0;
+			maxRecords=(size-HEADER_SIZE)/RECORD_SIZE;
+			droppedRecords=0;
+
+			names=new FileAppender(channelFile.getPath(), false);
+			for (int i=0; i<channelCount; i++) {
+				writeChannelName(channels[i]);
+			}
+			names.flush();
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Starting data log "+file);
+			close();
+			return;
+		}
+		startNanos=System.nanoTime();
+		recording=true;
+		startFlusher();
+	}
+
+	/**
+	 * Flushes the log, cuts the file down to the records that were written,
+	 * and stops recording. Nothing happens if nothing is being recorded.
+	 */
+	public static synchronized void stop() {
+		if (!recording) return;
+		recording=false;
+		buffer.force();
+		try {
+			long length=HEADER_SIZE+(long)recordCount*RECORD_SIZE;
+			buffer=null;
+			randomAccessFile.setLength(length);
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Stopping data log "+file);
+		}
+		close();
+	}
+
+	public static boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * @return The number of records that didn't fit in the file
+	 */
+	public static long getDroppedRecords() {
+		return droppedRecords;
+	}
+
+	/**
+	 * Writes a record for every number and boolean channel that has a value.
+	 * Called by IControl at the end of every periodic tick, after everything
+	 * that sets channels has finished.
+	 */
+	public static void logTick() {
+		if (!recording) return;
+		MappedByteBuffer buffer=DataLogger.buffer;
+		if (buffer==null) return;
+		long micros=(System.nanoTime()-startNanos)/1000;
+		TelemetryChannel[] channels=DataLogger.channels;
+		for (TelemetryChannel channel : channels) {
+			if (channel==null||!channel.hasLogValue()) continue;
+			if (recordCount>=maxRecords) {
+				droppedRecords++;
+				continue;
+			}
+			int position=HEADER_SIZE+recordCount*RECORD_SIZE;
+			buffer.putLong(position, micros);
+			buffer.putShort(position+8, (short)channel.id);
+			buffer.put(position+10, channel.getType());
+			buffer.putDouble(position+12, channel.getNumber());
+			recordCount++;
+		}
+		buffer.putInt(COUNT_OFFSET, recordCount);
+	}
+
+	/**
+	 * Gives a newly registered channel an id. Called by SmartWriter when a
+	 * channel is registered. Text channels aren't logged.
+	 */
+	static synchronized void addChannel(TelemetryChannel channel) {
+		if (channel.getType()==TelemetryQueue.STRING) return;
+		channel.id=channelCount;
+		TelemetryChannel[] grown=channels;
+		if (channelCount==grown.length) {
+			grown=Arrays.copyOf(grown, Math.max(16, grown.length*2));
+		}
+		grown[channelCount++]=channel;
+		channels=grown;
+		if (recording) {
+			try {
+				writeChannelName(channel);
+				names.flush();
+			}
+			catch (IOException e) {
+				SmartWriter.outputError(e, "Adding "+channel.getName()+" to data log");
+			}
+		}
+	}
+
+	private static void writeChannelName(TelemetryChannel channel) throws IOException {
+		names.appendLine(channel.id+","+channel.getType()+","+channel.getName());
+	}
+
+	private static void close() {
+		buffer=null;
+		if (names!=null) {
+			try {
+				names.close();
+			}
+			catch (IOException e) {
+				SmartWriter.outputError(e, "Closing "+channelFile);
+			}
+			names=null;
+		}
+		if (randomAccessFile!=null) {
+			try {
+				randomAccessFile.close();
+			}
+			catch (IOException e) {
+				// nothing else can be done with it
+			}
+			randomAccessFile=null;
+		}
+	}
+
+	/**
+	 * Starts the thread that flushes the log every FLUSH_PERIOD_MILLIS, the
+	 * first time a log is started
+	 */
+	private static void startFlusher() {
+		if (flusher!=null) return;
+		flusher=new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(FLUSH_PERIOD_MILLIS);
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					synchronized (DataLogger.class) {
+						if (recording&&buffer!=null) buffer.force();
+					}
+				}
+			}
+		}, "Data log flusher");
+		flusher.setDaemon(true);
+		flusher.setPriority(Thread.MIN_PRIORITY);
+		flusher.start();
+	}
+}
@@ -0,0 +1,58 @@
+package comms;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * A TelemetryChannel for a number field on SmartDashboard
+ */
+public class DoubleChannel extends TelemetryChannel {
+
+	private volatile double value;
+	private double published;
+	private double epsilon = 0;
+
+	DoubleChannel(String name, DebugMode debugMode) {
+		super(name, debugMode);
+	}
+
+	/**
+	 * Makes the value only get sent again once it moves more than
+	 * <i>epsilon</i> from the last value that was sent, for noisy fields.
+	 * 
+	 * @return This channel, so this can be called when the channel is
+	 *         registered
+	 */
+	public DoubleChannel setEpsilon(double epsilon) {
+		this.epsilon = epsilon;
+		return this;
+	}
+
+	/**
+	 * Sets the number on SmartDashboard to <i>value</i>. Nothing happens if
+	 * this channel isn't enabled or the value hasn't changed enough.
+	 */
+	public void set(double value) {
+		if (!isWanted()) return;
+		this.value = value;
+		markLogged();
+		if (!isEnabled() || hasValue() && Math.abs(value - published) <= epsilon) return;
+		published = value;
+		markWaiting();
+	}
+
+	public double get() {
+		return value;
+	}
+
+	byte getType() {
+		return TelemetryQueue.NUMBER;
+	}
+
+	double getNumber() {
+		return value;
+	}
+
+	void send() {
+		SmartDashboard.putNumber(getName(), value);
+	}
+}
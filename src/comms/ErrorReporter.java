@@ -0,0 +1,162 @@
+package comms;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the exceptions that get caught in the robot loop and prints them
+ * from a background thread, so a bug that throws every tick can't flood
+ * stderr and slow the loop down even more. SmartWriter.outputError hands
+ * everything to this class. <br>
+ * <br>
+ * Exceptions are grouped by their type and where they were caught (the
+ * <i>timeOccurred</i> passed to report). Neither of those needs the stack
+ * trace, so a report doesn't build one on the control thread. The first one in
+ * each group has its whole stack trace printed by the background thread.
+ * After that, a group only gets a one line summary every
+ * SUMMARY_PERIOD_MILLIS, and only if it happened again since the last
+ * summary.
+ */
+public class ErrorReporter {
+
+	/**
+	 * How often the background thread checks for new exceptions
+	 */
+	private static final long CHECK_PERIOD_MILLIS=250;
+
+	/**
+	 * The shortest time between two summaries of the same exception (5
+	 * seconds)
+	 */
+	public static final long SUMMARY_PERIOD_MILLIS=5000;
+
+	/**
+	 * Every group of exceptions that has happened, by where they were caught
+	 * and then by type
+	 */
+	private static final Map<String, Map<Class<?>, ErrorGroup>> groups=new ConcurrentHashMap<String, Map<Class<?>, ErrorGroup>>();
+
+	private static volatile Thread thread;
+
+	/**
+	 * Everything that has been seen about one kind of exception
+	 */
+	private static class ErrorGroup {
+		final Throwable first;
+		final String timeOccurred;
+		final long firstMillis;
+		final AtomicLong count=new AtomicLong();
+		volatile long lastMillis;
+
+		/**
+		 * Only used by the background thread
+		 */
+		boolean tracePrinted;
+		long reportedCount;
+		long lastSummaryMillis;
+
+		ErrorGroup(Throwable first, String timeOccurred, long now) {
+			this.first=first;
+			this.timeOccurred=timeOccurred;
+			firstMillis=now;
+		}
+	}
+
+	/**
+	 * Counts an exception so it will be printed by the background thread.
+	 * This doesn't print anything itself, so it's safe to call from the
+	 * control loop.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: the exception's group has one more in its count
+	 *
+	 * @param e
+	 *            The exception that was caught
+	 * @param timeOccurred
+	 *            Where it was caught (i. e. Teleop Periodic), which groups it
+	 *            along with its type and is printed with the stack trace
+	 */
+	public static void report(Throwable e, String timeOccurred) {
+		long now=System.currentTimeMillis();
+		if (timeOccurred==null) timeOccurred="";
+		Map<Class<?>, ErrorGroup> site=groups.get(timeOccurred);
+		if (site==null) {
+			Map<Class<?>, ErrorGroup> created=new ConcurrentHashMap<Class<?>, ErrorGroup>();
+			site=groups.putIfAbsent(timeOccurred, created);
+			if (site==null) site=created;
+		}
+		ErrorGroup group=site.get(e.getClass());
+		if (group==null) {
+			ErrorGroup created=new ErrorGroup(e, timeOccurred, now);
+			group=site.putIfAbsent(e.getClass(), created);
+			if (group==null) group=created;
+		}
+		group.lastMillis=now;
+		group.count.incrementAndGet();
+		if (thread==null) start();
+	}
+
+	/**
+	 * @return The total number of exceptions that have been reported
+	 */
+	public static long getTotalCount() {
+		long total=0;
+		for (Map<Class<?>, ErrorGroup> site : groups.values()) {
+			for (ErrorGroup group : site.values()) {
+				total+=group.count.get();
+			}
+		}
+		return total;
+	}
+
+	private static synchronized void start() {
+		if (thread!=null) return;
+		thread=new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(CHECK_PERIOD_MILLIS);
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					printNew(System.currentTimeMillis());
+				}
+			}
+		}, "Error reporter");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Prints the trace for every new group and a summary for every group that
+	 * is due for one. Only called by the background thread.
+	 */
+	private static void printNew(long now) {
+		for (Map<Class<?>, ErrorGroup> site : groups.values()) {
+			for (ErrorGroup group : site.values()) {
+				printNew(group, now);
+			}
+		}
+	}
+
+	private static void printNew(ErrorGroup group, long now) {
+		long count=group.count.get();
+		if (!group.tracePrinted) {
+			group.tracePrinted=true;
+			group.reportedCount=1;
+			group.lastSummaryMillis=now;
+			System.err.println("Exception occured in: "+group.timeOccurred+".");
+			group.first.printStackTrace(System.err);
+		}
+		else if (count>group.reportedCount&&now-group.lastSummaryMillis>=SUMMARY_PERIOD_MILLIS) {
+			System.err.println(group.first.getClass().getName()+" in "+group.timeOccurred+" happened "
+					+(count-group.reportedCount)+" more times, "+count+" total, first "
+					+(now-group.firstMillis)/1000+" s ago, last "+(now-group.lastMillis)+" ms ago");
+			group.reportedCount=count;
+			group.lastSummaryMillis=now;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package comms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Adds text to the end of a file through a FileChannel. The text is encoded
+ * into one direct buffer that is reused for the life of the appender, and the
+ * buffer is only written to the file when it fills up or flush is called, so
+ * appending a line doesn't touch the disk most of the time. <br>
+ * <br>
+ * This still writes on the thread that calls it when the buffer fills, so
+ * code in the control loop should use FileLoader.appendToFileLater instead.
+ * An appender is meant for one thread at a time.
+ */
+public class FileAppender implements Closeable {
+
+	private static final int BUFFER_SIZE=16*1024;
+
+	private final String filename;
+	private FileChannel channel;
+	private final ByteBuffer buffer=ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final CharsetEncoder encoder=FileLoader.UTF8.newEncoder();
+	private final CharBuffer carry=CharBuffer.allocate(2);
+	private char leftover;
+	private boolean hasLeftover;
+
+	/**
+	 * Opens <i>filename</i> to be added to, making it if it doesn't exist
+	 *
+	 * @param filename
+	 *            The name of the file
+	 */
+	public FileAppender(String filename) throws IOException {
+		this(filename, true);
+	}
+
+	/**
+	 * Opens <i>filename</i> to be written, making it if it doesn't exist
+	 *
+	 * @param filename
+	 *            The name of the file
+	 * @param append
+	 *            True to add to what is in the file, false to clear it first
+	 */
+	public FileAppender(String filename, boolean append) throws IOException {
+		this.filename=filename;
+		channel=FileLoader.openForWriting(filename, append);
+	}
+
+	/**
+	 * Adds <i>text</i> to the end of the file. If <i>text</i> ends with the
+	 * first half of a surrogate pair, that half is kept until the next append
+	 * so a pair split between two appends is still written as one character.<br>
+	 * <br>
+	 * Preconditions: the appender hasn't been closed<br>
+	 * Postconditions: <i>text</i> is in the buffer or already in the file
+	 */
+	public FileAppender append(CharSequence text) throws IOException {
+		CharBuffer chars=CharBuffer.wrap(text);
+		if (hasLeftover) {
+			carry.clear();
+			carry.put(leftover);
+			if (chars.hasRemaining()) carry.put(chars.get());
+			carry.flip();
+			hasLeftover=false;
+			encode(carry, false);
+			hasLeftover=carry.hasRemaining();
+			if (hasLeftover) return this;
+		}
+		encode(chars, false);
+		if (chars.hasRemaining()) {
+			// the encoder only stops early on a high surrogate with nothing after it
+			leftover=chars.get();
+			hasLeftover=true;
+		}
+		return this;
+	}
+
+	/**
+	 * Adds <i>line</i> and a new line to the end of the file
+	 */
+	public FileAppender appendLine(CharSequence line) throws IOException {
+		return append(line).append("\n");
+	}
+
+	/**
+	 * Writes everything in the buffer to the file
+	 */
+	public void flush() throws IOException {
+		writeBuffer();
+	}
+
+	/**
+	 * Tells the encoder the text is done, writes what is left in the buffer
+	 * and closes the file. Nothing happens if it is already closed. If the
+	 * last append ended with half of a surrogate pair, the rest is still
+	 * written and then a MalformedInputException is thrown for that half.
+	 */
+	public void close() throws IOException {
+		if (channel==null) return;
+		try {
+			carry.clear();
+			if (hasLeftover) carry.put(leftover);
+			carry.flip();
+			hasLeftover=false;
+			try {
+				encode(carry, true);
+			}
+			finally {
+				writeBuffer();
+			}
+			while (encoder.flush(buffer).isOverflow()) {
+				writeBuffer();
+			}
+			writeBuffer();
+		}
+		finally {
+			channel.close();
+			channel=null;
+		}
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	/**
+	 * Encodes as much of <i>chars</i> as it can, writing the buffer each time
+	 * it fills
+	 */
+	private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+		while (true) {
+			CoderResult result=encoder.encode(chars, buffer, endOfInput);
+			if (result.isOverflow()) {
+				writeBuffer();
+			}
+			else if (result.isError()) {
+				result.throwException();
+			}
+			else {
+				return;
+			}
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
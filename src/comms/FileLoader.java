@@ -1,32 +1,142 @@
 package comms;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Reads and writes text files. The write*Later methods hand the write to a
+ * background thread and return right away, so code in the control loop never
+ * waits on the roboRIO's flash. For files that are written a little at a time,
+ * use a FileAppender, and for files that are too big to read all at once, use
+ * readLines.
+ */
 public class FileLoader {
+
+	static final Charset UTF8=Charset.forName("UTF-8");
+
+	/**
+	 * How many writes can be waiting for the background thread before more are
+	 * dropped
+	 */
+	private static final int MAX_WAITING_WRITES=256;
+
+	/**
+	 * The background thread keeps a file open between writes to it, and
+	 * closes them all once no write has come for this long, or once this
+	 * many are open
+	 */
+	private static final long IDLE_CLOSE_MILLIS=1000;
+	private static final int MAX_OPEN_FILES=16;
+
+	private static final LinkedBlockingQueue<Write> writes=new LinkedBlockingQueue<Write>(MAX_WAITING_WRITES);
+	private static volatile Thread writer;
+
+	/**
+	 * The number of writes that have been queued but haven't finished yet
+	 */
+	private static final AtomicInteger pendingWrites=new AtomicInteger();
+	private static final AtomicLong droppedWrites=new AtomicLong();
+
+	/**
+	 * A write that is waiting for the background thread
+	 */
+	private static class Write {
+		final String filename;
+		final String contents;
+		final boolean append;
+
+		Write(String filename, String contents, boolean append) {
+			this.filename=filename;
+			this.contents=contents;
+			this.append=append;
+		}
+	}
+
 	/**
 	 * Writes the String contents to the file with the name filename. Note that the file will be cleared before writting.
 	 * @param filename
 	 * The name of the file
 	 * @param contents
 	 * The contents of the file
+	 * @return
+	 * True if the file was written, false if it couldn't be
 	 */
-	public static void writeToFile(String filename, String contents) {
-		FileWriter fw=null;
-		try {
-			fw=new FileWriter(filename);
-		}
-		catch (IOException e) {
-			e.printStackTrace();
+	public static boolean writeToFile(String filename, String contents) {
+		return write(filename, contents, false);
+	}
+
+	/**
+	 * Adds the String contents to the end of the file with the name filename, making the file if it doesn't exist.
+	 * @param filename
+	 * The name of the file
+	 * @param contents
+	 * What to add to the file
+	 * @return
+	 * True if the file was written, false if it couldn't be
+	 */
+	public static boolean appendToFile(String filename, String contents) {
+		return write(filename, contents, true);
+	}
+
+	/**
+	 * Same as writeToFile, but the file is written by a background thread and this returns right away. Writes to the
+	 * same file happen in the order they were asked for.
+	 * @return
+	 * False if too many writes are already waiting, in which case this one is dropped
+	 */
+	public static boolean writeToFileLater(String filename, String contents) {
+		return writeLater(new Write(filename, contents, false));
+	}
+
+	/**
+	 * Same as appendToFile, but the file is written by a background thread and this returns right away.
+	 * @return
+	 * False if too many writes are already waiting, in which case this one is dropped
+	 */
+	public static boolean appendToFileLater(String filename, String contents) {
+		return writeLater(new Write(filename, contents, true));
+	}
+
+	/**
+	 * Waits until every write that was asked for with write*Later is finished, or until the timeout is up.
+	 * @param timeoutMillis
+	 * The longest time to wait
+	 * @return
+	 * True if everything was written
+	 */
+	public static boolean waitForWrites(long timeoutMillis) {
+		long end=System.currentTimeMillis()+timeoutMillis;
+		while (pendingWrites.get()>0) {
+			if (System.currentTimeMillis()>=end) return false;
+			try {
+				Thread.sleep(5);
+			}
+			catch (InterruptedException e) {
+				return false;
+			}
 		}
-		PrintWriter writter=new PrintWriter(fw);
-		writter.print(contents);
-		writter.close();
+		return true;
+	}
+
+	/**
+	 * @return
+	 * The number of write*Later calls that were dropped because too many writes were waiting
+	 */
+	public static long getDroppedWrites() {
+		return droppedWrites.get();
 	}
 
 	/**
@@ -34,26 +144,34 @@ public class FileLoader {
 	 * @param filename
 	 * The name of the file that is to be read
 	 * @return
-	 * As array of Strings where each index is the next line of the file
+	 * As array of Strings where each index is the next line of the file, or an empty array if it couldn't be read
 	 */
 	public static String[] readFile(String filename) {
-		LinkedList<String> fileList=new LinkedList<String>();
-		FileReader fr=null;
+		List<String> lines=new ArrayList<String>();
+		LineReader reader=readLines(filename);
 		try {
-			fr=new FileReader(filename);
-			BufferedReader reader=new BufferedReader(fr);
-			while (fileList.peekLast()!=null||fileList.size()==0)
-				fileList.add(reader.readLine());
-			reader.close();
+			for (String line : reader) {
+				lines.add(line);
+			}
 		}
-		catch (IOException e) {
-			e.printStackTrace();
+		finally {
+			reader.close();
 		}
-		
-		fileList.removeLast();
-		return (String[])(fileList.toArray(new String[fileList.size()]));
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	/**
+	 * Opens the file at the specified filename to be read one line at a time, so the whole file never has to be in
+	 * memory. Close the LineReader when done with it.
+	 * @param filename
+	 * The name of the file that is to be read
+	 * @return
+	 * The lines of the file. If the file couldn't be opened, there are no lines.
+	 */
+	public static LineReader readLines(String filename) {
+		return new LineReader(filename);
 	}
-	
+
 	/**
 	 * Checks to see if the file exists
 	 * @param name
@@ -64,4 +182,126 @@ public class FileLoader {
 	public static boolean fileExists(String name) {
 		return new File(name).exists();
 	}
+
+	/**
+	 * Opens a FileChannel for writing, either clearing the file or adding to the end of it
+	 */
+	static FileChannel openForWriting(String filename, boolean append) throws IOException {
+		if (append) {
+			return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+		}
+		return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	private static boolean write(String filename, String contents, boolean append) {
+		try {
+			FileChannel channel=openForWriting(filename, append);
+			try {
+				ByteBuffer bytes=ByteBuffer.wrap(contents.getBytes(UTF8));
+				while (bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			}
+			finally {
+				channel.close();
+			}
+			return true;
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Writing "+filename);
+			return false;
+		}
+	}
+
+	/**
+	 * Does a write on the background thread, using the channel in
+	 * <i>open</i> for the file if there is one and opening it if there isn't.
+	 * The channel isn't opened with APPEND or TRUNCATE_EXISTING, so the same
+	 * one works for both kinds of write.
+	 */
+	private static void writeOpen(Write write, Map<String, FileChannel> open) {
+		try {
+			FileChannel channel=open.get(write.filename);
+			if (channel==null) {
+				if (open.size()>=MAX_OPEN_FILES) closeAll(open);
+				channel=FileChannel.open(Paths.get(write.filename), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE);
+				open.put(write.filename, channel);
+			}
+			if (write.append) {
+				// something else might have written to it since the last time
+				channel.position(channel.size());
+			}
+			else {
+				channel.truncate(0);
+				channel.position(0);
+			}
+			ByteBuffer bytes=ByteBuffer.wrap(write.contents.getBytes(UTF8));
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Writing "+write.filename);
+			close(open.remove(write.filename));
+		}
+	}
+
+	private static void closeAll(Map<String, FileChannel> open) {
+		for (FileChannel channel : open.values()) {
+			close(channel);
+		}
+		open.clear();
+	}
+
+	private static void close(FileChannel channel) {
+		if (channel==null) return;
+		try {
+			channel.close();
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Closing a file");
+		}
+	}
+
+	private static boolean writeLater(Write write) {
+		if (writer==null) startWriter();
+		pendingWrites.incrementAndGet();
+		if (!writes.offer(write)) {
+			pendingWrites.decrementAndGet();
+			droppedWrites.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	private static synchronized void startWriter() {
+		if (writer!=null) return;
+		writer=new Thread(new Runnable() {
+			public void run() {
+				Map<String, FileChannel> open=new HashMap<String, FileChannel>();
+				while (true) {
+					Write write;
+					try {
+						write=writes.poll(IDLE_CLOSE_MILLIS, TimeUnit.MILLISECONDS);
+						if (write==null) {
+							closeAll(open);
+							write=writes.take();
+						}
+					}
+					catch (InterruptedException e) {
+						closeAll(open);
+						return;
+					}
+					writeOpen(write, open);
+					pendingWrites.decrementAndGet();
+				}
+			}
+		}, "File writer");
+		writer.setDaemon(true);
+		writer.setPriority(Thread.MIN_PRIORITY);
+		writer.start();
+	}
 }
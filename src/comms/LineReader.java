@@ -0,0 +1,90 @@
+package comms;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a text file one line at a time, so that big files (like logs) can be
+ * gone through without holding the whole thing in memory. Get one from
+ * FileLoader.readLines, use it in a for-each loop, and close it when done.
+ * If the file can't be opened or read, it just has no more lines.
+ */
+public class LineReader implements Iterable<String>, Iterator<String>, Closeable {
+
+	private final String filename;
+	private BufferedReader reader;
+	private String next;
+
+	LineReader(String filename) {
+		this.filename=filename;
+		try {
+			FileChannel channel=FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+			reader=new BufferedReader(Channels.newReader(channel, FileLoader.UTF8.newDecoder(), 8192));
+			advance();
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Reading "+filename);
+			close();
+		}
+	}
+
+	/**
+	 * Reads the next line into <i>next</i>, or closes the file if there are no
+	 * more
+	 */
+	private void advance() {
+		try {
+			next=reader.readLine();
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Reading "+filename);
+			next=null;
+		}
+		if (next==null) close();
+	}
+
+	/**
+	 * A LineReader can only be gone through once, so this returns itself
+	 */
+	public Iterator<String> iterator() {
+		return this;
+	}
+
+	public boolean hasNext() {
+		return next!=null;
+	}
+
+	public String next() {
+		if (next==null) throw new NoSuchElementException(filename+" has no more lines");
+		String line=next;
+		advance();
+		return line;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Closes the file. Nothing happens if it is already closed.
+	 */
+	public void close() {
+		next=null;
+		if (reader!=null) {
+			try {
+				reader.close();
+			}
+			catch (IOException e) {
+				// it's closed either way
+			}
+			reader=null;
+		}
+	}
+}
@@ -1,41 +1,82 @@
 package comms;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import edu.wpi.first.wpilibj.networktables.NetworkTable;
+import input.InputLog;
 import robot.IControl;
+import simulation.Simulation;
 
 public class NetworkTables extends IControl{
 
 	NetworkTable table;
+	private String tableName;
+	
+	/**
+	 * Holds the values in the Simulation, where there is no NetworkTables
+	 * server. Every table with the same name shares the same values.
+	 */
+	private static Map<String, Object> simulatedValues = new HashMap<String, Object>();
+	
+	/**
+	 * The InputLog channel for each key read from this table, so reading one
+	 * doesn't build a String every time
+	 */
+	private Map<String, Integer> channels = new HashMap<String, Integer>();
 	
 	public NetworkTables(TableNamesEnum tableKey) {
-		table = NetworkTable.getTable(tableKey.toString());
+		tableName = tableKey.toString();
+		if (!Simulation.isEnabled()) {
+			table = NetworkTable.getTable(tableName);
+		}
 	}
 	
 	public double getDouble(String key){
-		return table.getNumber(key, 0);
+		double live = table == null ? (Double)getSimulated(key, 0.0) : table.getNumber(key, 0);
+		return InputLog.read(getChannel(key), live);
 	}
 	
 	public void setDouble(String key, double value){
-		table.putNumber(key, value);
+		if (table == null) simulatedValues.put(tableName + "/" + key, value);
+		else table.putNumber(key, value);
 	}
 	
 	public String getString(String key){
+		if (table == null) return (String)getSimulated(key, "");
 		return table.getString(key, "");
 	}
 	
 	public void setString(String key, String value){
-		table.putString(key, value);
+		if (table == null) simulatedValues.put(tableName + "/" + key, value);
+		else table.putString(key, value);
 	}
 	
 	public boolean getBoolean(String key){
-		return table.getBoolean(key, false);
+		return getBoolean(key, false);
 	}
 	
 	public boolean getBoolean(String key, boolean defaultValue){
-		return table.getBoolean(key, defaultValue);
+		boolean live = table == null ? (Boolean)getSimulated(key, defaultValue) : table.getBoolean(key, defaultValue);
+		return InputLog.read(getChannel(key), live);
 	}
 	
 	public void setBoolean(String key, boolean value){
-		table.putBoolean(key, value);
+		if (table == null) simulatedValues.put(tableName + "/" + key, value);
+		else table.putBoolean(key, value);
+	}
+	
+	private int getChannel(String key){
+		Integer channel = channels.get(key);
+		if (channel == null) {
+			channel = InputLog.getChannel(tableName + "/" + key);
+			channels.put(key, channel);
+		}
+		return channel;
+	}
+	
+	private Object getSimulated(String key, Object defaultValue){
+		Object value = simulatedValues.get(tableName + "/" + key);
+		return value == null ? defaultValue : value;
 	}
 }
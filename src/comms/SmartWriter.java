@@ -1,6 +1,13 @@
 package comms;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import simulation.Simulation;
 
 //done, untested --SecondThread
 
@@ -12,18 +19,47 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  * --SecondThread
  */
 public class SmartWriter {
-	
+
 	/**
-	 * We usually only would want to print the first error that occurred, as
-	 * that tends to cause other ones. Once an error is printed, the rest won't
-	 * be so that the first one can be fixed.
+	 * The maximum DebugMode for which messages are printed to SmartDashboard.
+	 * This is final so that the JIT can treat isShown as a constant and drop
+	 * the messages that are filtered out completely.
 	 */
-	private static boolean stopPrintingErrors=false;
+	private static final DebugMode debugMode=DebugMode.DEBUG;
 
 	/**
-	 * The maximum DebugMode for which messages are printed to SmartDashboard.
+	 * The last value sent to SmartDashboard for each field. A put is skipped
+	 * if the value is the same as this, since most fields are set every tick
+	 * but hardly ever change. These are concurrent because IControl objects
+	 * can run on more than one thread.
+	 */
+	private static Map<String, Object> lastValues=new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * How far a number has to move before it is sent again, for fields that
+	 * are noisy. Fields that aren't in here are sent whenever they change at
+	 * all.
+	 */
+	private static Map<String, Double> epsilons=new ConcurrentHashMap<String, Double>();
+
+	/**
+	 * Every field is sent again this often (2 seconds) even if it hasn't
+	 * changed, so a dashboard that reconnects gets everything back.
+	 */
+	private static final long REFRESH_PERIOD_NANOS=2000000000L;
+	private static volatile long nextRefresh=System.nanoTime();
+
+	/**
+	 * Puts don't talk to SmartDashboard themselves. They are added to this
+	 * queue, and the publisher thread sends them in batches.
+	 */
+	private static final TelemetryQueue queue=new TelemetryQueue(1024);
+	private static final TelemetryPublisher publisher=new TelemetryPublisher(queue, 50);
+
+	/**
+	 * Every channel that has been registered, by name
 	 */
-	private static DebugMode debugMode=DebugMode.DEBUG;
+	private static Map<String, TelemetryChannel> channels=new ConcurrentHashMap<String, TelemetryChannel>();
 
 	/**
 	 * Sets the field with name <i>name</i> on the SmartDashboard to
@@ -46,8 +82,8 @@ public class SmartWriter {
 	 *            displayed on.
 	 */
 	public static void putS(String name, String value, DebugMode debugMode) {
-		if (SmartWriter.debugMode.compareTo(debugMode) >= 0)
-			SmartDashboard.putString(name, value);
+		if (isShown(debugMode) && !Simulation.isEnabled() && hasChanged(name, value))
+			publish(name, TelemetryQueue.STRING, 0, value);
 	}
 
 	/**
@@ -71,8 +107,8 @@ public class SmartWriter {
 	 *            displayed on
 	 */
 	public static void putB(String name, boolean value, DebugMode debugMode) {
-		if (SmartWriter.debugMode.compareTo(debugMode) >= 0)
-			SmartDashboard.putBoolean(name, value);
+		if (isShown(debugMode) && !Simulation.isEnabled() && hasChanged(name, value))
+			publish(name, TelemetryQueue.BOOLEAN, value ? 1 : 0, null);
 	}
 
 	/**
@@ -96,8 +132,8 @@ public class SmartWriter {
 	 *            displayed on.
 	 */
 	public static void putD(String name, double value, DebugMode debugMode) {
-		if (SmartWriter.debugMode.compareTo(debugMode) >= 0)
-			SmartDashboard.putNumber(name, value);
+		if (isShown(debugMode) && !Simulation.isEnabled() && hasChanged(name, value))
+			publish(name, TelemetryQueue.NUMBER, value, null);
 	}
 	
 
@@ -173,6 +209,203 @@ public class SmartWriter {
 		putD(name,value,DebugMode.DEBUG);
 	}
 
+	/**
+	 * Same as putS, but <i>value</i> is only asked for the String if the
+	 * message is going to be sent. Use this when the String has to be built
+	 * and <i>debugMode</i> is below the one that has been set, so that the
+	 * filtered message doesn't build anything. For messages that are shown,
+	 * it only adds the lambda.<br>
+	 * <br>
+	 * Preconditions: <i>value</i> can be called from any thread<br>
+	 * Postconditions: if <i>debugMode</i> is shown, the field is set to what
+	 * <i>value</i> returns
+	 * 
+	 * @param name
+	 *            The name of the field
+	 * @param value
+	 *            Makes the value of the field
+	 * @param debugMode
+	 *            The least general debug mode that this message should be
+	 *            displayed on
+	 */
+	public static void putS(String name, Supplier<String> value, DebugMode debugMode) {
+		if (isShown(debugMode) && !Simulation.isEnabled()) putS(name, value.get(), debugMode);
+	}
+
+	/**
+	 * Same as putB, but <i>value</i> is only called if the message is going to
+	 * be sent. See putS.
+	 */
+	public static void putB(String name, BooleanSupplier value, DebugMode debugMode) {
+		if (isShown(debugMode) && !Simulation.isEnabled()) putB(name, value.getAsBoolean(), debugMode);
+	}
+
+	/**
+	 * Same as putD, but <i>value</i> is only called if the message is going to
+	 * be sent. See putS.
+	 */
+	public static void putD(String name, DoubleSupplier value, DebugMode debugMode) {
+		if (isShown(debugMode) && !Simulation.isEnabled()) putD(name, value.getAsDouble(), debugMode);
+	}
+
+	/**
+	 * Makes the number in a field only get sent again once it has moved more
+	 * than <i>epsilon</i> from the last value that was sent. <br>
+	 * <br>
+	 * Preconditions: <i>epsilon</i> is not negative<br>
+	 * Postconditions: putD(<i>name</i>, ...) will skip small changes
+	 * 
+	 * @param name
+	 *            The name of the field
+	 * @param epsilon
+	 *            The biggest change that is ignored
+	 */
+	public static void setEpsilon(String name, double epsilon) {
+		epsilons.put(name, epsilon);
+	}
+
+	/**
+	 * Registers a number field that will be set through the returned handle
+	 * instead of through putD. This should be done once, when the object
+	 * that uses it is made, and not every tick. <br>
+	 * <br>
+	 * Preconditions: <i>name</i> hasn't been registered as a different type<br>
+	 * Postconditions: the publisher thread will send the channel whenever it
+	 * is set to a new value
+	 * 
+	 * @param name
+	 *            The name of the field
+	 * @param debugMode
+	 *            The least general debug mode that this field should be
+	 *            displayed on
+	 * @return The channel for <i>name</i>. If it was already registered, the
+	 *         same channel is returned again.
+	 */
+	public static DoubleChannel registerDouble(String name, DebugMode debugMode) {
+		return register(DoubleChannel.class, new DoubleChannel(name, debugMode));
+	}
+
+	/**
+	 * Registers a boolean field that will be set through the returned handle
+	 * instead of through putB. See registerDouble.
+	 */
+	public static BooleanChannel registerBoolean(String name, DebugMode debugMode) {
+		return register(BooleanChannel.class, new BooleanChannel(name, debugMode));
+	}
+
+	/**
+	 * Registers a text field that will be set through the returned handle
+	 * instead of through putS. See registerDouble.
+	 */
+	public static StringChannel registerString(String name, DebugMode debugMode) {
+		return register(StringChannel.class, new StringChannel(name, debugMode));
+	}
+
+	private static <T extends TelemetryChannel> T register(Class<T> type, T channel) {
+		TelemetryChannel existing=channels.putIfAbsent(channel.getName(), channel);
+		if (existing == null) {
+			publisher.addChannel(channel);
+			DataLogger.addChannel(channel);
+			publisher.start();
+			return channel;
+		}
+		if (!type.isInstance(existing)) {
+			throw new IllegalStateException(channel.getName()+" is already registered as a "
+					+existing.getClass().getSimpleName());
+		}
+		return type.cast(existing);
+	}
+
+	/**
+	 * Checks to see if messages with the given DebugMode are being sent right
+	 * now
+	 * 
+	 * @param debugMode
+	 *            The least general debug mode the message would be displayed
+	 *            on
+	 * @return True if the debug mode that has been set is at least as general
+	 *         as <i>debugMode</i>
+	 */
+	public static boolean isShown(DebugMode debugMode) {
+		return SmartWriter.debugMode.compareTo(debugMode) >= 0;
+	}
+
+	/**
+	 * Changes how often the publisher thread sends what is waiting to
+	 * SmartDashboard.
+	 * 
+	 * @param hertz
+	 *            The number of batches to send per second
+	 */
+	public static void setPublishRate(double hertz) {
+		publisher.setPeriodMillis((long)(1000 / hertz));
+	}
+
+	/**
+	 * @return The number of puts that were thrown away because the publisher
+	 *         thread couldn't keep up
+	 */
+	public static long getDroppedCount() {
+		return queue.getDropCount();
+	}
+
+	/**
+	 * @return The number of puts waiting for the publisher thread right now
+	 */
+	public static int getQueueDepth() {
+		return queue.getDepth();
+	}
+
+	/**
+	 * Hands an update to the publisher thread. If it gets dropped, the field
+	 * is forgotten so the next put sends it again.
+	 */
+	private static void publish(String name, byte type, double number, String string) {
+		if (!publisher.isStarted()) publisher.start();
+		if (!queue.offer(name, type, number, string)) lastValues.remove(name);
+	}
+
+	/**
+	 * Checks to see if <i>value</i> is different from the last value sent for
+	 * <i>name</i>, and remembers it if it is.
+	 */
+	private static boolean hasChanged(String name, Object value) {
+		checkRefresh();
+		if (value == null) {
+			lastValues.remove(name);
+			return true;
+		}
+		return !value.equals(lastValues.put(name, value));
+	}
+
+	/**
+	 * Checks to see if <i>value</i> has moved more than the field's epsilon
+	 * from the last value sent for <i>name</i>, and remembers it if it has.
+	 */
+	private static boolean hasChanged(String name, double value) {
+		checkRefresh();
+		Object last=lastValues.get(name);
+		if (last instanceof Double) {
+			Double epsilon=epsilons.get(name);
+			if (Math.abs((Double)last - value) <= (epsilon == null ? 0 : epsilon))
+				return false;
+		}
+		lastValues.put(name, value);
+		return true;
+	}
+
+	/**
+	 * Forgets every value that was sent once the refresh period is up, so
+	 * that everything is sent again
+	 */
+	private static void checkRefresh() {
+		long now=System.nanoTime();
+		if (now - nextRefresh >= 0) {
+			nextRefresh=now + REFRESH_PERIOD_NANOS;
+			lastValues.clear();
+		}
+	}
+
 	/**
 	 * Gets and returns the value in the text box on SmartDashboard with the
 	 * given name.<br>
@@ -188,6 +421,7 @@ public class SmartWriter {
 	 * @return The value in the text box with the name <i>name</i>
 	 */
 	public static String getS(String name) {
+		if (Simulation.isEnabled()) return "";
 		return SmartDashboard.getString(name, "");
 	}
 
@@ -206,6 +440,7 @@ public class SmartWriter {
 	 * @return The value in the text box with the name <i>name</i>
 	 */
 	public static boolean getB(String name) {
+		if (Simulation.isEnabled()) return false;
 		return SmartDashboard.getBoolean(name, false);
 	}
 
@@ -224,11 +459,15 @@ public class SmartWriter {
 	 * @return The value in the text box with the name <i>name</i>
 	 */
 	public static double getD(String name) {
+		if (Simulation.isEnabled()) return 0;
 		return SmartDashboard.getNumber(name, 0);
 	}
 	
 	/**
-	 * Prints the error to standard output so it can be identified and debugged
+	 * Reports the error so it can be identified and debugged. The
+	 * ErrorReporter prints it from a background thread, with the whole stack
+	 * trace the first time and only a count after that, so an error that
+	 * happens every tick doesn't flood stderr.
 	 * 
 	 * @param The
 	 *            exception that occurred
@@ -237,17 +476,7 @@ public class SmartWriter {
 	 *            Auto init) as a string to be printed
 	 */
 	public static void outputError(Exception e, String timeOccured) {
-		// We are going to try to print to Stdout, but I think this isn't going
-		// to work.
-		// If this doesn't work, then we can try:
-		// -printing to System.out instead of System.err
-		// -printing to using SmartWriter (This would be more difficult because
-		// Excetion.StackTrace would have to be converted to Strings)
-		if (!stopPrintingErrors) {
-			System.err.println("Exception occured in: "+timeOccured+".");
-			e.printStackTrace(System.err);
-			stopPrintingErrors=false;
-		}
+		ErrorReporter.report(e, timeOccured);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package comms;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * A TelemetryChannel for a text field on SmartDashboard
+ */
+public class StringChannel extends TelemetryChannel {
+
+	private volatile String value = "";
+
+	StringChannel(String name, DebugMode debugMode) {
+		super(name, debugMode);
+	}
+
+	/**
+	 * Sets the text on SmartDashboard to <i>value</i>, or to "" if it is
+	 * null. Nothing happens if this channel isn't enabled or the value hasn't
+	 * changed.
+	 */
+	public void set(String value) {
+		if (value == null) value = "";
+		if (!isEnabled() || hasValue() && value.equals(this.value)) return;
+		this.value = value;
+		markWaiting();
+	}
+
+	public String get() {
+		return value;
+	}
+
+	byte getType() {
+		return TelemetryQueue.STRING;
+	}
+
+	double getNumber() {
+		return 0;
+	}
+
+	void send() {
+		SmartDashboard.putString(getName(), value);
+	}
+}
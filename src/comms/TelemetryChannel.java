@@ -0,0 +1,118 @@
+package comms;
+
+import simulation.Simulation;
+
+/**
+ * A SmartDashboard field that is registered once with SmartWriter and then
+ * set through this handle. Setting a channel only stores the value and marks
+ * it as waiting, and the TelemetryPublisher thread sends it with the next
+ * batch, so there are no Strings to build or look up every tick. <br>
+ * <br>
+ * Get one from SmartWriter.registerDouble, registerBoolean, or registerString.
+ * While the DataLogger is recording, the number and boolean channels are
+ * written to its log every tick as well, even if their DebugMode isn't shown.
+ */
+public abstract class TelemetryChannel {
+
+	private final String name;
+	private final DebugMode debugMode;
+
+	/**
+	 * True once the value has been set, and after that whenever it has
+	 * changed since it was last sent. Written after the value, so the
+	 * publisher always sees the value that goes with it.
+	 */
+	private volatile boolean waiting;
+	private volatile boolean hasValue;
+	private volatile boolean hasLogValue;
+
+	/**
+	 * This channel's id in the DataLogger's log, or -1 if it hasn't been
+	 * given one yet
+	 */
+	int id = -1;
+
+	TelemetryChannel(String name, DebugMode debugMode) {
+		this.name = name;
+		this.debugMode = debugMode;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public DebugMode getDebugMode() {
+		return debugMode;
+	}
+
+	/**
+	 * @return True if values set now would be sent, which is when this
+	 *         channel's DebugMode is shown and the Simulation isn't running
+	 */
+	public boolean isEnabled() {
+		return SmartWriter.isShown(debugMode) && !Simulation.isEnabled();
+	}
+
+	boolean hasValue() {
+		return hasValue;
+	}
+
+	/**
+	 * @return True if a new value should be stored at all, because it will be
+	 *         sent or logged
+	 */
+	boolean isWanted() {
+		return isEnabled() || DataLogger.isRecording();
+	}
+
+	/**
+	 * Called by the subclasses after they store a value, whether or not it
+	 * will be sent
+	 */
+	void markLogged() {
+		hasLogValue = true;
+	}
+
+	/**
+	 * @return True once there is a value for the DataLogger to write
+	 */
+	boolean hasLogValue() {
+		return hasLogValue;
+	}
+
+	/**
+	 * @return TelemetryQueue.STRING, BOOLEAN, or NUMBER
+	 */
+	abstract byte getType();
+
+	/**
+	 * @return The current value as a number (1 or 0 for booleans, 0 for
+	 *         strings), for the DataLogger
+	 */
+	abstract double getNumber();
+
+	/**
+	 * Called by the subclasses after they store a new value
+	 */
+	void markWaiting() {
+		hasValue = true;
+		waiting = true;
+	}
+
+	/**
+	 * Sends the value if it has changed since it was last sent, or if
+	 * <i>refresh</i> is true and it has ever been set. Only called by the
+	 * publisher thread.
+	 */
+	void publishIfWaiting(boolean refresh) {
+		if (waiting || refresh && hasValue) {
+			waiting = false;
+			send();
+		}
+	}
+
+	/**
+	 * Sends the current value to SmartDashboard
+	 */
+	abstract void send();
+}
@@ -0,0 +1,160 @@
+package comms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * The background thread that actually sends SmartWriter's updates to
+ * SmartDashboard, so that the control loop never waits on NetworkTables. Every
+ * period it empties the TelemetryQueue, keeps only the newest value for each
+ * field, and sends those. Then it sends every registered TelemetryChannel
+ * that has changed. <br>
+ * <br>
+ * Each field gets one Field object the first time it is seen, which is reused
+ * from then on, so a batch doesn't allocate once every field has been sent
+ * once.
+ */
+class TelemetryPublisher implements Runnable {
+
+	/**
+	 * The newest value waiting to be sent for one field
+	 */
+	private static class Field {
+		final String name;
+		byte type;
+		double number;
+		String string;
+		boolean waiting;
+
+		Field(String name) {
+			this.name = name;
+		}
+	}
+
+	private final TelemetryQueue queue;
+	private volatile long periodMillis;
+	private Thread thread;
+
+	private final Map<String, Field> fields = new HashMap<String, Field>();
+	private final List<Field> batch = new ArrayList<Field>();
+
+	/**
+	 * Channels are only added when they are registered, so this is almost
+	 * never copied. A new array is made for each one, and the batch reads
+	 * whichever array is newest by index, so it doesn't need a lock or an
+	 * iterator.
+	 */
+	private volatile TelemetryChannel[] channels = new TelemetryChannel[0];
+
+	/**
+	 * Every channel is sent again this often (2 seconds) even if it hasn't
+	 * changed, like SmartWriter does for its fields
+	 */
+	private static final long REFRESH_PERIOD_NANOS = 2000000000L;
+	private long nextRefresh = System.nanoTime();
+
+	/**
+	 * @param periodMillis
+	 *            How long to wait between batches
+	 */
+	TelemetryPublisher(TelemetryQueue queue, long periodMillis) {
+		this.queue = queue;
+		this.periodMillis = periodMillis;
+	}
+
+	void setPeriodMillis(long periodMillis) {
+		this.periodMillis = Math.max(periodMillis, 1);
+	}
+
+	/**
+	 * Starts the thread the first time this is called. Nothing happens after
+	 * that.
+	 */
+	synchronized void start() {
+		if (thread != null) return;
+		thread = new Thread(this, "Telemetry publisher");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	synchronized void addChannel(TelemetryChannel channel) {
+		TelemetryChannel[] added = Arrays.copyOf(channels, channels.length + 1);
+		added[channels.length] = channel;
+		channels = added;
+	}
+
+	boolean isStarted() {
+		return thread != null;
+	}
+
+	public void run() {
+		while (true) {
+			try {
+				publishBatch();
+				Thread.sleep(periodMillis);
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+			catch (RuntimeException e) {
+				SmartWriter.outputError(e, "Telemetry publisher");
+			}
+		}
+	}
+
+	/**
+	 * Empties the queue and sends the newest value of every field that was in
+	 * it, then sends the channels that are waiting
+	 */
+	private void publishBatch() {
+		while (queue.poll(this));
+		for (int i = 0; i < batch.size(); i++) {
+			Field field = batch.get(i);
+			field.waiting = false;
+			if (field.type == TelemetryQueue.STRING) {
+				SmartDashboard.putString(field.name, field.string);
+			}
+			else if (field.type == TelemetryQueue.BOOLEAN) {
+				SmartDashboard.putBoolean(field.name, field.number != 0);
+			}
+			else {
+				SmartDashboard.putNumber(field.name, field.number);
+			}
+			field.string = null;
+		}
+		batch.clear();
+
+		long now = System.nanoTime();
+		boolean refresh = now - nextRefresh >= 0;
+		if (refresh) nextRefresh = now + REFRESH_PERIOD_NANOS;
+		TelemetryChannel[] current = channels;
+		for (int i = 0; i < current.length; i++) {
+			current[i].publishIfWaiting(refresh);
+		}
+	}
+
+	/**
+	 * Called by the queue for each update that is taken off of it. A newer
+	 * update for a field replaces one that is already waiting in this batch.
+	 */
+	void add(String name, byte type, double number, String string) {
+		Field field = fields.get(name);
+		if (field == null) {
+			field = new Field(name);
+			fields.put(name, field);
+		}
+		field.type = type;
+		field.number = number;
+		field.string = string;
+		if (!field.waiting) {
+			field.waiting = true;
+			batch.add(field);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package comms;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size ring buffer of SmartDashboard updates waiting to be sent.
+ * Any number of threads can add to it without locking, but only the
+ * TelemetryPublisher thread takes things out. <br>
+ * <br>
+ * Every slot is made when the queue is made, and the numbers are kept in a
+ * double array, so adding an update never allocates anything. If the queue is
+ * full the update is dropped and counted instead of waiting.
+ */
+class TelemetryQueue {
+
+	static final byte STRING=0, BOOLEAN=1, NUMBER=2;
+
+	private final int mask;
+
+	/**
+	 * For each slot, the position it is ready to be written at, or that
+	 * position plus one once it has been written and is ready to be read
+	 */
+	private final AtomicLongArray sequences;
+	private final String[] names;
+	private final byte[] types;
+	private final double[] numbers;
+	private final String[] strings;
+
+	/**
+	 * The next position to write to, shared by every thread that adds
+	 */
+	private final AtomicLong tail=new AtomicLong();
+
+	/**
+	 * The next position to read from. Only the publisher thread changes this.
+	 */
+	private volatile long head;
+
+	private final AtomicLong drops=new AtomicLong();
+
+	/**
+	 * @param capacity
+	 *            The number of updates that can be waiting at once, rounded up
+	 *            to a power of two
+	 */
+	TelemetryQueue(int capacity) {
+		int size=Integer.highestOneBit(Math.max(capacity-1, 1))<<1;
+		mask=size-1;
+		sequences=new AtomicLongArray(size);
+		for (int i=0; i<size; i++) {
+			sequences.set(i, i);
+		}
+		names=new String[size];
+		types=new byte[size];
+		numbers=new double[size];
+		strings=new String[size];
+	}
+
+	/**
+	 * Adds an update to the end of the queue without waiting.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: the update will be handed to the publisher, or the drop
+	 * count went up by one
+	 *
+	 * @param type
+	 *            STRING, BOOLEAN, or NUMBER
+	 * @param number
+	 *            The value if this is a number, or 1 or 0 if it is a boolean
+	 * @param string
+	 *            The value if this is a string
+	 * @return False if the queue was full and the update was dropped
+	 */
+	boolean offer(String name, byte type, double number, String string) {
+		long position;
+		while (true) {
+			position=tail.get();
+			long difference=sequences.get((int)position&mask)-position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position+1)) break;
+			}
+			else if (difference < 0) {
+				// the publisher hasn't read this slot from last time around yet
+				drops.incrementAndGet();
+				return false;
+			}
+			// otherwise another thread took this slot first, so try the next one
+		}
+		int slot=(int)position&mask;
+		names[slot]=name;
+		types[slot]=type;
+		numbers[slot]=number;
+		strings[slot]=string;
+		sequences.lazySet(slot, position+1);
+		return true;
+	}
+
+	/**
+	 * Takes the next update off the front of the queue and gives it to
+	 * <i>batch</i>. Only called by the publisher thread.
+	 *
+	 * @return False if there was nothing ready to take
+	 */
+	boolean poll(TelemetryPublisher batch) {
+		long position=head;
+		int slot=(int)position&mask;
+		if (sequences.get(slot) != position+1) return false;
+		batch.add(names[slot], types[slot], numbers[slot], strings[slot]);
+		names[slot]=null;
+		strings[slot]=null;
+		head=position+1;
+		sequences.lazySet(slot, position+mask+1);
+		return true;
+	}
+
+	/**
+	 * @return The number of updates that were dropped because the queue was
+	 *         full
+	 */
+	long getDropCount() {
+		return drops.get();
+	}
+
+	/**
+	 * @return The number of updates waiting to be sent right now
+	 */
+	int getDepth() {
+		return (int)Math.max(tail.get()-head, 0);
+	}
+}
@@ -1,6 +1,8 @@
 package comms;
 
 import edu.wpi.first.wpilibj.Joystick;
+import input.InputLog;
+import simulation.Simulation;
 import robot.IControl;
 
 /**
@@ -64,6 +66,32 @@ public class XboxController extends IControl {
 	private boolean[] held = new boolean[NUMBER_OF_BUTTONS];
 	private boolean[] released = new boolean[NUMBER_OF_BUTTONS];
 
+	/**
+	 * The stick values are only sent to SmartDashboard once every
+	 * TELEMETRY_DIVISOR ticks (10 Hz). The buttons still have to be updated
+	 * every tick for debouncing, so this can't use setUpdateRate.
+	 */
+	private static final int TELEMETRY_DIVISOR = 5;
+	private int telemetryCounter = 0;
+
+	/**
+	 * The InputLog channel names (which are also the Simulation input names)
+	 * and ids for each WPI button and axis code, made once so reading a button
+	 * doesn't build a new String every frame
+	 */
+	private final int NUMBER_OF_WPICODES = 11;
+	private String[] buttonChannels = new String[NUMBER_OF_WPICODES];
+	private String[] axisChannels = new String[NUMBER_OF_WPICODES];
+	private int[] buttonChannelIds = new int[NUMBER_OF_WPICODES];
+	private int[] axisChannelIds = new int[NUMBER_OF_WPICODES];
+
+	/**
+	 * The SmartDashboard fields for each button code and the left stick,
+	 * registered once so updateButton doesn't build a name every frame
+	 */
+	private BooleanChannel[] buttonTelemetry = new BooleanChannel[NUMBER_OF_BUTTONS];
+	private DoubleChannel stickYTelemetry, stickXTelemetry;
+
 	/**
 	 * The singleton instance of this class. <i>xboxController</i> is null if
 	 * the singleton has not been instantiated yet.
@@ -106,6 +134,21 @@ public class XboxController extends IControl {
 	 */
 	private XboxController(int port) {
 		_port = port + "";
+		for (int i = 0; i < NUMBER_OF_WPICODES; i++) {
+			buttonChannels[i] = "Xbox" + port + " button " + i;
+			axisChannels[i] = "Xbox" + port + " axis " + i;
+			buttonChannelIds[i] = InputLog.getChannel(buttonChannels[i]);
+			axisChannelIds[i] = InputLog.getChannel(axisChannels[i]);
+		}
+		for (int i = 0; i < NUMBER_OF_BUTTONS; i++) {
+			buttonTelemetry[i] = SmartWriter.registerBoolean(i + " " + _port, DebugMode.FULL);
+		}
+		stickYTelemetry = SmartWriter.registerDouble("StickY", DebugMode.DEBUG);
+		stickXTelemetry = SmartWriter.registerDouble("StickX", DebugMode.DEBUG);
+		if (Simulation.isEnabled()) {
+			// the buttons and sticks are read from the Simulation instead
+			return;
+		}
 		leftJoystick = new Joystick(port);
 		rightJoystick = new Joystick(port);
 
@@ -121,8 +164,11 @@ public class XboxController extends IControl {
 	// calls the update method
 	public void teleopPeriodic() {
 		update();
-		SmartWriter.putD("StickY", getLeftJoystickY(), DebugMode.DEBUG);
-		SmartWriter.putD("StickX", getLeftJoystickX(), DebugMode.DEBUG);
+		if (++telemetryCounter >= TELEMETRY_DIVISOR) {
+			telemetryCounter = 0;
+			stickYTelemetry.set(getLeftJoystickY());
+			stickXTelemetry.set(getLeftJoystickX());
+		}
 	}
 	
 	public void autonomousPeriodic() {
@@ -139,18 +185,18 @@ public class XboxController extends IControl {
 	 * true on exactly one frame.
 	 */
 	private void update() {
-		updateButton(X_CODE, rightJoystick.getRawButton(BUTTON_X_WPICODE));
-		updateButton(Y_CODE, rightJoystick.getRawButton(BUTTON_Y_WPICODE));
-		updateButton(A_CODE, rightJoystick.getRawButton(BUTTON_A_WPICODE));
-		updateButton(B_CODE, rightJoystick.getRawButton(BUTTON_B_WPICODE));
-		updateButton(START_CODE, rightJoystick.getRawButton(BUTTON_START_WPICODE));
-		updateButton(BACK_CODE, rightJoystick.getRawButton(BUTTON_BACK_WPICODE));
-		updateButton(LEFT_BUMPER_CODE, rightJoystick.getRawButton(BUTTON_LB_WPICODE));
-		updateButton(RIGHT_BUMPER_CODE, rightJoystick.getRawButton(BUTTON_RB_WPICODE));
-		updateButton(L3_CODE, rightJoystick.getRawButton(BUTTON_L3_WPICODE));
-		updateButton(R3_CODE, rightJoystick.getRawButton(BUTTON_R3_WPICODE));
-		updateButton(LEFT_TRIGGER_CODE, rightJoystick.getRawAxis(AXIS_TRIGGER_LEFT_WIPCODE) > 0.8);
-		updateButton(RIGHT_TRIGGER_CODE, rightJoystick.getRawAxis(AXIS_TRIGGER_RIGHT_WIPCODE) > 0.8);
+		updateButton(X_CODE, getButton(BUTTON_X_WPICODE));
+		updateButton(Y_CODE, getButton(BUTTON_Y_WPICODE));
+		updateButton(A_CODE, getButton(BUTTON_A_WPICODE));
+		updateButton(B_CODE, getButton(BUTTON_B_WPICODE));
+		updateButton(START_CODE, getButton(BUTTON_START_WPICODE));
+		updateButton(BACK_CODE, getButton(BUTTON_BACK_WPICODE));
+		updateButton(LEFT_BUMPER_CODE, getButton(BUTTON_LB_WPICODE));
+		updateButton(RIGHT_BUMPER_CODE, getButton(BUTTON_RB_WPICODE));
+		updateButton(L3_CODE, getButton(BUTTON_L3_WPICODE));
+		updateButton(R3_CODE, getButton(BUTTON_R3_WPICODE));
+		updateButton(LEFT_TRIGGER_CODE, getAxis(rightJoystick, AXIS_TRIGGER_LEFT_WIPCODE) > 0.8);
+		updateButton(RIGHT_TRIGGER_CODE, getAxis(rightJoystick, AXIS_TRIGGER_RIGHT_WIPCODE) > 0.8);
 	}
 
 	/**
@@ -162,7 +208,7 @@ public class XboxController extends IControl {
 	 * @param currentlyDown
 	 */
 	private void updateButton(int buttonCode, boolean currentlyDown) {
-		SmartWriter.putB(buttonCode +" " + _port, currentlyDown, DebugMode.FULL);
+		buttonTelemetry[buttonCode].set(currentlyDown);
 		lastFrame[buttonCode] = thisFrame[buttonCode];
 		if ( !currentlyDown) {
 			debounceCounters[buttonCode] = 0;
@@ -183,20 +229,41 @@ public class XboxController extends IControl {
 		released[buttonCode] = !thisFrame[buttonCode] && lastFrame[buttonCode];
 	}
 
+	/**
+	 * Reads a button through the InputLog so it can be recorded and played
+	 * back
+	 */
+	private boolean getButton(int wpiCode) {
+		if (rightJoystick == null) {
+			return InputLog.read(buttonChannelIds[wpiCode], Simulation.getInput(buttonChannels[wpiCode]) != 0);
+		}
+		return InputLog.read(buttonChannelIds[wpiCode], rightJoystick.getRawButton(wpiCode));
+	}
+
+	/**
+	 * Reads an axis through the InputLog so it can be recorded and played back
+	 */
+	private double getAxis(Joystick joystick, int wpiCode) {
+		if (joystick == null) {
+			return InputLog.read(axisChannelIds[wpiCode], Simulation.getInput(axisChannels[wpiCode]));
+		}
+		return InputLog.read(axisChannelIds[wpiCode], joystick.getRawAxis(wpiCode));
+	}
+
 	public double getRightJoystickX() {
-		return rightJoystick.getRawAxis(AXIS_RIGHT_X_WIPCODE);
+		return getAxis(rightJoystick, AXIS_RIGHT_X_WIPCODE);
 	}
 
 	public double getRightJoystickY() {
-		return ( -1.0) * rightJoystick.getRawAxis(AXIS_RIGHT_Y_WIPCODE);
+		return ( -1.0) * getAxis(rightJoystick, AXIS_RIGHT_Y_WIPCODE);
 	}
 
 	public double getLeftJoystickX() {
-		return leftJoystick.getRawAxis(AXIS_LEFT_X_WIPCODE);
+		return getAxis(leftJoystick, AXIS_LEFT_X_WIPCODE);
 	}
 
 	public double getLeftJoystickY() {
-		return ( -1.0) * leftJoystick.getRawAxis(AXIS_LEFT_Y_WIPCODE);
+		return ( -1.0) * getAxis(leftJoystick, AXIS_LEFT_Y_WIPCODE);
 	}
 
 	public boolean getXPressed() {
@@ -348,6 +415,7 @@ public class XboxController extends IControl {
 	}
 
 	public void setRumble(double rumblyness) {
+		if (rightJoystick == null) return;
 		float radness = (float)rumblyness;
 		rightJoystick.setRumble(Joystick.RumbleType.kLeftRumble, radness);
 		rightJoystick.setRumble(Joystick.RumbleType.kRightRumble, radness);
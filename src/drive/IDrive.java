@@ -2,6 +2,7 @@ package drive;
 
 import comms.DebugMode;
 import comms.SmartWriter;
+import robot.ControlPriority;
 import robot.IControl;
 
 /**
@@ -18,6 +19,13 @@ public abstract class IDrive extends IControl {
 	 */
 	protected DriveControl driveControl=DriveControl.DRIVE_CONTROLLED;
 
+	/**
+	 * Every drive should never be skipped when a tick runs long
+	 */
+	public IDrive() {
+		setPriority(ControlPriority.SAFETY_CRITICAL);
+	}
+
 	/**
 	 * Sets the drive control so that it is controlled by this IDrive in case
 	 * someone changed it in auto and never set it back
@@ -27,7 +35,7 @@ public abstract class IDrive extends IControl {
 	}
 
 	public final void autonomousPeriodic() {
-		SmartWriter.putS("Drive State", ""+driveControl, DebugMode.DEBUG);
+		SmartWriter.putS("Drive State", String.valueOf(driveControl), DebugMode.DEBUG);
 		switch (driveControl) {
 		case DISABLED:
 			disableMotors();
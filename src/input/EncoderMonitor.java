@@ -1,49 +1,64 @@
 package input;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.List;
 
 import comms.DebugMode;
+import comms.DoubleChannel;
 import comms.SmartWriter;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.Ultrasonic;
+import robot.ControlPriority;
 import robot.IControl;
 
 public class EncoderMonitor extends IControl {
 
-	HashMap<String, Encoder> encoders;
+	// The names the encoders are registered with in SensorController
+	List<String> encoders;
+	// The SmartDashboard fields for each encoder's count and distance
+	List<DoubleChannel> countTelemetry, distanceTelemetry;
+	DoubleChannel rangeTelemetry, rangeMilliTelemetry;
 	/**
 	 * This class will print the values of all encoders during all modes<br>
 	 * Also it will reset during init phases
 	 */
 	public EncoderMonitor() {
-		encoders = new HashMap<String, Encoder>();
+		encoders = new ArrayList<String>();
+		countTelemetry = new ArrayList<DoubleChannel>();
+		distanceTelemetry = new ArrayList<DoubleChannel>();
+		rangeTelemetry = SmartWriter.registerDouble("DistanceSensorDistance", DebugMode.DEBUG);
+		rangeMilliTelemetry = SmartWriter.registerDouble("DistanceInMilli", DebugMode.DEBUG);
+		// the dashboard doesn't need these any faster than this
+		setUpdateRate(10);
+		setPriority(ControlPriority.SHEDDABLE);
 	}
 	
-	public void add(String name, Encoder e){
-		encoders.put(name, e);
+	public void add(String name){
+		encoders.add(name);
+		countTelemetry.add(SmartWriter.registerDouble(name, DebugMode.COMPETITION));
+		distanceTelemetry.add(SmartWriter.registerDouble(name + " DISTANCE", DebugMode.COMPETITION));
 	}
 	
 	/**
 	 * Print the encoder values to smart dashboard
 	 */
 	public void teleopPeriodic(){
-		Ultrasonic dist = (Ultrasonic)SensorController.getInstance().getSensor("DISTANCESENSOR");
-		SmartWriter.putD("DistanceSensorDistance", dist.getRangeInches());
-		SmartWriter.putD("DistanceInMilli", dist.getRangeMM());
-		for(Entry<String, Encoder> entry : encoders.entrySet()){
-			SmartWriter.putD(entry.getKey(), entry.getValue().get(), DebugMode.COMPETITION);
-			SmartWriter.putD(entry.getKey() + " DISTANCE", entry.getValue().getDistance(), DebugMode.COMPETITION);
-		}
+		double range = SensorController.getInstance().getRangeInches("DISTANCESENSOR");
+		rangeTelemetry.set(range);
+		rangeMilliTelemetry.set(range * 25.4);
+		publishEncoders();
 	}
 	
 	/**
 	 * Print the encoder values to smart dashboard
 	 */
 	public void autonomousPeriodic(){
-		for(Entry<String, Encoder> entry : encoders.entrySet()){
-			SmartWriter.putD(entry.getKey(), entry.getValue().get(),DebugMode.COMPETITION);
-			SmartWriter.putD(entry.getKey() + " DISTANCE", entry.getValue().getDistance(),DebugMode.COMPETITION);
+		publishEncoders();
+	}
+	
+	private void publishEncoders(){
+		for(int i = 0; i < encoders.size(); i++){
+			String name = encoders.get(i);
+			countTelemetry.get(i).set(SensorController.getInstance().getCount(name));
+			distanceTelemetry.get(i).set(SensorController.getInstance().getDistance(name));
 		}
 	}
 	
@@ -51,8 +66,8 @@ public class EncoderMonitor extends IControl {
 	 * Reset all of the encoders
 	 */
 	public void teleopInit() {
-		for(Entry<String, Encoder> entry : encoders.entrySet()) {
-			entry.getValue().reset();
+		for(String name : encoders) {
+			SensorController.getInstance().reset(name);
 		}
 	}
 	
@@ -60,8 +75,8 @@ public class EncoderMonitor extends IControl {
 	 * Reset all of the encoders
 	 */
 	public void autonomousInit() {
-		for(Entry<String, Encoder> entry : encoders.entrySet()) {
-			entry.getValue().reset();
+		for(String name : encoders) {
+			SensorController.getInstance().reset(name);
 		}
 	}
 	
@@ -69,8 +84,8 @@ public class EncoderMonitor extends IControl {
 	 * Reset all of the encoders
 	 */
 	public void disabledInit() {
-		for(Entry<String, Encoder> entry : encoders.entrySet()) {
-			entry.getValue().reset();
+		for(String name : encoders) {
+			SensorController.getInstance().reset(name);
 		}
 	}
 }
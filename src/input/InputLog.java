@@ -0,0 +1,681 @@
+package input;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import comms.SmartWriter;
+import robot.ControlPhase;
+
+/**
+ * Records every input the robot code reads into a compact binary log, and can
+ * play a log back so the same IControl loop sees exactly the same inputs
+ * again. Motor outputs are written to the log too (or to a separate file when
+ * replaying), so a replay can be diffed against the original run with
+ * compareOutputs. <br>
+ * <br>
+ * Anything that reads from the driver station or a sensor should go through
+ * read() with a channel that stays the same between runs. Code that reads
+ * every tick should look its channel up once with getChannel and keep the id,
+ * so a read never builds a String or boxes anything. When nothing is being
+ * recorded or replayed, read() just returns the live value. <br>
+ * <br>
+ * Records aren't written to the file by the thread that reads them. They are
+ * put in a fixed size ring, and a background thread writes them out, so a
+ * slow flash write can't hold up a tick. If the ring fills up anyway, the rest
+ * of the recording is dropped (so the log is still good up to that point) and
+ * the error is reported. <br>
+ * <br>
+ * The log is a series of records, each starting with a one byte type:
+ * <ul>
+ * <li>TICK: long IControl tick count, byte ControlPhase ordinal</li>
+ * <li>CHANNEL: short id, UTF name (written the first time a channel is
+ * used)</li>
+ * <li>INPUT and OUTPUT: short channel id, double value</li>
+ * </ul>
+ * Every INPUT and OUTPUT belongs to the last TICK before it. If a channel is
+ * read more than once in a tick, the values are played back in the same
+ * order. The tick count in each TICK is played back too, so the objects that
+ * only run every few ticks run on the same ticks they did when recording.
+ */
+public class InputLog {
+
+	private static final int MAGIC=0x32323032;
+	private static final int VERSION=2;
+
+	private static final byte TICK=0;
+	private static final byte CHANNEL=1;
+	private static final byte INPUT=2;
+	private static final byte OUTPUT=3;
+
+	/**
+	 * How many records can be waiting for the writer thread. This is about 20
+	 * seconds of Babbage's reads, so it only fills if the flash stops taking
+	 * writes. It has to be a power of two.
+	 */
+	private static final int RING_SIZE=1<<15;
+
+	private static final long WRITE_PERIOD_MILLIS=100;
+
+	private static volatile boolean recording=false;
+	private static volatile boolean replaying=false;
+
+	/**
+	 * Every channel that has been looked up, by name and by id. Ids never
+	 * change once they are given out.
+	 */
+	private static final Map<String, Integer> channelIds=new HashMap<String, Integer>();
+	private static volatile String[] channelNames=new String[64];
+	private static int channelCount=0;
+
+	/**
+	 * Where inputs (when recording) or outputs (when recording or replaying)
+	 * are written. Only the writer thread and stop() write to it.
+	 */
+	private static volatile DataOutputStream out;
+
+	/**
+	 * Whether each channel's CHANNEL record has been put in the current file
+	 */
+	private static boolean[] declared=new boolean[64];
+
+	/**
+	 * The records waiting to be written. Each one is a header (the type in
+	 * the low byte, and the channel id or phase above it) and a value (the
+	 * bits of a double, or a tick number). Only the reading thread moves
+	 * ringHead and only the writer moves ringTail.
+	 */
+	private static final int[] ringHeaders=new int[RING_SIZE];
+	private static final long[] ringValues=new long[RING_SIZE];
+	private static volatile long ringHead=0, ringTail=0;
+
+	/**
+	 * Set if the ring filled up or the file couldn't be written, after which
+	 * nothing more is put in the ring until the next recording
+	 */
+	private static volatile boolean overflowed=false, writeFailed=false;
+	private static boolean errorReported=false;
+
+	/**
+	 * Held while writing records to <i>out</i>. stop() takes it after the
+	 * InputLog lock, and the writer never takes the InputLog lock.
+	 */
+	private static final Object writeLock=new Object();
+	private static Thread writer;
+
+	private static DataInputStream in;
+
+	/**
+	 * The channel id for each id used in the file being replayed
+	 */
+	private static int[] fileChannels=new int[64];
+
+	/**
+	 * The inputs for the current tick of the replay, by channel id. Each
+	 * channel's values are played back from replayPositions up to
+	 * replayCounts.
+	 */
+	private static double[][] replayValues=new double[64][];
+	private static int[] replayCounts=new int[64], replayPositions=new int[64];
+
+	/**
+	 * The last value played back on each channel, used if a channel is read
+	 * more times in a tick than it was when it was recorded
+	 */
+	private static double[] lastReplayed=new double[64];
+	private static boolean[] hasReplayed=new boolean[64];
+
+	/**
+	 * The phase of the next tick in the replay, or null if the log has ended
+	 */
+	private static ControlPhase nextPhase;
+	/**
+	 * The IControl tick count recorded for the next tick in the replay
+	 */
+	private static long nextTick;
+
+	private static int tick=0;
+	private static boolean warnedPhase=false;
+
+	/**
+	 * Gets the id of a channel, giving it one the first time it is used. This
+	 * allocates the first time, so look channels up once (like when a sensor
+	 * is made) and keep the id.
+	 *
+	 * @param name
+	 *            The name of the input or output, like "NAVX angle"
+	 * @return The id to pass to read() and recordOutput()
+	 */
+	public static synchronized int getChannel(String name) {
+		Integer id=channelIds.get(name);
+		if (id!=null) return id;
+		if (channelCount==channelNames.length) {
+			int size=channelCount*2;
+			channelNames=Arrays.copyOf(channelNames, size);
+			declared=Arrays.copyOf(declared, size);
+			replayValues=Arrays.copyOf(replayValues, size);
+			replayCounts=Arrays.copyOf(replayCounts, size);
+			replayPositions=Arrays.copyOf(replayPositions, size);
+			lastReplayed=Arrays.copyOf(lastReplayed, size);
+			hasReplayed=Arrays.copyOf(hasReplayed, size);
+		}
+		channelNames[channelCount]=name;
+		channelIds.put(name, channelCount);
+		return channelCount++;
+	}
+
+	/**
+	 * Starts writing every input and output to <i>file</i>. Anything that was
+	 * already being recorded or replayed is stopped first.<br>
+	 * <br>
+	 * Preconditions: the folder for <i>file</i> exists<br>
+	 * Postconditions: read() and recordOutput() will log values until stop()
+	 * is called
+	 *
+	 * @return True if the file could be opened
+	 */
+	public static synchronized boolean startRecording(File file) {
+		stop();
+		try {
+			openOutput(file);
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Starting input log "+file);
+			return false;
+		}
+		tick=0;
+		recording=true;
+		return true;
+	}
+
+	/**
+	 * Starts playing back the inputs in <i>log</i>. Every read() returns the
+	 * value from the log instead of the live value, and outputs are written to
+	 * <i>outputs</i> so they can be compared to the outputs in <i>log</i>.
+	 *
+	 * @param log
+	 *            A file written while recording
+	 * @param outputs
+	 *            Where to write the outputs of the replay, or null to not
+	 *            write them anywhere
+	 * @return True if both files could be opened
+	 */
+	public static synchronized boolean startReplay(File log, File outputs) {
+		stop();
+		try {
+			in=new DataInputStream(new BufferedInputStream(new FileInputStream(log), 1<<16));
+			if (in.readInt()!=MAGIC||in.readInt()!=VERSION) {
+				throw new IOException(log+" is not an input log");
+			}
+			if (in.read()==TICK) readTickHeader();
+			if (outputs!=null) openOutput(outputs);
+		}
+		catch (IOException e) {
+			SmartWriter.outputError(e, "Starting input replay "+log);
+			stop();
+			return false;
+		}
+		tick=0;
+		warnedPhase=false;
+		replaying=true;
+		return true;
+	}
+
+	/**
+	 * Stops recording or replaying, writes out everything that is still in
+	 * the ring, and closes the files
+	 */
+	public static synchronized void stop() {
+		recording=false;
+		replaying=false;
+		synchronized (writeLock) {
+			writeRing();
+			try {
+				if (out!=null) out.close();
+				if (in!=null) in.close();
+			}
+			catch (IOException e) {
+				SmartWriter.outputError(e, "Closing input log");
+			}
+			out=null;
+			in=null;
+		}
+		Arrays.fill(declared, false);
+		Arrays.fill(hasReplayed, false);
+		Arrays.fill(replayCounts, 0);
+		Arrays.fill(replayPositions, 0);
+		overflowed=false;
+		writeFailed=false;
+		errorReported=false;
+		nextPhase=null;
+	}
+
+	public static boolean isRecording() {
+		return recording;
+	}
+
+	public static boolean isReplaying() {
+		return replaying;
+	}
+
+	/**
+	 * Checks to see if a replay has used up every tick in its log
+	 *
+	 * @return True if a replay is running and there are no ticks left
+	 */
+	public static synchronized boolean isReplayFinished() {
+		return replaying&&nextPhase==null;
+	}
+
+	/**
+	 * Gets the phase that was called on the next tick of the log, so a replay
+	 * can call the same phases in the same order.
+	 *
+	 * @return The next phase, or null if nothing is being replayed or the log
+	 *         has ended
+	 */
+	public static synchronized ControlPhase getNextReplayPhase() {
+		return replaying?nextPhase:null;
+	}
+
+	/**
+	 * Marks the start of a new tick. This is called by IControl before each
+	 * phase is dispatched, so nothing else needs to call it.
+	 *
+	 * @param phase
+	 *            The phase that is about to be called
+	 * @param dispatchTick
+	 *            IControl's count of periodic ticks, which decides which
+	 *            objects are due
+	 * @return The tick count that was recorded for this tick if replaying,
+	 *         otherwise <i>dispatchTick</i>
+	 */
+	public static synchronized long startTick(ControlPhase phase, long dispatchTick) {
+		if (!recording&&!replaying) return dispatchTick;
+		tick++;
+		if (replaying&&nextPhase!=null) {
+			dispatchTick=nextTick;
+		}
+		if (out!=null) {
+			stage(TICK|phase.ordinal()<<8, dispatchTick);
+		}
+		if (replaying) {
+			readTick(phase);
+		}
+		return dispatchTick;
+	}
+
+	/**
+	 * Logs or plays back one input. This doesn't allocate.<br>
+	 * <br>
+	 * Preconditions: <i>channel</i> came from getChannel, with a name that
+	 * means the same input every run<br>
+	 * Postconditions: if recording, <i>live</i> has been put in the ring to be
+	 * written to the log
+	 *
+	 * @param channel
+	 *            The id of the input
+	 * @param live
+	 *            The value read from the hardware
+	 * @return The logged value if replaying (or <i>live</i> if this channel
+	 *         was never recorded), otherwise <i>live</i>
+	 */
+	public static double read(int channel, double live) {
+		if (!recording&&!replaying) return live;
+		synchronized (InputLog.class) {
+			if (replaying) {
+				return replay(channel, live);
+			}
+			if (recording) {
+				stageValue(INPUT, channel, live);
+			}
+			return live;
+		}
+	}
+
+	/**
+	 * Logs or plays back a button or other true/false input
+	 *
+	 * @see #read(int, double)
+	 */
+	public static boolean read(int channel, boolean live) {
+		return read(channel, live?1:0)!=0;
+	}
+
+	/**
+	 * Logs or plays back an input that is only read once in a while, looking
+	 * its channel up by name.
+	 *
+	 * @see #read(int, double)
+	 */
+	public static double read(String channel, double live) {
+		if (!recording&&!replaying) return live;
+		return read(getChannel(channel), live);
+	}
+
+	/**
+	 * @see #read(String, double)
+	 */
+	public static boolean read(String channel, boolean live) {
+		return read(channel, live?1:0)!=0;
+	}
+
+	/**
+	 * Logs a value the robot code sent to the hardware, so runs can be
+	 * compared. Nothing happens unless something is being recorded or a replay
+	 * is writing its outputs. This doesn't allocate.
+	 *
+	 * @param channel
+	 *            The id of the output, from getChannel
+	 * @param value
+	 *            The value that was sent
+	 */
+	public static void recordOutput(int channel, double value) {
+		if (out==null) return;
+		synchronized (InputLog.class) {
+			if (out!=null) stageValue(OUTPUT, channel, value);
+		}
+	}
+
+	/**
+	 * Finds the first tick where two logs have different outputs.
+	 *
+	 * @param expected
+	 *            The log from the original run
+	 * @param actual
+	 *            The outputs from the replay
+	 * @param tolerance
+	 *            How far apart two values can be and still count as the same
+	 * @return A description of the first difference, or null if the outputs
+	 *         match
+	 * @throws IOException
+	 *             If either file can't be read
+	 */
+	public static String compareOutputs(File expected, File actual, double tolerance) throws IOException {
+		List<Map<String, Double>> expectedTicks=readTicks(expected, false);
+		List<Map<String, Double>> actualTicks=readTicks(actual, false);
+		int ticks=Math.min(expectedTicks.size(), actualTicks.size());
+		for (int i=0; i<ticks; i++) {
+			Map<String, Double> e=expectedTicks.get(i), a=actualTicks.get(i);
+			for (Map.Entry<String, Double> entry : e.entrySet()) {
+				Double value=a.get(entry.getKey());
+				if (value==null) {
+					return "tick "+(i+1)+": "+entry.getKey()+" was never set";
+				}
+				if (Math.abs(value-entry.getValue())>tolerance) {
+					return "tick "+(i+1)+": "+entry.getKey()+" was "+value+" instead of "+entry.getValue();
+				}
+			}
+		}
+		if (expectedTicks.size()!=actualTicks.size()) {
+			return "expected "+expectedTicks.size()+" ticks but there were "+actualTicks.size();
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a log off the robot, for looking at what happened (like fitting
+	 * a model of a mechanism to how it moved).
+	 *
+	 * @param file
+	 *            A file written while recording
+	 * @return The last value of every input and output in each tick, by
+	 *         channel name. A channel that wasn't read or set in a tick isn't
+	 *         in that tick's map.
+	 * @throws IOException
+	 *             If the file can't be read
+	 */
+	public static List<Map<String, Double>> readChannels(File file) throws IOException {
+		return readTicks(file, true);
+	}
+
+	/**
+	 * Reads the last value of every output (and every input, if
+	 * <i>inputs</i> is true) in each tick of a log
+	 */
+	private static List<Map<String, Double>> readTicks(File file, boolean inputs) throws IOException {
+		List<Map<String, Double>> ticks=new ArrayList<Map<String, Double>>();
+		Map<Short, String> channels=new HashMap<Short, String>();
+		DataInputStream log=new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (log.readInt()!=MAGIC||log.readInt()!=VERSION) {
+				throw new IOException(file+" is not an input log");
+			}
+			Map<String, Double> current=null;
+			while (true) {
+				int type=log.read();
+				if (type<0) break;
+				switch (type) {
+				case TICK:
+					log.readLong();
+					log.readByte();
+					current=new HashMap<String, Double>();
+					ticks.add(current);
+					break;
+				case CHANNEL:
+					channels.put(log.readShort(), log.readUTF());
+					break;
+				case INPUT:
+				case OUTPUT:
+					String name=channels.get(log.readShort());
+					double value=log.readDouble();
+					if (current!=null&&(inputs||type==OUTPUT)) current.put(name, value);
+					break;
+				default:
+					throw new IOException("Bad record type "+type+" in "+file);
+				}
+			}
+		}
+		catch (EOFException e) {
+			// the robot was turned off partway through a record
+		}
+		finally {
+			log.close();
+		}
+		return ticks;
+	}
+
+	private static void openOutput(File file) throws IOException {
+		DataOutputStream stream=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1<<16));
+		stream.writeInt(MAGIC);
+		stream.writeInt(VERSION);
+		out=stream;
+		startWriter();
+	}
+
+	/**
+	 * Puts an INPUT or OUTPUT record in the ring, after a CHANNEL record if
+	 * this is the first time the channel is used in this file
+	 */
+	private static void stageValue(byte type, int channel, double value) {
+		if (!declared[channel]) {
+			declared[channel]=true;
+			stage(CHANNEL|channel<<8, 0);
+		}
+		stage(type|channel<<8, Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Puts one record in the ring for the writer thread. Only called with the
+	 * InputLog lock held.
+	 */
+	private static void stage(int header, long value) {
+		if (overflowed||writeFailed) return;
+		long head=ringHead;
+		if (head-ringTail>=RING_SIZE) {
+			overflowed=true;
+			return;
+		}
+		int index=(int)head&(RING_SIZE-1);
+		ringHeaders[index]=header;
+		ringValues[index]=value;
+		ringHead=head+1;
+	}
+
+	/**
+	 * Writes every record in the ring to <i>out</i> and flushes it. Only
+	 * called with <i>writeLock</i> held.
+	 */
+	private static void writeRing() {
+		DataOutputStream stream=out;
+		long tail=ringTail;
+		long head=ringHead;
+		if (stream==null||writeFailed) {
+			ringTail=head;
+			return;
+		}
+		String[] names=channelNames;
+		try {
+			for (; tail<head; tail++) {
+				int index=(int)tail&(RING_SIZE-1);
+				int header=ringHeaders[index];
+				byte type=(byte)header;
+				int id=header>>>8;
+				stream.writeByte(type);
+				if (type==TICK) {
+					stream.writeLong(ringValues[index]);
+					stream.writeByte(id);
+				}
+				else if (type==CHANNEL) {
+					stream.writeShort(id);
+					stream.writeUTF(names[id]);
+				}
+				else {
+					stream.writeShort(id);
+					stream.writeDouble(Double.longBitsToDouble(ringValues[index]));
+				}
+			}
+			stream.flush();
+		}
+		catch (IOException e) {
+			writeFailed=true;
+			tail=head;
+			reportError(e);
+		}
+		finally {
+			ringTail=tail;
+		}
+		if (overflowed) {
+			reportError(new IOException("The input log fell more than "+RING_SIZE
+					+" records behind, so the rest of this recording was dropped"));
+		}
+	}
+
+	/**
+	 * Reports the first thing that went wrong with the current file. The
+	 * robot keeps running either way.
+	 */
+	private static void reportError(IOException e) {
+		if (errorReported) return;
+		errorReported=true;
+		SmartWriter.outputError(e, "Writing input log");
+	}
+
+	/**
+	 * Starts the thread that writes out the ring every WRITE_PERIOD_MILLIS,
+	 * the first time a file is opened
+	 */
+	private static void startWriter() {
+		if (writer!=null) return;
+		writer=new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(WRITE_PERIOD_MILLIS);
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					synchronized (writeLock) {
+						writeRing();
+					}
+				}
+			}
+		}, "Input log writer");
+		writer.setDaemon(true);
+		writer.setPriority(Thread.MIN_PRIORITY);
+		writer.start();
+	}
+
+	private static double replay(int channel, double live) {
+		int position=replayPositions[channel];
+		if (position<replayCounts[channel]) {
+			double value=replayValues[channel][position];
+			replayPositions[channel]=position+1;
+			lastReplayed[channel]=value;
+			hasReplayed[channel]=true;
+			return value;
+		}
+		return hasReplayed[channel]?lastReplayed[channel]:live;
+	}
+
+	/**
+	 * Loads every input from the next tick in the log. The outputs that were
+	 * recorded are skipped since the replay makes its own.
+	 */
+	private static void readTick(ControlPhase phase) {
+		for (int i=0; i<channelCount; i++) {
+			replayCounts[i]=0;
+			replayPositions[i]=0;
+		}
+		if (nextPhase==null) return;
+		if (nextPhase!=phase&&!warnedPhase) {
+			System.out.println("Replay is calling "+phase+" but "+nextPhase+" was recorded on tick "+tick);
+			warnedPhase=true;
+		}
+		try {
+			int type;
+			while ((type=in.read())>TICK) {
+				if (type==CHANNEL) {
+					int fileId=in.readShort();
+					if (fileId>=fileChannels.length) {
+						fileChannels=Arrays.copyOf(fileChannels, Math.max(fileId+1, fileChannels.length*2));
+					}
+					fileChannels[fileId]=getChannel(in.readUTF());
+					continue;
+				}
+				int channel=fileChannels[in.readShort()];
+				double value=in.readDouble();
+				if (type==INPUT) {
+					double[] values=replayValues[channel];
+					int count=replayCounts[channel];
+					if (values==null||count==values.length) {
+						values=values==null?new double[4]:Arrays.copyOf(values, count*2);
+						replayValues[channel]=values;
+					}
+					values[count]=value;
+					replayCounts[channel]=count+1;
+				}
+			}
+			if (type==TICK) {
+				readTickHeader();
+			}
+			else {
+				nextPhase=null;
+			}
+		}
+		catch (IOException e) {
+			nextPhase=null;
+		}
+	}
+
+	/**
+	 * Reads the rest of a TICK record to find out which tick and phase come
+	 * next
+	 */
+	private static void readTickHeader() throws IOException {
+		nextTick=in.readLong();
+		nextPhase=ControlPhase.values()[in.readByte()];
+	}
+}
@@ -1,15 +1,16 @@
 package input;
 
-import com.kauailabs.navx.frc.AHRS;
-
 import comms.DebugMode;
 import comms.SmartWriter;
+import robot.ControlPriority;
 import robot.IControl;
 
 public class NavXTester extends IControl {
 	
 	public NavXTester(){
 		super();
+		setUpdateRate(10);
+		setPriority(ControlPriority.SHEDDABLE);
 	}
 	
 	public void teleopInit() {
@@ -21,8 +22,7 @@ public class NavXTester extends IControl {
 	}
 	
 	public void teleopPeriodic() {
-		AHRS navx = (AHRS)SensorController.getInstance().getSensor("NAVX");
-		double navxAngle = navx.getAngle();
+		double navxAngle = SensorController.getInstance().getAngle("NAVX");
 		SmartWriter.putD("AngleASDF", navxAngle, DebugMode.FULL);
 		
 		
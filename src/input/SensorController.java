@@ -6,15 +6,30 @@ package input;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.kauailabs.navx.frc.AHRS;
+
+import edu.wpi.first.wpilibj.Encoder;
 import edu.wpi.first.wpilibj.SensorBase;
+import edu.wpi.first.wpilibj.Ultrasonic;
+import simulation.SimulatedSensor;
 
 public class SensorController {
 	private static SensorController controller;
 	// All of the sensors for the current robot
 	private Map<String, SensorBase> sensors;
+	// The stand-ins for the sensors when running in the Simulation
+	private Map<String, SimulatedSensor> simulatedSensors;
+	// The InputLog channels for each sensor, so reading one doesn't build a
+	// String every time
+	private Map<String, int[]> channels;
+
+	private static final int ANGLE = 0, COUNT = 1, DISTANCE = 2, RANGE = 3;
+	private static final String[] CHANNEL_SUFFIXES = { " angle", " count", " distance", " range" };
 
 	private SensorController(){
 		sensors = new HashMap<String, SensorBase>();
+		simulatedSensors = new HashMap<String, SimulatedSensor>();
+		channels = new HashMap<String, int[]>();
 	}
 	
 	//Use this to get the instance of SensorController
@@ -39,6 +54,21 @@ public class SensorController {
 		sensors.put(key, sensor);
 	}
 
+	/**
+	 * Puts a simulated sensor into the map, which is read instead of a real
+	 * sensor with the same key<br>
+	 * Preconditions: the Simulation is enabled<br>
+	 * Postconditions: adds the sensor<br>
+	 * 
+	 * @param key
+	 *            the Sensor's name
+	 * @param sensor
+	 *            the simulated sensor
+	 */
+	public void registerSimulatedSensor(String key, SimulatedSensor sensor) {
+		simulatedSensors.put(key, sensor);
+	}
+
 	/**
 	 * Gets a sensor from the Map of sensors<br>
 	 * Preconditions: The key is tied to a valid sensor<br>
@@ -51,4 +81,103 @@ public class SensorController {
 	public SensorBase getSensor(String key) {
 		return sensors.get(key);
 	}
+
+	/**
+	 * Reads the angle of a navX. All of the sensor reading methods in this
+	 * class go through the InputLog, so matches can be recorded and played
+	 * back, and read the simulated sensor instead if there is one.<br>
+	 * Preconditions: The key is tied to an AHRS<br>
+	 * Postconditions: none<br>
+	 * 
+	 * @param key
+	 *            the key tied to the navX
+	 * @return the total angle the navX has turned, in degrees
+	 */
+	public double getAngle(String key) {
+		SimulatedSensor simulated = simulatedSensors.get(key);
+		double live = simulated != null ? simulated.get() : ((AHRS)sensors.get(key)).getAngle();
+		return InputLog.read(getChannel(key, ANGLE), live);
+	}
+
+	/**
+	 * Reads the count of an encoder. A simulated encoder counts inches.<br>
+	 * Preconditions: The key is tied to an Encoder<br>
+	 * Postconditions: none<br>
+	 * 
+	 * @param key
+	 *            the key tied to the encoder
+	 * @return the encoder's current count
+	 */
+	public int getCount(String key) {
+		SimulatedSensor simulated = simulatedSensors.get(key);
+		int live = simulated != null ? (int)simulated.get() : ((Encoder)sensors.get(key)).get();
+		return (int)InputLog.read(getChannel(key, COUNT), live);
+	}
+
+	/**
+	 * Reads the distance of an encoder<br>
+	 * Preconditions: The key is tied to an Encoder<br>
+	 * Postconditions: none<br>
+	 * 
+	 * @param key
+	 *            the key tied to the encoder
+	 * @return the distance the encoder has gone since it was reset
+	 */
+	public double getDistance(String key) {
+		SimulatedSensor simulated = simulatedSensors.get(key);
+		double live = simulated != null ? simulated.get() : ((Encoder)sensors.get(key)).getDistance();
+		return InputLog.read(getChannel(key, DISTANCE), live);
+	}
+
+	/**
+	 * Reads the range of an ultrasonic sensor<br>
+	 * Preconditions: The key is tied to an Ultrasonic<br>
+	 * Postconditions: none<br>
+	 * 
+	 * @param key
+	 *            the key tied to the sensor
+	 * @return the range in inches
+	 */
+	public double getRangeInches(String key) {
+		SimulatedSensor simulated = simulatedSensors.get(key);
+		double live = simulated != null ? simulated.get() : ((Ultrasonic)sensors.get(key)).getRangeInches();
+		return InputLog.read(getChannel(key, RANGE), live);
+	}
+
+	/**
+	 * Zeroes an encoder or navX<br>
+	 * Preconditions: The key is tied to an Encoder or an AHRS<br>
+	 * Postconditions: the next reading will be from where it is now<br>
+	 * 
+	 * @param key
+	 *            the key tied to the sensor
+	 */
+	public void reset(String key) {
+		SimulatedSensor simulated = simulatedSensors.get(key);
+		if (simulated != null) {
+			simulated.reset();
+		}
+		else if (sensors.get(key) instanceof AHRS) {
+			((AHRS)sensors.get(key)).reset();
+		}
+		else {
+			((Encoder)sensors.get(key)).reset();
+		}
+	}
+
+	/**
+	 * Gets the InputLog channel for one reading of a sensor, like "NAVX
+	 * angle", looking up all of the sensor's channels the first time
+	 */
+	private int getChannel(String key, int reading) {
+		int[] ids = channels.get(key);
+		if (ids == null) {
+			ids = new int[CHANNEL_SUFFIXES.length];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = InputLog.getChannel(key + CHANNEL_SUFFIXES[i]);
+			}
+			channels.put(key, ids);
+		}
+		return ids[reading];
+	}
 }
@@ -1,6 +1,9 @@
 package physicalOutput;
 
+import input.InputLog;
+import robot.ControlPriority;
 import robot.IControl;
+import simulation.Simulation;
 
 //leinad's stuff
 
@@ -24,6 +27,19 @@ public abstract class IMotor extends IControl {
 	 */
 	protected boolean reverse;
 
+	/**
+	 * The InputLog channel this motor's outputs are logged under ("motor N").
+	 * Motors are numbered in the order they are created, which is the same
+	 * every run.
+	 */
+	private final int outputChannel;
+	private static int motorCount = 0;
+
+	/**
+	 * The last value that was sent to the motor controller
+	 */
+	private double output;
+
 	/**
 	 * Default constructor disables the motor and sets setValue to 0.0;
 	 */
@@ -35,6 +51,9 @@ public abstract class IMotor extends IControl {
 		enabled=false;
 		setValue=0.0;
 		this.reverse=reverse;
+		outputChannel=InputLog.getChannel("motor "+(motorCount++));
+		// motor outputs should never be skipped when a tick runs long
+		setPriority(ControlPriority.SAFETY_CRITICAL);
 	}
 
 	/**
@@ -42,12 +61,22 @@ public abstract class IMotor extends IControl {
 	 */
 	protected abstract void setMotor(double x);
 
+	/**
+	 * Sends <i>x</i> to the motor controller (unless this is running in the
+	 * Simulation) and logs it in the InputLog
+	 */
+	private void send(double x) {
+		output=x;
+		if (!Simulation.isEnabled()) this.setMotor(x);
+		InputLog.recordOutput(outputChannel, x);
+	}
+
 	/**
 	 * Set speed to zero in init
 	 */
 	public void teleopInit() {
 		enabled=true;
-		this.setMotor(0.0);
+		send(0.0);
 	}
 
 	/**
@@ -55,9 +84,7 @@ public abstract class IMotor extends IControl {
 	 * to 0
 	 */
 	public void teleopPeriodic() {
-		if (this.enabled) this.setMotor(setValue);
-		else
-			this.setMotor(0.0);
+		send(this.enabled?setValue:0.0);
 	}
 
 	/**
@@ -65,22 +92,20 @@ public abstract class IMotor extends IControl {
 	 */
 	public void autonomousInit() {
 		enabled = true;
-		this.setMotor(0.0);
+		send(0.0);
 	}
 
 	/**
 	 * If enabled: Set the speed of the motor every cycle
 	 */
 	public void autonomousPeriodic() {
-		if (this.enabled) this.setMotor(setValue);
-		else
-			this.setMotor(0.0);
+		send(this.enabled?setValue:0.0);
 	}
 	
 	public void diabledInit()
 	{
 		enabled = false;
-		setMotor(0);
+		send(0);
 	}
 
 	/**
@@ -109,4 +134,19 @@ public abstract class IMotor extends IControl {
 	public double getSpeed(){
 		return setValue;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return The last value that was actually sent to the motor, which is 0
+	 *         if it is disabled
+	 */
+	public double getOutput() {
+		return output;
+	}
+
+	/**
+	 * @return True if the values sent to this motor are flipped
+	 */
+	public boolean isReversed() {
+		return reverse;
+	}
+}
\ No newline at end of file
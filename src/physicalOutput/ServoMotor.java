@@ -1,6 +1,7 @@
 package physicalOutput;
 
 import edu.wpi.first.wpilibj.Servo;
+import simulation.Simulation;
 
 public class ServoMotor extends IMotor {
 
@@ -9,7 +10,7 @@ public class ServoMotor extends IMotor {
 	private double maxAngle;
 	
 	public ServoMotor(int port){
-		part = new Servo(port);
+		if (!Simulation.isEnabled()) part = new Servo(port);
 	}
 	
 	public ServoMotor(int port, double minAngle, double maxAngle){
@@ -27,6 +28,8 @@ public class ServoMotor extends IMotor {
 	}
 	
 	public double getAngle() {
+		// a simulated servo is always exactly where it was told to go
+		if (part == null) return getOutput() * 180;
 		return part.getAngle();
 	}
 }
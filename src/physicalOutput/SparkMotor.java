@@ -1,6 +1,7 @@
 package physicalOutput;
 
 import edu.wpi.first.wpilibj.Spark;
+import simulation.Simulation;
 
 //more leinad's stuff
 
@@ -18,7 +19,7 @@ public class SparkMotor extends IMotor {
 	 */
 	public SparkMotor(int port, boolean reverse) {
 		super(reverse);
-		part=new Spark(port);
+		if (!Simulation.isEnabled()) part=new Spark(port);
 	}
 
 	private Spark part;
@@ -6,6 +6,7 @@ import com.ctre.CANTalon.TalonControlMode;
 
 import comms.DebugMode;
 import comms.SmartWriter;
+import simulation.Simulation;
 
 public class TalonSRX extends IMotor {
 
@@ -14,15 +15,16 @@ public class TalonSRX extends IMotor {
 
 	public TalonSRX(int x, boolean reverse) {
 		super(reverse);
+		hasEncoder = false;
+		if (Simulation.isEnabled()) return;
 		part = new CANTalon(x);
 		part.setPID(0.001, 0, 0);
 		part.changeControlMode(TalonControlMode.PercentVbus);
-		hasEncoder = false;
 	}
 
 	public TalonSRX(int x, boolean reverse, boolean hasEncoder) {
 		this(x, reverse);
-		if (hasEncoder) {
+		if (hasEncoder && part != null) {
 			part.configEncoderCodesPerRev(4096);
 			part.setProfile(0);
 			part.setF(0.025);//0.001);
@@ -53,7 +55,7 @@ public class TalonSRX extends IMotor {
 
 	public void teleopInit() {
 		super.teleopInit();
-		if (hasEncoder) {
+		if (hasEncoder && part != null) {
 			part.setEncPosition(0);
 			part.ClearIaccum();
 			part.clearStickyFaults();
@@ -70,6 +72,8 @@ public class TalonSRX extends IMotor {
 	}
 
 	public double getSpeed() {
+		// in the Simulation, the speed loop is perfect
+		if (part == null) return getOutput();
 		return part.getSpeed();
 	}
 }
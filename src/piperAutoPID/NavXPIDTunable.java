@@ -1,26 +1,48 @@
 package piperAutoPID;
 
+import java.io.File;
 import java.util.Random;
 
-import com.kauailabs.navx.frc.AHRS;
-
 import PID.AutoPIDTunable;
 import PID.AutoPIDTuner;
+import PID.FeedForward;
+import PID.GainStore;
 import PID.PIDValues;
+import PID.RelayAutoTuner;
+import PID.TrialLog;
 import comms.DebugMode;
 import comms.SmartWriter;
 import drive.DriveControl;
 import drive.IDrive;
+import input.InputLog;
 import input.SensorController;
 import robot.Global;
 import robot.IControl;
+import robot.Robot;
+import simulation.Simulation;
 
 public class NavXPIDTunable extends IControl implements AutoPIDTunable {
 
-	private AHRS navx;
+	/**
+	 * Where each tuning session's TrialLog is saved. Use
+	 * PID.tester.TrialLogAnalyzer to look at them.
+	 */
+	private static final String TRIAL_LOG_FOLDER="/home/lvuser/trialLogs";
+
+	/**
+	 * The power the relay run swings with (the same as resetting), and how
+	 * many degrees past the target it goes before flipping, which is a bit
+	 * more than the navX noise
+	 */
+	private static final double RELAY_POWER=0.65, RELAY_HYSTERESIS=1;
 
 	private AutoPIDTuner tuner;
 
+	/**
+	 * Every run of this session, or null in the simulation
+	 */
+	private TrialLog trialLog;
+
 	private IDrive drive;
 
 	private double turnPower=0;
@@ -36,8 +58,7 @@ public class NavXPIDTunable extends IControl implements AutoPIDTunable {
 	public void autonomousInit() {
 		// store the motors we need to power and the navx board as local
 		// variables
-		navx=(AHRS)SensorController.getInstance().getSensor("NAVX");
-		navx.reset();// resets the angle
+		SensorController.getInstance().reset("NAVX");// resets the angle
 
 		// Disable the drive from controlling the movement
 
@@ -46,9 +67,39 @@ public class NavXPIDTunable extends IControl implements AutoPIDTunable {
 		drive.setDriveControl(DriveControl.EXTERNAL_CONTROL);
 
 		tuner=new AutoPIDTuner(this);
+		tuner.setGainStoreKey(Robot.name, GainStore.TURN, GainStore.DEFAULT_MODE);
+		// set on the SmartDashboard (or as a Simulation input) to find the
+		// starting values with a relay run before tuning
+		boolean relaySeed=Simulation.isEnabled()?Simulation.getInput("Relay seed")!=0
+				:SmartWriter.getB("Relay seed");
+		if (InputLog.read("Relay seed", relaySeed)) {
+			RelayAutoTuner relay=new RelayAutoTuner(this, RELAY_POWER, RELAY_HYSTERESIS,
+					Simulation.TICK_MILLIS/1000.0);
+			FeedForward feedForward=GainStore.getFeedForward(Robot.name, GainStore.ANGULAR_FEED_FORWARD,
+					GainStore.DEFAULT_MODE, null);
+			if (feedForward!=null&&feedForward.ks<RELAY_POWER) relay.setStaticFriction(feedForward.ks);
+			tuner.setRelaySeed(relay, RelayAutoTuner.TuningRule.PESSEN);
+		}
+		if (!Simulation.isEnabled()) {
+			File folder=new File(TRIAL_LOG_FOLDER);
+			folder.mkdirs();
+			Robot.deleteOldLogs(folder, "trials-");
+			trialLog=new TrialLog(new File(folder, "trials-"+System.currentTimeMillis()+".bin"));
+			tuner.setTrialLog(trialLog);
+		}
 		tuner.autonomousInit();
 	}
 
+	/**
+	 * Closes the TrialLog, which cuts it down to the runs that were logged
+	 */
+	public void disabledInit() {
+		if (trialLog!=null) {
+			trialLog.close();
+			trialLog=null;
+		}
+	}
+
 	/**
 	 * Call the PIDTuner's update
 	 */
@@ -59,16 +110,16 @@ public class NavXPIDTunable extends IControl implements AutoPIDTunable {
 
 	public void startReset(int setting) {
 		resetting=true;
-		resetFinishedTime=System.currentTimeMillis()+500;
+		resetFinishedTime=Simulation.currentTimeMillis()+500;
 		TARGET_RESET_ANGLE=30*(setting+1);
-		navx.reset();
+		SensorController.getInstance().reset("NAVX");
 	}
 
 	public void setToRandomState() {
 		resetting=true;
 		Random r=new Random();
 		TARGET_RESET_ANGLE=r.nextDouble()*360-180;
-		navx.reset();
+		SensorController.getInstance().reset("NAVX");
 	}
 
 	public boolean getResetFinished() {
@@ -76,7 +127,7 @@ public class NavXPIDTunable extends IControl implements AutoPIDTunable {
 		if (!resetting) {
 			return true;
 		}
-		if (System.currentTimeMillis()>resetFinishedTime) {
+		if (Simulation.currentTimeMillis()>resetFinishedTime) {
 			resetting=false;
 			return true;
 		}
@@ -123,7 +174,7 @@ public class NavXPIDTunable extends IControl implements AutoPIDTunable {
 	 * 
 	 */
 	private double getAngle() {
-		double rawAngle=navx.getAngle();
+		double rawAngle=SensorController.getInstance().getAngle("NAVX");
 		double plus180=rawAngle+180;
 		plus180=((plus180%360)+360)%360;// this will always convert plus180 from
 										// between 0 and 360 in-exclusive
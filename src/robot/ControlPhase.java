@@ -0,0 +1,37 @@
+package robot;
+
+/**
+ * An enumeration of the lifecycle methods in IControl. This is used by the
+ * dispatcher in IControl (and anything that watches it, like the LoopProfiler)
+ * to know which method is currently being called on all of the IControl
+ * objects.
+ */
+public enum ControlPhase {
+	ROBOT_INIT("robotInit"), TELEOP_INIT("teleopInit"), TELEOP_PERIODIC("teleopPeriodic"), AUTONOMOUS_INIT(
+			"autonomousInit"), AUTONOMOUS_PERIODIC(
+					"autonomousPeriodic"), DISABLED_INIT("disabledInit"), DISABLED_PERIODIC("disabledPeriodic");
+
+	/**
+	 * The name of the method in IControl that is called for this phase
+	 */
+	private final String methodName;
+
+	private ControlPhase(String methodName) {
+		this.methodName=methodName;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * Checks to see if this phase is one of the periodic phases, which are the
+	 * ones called every tick.
+	 *
+	 * @return True if and only if this is teleopPeriodic, autonomousPeriodic,
+	 *         or disabledPeriodic
+	 */
+	public boolean isPeriodic() {
+		return this==TELEOP_PERIODIC||this==AUTONOMOUS_PERIODIC||this==DISABLED_PERIODIC;
+	}
+}
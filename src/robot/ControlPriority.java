@@ -0,0 +1,23 @@
+package robot;
+
+/**
+ * How important it is that an IControl runs every tick. This only matters when
+ * load shedding is turned on in IControl, in which case the dispatcher skips
+ * SHEDDABLE objects when a tick is running long.
+ */
+public enum ControlPriority {
+	/**
+	 * Never skipped (drives and motor outputs)
+	 */
+	SAFETY_CRITICAL,
+	/**
+	 * Never skipped either. This is the default, and covers the commands and
+	 * mechanisms.
+	 */
+	NORMAL,
+	/**
+	 * Run at the end of the tick, and only if there is time left (dashboard
+	 * monitors and other debug output)
+	 */
+	SHEDDABLE
+}
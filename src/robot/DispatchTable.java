@@ -0,0 +1,55 @@
+package robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The IControl objects that actually override one periodic method, in the
+ * order they were created. IControl builds one of these for each periodic
+ * phase the first time a periodic method is called after an object is made,
+ * so every tick only calls the objects that do something in that phase
+ * instead of calling the empty default methods on everything else.
+ */
+class DispatchTable {
+
+	/**
+	 * The objects that override the phase's method
+	 */
+	final IControl[] objects;
+
+	/**
+	 * The index of each object in IControl's list of all objects, which is
+	 * what the LoopProfiler and the rate divisors use
+	 */
+	final int[] indexes;
+
+	private DispatchTable(IControl[] objects, int[] indexes) {
+		this.objects=objects;
+		this.indexes=indexes;
+	}
+
+	/**
+	 * Makes the table for one phase
+	 *
+	 * @param allObjects
+	 *            Every IControl, in the order they were created
+	 * @param phase
+	 *            The phase to make the table for
+	 * @return A table holding only the objects that override <i>phase</i>
+	 */
+	static DispatchTable build(List<IControl> allObjects, ControlPhase phase) {
+		List<Integer> found=new ArrayList<Integer>();
+		for (int i=0; i<allObjects.size(); i++) {
+			if (allObjects.get(i).overrides(phase)) {
+				found.add(i);
+			}
+		}
+		IControl[] objects=new IControl[found.size()];
+		int[] indexes=new int[found.size()];
+		for (int i=0; i<found.size(); i++) {
+			indexes[i]=found.get(i);
+			objects[i]=allObjects.get(indexes[i]);
+		}
+		return new DispatchTable(objects, indexes);
+	}
+}
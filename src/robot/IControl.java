@@ -1,7 +1,12 @@
 package robot;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import comms.DataLogger;
+import input.InputLog;
 
 //done --SecondThread
 
@@ -10,7 +15,8 @@ import java.util.List;
  * the objects to be notified when init and periodic are called in teleop, auto,
  * and disabled, as well as robotInit. When extending this class, you do not
  * need to implement all of the methods, but if you want functionality for any
- * of them, they should be overridden.
+ * of them, they should be overridden. Objects that don't need to run every
+ * tick (like dashboard monitors) can call setUpdateRate in their constructor.
  */
 public abstract class IControl {
 
@@ -18,12 +24,79 @@ public abstract class IControl {
 	 * A list of all created IControl objects which is used in update and init methods. IControl objects automatically
 	 */
 	private static List<IControl> allObjects=new ArrayList<IControl>();
+
+	/**
+	 * The number of times IterativeRobot calls the periodic methods each second
+	 */
+	public static final int TICKS_PER_SECOND=50;
+
+	/**
+	 * The number of periodic ticks that have been dispatched so far, used to
+	 * decide which objects are due this tick. This is kept in the InputLog
+	 * so a replay uses the same count.
+	 */
+	private static long tickCount=0;
+
+	/**
+	 * This object's periodic methods are only called once every
+	 * <i>rateDivisor</i> ticks. 1 means every tick.
+	 */
+	private int rateDivisor=1;
+
+	/**
+	 * The objects to call for each periodic phase (indexed by
+	 * ControlPhase.ordinal()), holding only the objects that override that
+	 * phase's method. These are built the first time they are needed and
+	 * thrown out whenever a new object is made, so the tables are only rebuilt
+	 * when something changes.
+	 */
+	private static DispatchTable[] dispatchTables;
+
+	/**
+	 * Which phase methods each class overrides, so reflection only has to be
+	 * done once per class
+	 */
+	private static Map<Class<?>, boolean[]> overriddenPhases=new HashMap<Class<?>, boolean[]>();
+
+	/**
+	 * How important it is that this object runs every tick when load shedding
+	 * is on
+	 */
+	private ControlPriority priority=ControlPriority.NORMAL;
+
+	/**
+	 * The number of ticks this object was skipped on because of load shedding
+	 */
+	private long shedCount=0;
+
+	/**
+	 * When load shedding is on, SHEDDABLE objects are run after everything
+	 * else only while the tick has taken less than <i>shedThresholdNanos</i>.
+	 * Everything else is always run.
+	 */
+	private static boolean loadShedding=false;
+	private static long shedThresholdNanos=LoopProfiler.TICK_PERIOD_NANOS*3/4;
+	private static long totalShed=0;
+
+	/**
+	 * The positions in the current DispatchTable of the SHEDDABLE objects that
+	 * were due this tick, waiting to be run at the end of it
+	 */
+	private static int[] deferred=new int[0];
+
+	/**
+	 * The InputLog channel holding how many of the deferred objects ran each
+	 * tick
+	 */
+	private static final int DEFERRED_CHANNEL=InputLog.getChannel("IControl deferred calls");
 	
 	/**
 	 * Default constructor for all IControls 
 	 */
 	public IControl() {
 		allObjects.add(this);
+		LoopProfiler.register(this);
+		dispatchTables=null;
 	}
 	
 	/**
@@ -101,45 +174,298 @@ public abstract class IControl {
 	public void disabledPeriodic() {
 	}
 	
+	/**
+	 * Sets how often the periodic methods of this object are called, as the
+	 * number of ticks between calls. The init methods are always called.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: teleopPeriodic, autonomousPeriodic and disabledPeriodic
+	 * will only be called on one out of every <i>rateDivisor</i> ticks
+	 *
+	 * @param rateDivisor
+	 *            The number of ticks between calls, where 1 is every tick.
+	 *            Anything less than 1 is treated as 1.
+	 */
+	protected void setRateDivisor(int rateDivisor) {
+		this.rateDivisor=Math.max(1, rateDivisor);
+	}
+
+	/**
+	 * Sets how often the periodic methods of this object are called in times
+	 * per second. This is rounded to a whole number of ticks, so 50 is every
+	 * tick, 10 is every 5th tick and 1 is every 50th tick.
+	 *
+	 * @param hertz
+	 *            The number of times each second the periodic methods should
+	 *            be called
+	 */
+	protected void setUpdateRate(double hertz) {
+		setRateDivisor((int)Math.round(TICKS_PER_SECOND/hertz));
+	}
+
+	/**
+	 * @return The number of ticks between calls to this object's periodic
+	 *         methods
+	 */
+	public int getRateDivisor() {
+		return rateDivisor;
+	}
+
+	/**
+	 * Checks to see if this object should have its periodic method called on
+	 * the current tick. Objects with the same divisor are spread out over
+	 * different ticks by their index so they don't all land on the same one.
+	 */
+	private boolean isDue(int index) {
+		return rateDivisor==1||(tickCount+index)%rateDivisor==0;
+	}
+
+	/**
+	 * Sets how important it is that this object runs every tick. This only
+	 * matters when load shedding is turned on.
+	 *
+	 * @param priority
+	 *            The priority of this object. The default is NORMAL.
+	 */
+	protected void setPriority(ControlPriority priority) {
+		this.priority=priority;
+	}
+
+	public ControlPriority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * @return The number of ticks this object was skipped on because the tick
+	 *         was running long
+	 */
+	public long getShedCount() {
+		return shedCount;
+	}
+
+	/**
+	 * @return The total number of times any object was skipped because a tick
+	 *         was running long
+	 */
+	public static long getTotalShedCount() {
+		return totalShed;
+	}
+
+	/**
+	 * Clears the shed counts. Called by the LoopProfiler when it resets.
+	 */
+	static void resetShedCounts() {
+		for (int i=0; i<allObjects.size(); i++) {
+			allObjects.get(i).shedCount=0;
+		}
+		totalShed=0;
+	}
+
+	/**
+	 * Turns load shedding on or off. When it is on, SHEDDABLE objects are run
+	 * at the end of each tick and skipped if the tick has already taken
+	 * <i>shedThresholdMillis</i>. NORMAL and SAFETY_CRITICAL objects are
+	 * never skipped, so control code doesn't miss a tick.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: load shedding is turned on or off
+	 *
+	 * @param enabled
+	 *            Whether objects should be skipped when a tick runs long
+	 * @param shedThresholdMillis
+	 *            How long a tick can take before SHEDDABLE objects are skipped
+	 */
+	public static void setLoadShedding(boolean enabled, double shedThresholdMillis) {
+		loadShedding=enabled;
+		shedThresholdNanos=(long)(shedThresholdMillis*1e6);
+	}
+
+	private void shed() {
+		shedCount++;
+		totalShed++;
+	}
+
+	/**
+	 * Checks to see if this object's class (or one of its superclasses other
+	 * than IControl) overrides the method for <i>phase</i>. If it doesn't,
+	 * calling it would just run the empty default method.
+	 */
+	boolean overrides(ControlPhase phase) {
+		boolean[] overridden=overriddenPhases.get(getClass());
+		if (overridden==null) {
+			overridden=new boolean[ControlPhase.values().length];
+			for (ControlPhase p : ControlPhase.values()) {
+				try {
+					overridden[p.ordinal()]=getClass().getMethod(p.getMethodName()).getDeclaringClass()!=IControl.class;
+				}
+				catch (NoSuchMethodException e) {
+					// can't happen since IControl has all of them, but call it to be safe
+					overridden[p.ordinal()]=true;
+				}
+			}
+			overriddenPhases.put(getClass(), overridden);
+		}
+		return overridden[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the table of objects to call for a periodic phase, rebuilding the
+	 * tables if an object has been made since they were last built.
+	 */
+	private static DispatchTable getDispatchTable(ControlPhase phase) {
+		if (dispatchTables==null) {
+			DispatchTable[] tables=new DispatchTable[ControlPhase.values().length];
+			for (ControlPhase p : ControlPhase.values()) {
+				if (p.isPeriodic()) {
+					tables[p.ordinal()]=DispatchTable.build(allObjects, p);
+				}
+			}
+			deferred=new int[allObjects.size()];
+			dispatchTables=tables;
+		}
+		return dispatchTables[phase.ordinal()];
+	}
+
 	public static void callRobotInit() {
+		tickCount=InputLog.startTick(ControlPhase.ROBOT_INIT, tickCount);
 		for (int i=0; i<allObjects.size(); i++) {			
 			allObjects.get(i).robotInit();
 		}
 	}
 	
 	public static void callAutonomousInit() {
+		tickCount=InputLog.startTick(ControlPhase.AUTONOMOUS_INIT, tickCount);
 		for (int i=0; i<allObjects.size(); i++) {			
 			allObjects.get(i).autonomousInit();
 		}
 	}
 	
 	public static void callAutonomousPeriodic() {
-		for (int i=0; i<allObjects.size(); i++) {
-			allObjects.get(i).autonomousPeriodic();
-		}
+		callPeriodic(ControlPhase.AUTONOMOUS_PERIODIC);
 	}
 	
 	public static void callTeleopInit() {
+		tickCount=InputLog.startTick(ControlPhase.TELEOP_INIT, tickCount);
 		for (int i=0; i<allObjects.size(); i++) {
 			allObjects.get(i).teleopInit();
 		}
 	}
 	
 	public static void callTeleopPeriodic() {
-		for (int i=0; i<allObjects.size(); i++) {
-			allObjects.get(i).teleopPeriodic();
-		}
+		callPeriodic(ControlPhase.TELEOP_PERIODIC);
 	}
 	
 	public static void callDisabledInit() {
+		tickCount=InputLog.startTick(ControlPhase.DISABLED_INIT, tickCount);
 		for (int i=0; i<allObjects.size(); i++) {
 			allObjects.get(i).disabledInit();
 		}
 	}
 	
 	public static void callDisabledPeriodic() {
-		for (int i=0; i<allObjects.size(); i++) {
-			allObjects.get(i).disabledPeriodic();
+		callPeriodic(ControlPhase.DISABLED_PERIODIC);
+	}
+
+	/**
+	 * Calls the periodic method for <i>phase</i> on every IControl that is due
+	 * this tick, timing each one with the LoopProfiler if it is enabled. If
+	 * load shedding is on, SHEDDABLE objects are held back until the end of
+	 * the tick.
+	 */
+	private static void callPeriodic(ControlPhase phase) {
+		long tickStart=System.nanoTime();
+		tickCount=InputLog.startTick(phase, tickCount+1);
+		boolean profiling=LoopProfiler.isEnabled();
+		if (profiling) LoopProfiler.startTick(phase);
+		DispatchTable table=getDispatchTable(phase);
+		int deferredCount=0;
+		try {
+			IControl[] objects=table.objects;
+			int[] indexes=table.indexes;
+			for (int i=0; i<objects.length; i++) {
+				IControl control=objects[i];
+				if (!control.isDue(indexes[i])) continue;
+				if (loadShedding&&control.priority==ControlPriority.SHEDDABLE) {
+					deferred[deferredCount++]=i;
+					continue;
+				}
+				callTimed(control, indexes[i], phase, profiling);
+			}
+			if (deferredCount>0) {
+				callDeferred(table, deferredCount, phase, profiling, tickStart);
+			}
+		}
+		finally {
+			if (profiling) LoopProfiler.endTick();
+			DataLogger.logTick();
+		}
+	}
+
+	/**
+	 * Calls the SHEDDABLE objects that were held back, until the tick has
+	 * taken <i>shedThresholdNanos</i>, and sheds the rest. How many of them
+	 * ran is put in the InputLog, and a replay runs that many instead of
+	 * checking the time, so it sheds the same objects the recording did.
+	 */
+	private static void callDeferred(DispatchTable table, int deferredCount, ControlPhase phase, boolean profiling,
+			long tickStart) {
+		boolean replaying=InputLog.isReplaying();
+		int limit=replaying?(int)InputLog.read(DEFERRED_CHANNEL, deferredCount):deferredCount;
+		int ran=0;
+		for (int i=0; i<deferredCount; i++) {
+			IControl control=table.objects[deferred[i]];
+			if (i>=limit||!replaying&&System.nanoTime()-tickStart>shedThresholdNanos) {
+				control.shed();
+				continue;
+			}
+			callTimed(control, table.indexes[deferred[i]], phase, profiling);
+			ran++;
+		}
+		if (InputLog.isRecording()) {
+			InputLog.read(DEFERRED_CHANNEL, ran);
+		}
+	}
+
+	/**
+	 * Calls <i>phase</i> on one object, giving the time it took to the
+	 * LoopProfiler if <i>profiling</i> is true
+	 */
+	private static void callTimed(IControl control, int index, ControlPhase phase, boolean profiling) {
+		if (!profiling) {
+			control.callPhase(phase);
+			return;
+		}
+		long start=System.nanoTime();
+		control.callPhase(phase);
+		LoopProfiler.record(index, System.nanoTime()-start);
+	}
+
+	/**
+	 * Calls the method on this object that matches <i>phase</i>
+	 */
+	void callPhase(ControlPhase phase) {
+		switch (phase) {
+		case ROBOT_INIT:
+			robotInit();
+			break;
+		case TELEOP_INIT:
+			teleopInit();
+			break;
+		case TELEOP_PERIODIC:
+			teleopPeriodic();
+			break;
+		case AUTONOMOUS_INIT:
+			autonomousInit();
+			break;
+		case AUTONOMOUS_PERIODIC:
+			autonomousPeriodic();
+			break;
+		case DISABLED_INIT:
+			disabledInit();
+			break;
+		case DISABLED_PERIODIC:
+			disabledPeriodic();
+			break;
 		}
 	}
 
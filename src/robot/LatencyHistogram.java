@@ -0,0 +1,147 @@
+package robot;
+
+/**
+ * A fixed size histogram of nanosecond durations. All of the memory is
+ * allocated when this is constructed, so recording a value never allocates and
+ * is safe to do every tick. <br>
+ * <br>
+ * Values are put in log-linear buckets: every power of two is split into 8
+ * buckets, so any value read back out (like the p99) is within 12.5% of the
+ * actual value. The max is always exact.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Values smaller than this get their own exact bucket
+	 */
+	private static final int EXACT_BUCKETS=16;
+
+	/**
+	 * The number of buckets every power of two is split into, and log2 of that
+	 */
+	private static final int SUB_BUCKETS=8, SUB_BUCKET_BITS=3;
+
+	/**
+	 * The largest power of two that is tracked. 2^40 nanoseconds is about 18
+	 * minutes, which is much longer than anything in a match should take.
+	 */
+	private static final int MAX_EXPONENT=40;
+
+	private final long[] counts=new long[EXACT_BUCKETS+(MAX_EXPONENT-3)*SUB_BUCKETS];
+	private long totalCount;
+	private long totalNanos;
+	private long maxNanos;
+
+	/**
+	 * Records one duration into this histogram<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: the count of the bucket <i>nanos</i> falls in is
+	 * increased by one
+	 *
+	 * @param nanos
+	 *            The duration in nanoseconds. Negative values are counted as 0.
+	 */
+	public void record(long nanos) {
+		if (nanos<0) nanos=0;
+		counts[bucketOf(nanos)]++;
+		totalCount++;
+		totalNanos+=nanos;
+		if (nanos>maxNanos) maxNanos=nanos;
+	}
+
+	/**
+	 * Clears all of the recorded values
+	 */
+	public void reset() {
+		for (int i=0; i<counts.length; i++) {
+			counts[i]=0;
+		}
+		totalCount=0;
+		totalNanos=0;
+		maxNanos=0;
+	}
+
+	/**
+	 * Gets the number of values recorded since this was created or reset
+	 *
+	 * @return The number of values recorded
+	 */
+	public long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Gets the largest value recorded, in nanoseconds. This is exact.
+	 *
+	 * @return The largest recorded value, or 0 if nothing was recorded
+	 */
+	public long getMax() {
+		return maxNanos;
+	}
+
+	/**
+	 * Gets the average of all recorded values, in nanoseconds.
+	 *
+	 * @return The mean, or 0 if nothing was recorded
+	 */
+	public long getMean() {
+		return totalCount==0?0:totalNanos/totalCount;
+	}
+
+	/**
+	 * Gets the value that <i>fraction</i> of the recorded values are less than
+	 * or equal to. For example, getPercentile(0.99) is the p99.
+	 *
+	 * @param fraction
+	 *            A number between 0 and 1, both inclusive
+	 * @return The percentile in nanoseconds (rounded up to the top of its
+	 *         bucket), or 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		if (totalCount==0) return 0;
+		long rank=(long)Math.ceil(fraction*totalCount);
+		if (rank<1) rank=1;
+		long seen=0;
+		for (int i=0; i<counts.length; i++) {
+			seen+=counts[i];
+			if (seen>=rank) {
+				// the last bucket also holds everything too big to track
+				return i==counts.length-1?maxNanos:Math.min(bucketTop(i), maxNanos);
+			}
+		}
+		return maxNanos;
+	}
+
+	public long getP50() {
+		return getPercentile(0.5);
+	}
+
+	public long getP99() {
+		return getPercentile(0.99);
+	}
+
+	/**
+	 * Finds the bucket that a value belongs in
+	 */
+	private static int bucketOf(long nanos) {
+		if (nanos<EXACT_BUCKETS) return (int)nanos;
+		int exponent=63-Long.numberOfLeadingZeros(nanos);
+		if (exponent>=MAX_EXPONENT) {
+			return EXACT_BUCKETS+(MAX_EXPONENT-4)*SUB_BUCKETS+SUB_BUCKETS-1;
+		}
+		int subBucket=(int)(nanos>>>(exponent-SUB_BUCKET_BITS))&(SUB_BUCKETS-1);
+		return EXACT_BUCKETS+(exponent-4)*SUB_BUCKETS+subBucket;
+	}
+
+	/**
+	 * Gets the largest value that would be put in the given bucket
+	 */
+	private static long bucketTop(int bucket) {
+		if (bucket<EXACT_BUCKETS) return bucket;
+		int exponent=(bucket-EXACT_BUCKETS)/SUB_BUCKETS+4;
+		int subBucket=(bucket-EXACT_BUCKETS)%SUB_BUCKETS;
+		long width=1L<<(exponent-SUB_BUCKET_BITS);
+		return (SUB_BUCKETS+subBucket)*width+width-1;
+	}
+}
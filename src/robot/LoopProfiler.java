@@ -0,0 +1,228 @@
+package robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import comms.DebugMode;
+import comms.SmartWriter;
+
+/**
+ * Keeps track of how long each IControl takes in each periodic phase, how long
+ * each whole tick takes, and how far apart the ticks are. IControl tells this
+ * class when ticks start and end, so nothing else needs to call it except to
+ * read the results. <br>
+ * <br>
+ * All of the histograms are made when the IControl objects are created, so
+ * profiling during a match never allocates anything. The results are printed
+ * and cleared every time the robot is disabled.
+ */
+public class LoopProfiler {
+
+	/**
+	 * The time IterativeRobot tries to wait between ticks (20 ms)
+	 */
+	public static final long TICK_PERIOD_NANOS=20000000L;
+
+	private static boolean enabled=true;
+
+	/**
+	 * The IControl objects in the order they were created, so that the index
+	 * IControl passes in matches up with the right histograms
+	 */
+	private static List<IControl> objects=new ArrayList<IControl>();
+
+	/**
+	 * For each IControl in <i>objects</i>, one histogram per ControlPhase
+	 * (only the periodic ones are not null)
+	 */
+	private static List<LatencyHistogram[]> objectTimes=new ArrayList<LatencyHistogram[]>();
+
+	private static LatencyHistogram tickTimes=new LatencyHistogram();
+	private static LatencyHistogram tickJitter=new LatencyHistogram();
+	private static long overruns;
+
+	private static ControlPhase currentPhase, lastPhase;
+	private static long tickStart, lastTickStart;
+
+	/**
+	 * Turns the profiler on or off. When it is off, nothing is timed.
+	 *
+	 * @param enabled
+	 *            Whether times should be recorded
+	 */
+	public static void setEnabled(boolean enabled) {
+		LoopProfiler.enabled=enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Makes the histograms for a newly created IControl. Called by the IControl
+	 * constructor.
+	 */
+	static void register(IControl control) {
+		LatencyHistogram[] times=new LatencyHistogram[ControlPhase.values().length];
+		for (ControlPhase phase : ControlPhase.values()) {
+			if (phase.isPeriodic()) {
+				times[phase.ordinal()]=new LatencyHistogram();
+			}
+		}
+		objects.add(control);
+		objectTimes.add(times);
+	}
+
+	/**
+	 * Called by IControl right before the periodic methods are called for this
+	 * tick.
+	 */
+	static void startTick(ControlPhase phase) {
+		long now=System.nanoTime();
+		// jitter only makes sense between two ticks of the same mode
+		if (phase==lastPhase&&lastTickStart!=0) {
+			tickJitter.record(Math.abs(now-lastTickStart-TICK_PERIOD_NANOS));
+		}
+		currentPhase=phase;
+		lastPhase=phase;
+		tickStart=now;
+		lastTickStart=now;
+	}
+
+	/**
+	 * Called by IControl after every periodic method has been called for this
+	 * tick (even if one of them threw an exception)
+	 */
+	static void endTick() {
+		long tickTime=System.nanoTime()-tickStart;
+		tickTimes.record(tickTime);
+		if (tickTime>TICK_PERIOD_NANOS) {
+			overruns++;
+		}
+		currentPhase=null;
+	}
+
+	/**
+	 * Records how long the IControl at <i>index</i> took this tick.
+	 */
+	static void record(int index, long nanos) {
+		objectTimes.get(index)[currentPhase.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Gets how long the current tick has been running for so far.
+	 *
+	 * @return The nanoseconds since the current tick started, or 0 if no tick
+	 *         is running
+	 */
+	public static long getCurrentTickNanos() {
+		return currentPhase==null?0:System.nanoTime()-tickStart;
+	}
+
+	/**
+	 * Gets the times for one IControl in one phase.
+	 *
+	 * @param control
+	 *            The IControl to look up
+	 * @param phase
+	 *            The periodic phase to look up
+	 * @return The histogram of times, or null if <i>control</i> was never
+	 *         registered or <i>phase</i> is not periodic
+	 */
+	public static LatencyHistogram getHistogram(IControl control, ControlPhase phase) {
+		int index=objects.indexOf(control);
+		if (index<0) return null;
+		return objectTimes.get(index)[phase.ordinal()];
+	}
+
+	/**
+	 * @return The histogram of how long whole ticks took
+	 */
+	public static LatencyHistogram getTickHistogram() {
+		return tickTimes;
+	}
+
+	/**
+	 * @return The histogram of how far the time between tick starts was from
+	 *         20 ms
+	 */
+	public static LatencyHistogram getJitterHistogram() {
+		return tickJitter;
+	}
+
+	/**
+	 * @return The number of ticks that took longer than 20 ms
+	 */
+	public static long getOverruns() {
+		return overruns;
+	}
+
+	/**
+	 * Builds a table of everything that has been recorded. This allocates, so
+	 * don't call it every tick.
+	 *
+	 * @return The table as a String with one line for each IControl and phase
+	 *         that has been timed
+	 */
+	public static String getReport() {
+		StringBuilder report=new StringBuilder();
+		report.append("Loop profile: ").append(tickTimes.getCount()).append(" ticks, ").append(overruns)
+				.append(" over 20 ms, ").append(IControl.getTotalShedCount()).append(" calls shed\n");
+		report.append(String.format("%-32s %8s %10s %10s %10s%n", "", "calls", "p50 ms", "p99 ms", "max ms"));
+		appendLine(report, "tick", tickTimes);
+		appendLine(report, "jitter", tickJitter);
+		for (ControlPhase phase : ControlPhase.values()) {
+			if (!phase.isPeriodic()) continue;
+			for (int i=0; i<objects.size(); i++) {
+				LatencyHistogram times=objectTimes.get(i)[phase.ordinal()];
+				if (times.getCount()==0) continue;
+				appendLine(report, objects.get(i).getClass().getSimpleName()+" "+phase, times);
+			}
+		}
+		for (IControl control : objects) {
+			if (control.getShedCount()>0) {
+				report.append(control.getClass().getSimpleName()).append(" shed ").append(control.getShedCount())
+						.append(" times\n");
+			}
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Prints the report to standard out and sends the tick numbers to
+	 * SmartDashboard, then clears everything so the next enable starts fresh.
+	 * Nothing happens if no ticks have been recorded. This is called by Robot
+	 * in disabledInit.
+	 */
+	public static void dump() {
+		if (tickTimes.getCount()==0) return;
+		System.out.println(getReport());
+		SmartWriter.putD("Loop p99 ms", tickTimes.getP99()/1e6, DebugMode.DEBUG);
+		SmartWriter.putD("Loop max ms", tickTimes.getMax()/1e6, DebugMode.DEBUG);
+		SmartWriter.putD("Loop overruns", overruns, DebugMode.DEBUG);
+		SmartWriter.putD("Loop shed", IControl.getTotalShedCount(), DebugMode.DEBUG);
+		reset();
+	}
+
+	/**
+	 * Clears all of the recorded times
+	 */
+	public static void reset() {
+		for (LatencyHistogram[] times : objectTimes) {
+			for (LatencyHistogram histogram : times) {
+				if (histogram!=null) histogram.reset();
+			}
+		}
+		tickTimes.reset();
+		tickJitter.reset();
+		overruns=0;
+		IControl.resetShedCounts();
+		lastPhase=null;
+		lastTickStart=0;
+	}
+
+	private static void appendLine(StringBuilder report, String name, LatencyHistogram times) {
+		report.append(String.format("%-32s %8d %10.3f %10.3f %10.3f%n", name, times.getCount(), times.getP50()/1e6,
+				times.getP99()/1e6, times.getMax()/1e6));
+	}
+}
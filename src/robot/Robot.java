@@ -1,8 +1,16 @@
 package robot;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import comms.DataLogger;
 import comms.DebugMode;
 import comms.SmartWriter;
 import edu.wpi.first.wpilibj.IterativeRobot;
+import input.InputLog;
 import robotDefinitions.Babbage;
 import robotDefinitions.ControlBase;
 import robotDefinitions.IRobotDefinition;
@@ -19,6 +27,31 @@ public class Robot extends IterativeRobot {
 
 	private IRobotDefinition robotDefinition;
 	public static RobotName name;
+
+	/**
+	 * Where the inputs from each time the robot is enabled are saved, so a
+	 * match can be played back later with InputLog.startReplay
+	 */
+	private static final String INPUT_LOG_FOLDER="/home/lvuser/inputLogs";
+
+	/**
+	 * Where the DataLogger's telemetry logs are saved. Use DataLogExporter to
+	 * read them.
+	 */
+	private static final String DATA_LOG_FOLDER="/home/lvuser/dataLogs";
+
+	/**
+	 * How many of the newest logs are kept in each folder. A new log is made
+	 * every time the robot is enabled, so the oldest ones are deleted to keep
+	 * the flash from filling up.
+	 */
+	private static final int LOGS_KEPT=20;
+
+	/**
+	 * How far into a tick the dashboard monitors are skipped, so they never
+	 * hold up the drive, commands or mechanisms
+	 */
+	public static final double SHED_THRESHOLD_MILLIS=15;
 	
 
 	public void robotInit() {
@@ -29,6 +62,7 @@ public class Robot extends IterativeRobot {
 										// it automatically knows what robot it
 										// is?
 		SmartWriter.putS("RobotName", name.toString(), DebugMode.COMPETITION);
+		IControl.setLoadShedding(true, SHED_THRESHOLD_MILLIS);
 		// Switch to decide which robot definition to use
 		switch (name) {
 		case TIM:
@@ -53,6 +87,7 @@ public class Robot extends IterativeRobot {
 
 	public void autonomousInit() {
 		SmartWriter.putS("Robot State", "Autonomous Init", DebugMode.COMPETITION);
+		startInputLog();
 		try {
 			IControl.callAutonomousInit();
 		} catch (Exception e) {
@@ -71,6 +106,7 @@ public class Robot extends IterativeRobot {
 
 	public void teleopInit() {
 		SmartWriter.putS("Robot State", "Teleop Init", DebugMode.COMPETITION);
+		startInputLog();
 		try {
 			IControl.callTeleopInit();
 		} catch (Exception e) {
@@ -96,6 +132,12 @@ public class Robot extends IterativeRobot {
 		} catch (Exception e) {
 			SmartWriter.outputError(e, "Disabled Init");
 		}
+		// print how long everything took while we were enabled
+		LoopProfiler.dump();
+		if (InputLog.isRecording()) {
+			InputLog.stop();
+		}
+		DataLogger.stop();
 	}
 
 	public void disabledPeriodic() {
@@ -107,4 +149,47 @@ public class Robot extends IterativeRobot {
 			SmartWriter.outputError(e, "Disabled Periodic");
 		}
 	}
+
+	/**
+	 * Starts recording inputs to a new file, unless a log is already being
+	 * recorded (autonomous going straight into teleop) or played back. The
+	 * telemetry DataLogger is started with it.
+	 */
+	private void startInputLog() {
+		if (InputLog.isRecording()||InputLog.isReplaying()) return;
+		File folder=new File(INPUT_LOG_FOLDER);
+		folder.mkdirs();
+		deleteOldLogs(folder, "inputs-");
+		InputLog.startRecording(new File(folder, "inputs-"+System.currentTimeMillis()+".bin"));
+		if (!DataLogger.isRecording()) {
+			File dataFolder=new File(DATA_LOG_FOLDER);
+			dataFolder.mkdirs();
+			deleteOldLogs(dataFolder, "telemetry-");
+			DataLogger.start(new File(dataFolder, "telemetry-"+System.currentTimeMillis()+".bin"));
+		}
+	}
+
+	/**
+	 * Deletes the oldest logs in <i>folder</i> whose names start with
+	 * <i>prefix</i>, so there is room for one more without going over
+	 * LOGS_KEPT. A DataLogger log's ".channels" file goes with it.
+	 */
+	public static void deleteOldLogs(File folder, String prefix) {
+		File[] logs=folder.listFiles();
+		if (logs==null) return;
+		List<File> found=new ArrayList<File>();
+		for (File log : logs) {
+			if (log.getName().startsWith(prefix)&&log.getName().endsWith(".bin")) found.add(log);
+		}
+		// the names end in the time they were made, which all have the same
+		// number of digits, so sorting by name puts the oldest first
+		Collections.sort(found);
+		for (int i=0; i<found.size()-(LOGS_KEPT-1); i++) {
+			File log=found.get(i);
+			if (!log.delete()) {
+				SmartWriter.outputError(new IOException("Couldn't delete "+log), "Deleting old logs");
+			}
+			new File(log.getPath()+".channels").delete();
+		}
+	}
 }
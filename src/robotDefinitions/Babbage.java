@@ -27,6 +27,8 @@ import physicalOutput.TalonSRX;
 import piper.CommandListGear;
 import robot.Global;
 import robot.IControl;
+import simulation.DrivetrainModel;
+import simulation.Simulation;
 
 /**
  * The Piper implementation of IDefinition.<br>
@@ -71,7 +73,11 @@ public class Babbage extends RobotDefinitionBase {
 		// Create map to store public objects
 		Map<String, IControl> temp = super.loadControlObjects();
 		//most important class goes at the front
-		LEDController ledController = new LEDController();
+		if (!Simulation.isEnabled()) {
+			// the LEDs don't change anything else, so they are left out of the
+			// Simulation
+			LEDController ledController = new LEDController();
+		}
 		
 		BabbageControl babbageControl = new BabbageControl();
 		temp.put("CONTROL", babbageControl);
@@ -80,22 +86,33 @@ public class Babbage extends RobotDefinitionBase {
 		temp.put("NT", visionTable);
 
 		// Encoders
-		Encoder encoder0 = new Encoder(0, 1);
-		encoder0.setDistancePerPulse(0.0534);
-		encoder0.setReverseDirection(false);
 		EncoderMonitor encoderMonitor = new EncoderMonitor();
-		encoderMonitor.add("ENCODER0", encoder0);
-
-		// TODO add the sensors here
-		SensorController sensorController = SensorController.getInstance();
-		sensorController.registerSensor("ENCODER0", encoder0);
-		sensorController.registerSensor("NAVX", new AHRS(SerialPort.Port.kMXP));
-		sensorController.registerSensor("DISTANCESENSOR", new Ultrasonic(7, 8));
+		encoderMonitor.add("ENCODER0");
 
 		// Create IMotors for Arcade Drive
 		IMotor leftMotors = new SparkMotor(getInt("LEFTMOTORPIN"), false);
 		IMotor rightMotors = new SparkMotor(getInt("RIGHTMOTORPIN"), true);
 
+		// TODO add the sensors here
+		SensorController sensorController = SensorController.getInstance();
+		if (Simulation.isEnabled()) {
+			// the sensors all come from a model of the drivetrain, starting
+			// about where the airship peg is from the alliance wall
+			DrivetrainModel drivetrain = new DrivetrainModel(leftMotors, rightMotors, 150, 24);
+			Simulation.addModel(drivetrain);
+			sensorController.registerSimulatedSensor("ENCODER0", drivetrain.getLeftEncoder());
+			sensorController.registerSimulatedSensor("NAVX", drivetrain.getGyro());
+			sensorController.registerSimulatedSensor("DISTANCESENSOR", drivetrain.getRangeFinder(80));
+		}
+		else {
+			Encoder encoder0 = new Encoder(0, 1);
+			encoder0.setDistancePerPulse(0.0534);
+			encoder0.setReverseDirection(false);
+			sensorController.registerSensor("ENCODER0", encoder0);
+			sensorController.registerSensor("NAVX", new AHRS(SerialPort.Port.kMXP));
+			sensorController.registerSensor("DISTANCESENSOR", new Ultrasonic(7, 8));
+		}
+
 		// Create IDrive arcade drive
 		IDrive arcadeDrive=new ArcadeDrive(leftMotors, rightMotors);
 		//HighGoalTurning highGoalTurnings=new HighGoalTurning();
@@ -124,8 +141,7 @@ public class Babbage extends RobotDefinitionBase {
 		temp.put("DRIVE", arcadeDrive);
 		new CommandListGear();
 		new CommandTester();
-		
-		
+
 
 		return temp;
 	}
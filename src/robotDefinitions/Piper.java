@@ -87,8 +87,8 @@ public class Piper extends RobotDefinitionBase {
 		encoder0.setDistancePerPulse(0.058);
 		encoder1.setDistancePerPulse(0.06529);
 		EncoderMonitor encoderMonitor = new EncoderMonitor();
-		encoderMonitor.add("ENCODER0", encoder0);
-		encoderMonitor.add("ENCODER1", encoder1);
+		encoderMonitor.add("ENCODER0");
+		encoderMonitor.add("ENCODER1");
 		
 		SensorController sensorController=SensorController.getInstance();
 		sensorController.registerSensor("ENCODER0", encoder0);
@@ -0,0 +1,303 @@
+package robotDefinitions;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The checked, parsed properties for one robot. Each robot definition's
+ * manual definitions are the defaults, and a properties file on the robot can
+ * change any of them (like which port a motor is on) without deploying new
+ * code. <br>
+ * <br>
+ * Every value is checked and parsed once, when the config is made. The type
+ * of each property comes from its default: if the default is a whole number
+ * the property is an int, if it is any other number it is a double, if it is
+ * one of the BOOLEAN words it is a boolean, and otherwise it is a String. If
+ * anything in the file is wrong, every problem is put in one exception so they
+ * can all be fixed at once. A config can't be changed after it is made. <br>
+ * <br>
+ * The parsed values are kept in primitive arrays. key turns a property name
+ * into its index once, and the getters that take that index are just an array
+ * read, so code that reads a property more than once should keep the key. The
+ * getters that take a name look the key up every time.
+ */
+public final class RobotConfig {
+
+	/**
+	 * The words that can be used for booleans, and what they mean
+	 */
+	private static final Map<String, Boolean> BOOLEAN=new HashMap<String, Boolean>();
+	static {
+		for (String word : new String[] {"true", "on", "set"}) {
+			BOOLEAN.put(word, true);
+		}
+		for (String word : new String[] {"false", "off", "unset"}) {
+			BOOLEAN.put(word, false);
+		}
+	}
+
+	private static final byte STRING=0, INT=1, DOUBLE=2, BOOLEAN_TYPE=3;
+
+	private final String robotName;
+	private final Map<String, Integer> keys;
+	private final Map<String, String> all;
+	private final String[] names;
+	private final byte[] types;
+	private final String[] strings;
+	private final int[] ints;
+	private final double[] doubles;
+	private final boolean[] booleans;
+
+	private RobotConfig(String robotName, String[] names, byte[] types, String[] strings, int[] ints,
+			double[] doubles, boolean[] booleans) {
+		this.robotName=robotName;
+		this.names=names;
+		this.types=types;
+		this.strings=strings;
+		this.ints=ints;
+		this.doubles=doubles;
+		this.booleans=booleans;
+		Map<String, Integer> keys=new HashMap<String, Integer>();
+		Map<String, String> all=new HashMap<String, String>();
+		for (int i=0; i<names.length; i++) {
+			keys.put(names[i], i);
+			all.put(names[i], strings[i]);
+		}
+		this.keys=keys;
+		this.all=Collections.unmodifiableMap(all);
+	}
+
+	/**
+	 * Makes the config for a robot from its defaults and the properties file,
+	 * if there is one.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: every property has been checked and parsed
+	 *
+	 * @param robotName
+	 *            The name of the robot, for error messages
+	 * @param defaults
+	 *            The robot definition's manual definitions
+	 * @param file
+	 *            The properties file ("KEY=value" lines, # for comments)
+	 * @param required
+	 *            If true, a missing file is an error. Otherwise the defaults
+	 *            are used.
+	 * @return The checked config
+	 * @throws IllegalArgumentException
+	 *             listing every problem, if there are any
+	 */
+	public static RobotConfig load(String robotName, Map<String, String> defaults, File file, boolean required) {
+		Map<String, String> overrides=new HashMap<String, String>();
+		if (file.exists()) {
+			Properties properties=new Properties();
+			try {
+				FileReader reader=new FileReader(file);
+				try {
+					properties.load(reader);
+				}
+				finally {
+					reader.close();
+				}
+			}
+			catch (IOException e) {
+				throw new IllegalArgumentException("Couldn't read "+file+" for "+robotName+": "+e.getMessage(), e);
+			}
+			for (String key : properties.stringPropertyNames()) {
+				overrides.put(key, properties.getProperty(key));
+			}
+		}
+		else if (required) {
+			throw new IllegalArgumentException(robotName+" needs a config file at "+file);
+		}
+		return compile(robotName, defaults, overrides, file.getPath());
+	}
+
+	/**
+	 * Checks <i>overrides</i> against the types of <i>defaults</i> and parses
+	 * every value.
+	 *
+	 * @param source
+	 *            Where the overrides came from, for error messages
+	 * @throws IllegalArgumentException
+	 *             listing every problem, if there are any
+	 */
+	public static RobotConfig compile(String robotName, Map<String, String> defaults, Map<String, String> overrides,
+			String source) {
+		String[] names=defaults.keySet().toArray(new String[defaults.size()]);
+		Arrays.sort(names);
+		byte[] types=new byte[names.length];
+		String[] strings=new String[names.length];
+		int[] ints=new int[names.length];
+		double[] doubles=new double[names.length];
+		boolean[] booleans=new boolean[names.length];
+		List<String> errors=new ArrayList<String>();
+
+		for (String key : overrides.keySet()) {
+			if (!defaults.containsKey(key)) {
+				errors.add(key+" is not a property of "+robotName);
+			}
+		}
+		for (int i=0; i<names.length; i++) {
+			String key=names[i];
+			String defaultValue=defaults.get(key).trim();
+			String value=overrides.containsKey(key)?overrides.get(key).trim():defaultValue;
+			strings[i]=value;
+			booleans[i]=looseBoolean(value);
+			if (parseInt(defaultValue)!=null) {
+				Integer parsed=parseInt(value);
+				if (parsed==null) {
+					errors.add(key+" should be a whole number, but is \""+value+"\"");
+					continue;
+				}
+				types[i]=INT;
+				ints[i]=parsed;
+				doubles[i]=parsed;
+			}
+			else if (parseDouble(defaultValue)!=null) {
+				Double parsed=parseDouble(value);
+				if (parsed==null) {
+					errors.add(key+" should be a number, but is \""+value+"\"");
+					continue;
+				}
+				types[i]=DOUBLE;
+				doubles[i]=parsed;
+			}
+			else if (BOOLEAN.containsKey(defaultValue.toLowerCase())) {
+				Boolean parsed=BOOLEAN.get(value.toLowerCase());
+				if (parsed==null) {
+					errors.add(key+" should be true or false, but is \""+value+"\"");
+					continue;
+				}
+				types[i]=BOOLEAN_TYPE;
+				booleans[i]=parsed;
+			}
+		}
+
+		if (!errors.isEmpty()) {
+			Collections.sort(errors);
+			StringBuilder message=new StringBuilder();
+			message.append(errors.size()).append(" problem").append(errors.size()==1?"":"s").append(" in the ")
+					.append(robotName).append(" config (").append(source).append("):");
+			for (String error : errors) {
+				message.append("\n    ").append(error);
+			}
+			throw new IllegalArgumentException(message.toString());
+		}
+		return new RobotConfig(robotName, names, types, strings, ints, doubles, booleans);
+	}
+
+	public String getRobotName() {
+		return robotName;
+	}
+
+	/**
+	 * Finds the index of a property, to be kept and passed to the getters that
+	 * take one
+	 *
+	 * @throws IllegalArgumentException
+	 *             if there is no property called <i>name</i>
+	 */
+	public int key(String name) {
+		Integer key=keys.get(name);
+		if (key==null) {
+			throw new IllegalArgumentException(robotName+" has no property called "+name);
+		}
+		return key;
+	}
+
+	/**
+	 * @return The value of the property as it was written
+	 */
+	public String getString(int key) {
+		return strings[key];
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the property isn't a whole number
+	 */
+	public int getInt(int key) {
+		if (types[key]!=INT) throw wrongType(key, "whole number");
+		return ints[key];
+	}
+
+	/**
+	 * @return The property as a double. Whole number properties work too.
+	 * @throws IllegalArgumentException
+	 *             if the property isn't a number
+	 */
+	public double getDouble(int key) {
+		if (types[key]!=INT&&types[key]!=DOUBLE) throw wrongType(key, "number");
+		return doubles[key];
+	}
+
+	/**
+	 * @return The property as a boolean. Any property works: "1", "true",
+	 *         "set" and "on" (in any case) are true, and everything else is
+	 *         false, like RobotDefinitionBase.getBool always read them. A
+	 *         property whose default is one of the BOOLEAN words was already
+	 *         checked to be one of them.
+	 */
+	public boolean getBoolean(int key) {
+		return booleans[key];
+	}
+
+	public String getString(String name) {
+		return getString(key(name));
+	}
+
+	public int getInt(String name) {
+		return getInt(key(name));
+	}
+
+	public double getDouble(String name) {
+		return getDouble(key(name));
+	}
+
+	public boolean getBoolean(String name) {
+		return getBoolean(key(name));
+	}
+
+	/**
+	 * @return Every property and its value as it was written
+	 */
+	public Map<String, String> getAll() {
+		return all;
+	}
+
+	private IllegalArgumentException wrongType(int key, String type) {
+		return new IllegalArgumentException(robotName+" has no "+type+" property called "+names[key]);
+	}
+
+	private static boolean looseBoolean(String value) {
+		String word=value.toLowerCase();
+		return word.equals("1")||word.equals("true")||word.equals("set")||word.equals("on");
+	}
+
+	private static Integer parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static Double parseDouble(String value) {
+		try {
+			return Double.parseDouble(value);
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -1,22 +1,35 @@
 package robotDefinitions;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
 import robot.IControl;
 
 /**
- * The class that should be overridden by robot definitions
+ * The class that should be overridden by robot definitions. The manual
+ * definitions are the defaults, and CONFIG_FOLDER/&lt;name&gt;.properties on
+ * the robot can change any of them without a redeploy. Everything is checked
+ * and parsed into a RobotConfig when the definition is made.
  *
  */
 public abstract class RobotDefinitionBase implements IRobotDefinition {
 
+	/**
+	 * Where the properties files that change the manual definitions are kept
+	 */
+	public static final String CONFIG_FOLDER="/home/lvuser/config";
+
 	protected Map<String, String> _properties;
 	private boolean _useXMLBag;
 	private String _name;
+	private RobotConfig _config;
 
 	/**
 	 * Default Constructor, uses abstract methods in order to define properties
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the properties file has any mistakes in it
 	 */
 	public RobotDefinitionBase() {
 		_name=loadDefinitionName();
@@ -25,8 +38,9 @@ public abstract class RobotDefinitionBase implements IRobotDefinition {
 	}
 
 	/**
-	 * Override this method to determine whether or not to use an XML file to
-	 * load properties()
+	 * Override this method to determine whether or not the properties have to
+	 * come from a file. If this is false the file is still used when it's
+	 * there, but the manual definitions are enough on their own.
 	 * 
 	 * @return Boolean Value
 	 */
@@ -68,7 +82,7 @@ public abstract class RobotDefinitionBase implements IRobotDefinition {
 	 * @return The corresponding value
 	 */
 	protected String getValue(String key) {
-		return _properties.get(key);
+		return _config.getString(key);
 	}
 
 	/**
@@ -80,7 +94,7 @@ public abstract class RobotDefinitionBase implements IRobotDefinition {
 	 * @return The corresponding value
 	 */
 	protected int getInt(String key) {
-		return Integer.parseInt(getValue(key));
+		return _config.getInt(key);
 	}
 
 	/**
@@ -92,7 +106,7 @@ public abstract class RobotDefinitionBase implements IRobotDefinition {
 	 * @return The corresponding value
 	 */
 	protected double getDouble(String key) {
-		return Double.parseDouble(getValue(key));
+		return _config.getDouble(key);
 	}
 
 	/**
@@ -104,30 +118,19 @@ public abstract class RobotDefinitionBase implements IRobotDefinition {
 	 * @return The corresponding value
 	 */
 	protected boolean getBool(String key) {
-		String value=getValue(key).toLowerCase();
-		if (value.equals("1"))
-			return true;
-		else if (value.equals("true"))
-			return true;
-		else if (value.equals("set"))
-			return true;
-		else if (value.equals("on"))
-			return true;
-		return false;
+		return _config.getBoolean(key);
+	}
+
+	/**
+	 * @return The checked properties for this robot
+	 */
+	public RobotConfig getConfig() {
+		return _config;
 	}
 
 	private void loadPropertyBag() {
-		if (_useXMLBag) {
-			// TODO Implement IProfile property system
-			switch (_name) {
-				case "TIM":
-					break;
-				default:
-					break;
-			}
-		}
-		else {
-			loadManualDefinitions();
-		}
+		loadManualDefinitions();
+		File file=new File(CONFIG_FOLDER, _name+".properties");
+		_config=RobotConfig.load(_name, _properties, file, _useXMLBag);
 	}
 }
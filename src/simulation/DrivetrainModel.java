@@ -0,0 +1,162 @@
+package simulation;
+
+import physicalOutput.IMotor;
+
+/**
+ * A simple model of a tank-style drivetrain. Each side's speed follows its
+ * motor output with a short lag, and the robot's heading and position come
+ * from the difference and average of the two sides. This is nowhere near a
+ * real physics model (there is no wheel slip, battery sag, or carpet), but it
+ * is close enough to run autonomous routines and check what they do.
+ */
+public class DrivetrainModel implements SimulatedModel {
+
+	/**
+	 * How long it takes a side to get about 2/3 of the way to a new speed
+	 */
+	private static final double TIME_CONSTANT=0.15;
+
+	private IMotor left, right;
+	private double maxSpeed, trackWidth;
+
+	private double leftSpeed=0, rightSpeed=0;
+	private double leftDistance=0, rightDistance=0;
+	private double heading=0, x=0, y=0;
+
+	/**
+	 * @param left
+	 *            The motor (or one of the motors) on the left side
+	 * @param right
+	 *            The motor (or one of the motors) on the right side
+	 * @param maxSpeed
+	 *            How fast a side goes at full power, in inches per second
+	 * @param trackWidth
+	 *            The distance between the left and right wheels, in inches
+	 */
+	public DrivetrainModel(IMotor left, IMotor right, double maxSpeed, double trackWidth) {
+		this.left=left;
+		this.right=right;
+		this.maxSpeed=maxSpeed;
+		this.trackWidth=trackWidth;
+	}
+
+	public void update(double seconds) {
+		double lag=Math.min(1, seconds/TIME_CONSTANT);
+		leftSpeed+=(getForwardOutput(left)*maxSpeed-leftSpeed)*lag;
+		rightSpeed+=(getForwardOutput(right)*maxSpeed-rightSpeed)*lag;
+
+		double leftMoved=leftSpeed*seconds, rightMoved=rightSpeed*seconds;
+		leftDistance+=leftMoved;
+		rightDistance+=rightMoved;
+		// the navX angle goes up when turning to the right (clockwise)
+		heading+=Math.toDegrees((leftMoved-rightMoved)/trackWidth);
+		double moved=(leftMoved+rightMoved)/2;
+		x+=moved*Math.cos(Math.toRadians(heading));
+		y-=moved*Math.sin(Math.toRadians(heading));
+	}
+
+	/**
+	 * Motors that are reversed are mounted backwards, so their output is
+	 * flipped back to find which way the wheels go
+	 */
+	private static double getForwardOutput(IMotor motor) {
+		return motor.isReversed()?-motor.getOutput():motor.getOutput();
+	}
+
+	/**
+	 * @return How far the robot has gone forward from where it started, in
+	 *         inches
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * @return How far the robot has gone to the left of where it started, in
+	 *         inches
+	 */
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * @return The total angle the robot has turned clockwise, in degrees
+	 */
+	public double getHeading() {
+		return heading;
+	}
+
+	/**
+	 * @return An encoder on the left side that reads inches
+	 */
+	public SimulatedSensor getLeftEncoder() {
+		return new SimulatedSensor() {
+			private double zero=0;
+
+			public double get() {
+				return leftDistance-zero;
+			}
+
+			public void reset() {
+				zero=leftDistance;
+			}
+		};
+	}
+
+	/**
+	 * @return An encoder on the right side that reads inches
+	 */
+	public SimulatedSensor getRightEncoder() {
+		return new SimulatedSensor() {
+			private double zero=0;
+
+			public double get() {
+				return rightDistance-zero;
+			}
+
+			public void reset() {
+				zero=rightDistance;
+			}
+		};
+	}
+
+	/**
+	 * @return A navX that reads the robot's heading in degrees
+	 */
+	public SimulatedSensor getGyro() {
+		return new SimulatedSensor() {
+			private double zero=0;
+
+			public double get() {
+				return heading-zero;
+			}
+
+			public void reset() {
+				zero=heading;
+			}
+		};
+	}
+
+	/**
+	 * Makes an ultrasonic sensor on the front of the robot that is pointed at
+	 * a wall straight ahead of where the robot started.
+	 *
+	 * @param startingRange
+	 *            How far the wall is from the sensor at the start, in inches
+	 * @return A sensor that reads the distance to the wall in inches
+	 */
+	public SimulatedSensor getRangeFinder(final double startingRange) {
+		return new SimulatedSensor() {
+			public double get() {
+				double range=(startingRange-x)/Math.cos(Math.toRadians(heading));
+				// the real sensor gives up past about 20 feet or if it isn't
+				// facing the wall
+				if (range<0||range>255) return 255;
+				return range;
+			}
+
+			public void reset() {
+			}
+		};
+	}
+}
@@ -0,0 +1,142 @@
+package simulation;
+
+/**
+ * A motor pushing something with inertia and friction, like the drivetrain or
+ * the shooter wheel. It follows the same equation as the feed-forward in
+ * TimedPIDController:
+ *
+ * <pre>
+ * input = kS * sign(velocity) + kV * velocity + kA * acceleration
+ * </pre>
+ *
+ * kS is the input it takes to get moving at all, kV is the input per unit per
+ * second it takes to hold a speed, and kA is the input per unit per second
+ * squared it takes to speed up. While it is stopped, any input that is less
+ * than kS doesn't move it. Each update is worked out exactly (not stepped), so
+ * it doesn't matter how long the steps are.
+ */
+public class MotorModel implements PlantModel {
+
+	private final double ks, kv, ka;
+
+	private double input=0, position=0, velocity=0;
+
+	/**
+	 * @param ks
+	 *            The input it takes to get moving
+	 * @param kv
+	 *            The input per unit per second of speed. This has to be more
+	 *            than 0.
+	 * @param ka
+	 *            The input per unit per second squared of acceleration. 0
+	 *            means the speed changes instantly.
+	 * @throws IllegalArgumentException
+	 *             If kV isn't positive or kS or kA is negative
+	 */
+	public MotorModel(double ks, double kv, double ka) {
+		if (!(kv>0)||!(ks>=0)||!(ka>=0)) {
+			throw new IllegalArgumentException("Bad motor model: kS "+ks+", kV "+kv+", kA "+ka);
+		}
+		this.ks=ks;
+		this.kv=kv;
+		this.ka=ka;
+	}
+
+	/**
+	 * Babbage turning in place, with the same numbers as the DrivetrainModel
+	 * in Babbage's simulation (150 inches per second at full power, wheels 24
+	 * inches apart, 0.15 seconds to get up to speed) and no static friction.
+	 * The input is (left - right) / 2, with both sides' outputs going forward,
+	 * and the position is the navX angle in degrees. Fit a real one with
+	 * SystemIdentification before trusting gains tuned on this.
+	 */
+	public static MotorModel babbageYaw() {
+		double degreesPerSecond=Math.toDegrees(2*150/24.0);
+		return new MotorModel(0, 1/degreesPerSecond, 0.15/degreesPerSecond);
+	}
+
+	/**
+	 * Babbage driving straight, with the same numbers as babbageYaw. The input
+	 * is (left + right) / 2, and the position is in inches.
+	 */
+	public static MotorModel babbageDriveDistance() {
+		return new MotorModel(0, 1/150.0, 0.15/150);
+	}
+
+	/**
+	 * Babbage's shooter wheel on its TalonSRX with the speed loop off. kV
+	 * comes from the Talon's F gain (0.025 means full output at about 6000
+	 * RPM), and the rest are guesses: about a second to spin up and 0.05 to get
+	 * it turning. The position is in revolutions, so the speed is in revolutions
+	 * per second (RPM / 60).
+	 */
+	public static MotorModel babbageFlywheel() {
+		double revolutionsPerSecond=1023/0.025*10/4096;
+		return new MotorModel(0.05, 1/revolutionsPerSecond, 1/revolutionsPerSecond);
+	}
+
+	public void setInput(double input) {
+		this.input=Math.max(-1, Math.min(1, input));
+	}
+
+	public void update(double seconds) {
+		if (!(seconds>0)) return;
+		if (velocity==0&&Math.abs(input)<=ks) return;
+		double direction=velocity!=0?Math.signum(velocity):Math.signum(input);
+		// the speed it would settle at if the input stayed the same
+		double steady=(input-ks*direction)/kv;
+		if (ka==0) {
+			velocity=Math.signum(steady)==direction?steady:0;
+			position+=velocity*seconds;
+			return;
+		}
+		double timeConstant=ka/kv;
+		double decay=Math.exp(-seconds/timeConstant);
+		double next=steady+(velocity-steady)*decay;
+		if (velocity!=0&&Math.signum(next)!=direction) {
+			// friction stops it partway through the step, and then it only
+			// starts again if the input is more than kS
+			double stopSeconds=timeConstant*Math.log((velocity-steady)/-steady);
+			position+=steady*stopSeconds+(velocity-steady)*timeConstant*(1-Math.exp(-stopSeconds/timeConstant));
+			velocity=0;
+			update(seconds-stopSeconds);
+			return;
+		}
+		position+=steady*seconds+(velocity-steady)*timeConstant*(1-decay);
+		velocity=next;
+	}
+
+	public double getPosition() {
+		return position;
+	}
+
+	public double getVelocity() {
+		return velocity;
+	}
+
+	public void reset() {
+		input=0;
+		position=0;
+		velocity=0;
+	}
+
+	public PlantModel copy() {
+		return new MotorModel(ks, kv, ka);
+	}
+
+	public double getKS() {
+		return ks;
+	}
+
+	public double getKV() {
+		return kv;
+	}
+
+	public double getKA() {
+		return ka;
+	}
+
+	public String toString() {
+		return String.format("<kS: %.5f, kV: %.6g, kA: %.6g>", ks, kv, ka);
+	}
+}
@@ -0,0 +1,39 @@
+package simulation;
+
+/**
+ * A model of one mechanism that a motor drives, like the drivetrain turning
+ * or the shooter wheel spinning. Unlike DrivetrainModel, a plant model isn't
+ * tied to any IMotor, so it can be stepped by itself to tune gains off the
+ * robot. The numbers in it can come from SystemIdentification, which fits them
+ * to logs of the real mechanism.
+ */
+public interface PlantModel extends SimulatedModel {
+
+	/**
+	 * Sets what is sent to the motor, from -1 to 1. Anything past that is
+	 * clamped.
+	 */
+	public void setInput(double input);
+
+	/**
+	 * @return Where the mechanism is, in the model's units (like degrees or
+	 *         inches)
+	 */
+	public double getPosition();
+
+	/**
+	 * @return How fast the mechanism is moving, in the model's units per
+	 *         second
+	 */
+	public double getVelocity();
+
+	/**
+	 * Stops the mechanism and puts it back at position 0, with no input
+	 */
+	public void reset();
+
+	/**
+	 * @return A new model with the same numbers, stopped at position 0
+	 */
+	public PlantModel copy();
+}
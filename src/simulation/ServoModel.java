@@ -0,0 +1,92 @@
+package simulation;
+
+/**
+ * A hobby servo, like the ones that aim Babbage's turret. A servo has its own
+ * position loop, so the input is where it should go instead of how hard to
+ * push: it heads toward input * range degrees, slowing down as it gets close
+ * (a first order lag), but never faster than its top speed.
+ */
+public class ServoModel implements PlantModel {
+
+	private final double range, timeConstant, maxSpeed;
+
+	private double input=0, position=0, velocity=0;
+
+	/**
+	 * @param range
+	 *            Degrees per unit of input, so the input 1 goes to this angle
+	 * @param timeConstant
+	 *            How long it takes to get about 2/3 of the way to a new angle
+	 *            when it isn't going at top speed, in seconds
+	 * @param maxSpeed
+	 *            The most degrees per second it can turn
+	 * @throws IllegalArgumentException
+	 *             If the time constant is negative or the top speed isn't
+	 *             positive
+	 */
+	public ServoModel(double range, double timeConstant, double maxSpeed) {
+		if (!(timeConstant>=0)||!(maxSpeed>0)) {
+			throw new IllegalArgumentException("Bad servo model: time constant "+timeConstant+", top speed "+maxSpeed);
+		}
+		this.range=range;
+		this.timeConstant=timeConstant;
+		this.maxSpeed=maxSpeed;
+	}
+
+	/**
+	 * Babbage's turret servo, using the same 180 degrees of range as
+	 * ServoMotor.getAngle in the simulation. The speed (60 degrees in 0.2
+	 * seconds) is the usual number for a hobby servo, and the time constant is
+	 * a guess.
+	 */
+	public static ServoModel babbageTurret() {
+		return new ServoModel(180, 0.05, 300);
+	}
+
+	public void setInput(double input) {
+		this.input=Math.max(-1, Math.min(1, input));
+	}
+
+	public void update(double seconds) {
+		if (!(seconds>0)) return;
+		double error=input*range-position;
+		double moved=timeConstant==0?error:error*(1-Math.exp(-seconds/timeConstant));
+		moved=Math.max(-maxSpeed*seconds, Math.min(maxSpeed*seconds, moved));
+		position+=moved;
+		velocity=moved/seconds;
+	}
+
+	public double getPosition() {
+		return position;
+	}
+
+	public double getVelocity() {
+		return velocity;
+	}
+
+	public void reset() {
+		input=0;
+		position=0;
+		velocity=0;
+	}
+
+	public PlantModel copy() {
+		return new ServoModel(range, timeConstant, maxSpeed);
+	}
+
+	public double getRange() {
+		return range;
+	}
+
+	public double getTimeConstant() {
+		return timeConstant;
+	}
+
+	public double getMaxSpeed() {
+		return maxSpeed;
+	}
+
+	public String toString() {
+		return String.format("<range: %.1f, time constant: %.4f, top speed: %.1f>", range, timeConstant, maxSpeed);
+	}
+}
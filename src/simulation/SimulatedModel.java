@@ -0,0 +1,17 @@
+package simulation;
+
+/**
+ * A piece of the simulated robot that changes over time, like the drivetrain.
+ * Every model added to the Simulation is updated once per tick, after the
+ * IControl objects have set their outputs.
+ */
+public interface SimulatedModel {
+
+	/**
+	 * Moves the model forward in time using the current motor outputs
+	 *
+	 * @param seconds
+	 *            How much time has passed since the last update
+	 */
+	public void update(double seconds);
+}
@@ -0,0 +1,20 @@
+package simulation;
+
+/**
+ * A stand-in for a WPILib sensor when the code is running in the Simulation.
+ * SensorController reads these instead of the real sensor that is registered
+ * under the same name.
+ */
+public interface SimulatedSensor {
+
+	/**
+	 * @return The sensor's reading, in the same units the real sensor reports
+	 *         (degrees for a navX, inches for an encoder or ultrasonic)
+	 */
+	public double get();
+
+	/**
+	 * Zeroes the sensor the same way the real sensor's reset() does
+	 */
+	public void reset();
+}
@@ -0,0 +1,145 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import input.InputLog;
+
+/**
+ * Lets the IControl loop run on a normal computer instead of the roboRIO. When
+ * the simulation is enabled, the motor, sensor, and driver station classes
+ * don't touch any WPILib hardware. Motors just remember their outputs, sensors
+ * are read from SimulatedSensors, and controller buttons and other driver
+ * station inputs are read from values set with setInput.<br>
+ * <br>
+ * Time is virtual too, so anything that needs the time should use
+ * currentTimeMillis() instead of System.currentTimeMillis(). The clock only
+ * moves when step() is called, which means a simulated match runs as fast as
+ * the computer can run it.
+ */
+public class Simulation {
+
+	/**
+	 * How much virtual time passes each tick (the same 20 ms the robot uses)
+	 */
+	public static final long TICK_MILLIS=20;
+
+	private static boolean enabled=false;
+	private static long timeMillis=0;
+
+	/**
+	 * Subtracted from System.nanoTime() so the times are small enough to be
+	 * stored exactly in the InputLog's doubles
+	 */
+	private static final long START_NANOS=System.nanoTime();
+
+	/**
+	 * The InputLog channels the times are read through
+	 */
+	private static final int TIME_CHANNEL=InputLog.getChannel("time");
+	private static final int NANO_TIME_CHANNEL=InputLog.getChannel("nanotime");
+
+	/**
+	 * The driver station inputs, using the same channel names as the InputLog
+	 */
+	private static Map<String, Double> inputs=new HashMap<String, Double>();
+
+	private static List<SimulatedModel> models=new ArrayList<SimulatedModel>();
+
+	/**
+	 * Turns the simulation on. <br>
+	 * <br>
+	 * Preconditions: nothing that uses hardware has been made yet<br>
+	 * Postconditions: motors, sensors, controllers, NetworkTables and the
+	 * SmartDashboard won't touch WPILib
+	 */
+	public static void enable() {
+		enabled=true;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Gets the time that the robot code should use. On the robot, this is the
+	 * real time, and in the simulation it is the virtual time. Either way, it
+	 * goes through the InputLog so a replay sees the same times as the
+	 * original run.
+	 *
+	 * @return The current time in milliseconds
+	 */
+	public static long currentTimeMillis() {
+		long live=enabled?timeMillis:System.currentTimeMillis();
+		return (long)InputLog.read(TIME_CHANNEL, live);
+	}
+
+	/**
+	 * Gets a time that only ever goes up, for measuring how long something
+	 * took (like the time between two ticks). Like currentTimeMillis, this is
+	 * virtual in the simulation and goes through the InputLog.
+	 *
+	 * @return Nanoseconds since the robot code started
+	 */
+	public static long nanoTime() {
+		long live=enabled?timeMillis*1000000L:System.nanoTime()-START_NANOS;
+		return (long)InputLog.read(NANO_TIME_CHANNEL, live);
+	}
+
+	/**
+	 * Sets the value of a driver station input, like a controller button or
+	 * the alliance color.
+	 *
+	 * @param channel
+	 *            The InputLog channel of the input, like "Xbox2 button 9"
+	 * @param value
+	 *            The value it should read as (1 for true, 0 for false)
+	 */
+	public static void setInput(String channel, double value) {
+		inputs.put(channel, value);
+	}
+
+	/**
+	 * Gets the value of a driver station input
+	 *
+	 * @return The value set with setInput, or 0 if it was never set
+	 */
+	public static double getInput(String channel) {
+		Double value=inputs.get(channel);
+		return value==null?0:value;
+	}
+
+	/**
+	 * Adds something that should be updated every tick
+	 */
+	public static void addModel(SimulatedModel model) {
+		models.add(model);
+	}
+
+	/**
+	 * Finds a model that was added to the simulation
+	 *
+	 * @param type
+	 *            The class of the model
+	 * @return The first model of that class, or null if there isn't one
+	 */
+	public static <T extends SimulatedModel> T getModel(Class<T> type) {
+		for (SimulatedModel model : models) {
+			if (type.isInstance(model)) return type.cast(model);
+		}
+		return null;
+	}
+
+	/**
+	 * Updates every model and moves the clock forward one tick. This should be
+	 * called after each IControl phase is called.
+	 */
+	public static void step() {
+		for (SimulatedModel model : models) {
+			model.update(TICK_MILLIS/1000.0);
+		}
+		timeMillis+=TICK_MILLIS;
+	}
+}
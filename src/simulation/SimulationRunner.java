@@ -0,0 +1,154 @@
+package simulation;
+
+import java.io.File;
+import java.io.IOException;
+
+import input.InputLog;
+import robot.ControlPhase;
+import robot.Global;
+import robot.IControl;
+import robot.Robot;
+import robotDefinitions.Babbage;
+import robotDefinitions.RobotName;
+
+/**
+ * Runs Babbage's IControl loop on a normal computer with a virtual clock, as
+ * fast as it will go. There are two ways to run it:
+ * <ul>
+ * <li><b>SimulationRunner &lt;autonomous&gt; [seconds]</b> picks an autonomous
+ * the same way the drivers do (with the alliance color and the buttons on
+ * controller 2), runs it, and prints where the robot ended up.</li>
+ * <li><b>SimulationRunner --replay &lt;log&gt; &lt;outputs&gt;</b> plays back an
+ * InputLog recorded on the robot, writes the motor outputs to
+ * <i>outputs</i>, and prints the first tick where they are different from the
+ * recorded ones.</li>
+ * </ul>
+ * The exit code is 0 if everything worked, so these can be run by a build
+ * server. Each run needs its own JVM, since the IControl objects can't be
+ * thrown out and made again.
+ */
+public class SimulationRunner {
+
+	private static final int TICKS_PER_SECOND=50;
+
+	/**
+	 * The autonomous routines in CommandTester, with the alliance and the
+	 * controller 2 button that selects each of them
+	 */
+	private enum Autonomous {
+		centerRed(true, 9), boilerRed(true, 10), notBoilerRed(true, 8), shootingRed(true, 7), centerBlue(false,
+				9), boilerBlue(false, 8), notBoilerBlue(false, 10), shootingBlue(false, 7);
+
+		private final boolean red;
+		private final int button;
+
+		private Autonomous(boolean red, int button) {
+			this.red=red;
+			this.button=button;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length==3&&args[0].equals("--replay")) {
+			System.exit(replay(new File(args[1]), new File(args[2]))?0:1);
+		}
+		if (args.length<1||args.length>2) {
+			System.out.println("Usage: SimulationRunner <autonomous> [seconds]");
+			System.out.println("       SimulationRunner --replay <log> <outputs>");
+			System.exit(2);
+		}
+		Autonomous autonomous=Autonomous.valueOf(args[0]);
+		double seconds=args.length>1?Double.parseDouble(args[1]):15;
+		runAutonomous(autonomous, (int)(seconds*TICKS_PER_SECOND));
+		System.exit(0);
+	}
+
+	/**
+	 * Turns on the Simulation and makes all of Babbage's IControl objects, the
+	 * same way Robot.robotInit does
+	 */
+	private static void loadRobot() {
+		Simulation.enable();
+		Robot.name=RobotName.BABBAGE;
+		Global.controlObjects=new Babbage().loadControlObjects();
+	}
+
+	private static void runAutonomous(Autonomous autonomous, int ticks) {
+		loadRobot();
+		Simulation.setInput("Alliance red", autonomous.red?1:0);
+		Simulation.setInput("Xbox2 button "+autonomous.button, 1);
+
+		long start=System.nanoTime();
+		tick(ControlPhase.DISABLED_INIT);
+		tick(ControlPhase.AUTONOMOUS_INIT);
+		for (int i=0; i<ticks; i++) {
+			tick(ControlPhase.AUTONOMOUS_PERIODIC);
+		}
+		tick(ControlPhase.DISABLED_INIT);
+		double elapsed=(System.nanoTime()-start)/1e9;
+
+		System.out.printf("%s: %d ticks in %.3f s%n", autonomous, ticks, elapsed);
+		DrivetrainModel drivetrain=Simulation.getModel(DrivetrainModel.class);
+		if (drivetrain!=null) {
+			System.out.printf("Ended at x=%.1f in, y=%.1f in, heading=%.1f degrees%n", drivetrain.getX(),
+					drivetrain.getY(), drivetrain.getHeading());
+		}
+	}
+
+	/**
+	 * Plays back every tick in <i>log</i>, calling the same phases that were
+	 * called when it was recorded.
+	 *
+	 * @return True if the outputs matched the recorded ones
+	 */
+	private static boolean replay(File log, File outputs) throws IOException {
+		loadRobot();
+		// the robot holds the dashboard monitors to the end of each tick, so
+		// the replay has to as well. Which of them get shed comes from the log.
+		IControl.setLoadShedding(true, Robot.SHED_THRESHOLD_MILLIS);
+		if (!InputLog.startReplay(log, outputs)) return false;
+		int ticks=0;
+		ControlPhase phase;
+		while ((phase=InputLog.getNextReplayPhase())!=null) {
+			tick(phase);
+			ticks++;
+		}
+		InputLog.stop();
+
+		String difference=InputLog.compareOutputs(log, outputs, 1e-9);
+		System.out.println("Replayed "+ticks+" ticks");
+		System.out.println(difference==null?"Outputs match":"Outputs differ at "+difference);
+		return difference==null;
+	}
+
+	/**
+	 * Calls one phase on every IControl and then moves the Simulation forward
+	 * one tick
+	 */
+	private static void tick(ControlPhase phase) {
+		switch (phase) {
+		case ROBOT_INIT:
+			IControl.callRobotInit();
+			break;
+		case TELEOP_INIT:
+			IControl.callTeleopInit();
+			break;
+		case TELEOP_PERIODIC:
+			IControl.callTeleopPeriodic();
+			break;
+		case AUTONOMOUS_INIT:
+			IControl.callAutonomousInit();
+			break;
+		case AUTONOMOUS_PERIODIC:
+			IControl.callAutonomousPeriodic();
+			break;
+		case DISABLED_INIT:
+			IControl.callDisabledInit();
+			break;
+		case DISABLED_PERIODIC:
+			IControl.callDisabledPeriodic();
+			break;
+		}
+		Simulation.step();
+	}
+}
@@ -0,0 +1,483 @@
+package simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import comms.DataLogExporter;
+import input.InputLog;
+
+/**
+ * Fits a MotorModel or ServoModel to how a real mechanism moved, by least
+ * squares. It is given samples of what was sent to the motor and where the
+ * mechanism was (or how fast it was going), from an InputLog or DataLogger
+ * log, a TrialLog (see PID.tester.TrialLogAnalyzer.addTo), or by hand. <br>
+ * <br>
+ * Over one step of <i>dt</i> seconds with the same input the whole time, a
+ * MotorModel's speed goes from v to
+ *
+ * <pre>
+ * a * v + b * input - c * sign(v)
+ * </pre>
+ *
+ * where a is e^(-dt * kV / kA), b is (1 - a) / kV, and c is b * kS. That is a
+ * straight line in a, b, and c, so they can be found with least squares and
+ * turned back into kS, kV, and kA. The speed comes from the difference of two
+ * positions, so the input from the step before is in the fit too (and its b
+ * is added to this step's). The motor may not get an input until a tick or two
+ * after it was logged, so the fit is tried with 0 to MAX_DELAY ticks of delay
+ * and whichever fits best is kept. Steps where the mechanism was stopped or
+ * changed direction are left out, since friction isn't a straight line
+ * there. <br>
+ * <br>
+ * The samples should be about the same length (the robot's 20 ms ticks are
+ * fine), and should have the mechanism speeding up and slowing down, not just
+ * sitting at one speed. This can also be run on a laptop:
+ *
+ * <pre>
+ * java -cp Tim.jar simulation.SystemIdentification motor inputs-123.bin "NAVX angle" "motor 0*0.5" "motor 1*0.5"
+ * java -cp Tim.jar simulation.SystemIdentification motor inputs-123.bin "ENCODER0 distance" "motor 0"
+ * </pre>
+ *
+ * The first is Babbage turning: the right motor is reversed, so adding half of
+ * each output gives (left - right) / 2 going forward. The second is Babbage's
+ * left side driving. The input is the sum of the input channels, each times
+ * its scale (1 if there isn't one). A channel with a speed in it (like a
+ * shooter wheel's) is fit with "speed" instead of "motor", and a servo with
+ * "servo" and its range in degrees.
+ */
+public class SystemIdentification {
+
+	/**
+	 * The most ticks of delay between an input being logged and it reaching
+	 * the motor that the fits look for
+	 */
+	public static final int MAX_DELAY=2;
+
+	/**
+	 * The fewest usable steps a fit needs
+	 */
+	private static final int MIN_SAMPLES=10;
+
+	/**
+	 * A step counts as going at top speed if it is at least this much of the
+	 * fastest step
+	 */
+	private static final double TOP_SPEED_FRACTION=0.9;
+
+	private int count=0;
+	private double[] seconds=new double[64], inputs=new double[64], positions=new double[64],
+			velocities=new double[64];
+	private int[] runs=new int[64];
+	private int runCount=0;
+	private boolean newRun=true;
+
+	private int delay=0;
+	private boolean reversed=false;
+	private double fitError=Double.NaN;
+
+	/**
+	 * Makes the next sample the start of a new run, so no speed is worked out
+	 * across the gap. Call this between runs that weren't one right after the
+	 * other.
+	 */
+	public void startRun() {
+		newRun=true;
+	}
+
+	/**
+	 * Adds one sample where the position was measured
+	 *
+	 * @param seconds
+	 *            How long it has been since the last sample (not used for the
+	 *            first sample in a run)
+	 * @param input
+	 *            What was sent to the motor, starting now. Anything past -1 or
+	 *            1 is clamped, like the models do.
+	 * @param position
+	 *            Where the mechanism is now
+	 */
+	public void addSample(double seconds, double input, double position) {
+		double velocity=Double.NaN;
+		if (!newRun&&seconds>0&&!Double.isNaN(positions[count-1])) {
+			velocity=(position-positions[count-1])/seconds;
+		}
+		add(seconds, input, position, velocity);
+	}
+
+	/**
+	 * Adds one sample where the speed was measured instead of the position,
+	 * like a shooter wheel's encoder. These can only be used to fit a
+	 * MotorModel.
+	 *
+	 * @see #addSample(double, double, double)
+	 */
+	public void addSpeedSample(double seconds, double input, double velocity) {
+		add(seconds, input, Double.NaN, velocity);
+	}
+
+	private void add(double seconds, double input, double position, double velocity) {
+		if (count==runs.length) {
+			int capacity=count*2;
+			this.seconds=Arrays.copyOf(this.seconds, capacity);
+			inputs=Arrays.copyOf(inputs, capacity);
+			positions=Arrays.copyOf(positions, capacity);
+			velocities=Arrays.copyOf(velocities, capacity);
+			runs=Arrays.copyOf(runs, capacity);
+		}
+		if (newRun) runCount++;
+		newRun=false;
+		this.seconds[count]=seconds;
+		// the models clamp their inputs, so a value past 1 pushes the same as 1
+		inputs[count]=Math.max(-1, Math.min(1, input));
+		positions[count]=position;
+		velocities[count]=velocity;
+		runs[count]=runCount;
+		count++;
+	}
+
+	public int getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * Fits a MotorModel to every sample so far. See the class comment for
+	 * how.<br>
+	 * <br>
+	 * Preconditions: none<br>
+	 * Postconditions: getDelay, isReversed, and getFitError describe this fit
+	 *
+	 * @return The model, or null if there weren't enough usable steps or they
+	 *         don't look like a motor pushing something (like if the speed
+	 *         never settles down)
+	 */
+	public MotorModel fitMotor() {
+		double[] best=null;
+		double bestError=Double.POSITIVE_INFINITY, bestSeconds=0;
+		int bestDelay=0;
+		for (int d=0; d<=MAX_DELAY; d++) {
+			double[][] normal=new double[4][4];
+			double[] right=new double[4];
+			double[] row=new double[4];
+			int used=0;
+			double totalSeconds=0;
+			for (int k=d+1; k+1<count; k++) {
+				if (!motorRow(k, d, row)) continue;
+				addToNormal(normal, right, row, velocities[k+1]);
+				totalSeconds+=seconds[k+1];
+				used++;
+			}
+			if (used<MIN_SAMPLES) continue;
+			double[] fit=solve(normal, right);
+			if (fit==null) continue;
+
+			double squared=0;
+			for (int k=d+1; k+1<count; k++) {
+				if (!motorRow(k, d, row)) continue;
+				double predicted=fit[0]*row[0]+fit[1]*row[1]+fit[2]*row[2]+fit[3]*row[3];
+				squared+=(velocities[k+1]-predicted)*(velocities[k+1]-predicted);
+			}
+			double error=Math.sqrt(squared/used);
+			if (error<bestError) {
+				best=fit;
+				bestError=error;
+				bestDelay=d;
+				bestSeconds=totalSeconds/used;
+			}
+		}
+		if (best==null) return null;
+
+		double a=best[0], b=best[1]+best[2], c=-best[3];
+		delay=bestDelay;
+		fitError=bestError;
+		reversed=b<0;
+		b=Math.abs(b);
+		if (!(a>0&&a<1&&b>0)) return null;
+		double kv=(1-a)/b;
+		return new MotorModel(Math.max(0, c/b), kv, -kv*bestSeconds/Math.log(a));
+	}
+
+	/**
+	 * Fills in <i>row</i> with the speed, the input that pushed on the step
+	 * from <i>k</i> to <i>k</i> + 1 and the one before it, and which way
+	 * friction is pushing
+	 *
+	 * @return False if the step can't be used
+	 */
+	private boolean motorRow(int k, int d, double[] row) {
+		if (runs[k-d-1]!=runs[k+1]) return false;
+		double v=velocities[k], next=velocities[k+1];
+		if (Double.isNaN(v)||Double.isNaN(next)||Math.signum(v)!=Math.signum(next)||v==0) return false;
+		row[0]=v;
+		row[1]=inputs[k-d];
+		row[2]=inputs[k-d-1];
+		row[3]=Math.signum(v);
+		return true;
+	}
+
+	/**
+	 * Fits a ServoModel to every sample so far. The top speed is the fastest
+	 * step, and the time constant is fit with least squares to the steps that
+	 * weren't at top speed.<br>
+	 * <br>
+	 * Preconditions: the samples have positions<br>
+	 * Postconditions: getDelay and getFitError describe this fit
+	 *
+	 * @param range
+	 *            Degrees per unit of input (180 for ServoMotor)
+	 * @return The model, or null if there weren't enough usable steps
+	 */
+	public ServoModel fitServo(double range) {
+		ServoModel best=null;
+		double bestError=Double.POSITIVE_INFINITY;
+		int bestDelay=0;
+		for (int d=0; d<=MAX_DELAY; d++) {
+			double maxSpeed=0, totalSeconds=0;
+			int used=0;
+			for (int k=d; k+1<count; k++) {
+				if (!servoStep(k, d)) continue;
+				maxSpeed=Math.max(maxSpeed, Math.abs(positions[k+1]-positions[k])/seconds[k+1]);
+				totalSeconds+=seconds[k+1];
+				used++;
+			}
+			if (used<MIN_SAMPLES||maxSpeed==0) continue;
+
+			double movedTimesError=0, errorSquared=0;
+			for (int k=d; k+1<count; k++) {
+				if (!servoStep(k, d)) continue;
+				double moved=positions[k+1]-positions[k];
+				if (Math.abs(moved)/seconds[k+1]>=TOP_SPEED_FRACTION*maxSpeed) continue;
+				double error=inputs[k-d]*range-positions[k];
+				movedTimesError+=moved*error;
+				errorSquared+=error*error;
+			}
+			// the part of the way it moves each step
+			double part=errorSquared>0?movedTimesError/errorSquared:1;
+			if (!(part>0)) continue;
+			double timeConstant=part>=1?0:-(totalSeconds/used)/Math.log(1-part);
+			ServoModel model=new ServoModel(range, timeConstant, maxSpeed);
+
+			double squared=0;
+			for (int k=d; k+1<count; k++) {
+				if (!servoStep(k, d)) continue;
+				double dt=seconds[k+1];
+				double error=inputs[k-d]*range-positions[k];
+				double predicted=timeConstant==0?error:error*(1-Math.exp(-dt/timeConstant));
+				predicted=Math.max(-maxSpeed*dt, Math.min(maxSpeed*dt, predicted));
+				double off=(positions[k+1]-positions[k]-predicted)/dt;
+				squared+=off*off;
+			}
+			double error=Math.sqrt(squared/used);
+			if (error<bestError) {
+				best=model;
+				bestError=error;
+				bestDelay=d;
+			}
+		}
+		if (best==null) return null;
+		delay=bestDelay;
+		fitError=bestError;
+		reversed=false;
+		return best;
+	}
+
+	private boolean servoStep(int k, int d) {
+		return runs[k-d]==runs[k+1]&&!Double.isNaN(positions[k])&&!Double.isNaN(positions[k+1])&&seconds[k+1]>0;
+	}
+
+	/**
+	 * @return How many ticks after an input was logged it reached the motor,
+	 *         in the last fit
+	 */
+	public int getDelay() {
+		return delay;
+	}
+
+	/**
+	 * @return True if, in the last fit, a positive input made the mechanism go
+	 *         backwards. The model is fit to the input flipped around, so
+	 *         flip the input before giving it to the model.
+	 */
+	public boolean isReversed() {
+		return reversed;
+	}
+
+	/**
+	 * @return The root mean square of how far off the last fit's speed was
+	 *         from the real speed each step, in units per second
+	 */
+	public double getFitError() {
+		return fitError;
+	}
+
+	private static void addToNormal(double[][] normal, double[] right, double[] row, double y) {
+		for (int i=0; i<row.length; i++) {
+			for (int j=0; j<row.length; j++) {
+				normal[i][j]+=row[i]*row[j];
+			}
+			right[i]+=row[i]*y;
+		}
+	}
+
+	/**
+	 * Solves <i>matrix</i> * x = <i>right</i> with Gaussian elimination. Both
+	 * are changed.
+	 *
+	 * @return x, or null if the matrix is singular (like if the input never
+	 *         changed)
+	 */
+	private static double[] solve(double[][] matrix, double[] right) {
+		int n=right.length;
+		double largest=0;
+		for (double[] row : matrix) {
+			for (double value : row) {
+				largest=Math.max(largest, Math.abs(value));
+			}
+		}
+		for (int column=0; column<n; column++) {
+			int pivot=column;
+			for (int row=column+1; row<n; row++) {
+				if (Math.abs(matrix[row][column])>Math.abs(matrix[pivot][column])) pivot=row;
+			}
+			if (!(Math.abs(matrix[pivot][column])>1e-12*largest)) return null;
+			double[] swap=matrix[pivot];
+			matrix[pivot]=matrix[column];
+			matrix[column]=swap;
+			double swapRight=right[pivot];
+			right[pivot]=right[column];
+			right[column]=swapRight;
+			for (int row=column+1; row<n; row++) {
+				double factor=matrix[row][column]/matrix[column][column];
+				for (int i=column; i<n; i++) {
+					matrix[row][i]-=factor*matrix[column][i];
+				}
+				right[row]-=factor*right[column];
+			}
+		}
+		double[] x=new double[n];
+		for (int row=n-1; row>=0; row--) {
+			double sum=right[row];
+			for (int i=row+1; i<n; i++) {
+				sum-=matrix[row][i]*x[i];
+			}
+			x[row]=sum/matrix[row][row];
+		}
+		return x;
+	}
+
+	/**
+	 * Reads the samples out of a log off the robot. A DataLogger log (one
+	 * with a .channels file next to it) has the time of every tick, and an
+	 * InputLog is assumed to be one tick every Simulation.TICK_MILLIS. A new
+	 * run starts after any tick where one of the channels wasn't logged.
+	 *
+	 * @param log
+	 *            The log file
+	 * @param speed
+	 *            True if <i>measured</i> is a speed instead of a position
+	 * @param measured
+	 *            The channel with the mechanism's position or speed
+	 * @param inputs
+	 *            The channels that add up to the input, each with "*scale" on
+	 *            the end if it needs to be multiplied by something
+	 * @throws IOException
+	 *             If the log can't be read or a channel is never in it
+	 */
+	public static SystemIdentification fromLog(File log, boolean speed, String measured, String... inputs)
+			throws IOException {
+		String[] names=new String[inputs.length];
+		double[] scales=new double[inputs.length];
+		for (int i=0; i<inputs.length; i++) {
+			names[i]=inputs[i];
+			scales[i]=1;
+			int star=inputs[i].lastIndexOf('*');
+			if (star>0) {
+				try {
+					scales[i]=Double.parseDouble(inputs[i].substring(star+1));
+					names[i]=inputs[i].substring(0, star);
+				}
+				catch (NumberFormatException e) {
+					// the * is part of the name
+				}
+			}
+		}
+
+		SystemIdentification identification=new SystemIdentification();
+		if (new File(log.getPath()+".channels").exists()) {
+			DataLogExporter exporter=new DataLogExporter(log);
+			List<Double> times=exporter.getTimes();
+			double[] measuredColumn=column(exporter, measured, log);
+			double[][] inputColumns=new double[names.length][];
+			for (int i=0; i<names.length; i++) {
+				inputColumns[i]=column(exporter, names[i], log);
+			}
+			for (int tick=0; tick<times.size(); tick++) {
+				double input=0;
+				for (int i=0; i<names.length; i++) {
+					input+=inputColumns[i][tick]*scales[i];
+				}
+				double dt=tick>0?times.get(tick)-times.get(tick-1):0;
+				identification.addLogged(dt, input, measuredColumn[tick], speed);
+			}
+		}
+		else {
+			double tickSeconds=Simulation.TICK_MILLIS/1000.0;
+			boolean found=false;
+			for (Map<String, Double> tick : InputLog.readChannels(log)) {
+				Double value=tick.get(measured);
+				found|=value!=null;
+				double input=0;
+				for (int i=0; i<names.length; i++) {
+					Double part=tick.get(names[i]);
+					input+=part==null?Double.NaN:part*scales[i];
+				}
+				identification.addLogged(tickSeconds, input, value==null?Double.NaN:value, speed);
+			}
+			if (!found) throw new IOException(measured+" is never in "+log);
+		}
+		return identification;
+	}
+
+	private void addLogged(double seconds, double input, double measured, boolean speed) {
+		if (Double.isNaN(input)||Double.isNaN(measured)) {
+			startRun();
+		}
+		else if (speed) {
+			addSpeedSample(seconds, input, measured);
+		}
+		else {
+			addSample(seconds, input, measured);
+		}
+	}
+
+	private static double[] column(DataLogExporter exporter, String name, File log) throws IOException {
+		double[] column=exporter.getColumn(name);
+		if (column==null) throw new IOException(name+" is never in "+log);
+		return column;
+	}
+
+	public static void main(String[] args) throws IOException {
+		boolean servo=args.length>0&&args[0].equals("servo");
+		int first=servo?3:2;
+		boolean valid=args.length>=first+2&&(servo||args[0].equals("motor")||args[0].equals("speed"));
+		if (!valid) {
+			System.out.println("Usage: SystemIdentification motor <log> <position channel> <input channel>[*scale]...");
+			System.out.println("       SystemIdentification speed <log> <speed channel> <input channel>[*scale]...");
+			System.out.println("       SystemIdentification servo <log> <range> <angle channel> <input channel>[*scale]...");
+			System.exit(1);
+		}
+		SystemIdentification identification=fromLog(new File(args[1]), args[0].equals("speed"), args[first],
+				Arrays.copyOfRange(args, first+1, args.length));
+		PlantModel model=servo?identification.fitServo(Double.parseDouble(args[2])):identification.fitMotor();
+		if (model==null) {
+			System.out.println("Couldn't fit a model to the "+identification.getSampleCount()+" samples");
+			System.exit(1);
+		}
+		System.out.println(model);
+		System.out.println(String.format("%d samples, %d ticks of delay, RMS error %.4g per second%s",
+				identification.getSampleCount(), identification.getDelay(), identification.getFitError(),
+				identification.isReversed()?", input is reversed":""));
+	}
+}
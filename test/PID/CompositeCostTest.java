@@ -0,0 +1,70 @@
+package PID;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CompositeCostTest {
+
+	private static final double DT=0.01;
+
+	@Test
+	public void constantErrorAddsUpEachPart() {
+		CompositeCost cost=new CompositeCost(0.1);
+		cost.start(1);
+		for (int i=0; i<100; i++) {
+			cost.update(1, 0.5, DT);
+		}
+		// the sum of (i*DT)*DT for i from 1 to 100
+		assertEquals(5050*DT*DT, cost.getITAE(), 1e-12);
+		assertEquals(1, cost.getISE(), 1e-12);
+		assertEquals(0.25, cost.getEffort(), 1e-12);
+		assertEquals(0, cost.getOvershoot(), 0);
+		assertEquals(1, cost.getSettlingTime(), 1e-12);
+		assertEquals(0.505+0.5*0.25+1, cost.getCost(), 1e-12);
+	}
+
+	@Test
+	public void overshootIsOnlyPastTheTarget() {
+		CompositeCost cost=new CompositeCost(0.1);
+		cost.start(-2);
+		cost.update(-1, 0, DT);
+		cost.update(0.3, 0, DT);
+		cost.update(0.5, 0, DT);
+		cost.update(0.05, 0, DT);
+		assertEquals(0.5, cost.getOvershoot(), 0);
+		// the last frame is inside the band, so it settled after the third
+		assertEquals(3*DT, cost.getSettlingTime(), 1e-12);
+	}
+
+	/**
+	 * The big turn is the small one times 10, output and all. Both get inside
+	 * the settle band on the same frame, since settling time isn't divided by
+	 * the size of the turn.
+	 */
+	@Test
+	public void biggerTurnsCostTheSame() {
+		CompositeCost small=new CompositeCost(0.1), big=new CompositeCost(0.1);
+		small.start(1);
+		big.start(10);
+		double error=1;
+		for (int i=0; i<50; i++) {
+			double output=-0.5*error;
+			small.update(error, output, DT);
+			big.update(10*error, 10*output, DT);
+			error=i<30?error*0.8-0.05:0;
+		}
+		assertEquals(31*DT, big.getSettlingTime(), 1e-12);
+		assertEquals(small.getSettlingTime(), big.getSettlingTime(), 1e-12);
+		assertEquals(small.getCost(), big.getCost(), 1e-9);
+	}
+
+	@Test
+	public void startForgetsTheLastRun() {
+		CompositeCost cost=new CompositeCost(0.1);
+		cost.start(1);
+		cost.update(-1, 1, DT);
+		cost.start(1);
+		assertEquals(0, cost.getCost(), 0);
+	}
+}
@@ -0,0 +1,96 @@
+package PID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import comms.FileLoader;
+import robotDefinitions.RobotName;
+
+public class GainStoreTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	@After
+	public void useRobotFile() {
+		GainStore.setFile(GainStore.GAIN_FILE);
+	}
+
+	private File write(String contents) throws Exception {
+		File file=folder.newFile("PIDGains.csv");
+		FileWriter writer=new FileWriter(file);
+		writer.write(contents);
+		writer.close();
+		GainStore.setFile(file.getPath());
+		return file;
+	}
+
+	@Test
+	public void newestLineForAKeyWins() throws Exception {
+		write("1,BABBAGE,turn,default,1.0,0.001,0.2,75.0,AutoPIDTuner\n"
+				+"2,BABBAGE,turn,default,1.5,0.002,0.3,,hand tuned\n"
+				+"3,TIM,turn,default,9,9,9,1,other robot\n");
+		PIDValues values=GainStore.get(RobotName.BABBAGE, GainStore.TURN, GainStore.DEFAULT_MODE, null);
+		assertEquals(1.5, values.kp, 0);
+		assertEquals(0.002, values.ki, 0);
+		assertEquals(0.3, values.kd, 0);
+
+		List<GainStore.Entry> history=GainStore.getHistory(RobotName.BABBAGE, GainStore.TURN, GainStore.DEFAULT_MODE);
+		assertEquals(2, history.size());
+		assertEquals(1, history.get(0).time);
+		assertEquals(75, history.get(0).score, 0);
+		assertEquals("AutoPIDTuner", history.get(0).source);
+		assertTrue(Double.isNaN(history.get(1).score));
+		assertEquals("hand tuned", history.get(1).source);
+	}
+
+	@Test
+	public void badLinesAreSkipped() throws Exception {
+		write("1,BABBAGE,turn,default,1.0,0.001,0.2,75.0,good\n"
+				+"2,BABBAGE,turn,default,2.0,0.001\n"
+				+"3,BABBAGE,turn,default,abc,0.001,0.2,,not a number\n"
+				+"4,BABBAGE,turn,default,3.0,0.001,0.2,,too,many\n"
+				+"\n");
+		assertEquals(1, GainStore.getHistory(RobotName.BABBAGE, GainStore.TURN, GainStore.DEFAULT_MODE).size());
+		assertEquals(1.0, GainStore.get(RobotName.BABBAGE, GainStore.TURN, GainStore.DEFAULT_MODE, null).kp, 0);
+	}
+
+	@Test
+	public void missingKeyUsesDefaults() throws Exception {
+		write("");
+		PIDValues defaults=new PIDValues(1, 2, 3);
+		assertSame(defaults, GainStore.get(RobotName.PIPER, GainStore.DRIVE_AT_ANGLE, "low gear", defaults));
+		assertNull(GainStore.getFeedForward(RobotName.PIPER, GainStore.LINEAR_FEED_FORWARD, GainStore.DEFAULT_MODE,
+				null));
+	}
+
+	@Test
+	public void savedValuesAreReadBack() throws Exception {
+		File file=write("");
+		GainStore.saveFeedForward(RobotName.BABBAGE, GainStore.ANGULAR_FEED_FORWARD, "with, comma",
+				new FeedForward(0.1, 0.02, 0.003), Double.NaN, "fit\nby hand");
+		assertTrue(FileLoader.waitForWrites(2000));
+
+		GainStore.setFile(file.getPath());
+		FeedForward feedForward=GainStore.getFeedForward(RobotName.BABBAGE, GainStore.ANGULAR_FEED_FORWARD,
+				"with, comma", null);
+		assertEquals(0.1, feedForward.ks, 0);
+		assertEquals(0.02, feedForward.kv, 0);
+		assertEquals(0.003, feedForward.ka, 0);
+		GainStore.Entry entry=GainStore.getHistory(RobotName.BABBAGE, GainStore.ANGULAR_FEED_FORWARD, "with, comma")
+				.get(0);
+		assertTrue(Double.isNaN(entry.score));
+		assertEquals("fit by hand", entry.source);
+	}
+}
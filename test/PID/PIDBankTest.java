@@ -0,0 +1,90 @@
+package PID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class PIDBankTest {
+
+	@Test
+	public void releasedSpotIsReused() {
+		PIDBank bank=new PIDBank(2);
+		PIDBank.Loop first=bank.add(1, 0, 0);
+		bank.add(1, 0, 0);
+		first.release();
+		assertFalse(first.isActive());
+		PIDBank.Loop third=bank.add(2, 0, 0);
+		assertEquals(2, bank.size());
+		assertTrue(third.isActive());
+	}
+
+	@Test
+	public void doubleReleaseThrowsAndFreesNothing() {
+		PIDBank bank=new PIDBank(2);
+		PIDBank.Loop loop=bank.add(1, 0, 0);
+		loop.release();
+		try {
+			loop.release();
+			fail("released twice");
+		}
+		catch (IllegalStateException e) {
+		}
+		// the spot was only freed once, so the second add needs a new one
+		bank.add(1, 0, 0);
+		bank.add(1, 0, 0);
+		assertEquals(2, bank.size());
+	}
+
+	@Test
+	public void staleLoopCantFreeTheNewOwnersSpot() {
+		PIDBank bank=new PIDBank(1);
+		PIDBank.Loop old=bank.add(1, 0, 0);
+		old.release();
+		PIDBank.Loop reused=bank.add(1, 0, 0);
+		try {
+			old.release();
+			fail("released twice");
+		}
+		catch (IllegalStateException e) {
+		}
+		assertTrue(reused.isActive());
+	}
+
+	@Test
+	public void staleLoopCantChangeTheNewOwnersSpot() {
+		PIDBank bank=new PIDBank(1);
+		PIDBank.Loop old=bank.add(1, 0, 0);
+		old.release();
+		PIDBank.Loop reused=bank.add(0.5, 0, 0);
+		reused.setTarget(1);
+		reused.setMeasurement(0);
+		Runnable[] staleCalls= {() -> old.setPID(9, 9, 9), () -> old.setTarget(5), () -> old.setMeasurement(5),
+				() -> old.setActive(false), () -> old.setFeedForward(1, 1, 1), () -> old.setOutputRange(0, 0),
+				() -> old.reset(), () -> old.getOutput()};
+		for (Runnable call : staleCalls) {
+			try {
+				call.run();
+				fail("a released loop was used");
+			}
+			catch (IllegalStateException e) {
+			}
+		}
+		assertFalse(old.isActive());
+		assertTrue(reused.isActive());
+		bank.update(0.02);
+		assertEquals(0.5, reused.getOutput(), 1e-12);
+	}
+
+	@Test
+	public void proportionalLoopMovesTowardTarget() {
+		PIDBank bank=new PIDBank(1);
+		PIDBank.Loop loop=bank.add(0.5, 0, 0);
+		loop.setTarget(1);
+		loop.setMeasurement(0);
+		bank.update(0.02);
+		assertEquals(0.5, loop.getOutput(), 1e-12);
+	}
+}
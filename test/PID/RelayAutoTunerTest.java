@@ -0,0 +1,108 @@
+package PID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import PID.tester.RobotTurnSim;
+
+public class RelayAutoTunerTest {
+
+	private static final double POWER=0.8, HYSTERESIS=0.01, STATIC_FRICTION=0.4, SECONDS_PER_FRAME=0.02;
+
+	/**
+	 * Runs the relay on <i>sim</i> until it is done
+	 *
+	 * @return The number of frames it took, counting the reset
+	 */
+	private static int run(RelayAutoTuner relay, RobotTurnSim sim) {
+		relay.start();
+		int frames=0;
+		while (!relay.isDone()&&frames<10000) {
+			relay.update();
+			sim.update();
+			frames++;
+		}
+		return frames;
+	}
+
+	private static RelayAutoTuner relay(RobotTurnSim sim, double power) {
+		RelayAutoTuner relay=new RelayAutoTuner(sim, power, HYSTERESIS, SECONDS_PER_FRAME);
+		relay.setStaticFriction(STATIC_FRICTION);
+		return relay;
+	}
+
+	@Test
+	public void findsASteadySwing() {
+		RobotTurnSim sim=new RobotTurnSim(2202);
+		RelayAutoTuner relay=relay(sim, POWER);
+		assertEquals(223, run(relay, sim));
+		assertTrue(relay.succeeded());
+		assertEquals(18.25, relay.getUltimateGain(), 0.01);
+		assertEquals(0.3, relay.getUltimatePeriod(), 1e-9);
+	}
+
+	/**
+	 * A P loop with kp at Ku (and kS pushing, like the daveyDTrick) should
+	 * ring at about Tu
+	 */
+	@Test
+	public void ultimateGainRingsAtTheUltimatePeriod() {
+		RobotTurnSim sim=new RobotTurnSim(2202);
+		RelayAutoTuner relay=relay(sim, POWER);
+		run(relay, sim);
+
+		sim=new RobotTurnSim(2202);
+		sim.startReset(0);
+		while (!sim.getResetFinished()) {
+			sim.update();
+		}
+		int crossings=0, firstCrossing=0, lastCrossing=0;
+		double lastError=sim.getError();
+		for (int frame=0; frame<300; frame++) {
+			double output=-relay.getUltimateGain()*sim.getError();
+			sim.setValue(output+STATIC_FRICTION*Math.signum(output));
+			sim.update();
+			double error=sim.getError();
+			if (lastError<0&&error>=0) {
+				crossings++;
+				if (crossings==1) firstCrossing=frame;
+				lastCrossing=frame;
+			}
+			lastError=error;
+		}
+		assertTrue("only "+crossings+" swings", crossings>=4);
+		double period=(lastCrossing-firstCrossing)*SECONDS_PER_FRAME/(crossings-1);
+		assertEquals(relay.getUltimatePeriod(), period, 0.2*relay.getUltimatePeriod());
+	}
+
+	@Test
+	public void autoPIDTunerValuesArePerFrame() {
+		RobotTurnSim sim=new RobotTurnSim(2202);
+		RelayAutoTuner relay=relay(sim, POWER);
+		run(relay, sim);
+		for (RelayAutoTuner.TuningRule rule : RelayAutoTuner.TuningRule.values()) {
+			PIDValues perSecond=relay.getPIDValues(rule);
+			PIDValues perFrame=relay.getAutoPIDTunerValues(rule);
+			assertEquals(rule.kpRatio*relay.getUltimateGain(), perSecond.kp, 1e-9);
+			assertEquals(perSecond.kp, perFrame.kp, 1e-9);
+			assertEquals(perSecond.ki*SECONDS_PER_FRAME, perFrame.ki, 1e-12);
+			assertEquals(STATIC_FRICTION, perFrame.kd, 0);
+		}
+	}
+
+	/**
+	 * Less power than the static friction never gets it moving
+	 */
+	@Test
+	public void givesUpWithoutASwing() {
+		RobotTurnSim sim=new RobotTurnSim(2202);
+		RelayAutoTuner relay=relay(sim, 0.3);
+		relay.setMaxFrames(200);
+		run(relay, sim);
+		assertTrue(relay.isDone());
+		assertFalse(relay.succeeded());
+	}
+}
@@ -0,0 +1,135 @@
+package PID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * The same checks for every TuningStrategy, on a bowl shaped cost that
+ * bottoms out at BEST
+ */
+@RunWith(Parameterized.class)
+public class TuningStrategyTest {
+
+	private static final PIDValues STEP=new PIDValues(0.5, 0.0005, 0.1);
+	private static final PIDValues BEST=new PIDValues(2, 0.001, 0.3);
+	private static final PIDValues START=new PIDValues(1, 0.0005, 0.1);
+	private static final PIDValues MIN=new PIDValues(0, 0, 0), MAX=new PIDValues(5, 0.004, 1);
+
+	/**
+	 * The cost at the bottom of the bowl. EvolutionaryStrategy sizes its
+	 * changes from the cost as if it were frames, so the bowl sits about as
+	 * high as a turn takes.
+	 */
+	private static final double FLOOR=60;
+
+	private static final int TESTS=200;
+
+	/**
+	 * The cost at START is FLOOR+18. EvolutionaryStrategy's changes are sized
+	 * for the gains of a real turn and are small here, so it only has to get
+	 * better. The others have to find the bottom.
+	 */
+	@Parameters(name="{0}")
+	public static Collection<Object[]> strategies() {
+		return Arrays.asList(new Object[][] {
+				{"Evolutionary", (Function<PIDValues, TuningStrategy>)step -> new EvolutionaryStrategy(2202), 15.0,
+						false},
+				{"Nelder-Mead", (Function<PIDValues, TuningStrategy>)step -> new NelderMeadStrategy(step), 0.001,
+						true},
+				{"CMA-ES", (Function<PIDValues, TuningStrategy>)step -> new CMAESStrategy(step, 2202), 0.001, true},
+				{"Bayesian", (Function<PIDValues, TuningStrategy>)step -> new BayesianStrategy(MIN, MAX, 2202), 0.1,
+						false}});
+	}
+
+	private final Function<PIDValues, TuningStrategy> make;
+	private final double allowedExcess;
+	private final boolean takesStep;
+
+	public TuningStrategyTest(String name, Function<PIDValues, TuningStrategy> make, double allowedExcess,
+			boolean takesStep) {
+		this.make=make;
+		this.allowedExcess=allowedExcess;
+		this.takesStep=takesStep;
+	}
+
+	private static double cost(PIDValues values) {
+		double p=(values.kp-BEST.kp)/STEP.kp, i=(values.ki-BEST.ki)/STEP.ki, d=(values.kd-BEST.kd)/STEP.kd;
+		return FLOOR+p*p+2*i*i+3*d*d;
+	}
+
+	/**
+	 * Runs TESTS tests
+	 *
+	 * @return Every set of values that was tested, in order
+	 */
+	private PIDValues[] run(TuningStrategy strategy) {
+		PIDValues[] tested=new PIDValues[TESTS];
+		strategy.start(START);
+		for (int test=0; test<TESTS; test++) {
+			tested[test]=strategy.next();
+			strategy.report(tested[test], cost(tested[test]));
+		}
+		return tested;
+	}
+
+	@Test
+	public void firstTestIsTheStartingValues() {
+		PIDValues first=run(make.apply(STEP))[0];
+		assertEquals(START.kp, first.kp, 1e-12);
+		assertEquals(START.ki, first.ki, 1e-12);
+		assertEquals(START.kd, first.kd, 1e-12);
+	}
+
+	@Test
+	public void getsCloseToTheBottom() {
+		double bestCost=Double.MAX_VALUE;
+		for (PIDValues values : run(make.apply(STEP))) {
+			bestCost=Math.min(bestCost, cost(values));
+		}
+		assertTrue("best cost "+bestCost, bestCost<cost(START));
+		assertTrue("best cost "+bestCost, bestCost-FLOOR<=allowedExcess);
+	}
+
+	@Test
+	public void neverTestsNegativeOrMissingGains() {
+		for (PIDValues values : run(make.apply(STEP))) {
+			for (double constant : new double[] {values.kp, values.ki, values.kd}) {
+				assertTrue(values.toString(), constant>=0&&!Double.isInfinite(constant)&&!Double.isNaN(constant));
+			}
+		}
+	}
+
+	@Test
+	public void sameSeedRepeatsTheRun() {
+		PIDValues[] first=run(make.apply(STEP));
+		PIDValues[] again=run(make.apply(STEP));
+		for (int test=0; test<TESTS; test++) {
+			assertEquals(first[test].toString(), again[test].toString());
+		}
+	}
+
+	@Test
+	public void stepsHaveToBePositive() {
+		assumeTrue(takesStep);
+		for (PIDValues step : new PIDValues[] {new PIDValues(0, 1, 1), new PIDValues(1, -1, 1),
+				new PIDValues(1, 1, Double.NaN)}) {
+			try {
+				make.apply(step);
+				fail("a step of "+step+" was taken");
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+	}
+}
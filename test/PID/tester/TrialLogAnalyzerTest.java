@@ -0,0 +1,87 @@
+package PID.tester;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import PID.PIDValues;
+import PID.TrialLog;
+
+public class TrialLogAnalyzerTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	/**
+	 * Logs a run whose error starts at <i>error</i> and halves every frame
+	 */
+	private static void logRun(TrialLog log, PIDValues values, double error, int frames, double score) {
+		log.startRun(values);
+		for (int i=0; i<frames; i++) {
+			log.logFrame(error, -error/2, 0.02);
+			error/=2;
+		}
+		log.endRun(score);
+	}
+
+	@Test
+	public void readsBackEveryRunThatEnded() throws Exception {
+		File file=folder.newFile("trials.bin");
+		TrialLog log=new TrialLog(file);
+		logRun(log, new PIDValues(1, 0.001, 0.1), 4, 3, 9.5);
+		logRun(log, new PIDValues(2, 0.002, 0.2), -8, 5, 2.25);
+		logRun(log, new PIDValues(3, 0, 0.3), 1, 1, 40);
+		// tuning stopped partway through this one
+		log.startRun(new PIDValues(4, 0, 0));
+		log.logFrame(1, 0, 0.02);
+		log.close();
+		assertEquals(0, log.getDroppedRecords());
+		assertEquals(TrialLog.HEADER_SIZE+(3+9+3+2)*TrialLog.RECORD_SIZE, file.length());
+
+		List<TrialLogAnalyzer.Run> runs=new TrialLogAnalyzer(file).getRuns();
+		assertEquals(3, runs.size());
+		int[] ids= {1, 0, 2};
+		double[] scores= {2.25, 9.5, 40};
+		int[] frames= {5, 3, 1};
+		for (int i=0; i<3; i++) {
+			TrialLogAnalyzer.Run run=runs.get(i);
+			assertEquals(ids[i], run.id);
+			assertEquals(scores[i], run.score, 1e-6);
+			assertEquals(frames[i], run.frames);
+			assertEquals(frames[i], run.trajectory.size());
+			assertEquals(ids[i]+1, run.values.kp, 1e-6);
+			assertEquals(0.1*(ids[i]+1), run.values.kd, 1e-6);
+		}
+		TrialLogAnalyzer.Run best=runs.get(0);
+		assertEquals(0.002, best.values.ki, 1e-9);
+		for (int frame=0; frame<5; frame++) {
+			float[] logged=best.trajectory.get(frame);
+			double error=-8/Math.pow(2, frame);
+			assertEquals(0.02*(frame+1), logged[0], 1e-6);
+			assertEquals(error, logged[1], 1e-6);
+			assertEquals(-error/2, logged[2], 1e-6);
+		}
+	}
+
+	@Test
+	public void recordsThatDontFitAreDroppedAndCounted() throws Exception {
+		File file=folder.newFile("trials.bin");
+		TrialLog log=new TrialLog(file, TrialLog.HEADER_SIZE+6*TrialLog.RECORD_SIZE);
+		logRun(log, new PIDValues(1, 0, 0), 1, 2, 5);
+		// only the START and one frame of this run fit
+		logRun(log, new PIDValues(2, 0, 0), 1, 10, 1);
+		log.close();
+		assertEquals(10, log.getDroppedRecords());
+		assertEquals(TrialLog.HEADER_SIZE+6*TrialLog.RECORD_SIZE, file.length());
+
+		List<TrialLogAnalyzer.Run> runs=new TrialLogAnalyzer(file).getRuns();
+		assertEquals(1, runs.size());
+		assertEquals(0, runs.get(0).id);
+		assertEquals(2, runs.get(0).trajectory.size());
+	}
+}
@@ -0,0 +1,83 @@
+package comms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DataLogExporterTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	/**
+	 * Writes a log the way the DataLogger does, with the two channels set in
+	 * two ticks
+	 */
+	private File writeLog(String first, String second) throws Exception {
+		File log=folder.newFile("telemetry.bin");
+		PrintWriter names=new PrintWriter(new File(log.getPath()+".channels"));
+		names.println("0,D,"+first);
+		names.println("1,D,"+second);
+		names.close();
+
+		double[][] records= { {1000, 0, 1.5}, {1000, 1, -2}, {21000, 0, 2.5}, {21000, 1, -3}};
+		ByteBuffer buffer=ByteBuffer.allocate(DataLogger.HEADER_SIZE+records.length*DataLogger.RECORD_SIZE);
+		buffer.putInt(0, DataLogger.MAGIC);
+		buffer.putInt(4, DataLogger.VERSION);
+		buffer.putInt(8, DataLogger.RECORD_SIZE);
+		buffer.putInt(DataLogger.COUNT_OFFSET, records.length);
+		for (int i=0; i<records.length; i++) {
+			int position=DataLogger.HEADER_SIZE+i*DataLogger.RECORD_SIZE;
+			buffer.putLong(position, (long)records[i][0]);
+			buffer.putShort(position+8, (short)records[i][1]);
+			buffer.putDouble(position+12, records[i][2]);
+		}
+		RandomAccessFile file=new RandomAccessFile(log, "rw");
+		file.write(buffer.array());
+		file.close();
+		return log;
+	}
+
+	@Test
+	public void readsEveryTick() throws Exception {
+		DataLogExporter exporter=new DataLogExporter(writeLog("motor 0", "motor 1"));
+		assertEquals(2, exporter.getTimes().size());
+		assertEquals(0.021, exporter.getTimes().get(1), 1e-9);
+		assertArrayEquals(new double[] {1.5, 2.5}, exporter.getColumn("motor 0"), 0);
+		assertArrayEquals(new double[] {-2, -3}, exporter.getColumn("motor 1"), 0);
+	}
+
+	@Test
+	public void namesThatCleanUpTheSameGetTheirOwnFiles() throws Exception {
+		DataLogExporter exporter=new DataLogExporter(writeLog("motor 0*", "motor 0?"));
+		File columns=folder.newFolder("columns");
+		exporter.writeColumns(columns);
+		assertEquals(3, columns.list().length);
+		assertArrayEquals(new double[] {1.5, 2.5}, readColumn(new File(columns, DataLogExporter.columnFileName(0,
+				"motor 0*"))), 0);
+		assertArrayEquals(new double[] {-2, -3}, readColumn(new File(columns, DataLogExporter.columnFileName(1,
+				"motor 0?"))), 0);
+		assertTrue(new File(columns, "time.f64").exists());
+	}
+
+	private static double[] readColumn(File file) throws Exception {
+		DataInputStream in=new DataInputStream(new FileInputStream(file));
+		double[] values=new double[(int)(file.length()/8)];
+		for (int i=0; i<values.length; i++) {
+			values[i]=in.readDouble();
+		}
+		in.close();
+		return values;
+	}
+}
@@ -0,0 +1,81 @@
+package comms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileAppenderTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	private String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), FileLoader.UTF8);
+	}
+
+	@Test
+	public void appendsToWhatIsThere() throws Exception {
+		File file=folder.newFile("log.txt");
+		FileLoader.writeToFile(file.getPath(), "first\n");
+		FileAppender appender=new FileAppender(file.getPath());
+		appender.appendLine("second").append("thi").append("rd");
+		appender.close();
+		assertEquals("first\nsecond\nthird", read(file));
+	}
+
+	@Test
+	public void clearsTheFileWhenNotAppending() throws Exception {
+		File file=folder.newFile("log.txt");
+		FileLoader.writeToFile(file.getPath(), "old\n");
+		FileAppender appender=new FileAppender(file.getPath(), false);
+		appender.appendLine("new");
+		appender.close();
+		assertEquals("new\n", read(file));
+	}
+
+	@Test
+	public void keepsASurrogatePairSplitBetweenAppends() throws Exception {
+		File file=folder.newFile("log.txt");
+		String pair="\uD83D\uDE00";
+		FileAppender appender=new FileAppender(file.getPath());
+		appender.append("a"+pair.charAt(0)).append("").append(pair.charAt(1)+"b");
+		appender.close();
+		assertArrayEquals(("a"+pair+"b").getBytes(FileLoader.UTF8), Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void writesMoreThanTheBuffer() throws Exception {
+		File file=folder.newFile("log.txt");
+		StringBuilder expected=new StringBuilder();
+		FileAppender appender=new FileAppender(file.getPath());
+		for (int i=0; i<5000; i++) {
+			appender.appendLine("line "+i+" \u00e9");
+			expected.append("line "+i+" \u00e9\n");
+		}
+		appender.close();
+		assertEquals(expected.toString(), read(file));
+	}
+
+	@Test
+	public void closeReportsAHalfPairButKeepsTheRest() throws Exception {
+		File file=folder.newFile("log.txt");
+		FileAppender appender=new FileAppender(file.getPath());
+		appender.append("ok\uD83D");
+		try {
+			appender.close();
+			fail("a lone high surrogate was written");
+		}
+		catch (MalformedInputException e) {
+			// expected
+		}
+		assertEquals("ok", read(file));
+	}
+}
@@ -0,0 +1,75 @@
+package comms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileLoaderTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	@Test
+	public void writesAppendsAndReadsBack() throws Exception {
+		String file=new File(folder.getRoot(), "gains.txt").getPath();
+		assertTrue(FileLoader.writeToFile(file, "kp,1.5\n"));
+		assertTrue(FileLoader.appendToFile(file, "ki,0\nkd,\u00e9\n"));
+		assertArrayEquals(new String[] {"kp,1.5", "ki,0", "kd,\u00e9"}, FileLoader.readFile(file));
+		assertTrue(FileLoader.writeToFile(file, "only\n"));
+		assertArrayEquals(new String[] {"only"}, FileLoader.readFile(file));
+	}
+
+	@Test
+	public void laterWritesLandInOrder() throws Exception {
+		String file=new File(folder.getRoot(), "history.txt").getPath();
+		assertTrue(FileLoader.writeToFileLater(file, "0\n"));
+		for (int i=1; i<100; i++) {
+			assertTrue(FileLoader.appendToFileLater(file, i+"\n"));
+		}
+		assertTrue(FileLoader.waitForWrites(5000));
+		String[] lines=FileLoader.readFile(file);
+		assertEquals(100, lines.length);
+		for (int i=0; i<100; i++) {
+			assertEquals(Integer.toString(i), lines[i]);
+		}
+	}
+
+	@Test
+	public void readsLinesOneAtATime() throws Exception {
+		String file=new File(folder.getRoot(), "big.txt").getPath();
+		StringBuilder contents=new StringBuilder();
+		for (int i=0; i<20000; i++) {
+			contents.append(i).append('\n');
+		}
+		FileLoader.writeToFile(file, contents.toString());
+		LineReader reader=FileLoader.readLines(file);
+		int expected=0;
+		for (String line : reader) {
+			assertEquals(Integer.toString(expected++), line);
+		}
+		assertEquals(20000, expected);
+		assertFalse(reader.hasNext());
+		reader.close();
+	}
+
+	@Test
+	public void aMissingFileHasNoLines() {
+		String file=new File(folder.getRoot(), "missing.txt").getPath();
+		assertFalse(FileLoader.fileExists(file));
+		List<String> lines=new ArrayList<String>();
+		for (String line : FileLoader.readLines(file)) {
+			lines.add(line);
+		}
+		assertTrue(lines.isEmpty());
+		assertEquals(0, FileLoader.readFile(file).length);
+	}
+}
@@ -0,0 +1,68 @@
+package comms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+public class SmartWriterTest {
+
+	private double error=1.5;
+	private long tick;
+
+	@Test
+	public void debugIsShownAndFullIsNot() {
+		assertTrue(SmartWriter.isShown(DebugMode.COMPETITION));
+		assertTrue(SmartWriter.isShown(DebugMode.DEBUG));
+		assertFalse(SmartWriter.isShown(DebugMode.FULL));
+	}
+
+	@Test
+	public void filteredSuppliersAreNotCalled() {
+		final int[] calls= {0};
+		SmartWriter.putS("test filtered", () -> {
+			calls[0]++;
+			return "built";
+		}, DebugMode.FULL);
+		SmartWriter.putD("test filtered", () -> calls[0]++, DebugMode.FULL);
+		assertEquals(0, calls[0]);
+	}
+
+	@Test
+	public void filteredPutsDoNotAllocate() throws Exception {
+		com.sun.management.ThreadMXBean threads=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread=Thread.currentThread().getId();
+		// warm up, so the JIT has compiled and inlined the puts
+		for (int i=0; i<50000; i++) {
+			put();
+		}
+		Thread.sleep(200);
+		// the JIT can still allocate once in a while as it recompiles, so
+		// the best of a few rounds is checked
+		long fewest=Long.MAX_VALUE;
+		for (int round=0; round<5; round++) {
+			long before=threads.getThreadAllocatedBytes(thread);
+			for (int i=0; i<1000; i++) {
+				put();
+			}
+			fewest=Math.min(fewest, threads.getThreadAllocatedBytes(thread)-before);
+		}
+		assertEquals("bytes allocated by 1000 filtered ticks", 0, fewest);
+	}
+
+	/**
+	 * One tick of supplier puts like AngleStopCondition and DriveAtAngle make,
+	 * but at FULL, so they are filtered out. The lambdas capture this object,
+	 * so they would have to be allocated if the puts weren't inlined and
+	 * dropped.
+	 */
+	private void put() {
+		tick++;
+		SmartWriter.putS("test wrong spot", () -> "In wrong spot "+error, DebugMode.FULL);
+		SmartWriter.putS("test right spot", () -> "In right spot, "+tick+" "+error, DebugMode.FULL);
+		SmartWriter.putD("test error", () -> error*tick, DebugMode.FULL);
+	}
+}
@@ -0,0 +1,19 @@
+package comms;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class StringChannelTest {
+
+	@Test
+	public void nullIsSentAsEmptyText() {
+		StringChannel channel=new StringChannel("test text", DebugMode.COMPETITION);
+		channel.set("hello");
+		assertEquals("hello", channel.get());
+		channel.set(null);
+		assertEquals("", channel.get());
+		channel.set(null);
+		assertEquals("", channel.get());
+	}
+}
@@ -0,0 +1,110 @@
+package comms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TelemetryQueueTest {
+
+	/**
+	 * Keeps everything taken off the queue instead of sending it
+	 */
+	private static class Collector extends TelemetryPublisher {
+		final List<String> names=new ArrayList<String>();
+		final List<Double> numbers=new ArrayList<Double>();
+
+		Collector(TelemetryQueue queue) {
+			super(queue, 1);
+		}
+
+		void add(String name, byte type, double number, String string) {
+			names.add(type==TelemetryQueue.STRING?name+"="+string:name);
+			numbers.add(number);
+		}
+	}
+
+	@Test
+	public void updatesComeOutInOrder() {
+		TelemetryQueue queue=new TelemetryQueue(8);
+		Collector collector=new Collector(queue);
+		assertTrue(queue.offer("a", TelemetryQueue.NUMBER, 1.5, null));
+		assertTrue(queue.offer("b", TelemetryQueue.BOOLEAN, 1, null));
+		assertTrue(queue.offer("c", TelemetryQueue.STRING, 0, "hi"));
+		assertEquals(3, queue.getDepth());
+
+		while (queue.poll(collector));
+		assertEquals("[a, b, c=hi]", collector.names.toString());
+		assertEquals(1.5, collector.numbers.get(0), 0);
+		assertEquals(0, queue.getDepth());
+		assertFalse(queue.poll(collector));
+	}
+
+	@Test
+	public void fullQueueDropsAndCounts() {
+		// rounded up to 4
+		TelemetryQueue queue=new TelemetryQueue(3);
+		Collector collector=new Collector(queue);
+		for (int i=0; i<4; i++) {
+			assertTrue(queue.offer("n", TelemetryQueue.NUMBER, i, null));
+		}
+		assertFalse(queue.offer("n", TelemetryQueue.NUMBER, 4, null));
+		assertEquals(1, queue.getDropCount());
+
+		// taking one out makes room for one more, in the reused slot
+		assertTrue(queue.poll(collector));
+		assertTrue(queue.offer("n", TelemetryQueue.NUMBER, 5, null));
+		while (queue.poll(collector));
+		assertEquals("[0.0, 1.0, 2.0, 3.0, 5.0]", collector.numbers.toString());
+	}
+
+	@Test
+	public void concurrentWritersLoseNothingUncounted() throws InterruptedException {
+		final TelemetryQueue queue=new TelemetryQueue(64);
+		final int writers=4, perWriter=20000;
+		Thread[] threads=new Thread[writers];
+		for (int w=0; w<writers; w++) {
+			final int writer=w;
+			threads[w]=new Thread(new Runnable() {
+				public void run() {
+					for (int i=0; i<perWriter; i++) {
+						queue.offer("w"+writer, TelemetryQueue.NUMBER, i, null);
+					}
+				}
+			});
+			threads[w].start();
+		}
+
+		final long[] received=new long[writers];
+		final double[] last=new double[writers];
+		final boolean[] ordered= {true};
+		TelemetryPublisher counter=new TelemetryPublisher(queue, 1) {
+			void add(String name, byte type, double number, String string) {
+				int writer=name.charAt(1)-'0';
+				if (received[writer]>0&&number<=last[writer]) ordered[0]=false;
+				last[writer]=number;
+				received[writer]++;
+			}
+		};
+		boolean running=true;
+		while (running) {
+			running=false;
+			for (Thread thread : threads) {
+				running|=thread.isAlive();
+			}
+			while (queue.poll(counter));
+		}
+		while (queue.poll(counter));
+
+		long total=0;
+		for (long count : received) {
+			total+=count;
+		}
+		assertEquals(writers*perWriter, total+queue.getDropCount());
+		assertTrue("each writer's updates came out in the order it wrote them", ordered[0]);
+	}
+}
@@ -0,0 +1,151 @@
+package input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import robot.ControlPhase;
+
+public class InputLogTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	@After
+	public void stop() {
+		InputLog.stop();
+	}
+
+	@Test
+	public void readReturnsLiveValueWhenNotRecording() {
+		int channel=InputLog.getChannel("test idle");
+		assertEquals(4.5, InputLog.read(channel, 4.5), 0);
+		assertTrue(InputLog.read(channel, true));
+	}
+
+	@Test
+	public void channelIdsStayTheSame() {
+		int channel=InputLog.getChannel("test same");
+		assertEquals(channel, InputLog.getChannel("test same"));
+		assertTrue(channel!=InputLog.getChannel("test other"));
+	}
+
+	@Test
+	public void replayReturnsRecordedValuesInOrder() throws Exception {
+		File log=folder.newFile("inputs.bin"), outputs=folder.newFile("outputs.bin");
+		int sensor=InputLog.getChannel("test sensor"), button=InputLog.getChannel("test button"),
+				motor=InputLog.getChannel("test motor");
+
+		assertTrue(InputLog.startRecording(log));
+		InputLog.startTick(ControlPhase.TELEOP_PERIODIC, 1);
+		InputLog.read(sensor, 1.5);
+		InputLog.read(sensor, 2.5);
+		InputLog.read(button, true);
+		InputLog.recordOutput(motor, 0.25);
+		InputLog.startTick(ControlPhase.TELEOP_PERIODIC, 2);
+		InputLog.read(sensor, 3.5);
+		InputLog.recordOutput(motor, -0.5);
+		InputLog.stop();
+
+		assertTrue(InputLog.startReplay(log, outputs));
+		assertEquals(ControlPhase.TELEOP_PERIODIC, InputLog.getNextReplayPhase());
+		InputLog.startTick(ControlPhase.TELEOP_PERIODIC, 1);
+		assertEquals(1.5, InputLog.read(sensor, 0), 0);
+		assertEquals(2.5, InputLog.read(sensor, 0), 0);
+		// read more times than it was recorded, so it repeats the last value
+		assertEquals(2.5, InputLog.read(sensor, 0), 0);
+		assertTrue(InputLog.read(button, false));
+		assertEquals(7, InputLog.read("test never recorded", 7), 0);
+		InputLog.recordOutput(motor, 0.25);
+		InputLog.startTick(ControlPhase.TELEOP_PERIODIC, 2);
+		assertEquals(3.5, InputLog.read(sensor, 0), 0);
+		// not recorded this tick, so it keeps the last value it had
+		assertTrue(InputLog.read(button, false));
+		InputLog.recordOutput(motor, -0.5);
+		assertTrue(InputLog.isReplayFinished());
+		InputLog.stop();
+
+		assertNull(InputLog.compareOutputs(log, outputs, 1e-9));
+		List<Map<String, Double>> ticks=InputLog.readChannels(log);
+		assertEquals(2, ticks.size());
+		assertEquals(2.5, ticks.get(0).get("test sensor"), 0);
+		assertEquals(0.25, ticks.get(0).get("test motor"), 0);
+		assertEquals(-0.5, ticks.get(1).get("test motor"), 0);
+	}
+
+	@Test
+	public void replayUsesTheRecordedTickCount() throws Exception {
+		File log=folder.newFile("inputs.bin");
+		assertTrue(InputLog.startRecording(log));
+		assertEquals(41, InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 41));
+		assertEquals(42, InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 42));
+		InputLog.stop();
+
+		// the replay starts counting from somewhere else, like a new robot
+		// program would
+		assertTrue(InputLog.startReplay(log, null));
+		assertEquals(41, InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 1));
+		assertEquals(42, InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 2));
+		// past the end of the log, the caller's count is used
+		assertEquals(3, InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 3));
+	}
+
+	@Test
+	public void differentOutputsAreFound() throws Exception {
+		File log=folder.newFile("inputs.bin"), outputs=folder.newFile("outputs.bin");
+		int motor=InputLog.getChannel("test motor");
+
+		assertTrue(InputLog.startRecording(log));
+		InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 1);
+		InputLog.recordOutput(motor, 1);
+		InputLog.stop();
+
+		assertTrue(InputLog.startReplay(log, outputs));
+		InputLog.startTick(ControlPhase.AUTONOMOUS_PERIODIC, 1);
+		InputLog.recordOutput(motor, 0.5);
+		InputLog.stop();
+
+		assertEquals("tick 1: test motor was 0.5 instead of 1.0", InputLog.compareOutputs(log, outputs, 1e-9));
+	}
+
+	@Test
+	public void recordingDoesNotAllocate() throws Exception {
+		com.sun.management.ThreadMXBean threads=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread=Thread.currentThread().getId();
+		int sensor=InputLog.getChannel("test allocation");
+		assertTrue(InputLog.startRecording(folder.newFile("inputs.bin")));
+		// warm up, so the JIT and the first CHANNEL record are out of the way
+		for (int i=0; i<5000; i++) {
+			record(sensor, i);
+		}
+		// let the writer catch up, so the ring doesn't fill
+		Thread.sleep(500);
+		// the JIT can still allocate once in a while as it recompiles, so
+		// the best of a few rounds is checked
+		long fewest=Long.MAX_VALUE;
+		for (int round=0; round<5; round++) {
+			long before=threads.getThreadAllocatedBytes(thread);
+			for (int i=0; i<1000; i++) {
+				record(sensor, i);
+			}
+			fewest=Math.min(fewest, threads.getThreadAllocatedBytes(thread)-before);
+		}
+		assertEquals("bytes allocated by 1000 recorded ticks", 0, fewest);
+	}
+
+	private static void record(int sensor, int tick) {
+		InputLog.startTick(ControlPhase.TELEOP_PERIODIC, 1);
+		InputLog.read(sensor, tick);
+		InputLog.read(sensor, tick>0);
+	}
+}
@@ -0,0 +1,201 @@
+package robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times one teleopPeriodic tick over a set of IControl objects three ways, and
+ * checks that all three make the same calls:
+ * <ul>
+ * <li>all objects: the loop from before DispatchTable, calling callPhase on
+ * every object whether it overrides teleopPeriodic or not</li>
+ * <li>table: the loop callPeriodic uses now, over only the objects in the
+ * phase's DispatchTable</li>
+ * <li>table, direct: the same table, but calling teleopPeriodic directly
+ * instead of going through callPhase's switch</li>
+ * </ul>
+ * The first set is like Babbage (25 objects, 20 of them overriding
+ * teleopPeriodic), and the others are bigger robots where only a quarter of
+ * the objects do something every teleop tick. The objects are spread over ten
+ * classes (four of which override it), so the calls can't be inlined to one
+ * target. <br>
+ * <br>
+ * This is a plain timing loop with a warm-up like PIDBankBenchmark, not a real
+ * benchmark harness, so run it a few times and only trust big differences.
+ */
+public class DispatchBenchmark {
+
+	private static final int WARMUP_TICKS=200000;
+	private static final int TIMED_TICKS=1000000;
+
+	/**
+	 * The number of objects, and how many of them override teleopPeriodic
+	 */
+	private static final int[][] SETS= { {25, 20}, {40, 10}, {80, 20}};
+
+	/**
+	 * Counts the calls, so the JIT can't throw them out
+	 */
+	static long calls;
+
+	public static void main(String[] args) {
+		for (int[] set : SETS) {
+			int count=set[0], overriding=set[1];
+			List<IControl> objects=new ArrayList<IControl>();
+			for (int i=0; i<count; i++) {
+				objects.add(make(i, i*overriding%count<overriding));
+			}
+			IControl[] all=objects.toArray(new IControl[0]);
+			DispatchTable table=DispatchTable.build(objects, ControlPhase.TELEOP_PERIODIC);
+
+			long tableCalls=runTable(table, WARMUP_TICKS), allCalls=runAll(all, WARMUP_TICKS),
+					directCalls=runDirect(table, WARMUP_TICKS);
+			if (allCalls!=tableCalls||allCalls!=directCalls) {
+				System.out.println("Calls don't match: "+allCalls+", "+tableCalls+", "+directCalls);
+			}
+
+			long start=System.nanoTime();
+			runAll(all, TIMED_TICKS);
+			double allNanos=(System.nanoTime()-start)/(double)TIMED_TICKS;
+			start=System.nanoTime();
+			runTable(table, TIMED_TICKS);
+			double tableNanos=(System.nanoTime()-start)/(double)TIMED_TICKS;
+			start=System.nanoTime();
+			runDirect(table, TIMED_TICKS);
+			double directNanos=(System.nanoTime()-start)/(double)TIMED_TICKS;
+
+			System.out.println(String.format(
+					"%2d objects (%2d override): all objects %6.1f ns/tick, table %6.1f ns/tick (%.2fx), table, direct %6.1f ns/tick (%.2fx)",
+					count, table.objects.length, allNanos, tableNanos, allNanos/tableNanos, directNanos,
+					allNanos/directNanos));
+		}
+	}
+
+	private static long runAll(IControl[] all, int ticks) {
+		long before=calls;
+		for (int tick=0; tick<ticks; tick++) {
+			for (int i=0; i<all.length; i++) {
+				all[i].callPhase(ControlPhase.TELEOP_PERIODIC);
+			}
+		}
+		return calls-before;
+	}
+
+	private static long runTable(DispatchTable table, int ticks) {
+		long before=calls;
+		IControl[] objects=table.objects;
+		for (int tick=0; tick<ticks; tick++) {
+			for (int i=0; i<objects.length; i++) {
+				objects[i].callPhase(ControlPhase.TELEOP_PERIODIC);
+			}
+		}
+		return calls-before;
+	}
+
+	private static long runDirect(DispatchTable table, int ticks) {
+		long before=calls;
+		IControl[] objects=table.objects;
+		for (int tick=0; tick<ticks; tick++) {
+			for (int i=0; i<objects.length; i++) {
+				objects[i].teleopPeriodic();
+			}
+		}
+		return calls-before;
+	}
+
+	/**
+	 * Makes the <i>i</i>th object, which overrides teleopPeriodic if
+	 * <i>busy</i> is true and only overrides other phases (or nothing)
+	 * otherwise
+	 */
+	private static IControl make(int i, boolean busy) {
+		if (busy) {
+			switch (i%4) {
+			case 0:
+				return new BusyA();
+			case 1:
+				return new BusyB();
+			case 2:
+				return new BusyC();
+			default:
+				return new BusyD();
+			}
+		}
+		switch (i%6) {
+		case 0:
+			return new IdleA();
+		case 1:
+			return new IdleB();
+		case 2:
+			return new IdleC();
+		case 3:
+			return new IdleD();
+		case 4:
+			return new IdleE();
+		default:
+			return new IdleF();
+		}
+	}
+
+	private static class BusyA extends IControl {
+		public void teleopPeriodic() {
+			calls++;
+		}
+	}
+
+	private static class BusyB extends IControl {
+		public void teleopPeriodic() {
+			calls++;
+		}
+
+		public void autonomousPeriodic() {
+			calls++;
+		}
+	}
+
+	private static class BusyC extends IControl {
+		public void teleopPeriodic() {
+			calls++;
+		}
+
+		public void teleopInit() {
+			calls++;
+		}
+	}
+
+	private static class BusyD extends IControl {
+		public void teleopPeriodic() {
+			calls+=2;
+		}
+	}
+
+	private static class IdleA extends IControl {
+	}
+
+	private static class IdleB extends IControl {
+		public void autonomousPeriodic() {
+			calls++;
+		}
+	}
+
+	private static class IdleC extends IControl {
+		public void teleopInit() {
+			calls++;
+		}
+	}
+
+	private static class IdleD extends IControl {
+		public void disabledPeriodic() {
+			calls++;
+		}
+	}
+
+	private static class IdleE extends IControl {
+		public void autonomousInit() {
+			calls++;
+		}
+	}
+
+	private static class IdleF extends IControl {
+	}
+}
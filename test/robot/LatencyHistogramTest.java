@@ -0,0 +1,62 @@
+package robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void emptyHistogramReturnsZeros() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getP99());
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		for (int i=1; i<=10; i++) {
+			histogram.record(i);
+		}
+		assertEquals(10, histogram.getCount());
+		assertEquals(5, histogram.getMean());
+		assertEquals(5, histogram.getP50());
+		assertEquals(10, histogram.getMax());
+	}
+
+	@Test
+	public void percentilesAreWithinABucket() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		for (long nanos=1000; nanos<=100000; nanos+=1000) {
+			histogram.record(nanos);
+		}
+		long p50=histogram.getP50(), p99=histogram.getP99();
+		assertTrue("p50 was "+p50, p50>=50000&&p50<=50000*1.125);
+		assertTrue("p99 was "+p99, p99>=99000&&p99<=100000);
+		assertEquals(100000, histogram.getMax());
+	}
+
+	@Test
+	public void hugeAndNegativeValuesAreClamped() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE/2);
+		assertEquals(2, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(0.5));
+		assertEquals(Long.MAX_VALUE/2, histogram.getPercentile(1));
+	}
+
+	@Test
+	public void resetClearsEverything() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		histogram.record(12345);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getP99());
+	}
+}
@@ -0,0 +1,130 @@
+package robotDefinitions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RobotConfigTest {
+
+	@Rule
+	public TemporaryFolder folder=new TemporaryFolder();
+
+	private static Map<String, String> defaults() {
+		Map<String, String> defaults=new HashMap<String, String>();
+		defaults.put("PORT", "3");
+		defaults.put("SCALE", "0.5");
+		defaults.put("HAS_NAVX", "true");
+		defaults.put("OLD_FLAG", "1");
+		defaults.put("NAME", "babbage");
+		return defaults;
+	}
+
+	@Test
+	public void defaultsAreParsedByType() {
+		RobotConfig config=RobotConfig.compile("TEST", defaults(), new HashMap<String, String>(), "none");
+		assertEquals(3, config.getInt("PORT"));
+		assertEquals(3, config.getDouble("PORT"), 0);
+		assertEquals(0.5, config.getDouble("SCALE"), 0);
+		assertTrue(config.getBoolean("HAS_NAVX"));
+		assertEquals("babbage", config.getString("NAME"));
+	}
+
+	@Test
+	public void keysReadTheSameValuesAsNames() {
+		RobotConfig config=RobotConfig.compile("TEST", defaults(), new HashMap<String, String>(), "none");
+		int port=config.key("PORT");
+		int scale=config.key("SCALE");
+		assertEquals(3, config.getInt(port));
+		assertEquals(3, config.getDouble(port), 0);
+		assertEquals(0.5, config.getDouble(scale), 0);
+		assertTrue(config.getBoolean(config.key("HAS_NAVX")));
+		assertEquals("babbage", config.getString(config.key("NAME")));
+		try {
+			config.getInt(scale);
+			fail("SCALE isn't a whole number");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("TEST has no whole number property called SCALE", e.getMessage());
+		}
+		try {
+			config.key("MISSING");
+			fail("there is no MISSING property");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("TEST has no property called MISSING", e.getMessage());
+		}
+	}
+
+	@Test
+	public void getBooleanReadsAnyPropertyLikeGetBoolDid() {
+		Map<String, String> overrides=new HashMap<String, String>();
+		overrides.put("NAME", "On");
+		RobotConfig config=RobotConfig.compile("TEST", defaults(), overrides, "none");
+		assertTrue(config.getBoolean("OLD_FLAG"));
+		assertTrue(config.getBoolean("NAME"));
+		assertFalse(config.getBoolean("PORT"));
+		assertFalse(config.getBoolean("SCALE"));
+
+		overrides.put("OLD_FLAG", "0");
+		overrides.put("HAS_NAVX", "OFF");
+		config=RobotConfig.compile("TEST", defaults(), overrides, "none");
+		assertFalse(config.getBoolean("OLD_FLAG"));
+		assertFalse(config.getBoolean("HAS_NAVX"));
+	}
+
+	@Test
+	public void everyProblemIsReportedAtOnce() {
+		Map<String, String> overrides=new HashMap<String, String>();
+		overrides.put("PORT", "three");
+		overrides.put("SCALE", "half");
+		overrides.put("HAS_NAVX", "maybe");
+		overrides.put("NOT_A_KEY", "1");
+		try {
+			RobotConfig.compile("TEST", defaults(), overrides, "test.properties");
+			fail("the overrides are all wrong");
+		}
+		catch (IllegalArgumentException e) {
+			String message=e.getMessage();
+			assertTrue(message, message.startsWith("4 problems in the TEST config (test.properties):"));
+			assertTrue(message, message.contains("PORT should be a whole number, but is \"three\""));
+			assertTrue(message, message.contains("SCALE should be a number, but is \"half\""));
+			assertTrue(message, message.contains("HAS_NAVX should be true or false, but is \"maybe\""));
+			assertTrue(message, message.contains("NOT_A_KEY is not a property of TEST"));
+		}
+	}
+
+	@Test
+	public void fileOverridesDefaults() throws Exception {
+		File file=folder.newFile("TEST.properties");
+		FileWriter writer=new FileWriter(file);
+		writer.write("# moved the motor\nPORT = 7\nHAS_NAVX=unset\n");
+		writer.close();
+		RobotConfig config=RobotConfig.load("TEST", defaults(), file, true);
+		assertEquals(7, config.getInt("PORT"));
+		assertFalse(config.getBoolean("HAS_NAVX"));
+		assertEquals(0.5, config.getDouble("SCALE"), 0);
+	}
+
+	@Test
+	public void missingFileIsOnlyAnErrorWhenRequired() {
+		File file=new File(folder.getRoot(), "missing.properties");
+		assertEquals(3, RobotConfig.load("TEST", defaults(), file, false).getInt("PORT"));
+		try {
+			RobotConfig.load("TEST", defaults(), file, true);
+			fail("the file is required");
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("needs a config file"));
+		}
+	}
+}
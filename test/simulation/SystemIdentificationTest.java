@@ -0,0 +1,83 @@
+package simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SystemIdentificationTest {
+
+	private static final double DT=0.02;
+
+	/**
+	 * Drives <i>motor</i> with steps of different sizes in both directions,
+	 * like the characterization tests do, and adds a sample every tick. The
+	 * motor gets each input <i>delay</i> ticks after it is logged.
+	 */
+	private static SystemIdentification drive(MotorModel motor, int delay, double sign) {
+		SystemIdentification identification=new SystemIdentification();
+		double[] steps= {0.3, 0.6, 1, -0.4, -0.8, 0.5, 0, -1};
+		double[] sent=new double[delay+1];
+		for (double step : steps) {
+			for (int tick=0; tick<50; tick++) {
+				identification.addSample(DT, step, sign*motor.getPosition());
+				System.arraycopy(sent, 1, sent, 0, delay);
+				sent[delay]=step;
+				motor.setInput(sent[0]);
+				motor.update(DT);
+			}
+		}
+		return identification;
+	}
+
+	private static void assertClose(double expected, double actual) {
+		assertEquals(expected, actual, Math.abs(expected)*0.03);
+	}
+
+	@Test
+	public void recoversTheMotorItWasGiven() {
+		MotorModel real=new MotorModel(0.05, 0.01, 0.002);
+		SystemIdentification identification=drive(real, 0, 1);
+		MotorModel fit=identification.fitMotor();
+		assertNotNull(fit);
+		assertClose(0.05, fit.getKS());
+		assertClose(0.01, fit.getKV());
+		assertClose(0.002, fit.getKA());
+		assertEquals(0, identification.getDelay());
+		assertFalse(identification.isReversed());
+		// in units per second, where the top speed is 95
+		assertTrue(identification.getFitError()<0.1);
+	}
+
+	@Test
+	public void findsTheDelay() {
+		MotorModel real=new MotorModel(0, 0.02, 0.004);
+		SystemIdentification identification=drive(real, 1, 1);
+		MotorModel fit=identification.fitMotor();
+		assertNotNull(fit);
+		assertEquals(1, identification.getDelay());
+		assertClose(0.02, fit.getKV());
+		assertClose(0.004, fit.getKA());
+	}
+
+	@Test
+	public void findsAReversedMechanism() {
+		SystemIdentification identification=drive(MotorModel.babbageYaw(), 0, -1);
+		MotorModel fit=identification.fitMotor();
+		assertNotNull(fit);
+		assertTrue(identification.isReversed());
+		assertClose(MotorModel.babbageYaw().getKV(), fit.getKV());
+	}
+
+	@Test
+	public void tooFewSamplesGiveNothing() {
+		SystemIdentification identification=new SystemIdentification();
+		for (int i=0; i<5; i++) {
+			identification.addSample(DT, 0.5, i);
+		}
+		assertNull(identification.fitMotor());
+	}
+}